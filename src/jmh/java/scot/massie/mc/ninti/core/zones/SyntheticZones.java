@@ -0,0 +1,153 @@
+package scot.massie.mc.ninti.core.zones;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Builds registries of made-up zones for benchmarking, and points to query them at.
+ */
+public final class SyntheticZones
+{
+    /**
+     * The ways made-up zones may be laid out.
+     */
+    public enum Layout
+    {
+        /**
+         * Each zone is a square claim of whole chunks, each chunk being its own rectangular region, with a gap of a
+         * chunk between claims. No zones overlap.
+         */
+        CHUNK_CLAIMS,
+
+        /**
+         * Each zone is made of large cuboids of random sizes and heights, at random positions across the world. Zones
+         * overlap freely.
+         */
+        LARGE_CUBOIDS
+    }
+
+    private SyntheticZones()
+    {}
+
+    /**
+     * The ID of the world all made-up zones are in.
+     */
+    public static final String worldId = "minecraft:overworld";
+
+    /**
+     * The ID of a world no made-up zones are in.
+     */
+    public static final String emptyWorldId = "minecraft:the_nether";
+
+    /**
+     * The file path given to registries that are only queried, and never saved or loaded.
+     */
+    public static final Path unsavedFilePath = Paths.get("benchmark-zones-unsaved.txt");
+
+    private static final int chunkWidth = 16;
+    private static final int minCuboidWidth = 32;
+    private static final int maxCuboidWidth = 512;
+    private static final int cuboidWorldWidthPerZone = 256;
+
+    /**
+     * Gets the width of the square area, from 0, 0, that made-up zones are placed within.
+     * @param zoneCount The number of zones.
+     * @param regionsPerZone The number of regions in each zone.
+     * @param layout How the zones are laid out.
+     * @return The width of the area zones are placed within, in blocks.
+     */
+    public static int getWorldWidth(int zoneCount, int regionsPerZone, Layout layout)
+    {
+        int zonesPerRow = (int)Math.ceil(Math.sqrt(zoneCount));
+
+        if(layout == Layout.CHUNK_CLAIMS)
+            return zonesPerRow * (getClaimWidthInChunks(regionsPerZone) + 1) * chunkWidth;
+
+        return Math.max(maxCuboidWidth * 4, zonesPerRow * cuboidWorldWidthPerZone);
+    }
+
+    /**
+     * Registers made-up zones in the given registry, named "zone0", "zone1", etc.
+     * @param registry The registry to register the zones in.
+     * @param zoneCount The number of zones to register.
+     * @param regionsPerZone The number of regions to give each zone.
+     * @param layout How to lay out the zones.
+     * @param seed The seed for the random sizes and positions of regions, so the same zones may be made again.
+     */
+    public static void populate(ZoneRegistry registry, int zoneCount, int regionsPerZone, Layout layout, long seed)
+    {
+        Random random = new Random(seed);
+        int zonesPerRow = (int)Math.ceil(Math.sqrt(zoneCount));
+        int worldWidth = getWorldWidth(zoneCount, regionsPerZone, layout);
+
+        for(int i = 0; i < zoneCount; i++)
+        {
+            Zone zone = new Zone("zone" + i, worldId);
+
+            if(layout == Layout.CHUNK_CLAIMS)
+                addChunkClaim(zone, i % zonesPerRow, i / zonesPerRow, regionsPerZone);
+            else
+                addLargeCuboids(zone, regionsPerZone, worldWidth, random);
+
+            registry.register(zone);
+        }
+    }
+
+    private static int getClaimWidthInChunks(int regionsPerZone)
+    { return (int)Math.ceil(Math.sqrt(regionsPerZone)); }
+
+    private static void addChunkClaim(Zone zone, int column, int row, int chunkCount)
+    {
+        int claimWidth = getClaimWidthInChunks(chunkCount);
+        int firstChunkX = column * (claimWidth + 1);
+        int firstChunkZ = row * (claimWidth + 1);
+
+        for(int i = 0; i < chunkCount; i++)
+        {
+            int chunkX = firstChunkX + i % claimWidth;
+            int chunkZ = firstChunkZ + i / claimWidth;
+            zone.addRegion(Zone.ZoneRegionRectangle.ofChunk(chunkX, chunkZ));
+        }
+    }
+
+    private static void addLargeCuboids(Zone zone, int cuboidCount, int worldWidth, Random random)
+    {
+        for(int i = 0; i < cuboidCount; i++)
+        {
+            int width = minCuboidWidth + random.nextInt(maxCuboidWidth - minCuboidWidth);
+            int depth = minCuboidWidth + random.nextInt(maxCuboidWidth - minCuboidWidth);
+            int fromX = random.nextInt(worldWidth - width);
+            int fromZ = random.nextInt(worldWidth - depth);
+            int fromY = random.nextInt(128);
+            int toY = fromY + random.nextInt(128);
+            zone.addRegion(new Zone.ZoneRegionCuboid(fromX, fromY, fromZ, fromX + width, toY, fromZ + depth));
+        }
+    }
+
+    /**
+     * Makes random points within the area made-up zones are placed within, to query zones at.
+     * @param count The number of points to make.
+     * @param worldWidth The width of the area made-up zones are placed within, as given by
+     *                   {@link #getWorldWidth(int, int, Layout)}.
+     * @param seed The seed for the random positions of points, so the same points may be made again.
+     * @return An array of the points' X coördinates, an array of their Y coördinates, and an array of their Z
+     *         coördinates.
+     */
+    public static int[][] randomPoints(int count, int worldWidth, long seed)
+    {
+        Random random = new Random(seed);
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int[] zs = new int[count];
+
+        for(int i = 0; i < count; i++)
+        {
+            xs[i] = random.nextInt(worldWidth);
+            ys[i] = random.nextInt(256);
+            zs[i] = random.nextInt(worldWidth);
+        }
+
+        return new int[][] { xs, ys, zs };
+    }
+}
@@ -0,0 +1,92 @@
+package scot.massie.mc.ninti.core.zones;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks saving and loading large zone registry files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ZoneFileBenchmark
+{
+    @Param({"1000", "100000"})
+    public int zoneCount;
+
+    @Param({"16"})
+    public int regionsPerZone;
+
+    @Param({"CHUNK_CLAIMS", "LARGE_CUBOIDS"})
+    public SyntheticZones.Layout layout;
+
+    private Path folder;
+    private Path file;
+    private ZoneRegistry savingRegistry;
+    private ZoneRegistry loadingRegistry;
+    private int saveCount = 0;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        folder = Files.createTempDirectory("ninti-zones-benchmark");
+        file = folder.resolve("zones.txt");
+        savingRegistry = new ZoneRegistry(file);
+        SyntheticZones.populate(savingRegistry, zoneCount, regionsPerZone, layout, 1L);
+        savingRegistry.save();
+        loadingRegistry = new ZoneRegistry(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(folder);
+    }
+
+    @Benchmark
+    public void save()
+    {
+        // Saving does nothing where nothing has changed since the last save, so change something first.
+        savingRegistry.setPriority("zone0", ++saveCount);
+        savingRegistry.save();
+    }
+
+    @Benchmark
+    public ZoneRegistry loadIntoEmptyRegistry()
+    {
+        ZoneRegistry registry = new ZoneRegistry(file);
+        registry.load();
+        return registry;
+    }
+
+    /*
+     * Loading into a registry that already holds the same zones only replaces the zones that differ, so this measures
+     * reading and comparing, without rebuilding the registry.
+     */
+
+    @Benchmark
+    public ZoneRegistry loadUnchanged()
+    {
+        loadingRegistry.load();
+        return loadingRegistry;
+    }
+}
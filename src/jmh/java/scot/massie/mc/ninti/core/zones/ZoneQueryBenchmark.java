@@ -0,0 +1,111 @@
+package scot.massie.mc.ninti.core.zones;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks querying which zones are at a point, over registries of different numbers of zones, laid out in different
+ * ways, with and without the chunks queried being loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneQueryBenchmark
+{
+    private static final int pointCount = 4096;
+
+    @Param({"10", "1000", "100000"})
+    public int zoneCount;
+
+    @Param({"1", "16"})
+    public int regionsPerZone;
+
+    @Param({"CHUNK_CLAIMS", "LARGE_CUBOIDS"})
+    public SyntheticZones.Layout layout;
+
+    /**
+     * Whether the chunks queried are marked as loaded, so that queries in them use the per-chunk zone lists rather than
+     * the world-wide index.
+     */
+    @Param({"false", "true"})
+    public boolean loadChunks;
+
+    private ZoneRegistry registry;
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+    private int pointIndex = 0;
+
+    @Setup
+    public void setUp()
+    {
+        registry = new ZoneRegistry(SyntheticZones.unsavedFilePath);
+        SyntheticZones.populate(registry, zoneCount, regionsPerZone, layout, 1L);
+        int worldWidth = SyntheticZones.getWorldWidth(zoneCount, regionsPerZone, layout);
+        int[][] points = SyntheticZones.randomPoints(pointCount, worldWidth, 2L);
+        xs = points[0];
+        ys = points[1];
+        zs = points[2];
+
+        if(loadChunks)
+            for(int i = 0; i < pointCount; i++)
+                registry.chunkLoaded(SyntheticZones.worldId, xs[i] >> 4, zs[i] >> 4);
+
+        // Build the world-wide index up front, rather than in the first measured query.
+        registry.getZonesAt(SyntheticZones.worldId, 0, 0);
+    }
+
+    private int nextPoint()
+    { return pointIndex = (pointIndex + 1) & (pointCount - 1); }
+
+    @Benchmark
+    public Collection<Zone> getZonesAt2D()
+    {
+        int i = nextPoint();
+        return registry.getZonesAt(SyntheticZones.worldId, xs[i], zs[i]);
+    }
+
+    @Benchmark
+    public Collection<Zone> getZonesAt3D()
+    {
+        int i = nextPoint();
+        return registry.getZonesAt(SyntheticZones.worldId, xs[i], ys[i], zs[i]);
+    }
+
+    @Benchmark
+    public List<String> getZoneNamesAt2D()
+    {
+        int i = nextPoint();
+        return registry.getZoneNamesAt(SyntheticZones.worldId, xs[i], zs[i]);
+    }
+
+    @Benchmark
+    public List<String> getZoneNamesAt3D()
+    {
+        int i = nextPoint();
+        return registry.getZoneNamesAt(SyntheticZones.worldId, xs[i], ys[i], zs[i]);
+    }
+
+    @Benchmark
+    public Collection<Zone> getZonesAtInEmptyWorld()
+    {
+        int i = nextPoint();
+        return registry.getZonesAt(SyntheticZones.emptyWorldId, xs[i], ys[i], zs[i]);
+    }
+}
@@ -0,0 +1,87 @@
+package scot.massie.mc.ninti.core.zones;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks querying zones made up of many regions. This is kept separate from {@link ZoneQueryBenchmark} so that
+ * zones with thousands of regions aren't also made a hundred thousand at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneRegionCountBenchmark
+{
+    private static final int pointCount = 4096;
+
+    @Param({"10", "100"})
+    public int zoneCount;
+
+    @Param({"16", "1024", "4096"})
+    public int regionsPerZone;
+
+    @Param({"CHUNK_CLAIMS", "LARGE_CUBOIDS"})
+    public SyntheticZones.Layout layout;
+
+    private ZoneRegistry registry;
+    private Zone zone;
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+    private int pointIndex = 0;
+
+    @Setup
+    public void setUp()
+    {
+        registry = new ZoneRegistry(SyntheticZones.unsavedFilePath);
+        SyntheticZones.populate(registry, zoneCount, regionsPerZone, layout, 1L);
+        zone = registry.get("zone0");
+        int worldWidth = SyntheticZones.getWorldWidth(zoneCount, regionsPerZone, layout);
+        int[][] points = SyntheticZones.randomPoints(pointCount, worldWidth, 2L);
+        xs = points[0];
+        ys = points[1];
+        zs = points[2];
+
+        // Build the world-wide index up front, rather than in the first measured query.
+        registry.getZonesAt(SyntheticZones.worldId, 0, 0);
+    }
+
+    private int nextPoint()
+    { return pointIndex = (pointIndex + 1) & (pointCount - 1); }
+
+    @Benchmark
+    public boolean zoneContains2D()
+    {
+        int i = nextPoint();
+        return zone.contains(SyntheticZones.worldId, xs[i], zs[i]);
+    }
+
+    @Benchmark
+    public boolean zoneContains3D()
+    {
+        int i = nextPoint();
+        return zone.contains(SyntheticZones.worldId, xs[i], ys[i], zs[i]);
+    }
+
+    @Benchmark
+    public Collection<Zone> getZonesAt3D()
+    {
+        int i = nextPoint();
+        return registry.getZonesAt(SyntheticZones.worldId, xs[i], ys[i], zs[i]);
+    }
+}
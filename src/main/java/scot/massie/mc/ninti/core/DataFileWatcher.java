@@ -0,0 +1,235 @@
+package scot.massie.mc.ninti.core;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Watches data files and folders for changes made to them by external tools, and runs a given action for each file
+ * or folder once writes to it have settled.</p>
+ *
+ * <p>Changes to a file are debounced - a burst of writes (as made by most editors, which may truncate, write, and
+ * rename in separate steps) results in the file's action being run once, after the file has been left alone for the
+ * debounce period. Actions are run on the watcher's own background thread.</p>
+ */
+final class DataFileWatcher
+{
+    /**
+     * Creates a new data file watcher.
+     * @param debounceMillis The number of milliseconds a file must go without being changed after a change before its
+     *                       action is run.
+     */
+    DataFileWatcher(long debounceMillis)
+    { this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis); }
+
+    /**
+     * The actions to run when files change, by the absolute, normalised path of the file.
+     */
+    private final Map<Path, Runnable> actions = new HashMap<>();
+
+    /**
+     * The actions to run when any file in a folder changes, by the absolute, normalised path of the folder.
+     */
+    private final Map<Path, Runnable> folderActions = new HashMap<>();
+
+    /**
+     * The times (as per {@link System#nanoTime()}) at which the actions of files or folders that have been changed are
+     * due to be run, by the absolute, normalised path of the file or folder.
+     */
+    private final Map<Path, Long> pendingActions = new HashMap<>();
+
+    private final long debounceNanos;
+    private WatchService watchService = null;
+    private Thread thread = null;
+
+    /**
+     * Adds a file to be watched. This must be called before the watcher is started.
+     * @param file The file to watch. The file doesn't need to exist yet, but the folder it's in will be created if it
+     *             doesn't.
+     * @param onChanged The action to run after the file has been changed.
+     */
+    void watch(Path file, Runnable onChanged)
+    {
+        if(thread != null)
+            throw new IllegalStateException("Files can't be added to a watcher that's already running.");
+
+        actions.put(file.toAbsolutePath().normalize(), onChanged);
+    }
+
+    /**
+     * Adds a folder to be watched, where a change to any file directly within it counts as a change to the folder.
+     * This must be called before the watcher is started.
+     * @param folder The folder to watch. This will be created if it doesn't exist.
+     * @param onChanged The action to run after any files in the folder have been changed.
+     */
+    void watchFolder(Path folder, Runnable onChanged)
+    {
+        if(thread != null)
+            throw new IllegalStateException("Folders can't be added to a watcher that's already running.");
+
+        folderActions.put(folder.toAbsolutePath().normalize(), onChanged);
+    }
+
+    /**
+     * Starts watching the files added to this watcher.
+     * @throws IOException If the folders containing the watched files couldn't be created or watched.
+     */
+    synchronized void start() throws IOException
+    {
+        if(thread != null)
+            return;
+
+        watchService = FileSystems.getDefault().newWatchService();
+
+        Set<Path> foldersToWatch = new HashSet<>(folderActions.keySet());
+
+        for(Path file : actions.keySet())
+            foldersToWatch.add(file.getParent());
+
+        for(Path folder : foldersToWatch)
+        {
+            Files.createDirectories(folder);
+            folder.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        thread = new Thread(this::run, "NintiCore data file watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching files. Any changes waiting to settle are discarded.
+     */
+    synchronized void stop()
+    {
+        if(thread == null)
+            return;
+
+        try
+        { watchService.close(); }
+        catch(IOException e)
+        { e.printStackTrace(); }
+
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    /**
+     * The body of the watcher thread. Waits for changes to watched files and runs their actions once they've settled.
+     */
+    private void run()
+    {
+        WatchService watchService = this.watchService;
+
+        try
+        {
+            while(!Thread.currentThread().isInterrupted())
+            {
+                WatchKey key = pendingActions.isEmpty()
+                                       ? watchService.take()
+                                       : watchService.poll(getNanosUntilNextAction(), TimeUnit.NANOSECONDS);
+
+                if(key != null)
+                {
+                    recordChanges(key);
+                    key.reset();
+                }
+
+                runDueActions();
+            }
+        }
+        catch(InterruptedException | ClosedWatchServiceException e)
+        { /* Stopped. */ }
+    }
+
+    /**
+     * Records the changes to watched files reported by the given watch key, (re)starting the debounce period for each
+     * changed file.
+     * @param key The watch key reporting changes.
+     */
+    private void recordChanges(WatchKey key)
+    {
+        Path folder = (Path)key.watchable();
+        long dueAt = System.nanoTime() + debounceNanos;
+
+        for(WatchEvent<?> event : key.pollEvents())
+        {
+            if(folderActions.containsKey(folder))
+                pendingActions.put(folder, dueAt);
+
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+            {
+                for(Path file : actions.keySet())
+                    if(file.getParent().equals(folder))
+                        pendingActions.put(file, dueAt);
+
+                continue;
+            }
+
+            Path file = folder.resolve((Path)event.context()).toAbsolutePath().normalize();
+
+            if(actions.containsKey(file))
+                pendingActions.put(file, dueAt);
+        }
+    }
+
+    /**
+     * Gets the number of nanoseconds until the soonest pending action is due to be run.
+     * @return The number of nanoseconds until the next action should be run, or 0 if one is already due.
+     */
+    private long getNanosUntilNextAction()
+    {
+        long now = System.nanoTime();
+        long soonest = Long.MAX_VALUE;
+
+        for(long dueAt : pendingActions.values())
+            soonest = Math.min(soonest, dueAt - now);
+
+        return Math.max(soonest, 0);
+    }
+
+    /**
+     * Runs the actions of all changed files whose debounce periods have passed.
+     */
+    private void runDueActions()
+    {
+        long now = System.nanoTime();
+
+        for(Iterator<Map.Entry<Path, Long>> iter = pendingActions.entrySet().iterator(); iter.hasNext();)
+        {
+            Map.Entry<Path, Long> entry = iter.next();
+
+            if(entry.getValue() - now > 0)
+                continue;
+
+            iter.remove();
+
+            Runnable action = actions.containsKey(entry.getKey()) ? actions.get(entry.getKey())
+                                                                  : folderActions.get(entry.getKey());
+
+            try
+            { action.run(); }
+            catch(RuntimeException e)
+            {
+                System.err.println("Could not reload " + entry.getKey() + " after it was changed.");
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,19 +1,35 @@
 package scot.massie.mc.ninti.core;
 
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.entity.living.LivingEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import scot.massie.mc.ninti.core.currencies.Currencies;
 import scot.massie.mc.ninti.core.currencies.Currency;
+import scot.massie.mc.ninti.core.zones.ZoneEntityCaps;
+import scot.massie.mc.ninti.core.zones.ZoneEventDispatcher;
+import scot.massie.mc.ninti.core.zones.ZoneProtection;
+import scot.massie.mc.ninti.core.zones.ZoneRegistry;
 import scot.massie.mc.ninti.core.zones.Zones;
 import scot.massie.mc.ninti.core.zones.ZonesCommandHandler;
 
+import java.io.IOException;
 import java.nio.file.Path;
 
 import static scot.massie.mc.ninti.core.PluginUtils.*;
@@ -42,9 +58,58 @@ public class NintiCore
     public static final String PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM = "ninti.zones.write.modify.removefrom";
     public static final String PERMISSION_ZONES_FILEHANDLING_SAVE       = "ninti.zones.files.save";
     public static final String PERMISSION_ZONES_FILEHANDLING_LOAD       = "ninti.zones.files.load";
+    public static final String PERMISSION_ZONES_BUILD                   = "ninti.zones.build";
+    public static final String PERMISSION_ZONES_INTERACT                = "ninti.zones.interact";
+    public static final String PERMISSION_ZONES_METRICS                 = "ninti.zones.metrics";
 
     public static final Path DATA_FOLDER = PluginUtils.getPluginDataFolder().resolve("ninti");
 
+    /**
+     * The system property that, if set to "true", makes NintiCore watch its data files for changes made by external
+     * tools and reload them automatically.
+     */
+    public static final String PROPERTY_WATCH_DATA_FILES = "ninti.watchDataFiles";
+
+    /**
+     * The system property that, if set to "true", makes NintiCore keep count of the living entities other than players
+     * in each zone, by type. Players in each zone are always counted, and other living entities are counted regardless
+     * while any zones have entity caps.
+     * @see Zones#getEntityCount(String, net.minecraft.entity.EntityType)
+     */
+    public static final String PROPERTY_TRACK_ENTITY_OCCUPANCY = "ninti.zones.trackEntityOccupancy";
+
+    /**
+     * The system property that, if set to "true", makes NintiCore record how often each zone query is made and how
+     * long it takes.
+     * @see Zones#getMetrics()
+     */
+    public static final String PROPERTY_RECORD_ZONE_METRICS = "ninti.zones.recordMetrics";
+
+    /**
+     * The system property that, if set to "true", makes NintiCore write a compressed copy of the zones registry to the
+     * zone archive folder each time saving the zones registry writes any changes.
+     * @see Zones#archive()
+     */
+    public static final String PROPERTY_ARCHIVE_ZONES_ON_SAVE = "ninti.zones.archiveOnSave";
+
+    /**
+     * The system property setting the number of zone archives kept, as a whole number. Where more are kept, the oldest
+     * are deleted. Defaults to 10, and is treated as 1 if set lower than that.
+     * @see Zones#getArchiveNames()
+     */
+    public static final String PROPERTY_ZONE_ARCHIVE_COUNT = "ninti.zones.archiveCount";
+
+    private final boolean isTrackingEntityOccupancy = Boolean.getBoolean(PROPERTY_TRACK_ENTITY_OCCUPANCY);
+
+    /**
+     * Whether living entities other than players were being counted in the zones they're in, as of the last time it
+     * was checked.
+     */
+    private boolean wasTrackingNonPlayers = false;
+
+    private static final long dataFileWatcherDebounceMillis = 1000;
+    private DataFileWatcher dataFileWatcher = null;
+
     public NintiCore()
     {
         // Register the setup method for modloading
@@ -53,6 +118,9 @@ public class NintiCore
         // Register ourselves for server and other game events we are interested in
         //noinspection ThisEscapedInObjectConstruction
         MinecraftForge.EVENT_BUS.register(this);
+        MinecraftForge.EVENT_BUS.register(new ZoneProtection());
+        MinecraftForge.EVENT_BUS.register(ZoneEventDispatcher.class);
+        MinecraftForge.EVENT_BUS.register(ZoneEntityCaps.class);
 
         PluginEvents.onDataLoaded.register(args ->
         {
@@ -90,7 +158,10 @@ public class NintiCore
                                     PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
                                     PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM,
                                     PERMISSION_ZONES_FILEHANDLING_SAVE,
-                                    PERMISSION_ZONES_FILEHANDLING_LOAD);
+                                    PERMISSION_ZONES_FILEHANDLING_LOAD,
+                                    PERMISSION_ZONES_BUILD,
+                                    PERMISSION_ZONES_INTERACT,
+                                    PERMISSION_ZONES_METRICS);
     }
 
     // You can use SubscribeEvent and let the Event Bus discover methods to call
@@ -101,9 +172,73 @@ public class NintiCore
         Currencies.register(Currency.EXPERIENCE);
         Currencies.register(Currency.LEVELS);
         PluginEvents.onDataLoaded_internal.invoke(new PluginEvents.DataLoadEventArgs());
+
+        if(Boolean.getBoolean(PROPERTY_WATCH_DATA_FILES))
+            startWatchingDataFiles();
         // do something when the server starts
     }
 
+    @SubscribeEvent
+    public void onServerStopping(FMLServerStoppingEvent event)
+    {
+        Zones.clearOccupancy();
+
+        if(dataFileWatcher != null)
+        {
+            dataFileWatcher.stop();
+            dataFileWatcher = null;
+        }
+    }
+
+    /**
+     * <p>Starts watching the zones and permissions files for changes made to them outside of the server.</p>
+     *
+     * <p>When zones files change, they're read on the watcher's thread and the result is handed to the server thread,
+     * which only reloads the files that changed, and only where they haven't changed again since being read. Files
+     * containing zones changed in-game that haven't been saved yet aren't reloaded.</p>
+     *
+     * <p>When permissions files change, they're reloaded on the server thread, unless permissions have been changed
+     * in-game since they were last saved.</p>
+     */
+    private void startWatchingDataFiles()
+    {
+        DataFileWatcher watcher = new DataFileWatcher(dataFileWatcherDebounceMillis);
+
+        watcher.watchFolder(Zones.getFolderPath(), () ->
+        {
+            if(!Zones.filesHaveChangedExternally())
+                return;
+
+            ZoneRegistry.FileContents zonesRead = Zones.readFiles();
+
+            if(zonesRead != null)
+                minecraftServer.execute(() -> Zones.reloadChangedFiles(zonesRead));
+        });
+
+        Runnable reloadPermissions = () ->
+        {
+            // The permissions registry reads its files itself as part of loading, so there's no separate parsing step
+            // that can be done here. Whether they've changed is checked again on the server thread, in case they've
+            // been saved since.
+            if(Permissions.filesHaveChangedExternally())
+                minecraftServer.execute(Permissions::reloadIfChangedExternally);
+        };
+
+        watcher.watch(Permissions.usersFile, reloadPermissions);
+        watcher.watch(Permissions.groupsFile, reloadPermissions);
+
+        try
+        { watcher.start(); }
+        catch(IOException e)
+        {
+            System.err.println("Could not start watching data files for changes.");
+            e.printStackTrace();
+            return;
+        }
+
+        dataFileWatcher = watcher;
+    }
+
     @SubscribeEvent
     public void registerCommands(RegisterCommandsEvent event)
     {
@@ -120,6 +255,96 @@ public class NintiCore
         PluginEvents.onDataSaved_internal.invoke(new PluginEvents.DataSaveEventArgs());
     }
 
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event)
+    {
+        if(event.getWorld() == null || event.getWorld().isRemote())
+            return;
+
+        ChunkPos pos = event.getChunk().getPos();
+        Zones.chunkLoaded(getWorldId((World)event.getWorld()), pos.x, pos.z);
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event)
+    {
+        if(event.getWorld() == null || event.getWorld().isRemote())
+            return;
+
+        ChunkPos pos = event.getChunk().getPos();
+        Zones.chunkUnloaded(getWorldId((World)event.getWorld()), pos.x, pos.z);
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event)
+    {
+        if(!event.getWorld().isRemote())
+            Zones.worldUnloaded(getWorldId((World)event.getWorld()));
+    }
+
+    @SubscribeEvent
+    public void onPlayerTick(TickEvent.PlayerTickEvent event)
+    {
+        if(event.phase == TickEvent.Phase.END && event.side.isServer())
+            Zones.updateOccupancy(event.player);
+    }
+
+    @SubscribeEvent
+    public void onLivingUpdate(LivingEvent.LivingUpdateEvent event)
+    {
+        LivingEntity entity = event.getEntityLiving();
+
+        // Players are updated once per tick by onPlayerTick instead.
+        if(!(entity instanceof PlayerEntity) && !entity.getEntityWorld().isRemote() && isTrackingNonPlayers())
+            Zones.updateOccupancy(entity);
+    }
+
+    @SubscribeEvent
+    public void onEntityJoinWorld(EntityJoinWorldEvent event)
+    {
+        if(event.getWorld().isRemote())
+            return;
+
+        Entity entity = event.getEntity();
+
+        if(entity instanceof PlayerEntity || (entity instanceof LivingEntity && isTrackingNonPlayers()))
+            Zones.updateOccupancy(entity);
+    }
+
+    /**
+     * <p>Gets whether living entities other than players should be counted in the zones they're in. They're counted
+     * where the {@link #PROPERTY_TRACK_ENTITY_OCCUPANCY} system property is set to "true", or where any zones have
+     * entity caps, which need them to be counted.</p>
+     *
+     * <p>Where they stop needing to be counted, the entities other than players already being counted are stopped
+     * being counted, as they won't be removed when they leave their worlds.</p>
+     * @return True if living entities other than players should be counted. Otherwise, false.
+     */
+    private boolean isTrackingNonPlayers()
+    {
+        boolean result = isTrackingEntityOccupancy || Zones.hasEntityCaps();
+
+        if(wasTrackingNonPlayers && !result)
+            Zones.removeNonPlayersFromOccupancy();
+
+        wasTrackingNonPlayers = result;
+        return result;
+    }
+
+    @SubscribeEvent
+    public void onEntityLeaveWorld(EntityLeaveWorldEvent event)
+    {
+        if(event.getWorld().isRemote())
+            return;
+
+        Entity entity = event.getEntity();
+
+        // Players changing worlds leave their old world before joining the new one, and players logging out leave the
+        // world they were in.
+        if(entity instanceof PlayerEntity || (entity instanceof LivingEntity && isTrackingNonPlayers()))
+            Zones.removeFromOccupancy(entity);
+    }
+
     @Mod.EventBusSubscriber(bus=Mod.EventBusSubscriber.Bus.MOD)
     public static class RegistryEvents
     {
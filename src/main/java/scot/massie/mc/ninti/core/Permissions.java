@@ -19,7 +19,10 @@ import scot.massie.lib.permissions.exceptions.UserMissingPermissionException;
 import scot.massie.mc.ninti.core.exceptions.PlayerMissingPermissionException;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -603,6 +606,22 @@ public final class Permissions
      */
     static final int uuidStringLength = 36;
 
+    /**
+     * The file players' permissions are saved in.
+     */
+    static final Path usersFile = Paths.get("permissions.txt");
+
+    /**
+     * The file permission groups are saved in.
+     */
+    static final Path groupsFile = Paths.get("permission_groups.txt");
+
+    /**
+     * The last modified times of the users file and groups file respectively, as of the last time the registry was
+     * saved or loaded.
+     */
+    private static volatile FileTime[] fileTimesAtLastSync = new FileTime[2];
+
     private static final PermissionsRegistry<UUID> _innerRegistry = new PermissionsRegistry<>
     (
             uuid ->
@@ -616,8 +635,8 @@ public final class Permissions
             },
             name -> UUID.fromString(name.substring(name.length() - uuidStringLength)),
 
-            Paths.get("permissions.txt"),
-            Paths.get("permission_groups.txt")
+            usersFile,
+            groupsFile
     );
 
     public static final PermissionsRegistryWithEvents<UUID> registry
@@ -1316,6 +1335,8 @@ public final class Permissions
             { registry.save(); }
             catch(IOException e)
             { throw new RuntimeException("Error saving permissions files.", e); }
+
+            recordFileTimes();
         }
     }
 
@@ -1328,11 +1349,73 @@ public final class Permissions
         try
         {
             synchronized(registry)
-            { registry.load(); }
+            {
+                registry.load();
+                recordFileTimes();
+            }
         }
         catch(IOException e)
         { throw new RuntimeException("Error loading permissions files.", e); }
     }
+
+    /**
+     * Reloads the contents of the permissions registry from the permissions files, if either has been modified by
+     * something other than the registry since it was last saved or loaded. Where permissions have been changed since
+     * they were last saved, they aren't reloaded, so that those changes aren't lost, and a warning is printed instead.
+     */
+    public static void reloadIfChangedExternally()
+    {
+        synchronized(registry)
+        {
+            if(!filesHaveChangedExternally())
+                return;
+
+            if(registry.hasBeenDifferentiatedFromFiles())
+            {
+                System.err.println("The permissions files were changed externally, but weren't reloaded, as "
+                                   + "permissions have been changed since they were last saved. Saving permissions "
+                                   + "will overwrite the external changes.");
+                return;
+            }
+
+            load();
+        }
+    }
+
+    /**
+     * Gets the last modified time of the given file.
+     * @param file The file to get the last modified time of.
+     * @return The last modified time of the given file, or null if it couldn't be read.
+     */
+    private static FileTime getFileTime(Path file)
+    {
+        try
+        { return Files.getLastModifiedTime(file); }
+        catch(IOException e)
+        { return null; }
+    }
+
+    /**
+     * Records the current last modified times of the permissions files, so that changes made to them by anything
+     * other than the registry can be recognised.
+     */
+    private static void recordFileTimes()
+    { fileTimesAtLastSync = new FileTime[] { getFileTime(usersFile), getFileTime(groupsFile) }; }
+
+    /**
+     * Gets whether or not either of the permissions files has been modified by something other than the registry since
+     * the registry was last saved or loaded. This may be called from any thread.
+     * @return True if either permissions file has been modified externally. Otherwise, false.
+     */
+    public static boolean filesHaveChangedExternally()
+    {
+        FileTime[] lastSync = fileTimesAtLastSync;
+        FileTime usersFileTime = getFileTime(usersFile);
+        FileTime groupsFileTime = getFileTime(groupsFile);
+
+        return (usersFileTime  != null && !usersFileTime .equals(lastSync[0]))
+            || (groupsFileTime != null && !groupsFileTime.equals(lastSync[1]));
+    }
     //endregion
     //endregion
 }
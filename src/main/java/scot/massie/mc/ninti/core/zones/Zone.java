@@ -1,12 +1,17 @@
 package scot.massie.mc.ninti.core.zones;
 
-import net.minecraft.entity.Entity;
-import scot.massie.mc.ninti.core.PluginUtils;
-import scot.massie.mc.ninti.core.utilclasses.EntityLocation;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * A representation of a 3D area in a specific world, made by layering regions.
@@ -94,14 +99,6 @@ public final class Zone
          */
         boolean contains(double x, double y, double z);
 
-        /**
-         * Gets whether or not a given entity is within the area represented by this region.
-         * @param entity The entity to check.
-         * @return True if the given entity's location is within this region. Otherwise, false. Does not consider the
-         *         entity's world, only its position.
-         */
-        boolean contains(Entity entity);
-
         /**
          * Gets a copy of this region, but cutting away from the zone it's in rather than adding to it.
          * @return A new ZoneRegion object that returns true for {@link #isNegating()}.
@@ -201,24 +198,20 @@ public final class Zone
         { return isNegating; }
 
         @Override
-        public boolean contains(int x, int y)
-        { return minX <= x && x <= maxX && minY <= y && y <= maxY; }
+        public boolean contains(int x, int z)
+        { return minX <= x && x <= maxX && minZ <= z && z <= maxZ; }
 
         @Override
         public boolean contains(int x, int y, int z)
         { return minX <= x && x <= maxX && minY <= y && y <= maxY && minZ <= z && z <= maxZ; }
 
         @Override
-        public boolean contains(double x, double y)
-        { return minX <= x && x < maxX + 1 && minY <= y && y < maxY + 1; }
+        public boolean contains(double x, double z)
+        { return minX <= x && x < maxX + 1.0 && minZ <= z && z < maxZ + 1.0; }
 
         @Override
         public boolean contains(double x, double y, double z)
-        { return minX <= x && x < maxX + 1 && minY <= y && y < maxY + 1 && minZ <= z && z < maxZ + 1; }
-
-        @Override
-        public boolean contains(Entity entity)
-        { return contains(entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+        { return minX <= x && x < maxX + 1.0 && minY <= y && y < maxY + 1.0 && minZ <= z && z < maxZ + 1.0; }
 
         @Override
         public ZoneRegionCuboid negating()
@@ -250,7 +243,10 @@ public final class Zone
 
         @Override
         public int hashCode()
-        { return Objects.hash(minX, minY, minZ, maxX, maxY, maxZ, isNegating); }
+        {
+            return (((((minX * 31 + minY) * 31 + minZ) * 31 + maxX) * 31 + maxY) * 31 + maxZ) * 2
+                   + (isNegating ? 1 : 0);
+        }
     }
 
     /**
@@ -302,28 +298,21 @@ public final class Zone
         { this(fromX, fromZ, toX, toZ, false); }
 
         /**
-         * Creates a new rectangular zone region corresponding to the chunk at a given XZ coördinate.
+         * Gets the rectangular zone region corresponding to the chunk at a given XZ coördinate.
+         * @see #ofChunk(int, int)
          * @param x The X coördinate.
          * @param z The Z coördinate.
-         * @return A new zone region corresponding to the chunk at the given XZ coördinate.
+         * @return A zone region corresponding to the chunk at the given XZ coördinate.
          */
         static ZoneRegionRectangle ofChunkAt(int x, int z)
-        {
-            final int chunkWidth = 16;
-            int minX = (x - (x % chunkWidth));
-            int minZ = (z - (z % chunkWidth));
-            if(x < 0) minX -= chunkWidth;
-            if(z < 0) minZ -= chunkWidth;
-            int maxX = minX + chunkWidth - 1;
-            int maxZ = minZ + chunkWidth - 1;
-            return new ZoneRegionRectangle(minX, minZ, maxX, maxZ);
-        }
+        { return ofChunk(x >> 4, z >> 4); }
 
         /**
-         * Creates a new rectangular zone region corresponding to the chunk with a given XZ chunk coördinate.
+         * Gets the rectangular zone region corresponding to the chunk with a given XZ chunk coördinate. Each chunk's
+         * region is interned, so all zones covering the same chunk share a single instance of it.
          * @param chunkX The chunk's X coördinate.
          * @param chunkZ The chunk's Z coördinate.
-         * @return A new zone region corresponding to the chunk with the given XZ chunk coördinate.
+         * @return A zone region corresponding to the chunk with the given XZ chunk coördinate.
          */
         static ZoneRegionRectangle ofChunk(int chunkX, int chunkZ)
         {
@@ -332,17 +321,9 @@ public final class Zone
             int minZ = chunkZ * chunkWidth;
             int maxX = minX + chunkWidth - 1;
             int maxZ = minZ + chunkWidth - 1;
-            return new ZoneRegionRectangle(minX, minZ, maxX, maxZ);
+            return ZoneRegionInterner.intern(new ZoneRegionRectangle(minX, minZ, maxX, maxZ));
         }
 
-        /**
-         * Creates a new rectangular zone region corresponding to the chunk a given entity is currently in.
-         * @param entity The entity to derive the chunk from.
-         * @return A new zone region corresponding to the chunk the given entity is in.
-         */
-        static ZoneRegionRectangle ofEntitysChunk(Entity entity)
-        { return ofChunk(entity.chunkCoordX, entity.chunkCoordZ); }
-
         protected final int minX, minZ, maxX, maxZ;
         protected final boolean isNegating;
 
@@ -375,25 +356,21 @@ public final class Zone
         { return isNegating; }
 
         @Override
-        public boolean contains(int x, int y)
-        { return minX <= x && x <= maxX && minZ <= y && y <= maxZ; }
+        public boolean contains(int x, int z)
+        { return minX <= x && x <= maxX && minZ <= z && z <= maxZ; }
 
         @Override
         public boolean contains(int x, int y, int z)
         { return contains(x, z); }
 
         @Override
-        public boolean contains(double x, double y)
-        { return minX <= x && x < maxX + 1 && minZ <= y && y < maxZ + 1; }
+        public boolean contains(double x, double z)
+        { return minX <= x && x < maxX + 1.0 && minZ <= z && z < maxZ + 1.0; }
 
         @Override
         public boolean contains(double x, double y, double z)
         { return contains(x, z); }
 
-        @Override
-        public boolean contains(Entity entity)
-        { return contains(entity.getPosX(), entity.getPosY()); }
-
         @Override
         public ZoneRegionRectangle negating()
         { return new ZoneRegionRectangle(minX, minZ, maxX, maxZ, true); }
@@ -422,174 +399,2797 @@ public final class Zone
 
         @Override
         public int hashCode()
-        { return Objects.hash(minX, minZ, maxX, maxZ, isNegating); }
+        { return (((minX * 31 + minZ) * 31 + maxX) * 31 + maxZ) * 2 + (isNegating ? 1 : 0); }
     }
 
     /**
-     * Creates a new zone.
-     * @param name The unique name of the zone.
-     * @param worldId The ID of the world the zone represents an area in.
+     * <p>A region representing a polygon on the X and Z coördinates, extending up and down the Y coördinate, optionally
+     * limited to a range of Y values - a polygonal prism.</p>
+     *
+     * <p>The polygon's vertices are block coördinates, and a block is considered to be within the polygon if it's
+     * inside the shape traced through its vertices or on its edges. This means that a polygon of the four corners of a
+     * rectangle covers the same blocks as a rectangular region of those corners. Positions that aren't whole block
+     * coördinates are considered to be within the polygon if the block they're in is.</p>
+     *
+     * <p>The polygon's edges may not cross one another. When the region is created, the polygon is divided along the Z
+     * coördinate into slabs, each between two consecutive Z values of vertices, and the edges spanning each slab are
+     * recorded in order along the X coördinate. Checking whether a point is within the polygon then only needs a binary
+     * search for the slab the point is in and then for the point's position among the slab's edges, rather than a
+     * check of every edge.</p>
      */
-    public Zone(String name, String worldId)
+    public static class ZoneRegionPolygon implements ZoneRegion
     {
-        this.name = name;
-        this.worldId = worldId;
-    }
+        /**
+         * Creates a new polygonal region.
+         * @param vertexXs The X coördinates of the polygon's vertices, in order around the polygon.
+         * @param vertexZs The Z coördinates of the polygon's vertices, in the same order as the X coördinates.
+         * @param fromY One of the limits on the Y coördinate.
+         * @param toY The opposite limit on the Y coördinate.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         * @throws IllegalArgumentException If the numbers of X and Z coördinates given differ, if fewer than 3 vertices
+         *                                  are given, or if any of the polygon's edges cross.
+         */
+        public ZoneRegionPolygon(int[] vertexXs, int[] vertexZs, int fromY, int toY, boolean isNegating)
+        {
+            if(vertexXs.length != vertexZs.length)
+                throw new IllegalArgumentException("Polygon has a different number of X and Z coördinates.");
 
-    /**
-     * The name of this zone. This is expected to be used as a unique identifier among zones.
-     */
-    private final String name;
+            if(vertexXs.length < 3)
+                throw new IllegalArgumentException("Polygon must have at least 3 vertices.");
 
-    /**
-     * The world id this zone is in, in the format of "mod:world_name". (wq)
-     */
-    private final String worldId;
+            this.vertexXs = vertexXs.clone();
+            this.vertexZs = vertexZs.clone();
+            this.minY = Math.min(fromY, toY);
+            this.maxY = Math.max(fromY, toY);
+            this.isNegating = isNegating;
 
-    /**
-     * The layers of the zone. These are in order from bottom layer to top layer, so the first item in the list may be
-     * overridden by everything else, and the last item isn't overridden by anything.
-     */
-    private final List<ZoneRegion> regions = new ArrayList<>();
+            int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
 
-    /**
-     * Gets the name of this zone.
-     * @return The name of this zone.
-     */
-    public String getName()
-    { return name; }
+            for(int i = 0; i < vertexXs.length; i++)
+            {
+                minX = Math.min(minX, vertexXs[i]);
+                minZ = Math.min(minZ, vertexZs[i]);
+                maxX = Math.max(maxX, vertexXs[i]);
+                maxZ = Math.max(maxZ, vertexZs[i]);
+            }
 
-    /**
-     * Gets the world ID of the world this represents an area in.
-     * @return The ID of the world this zone is in.
-     */
-    public String getWorldId()
-    { return worldId; }
+            this.minX = minX;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxZ = maxZ;
 
-    /**
-     * Gets all regions in the zone, in order from lowest level layer to highest level. As in, later regions override
-     * earlier ones, where some may be removing area from the zone rather than adding to it.
-     * @return A list of the regions in this zone in order from lowest level layer to highest level.
-     */
-    public List<ZoneRegion> getRegions()
-    {
-        synchronized(regions)
-        { return new ArrayList<>(regions); }
-    }
+            this.slabZs = Arrays.stream(this.vertexZs).distinct().sorted().toArray();
+            this.slabEdges = new int[slabZs.length - 1][];
+            this.boundaryRunsAtSlabZs = new int[slabZs.length][];
+            buildSlabs();
+        }
 
-    /**
-     * Gets whether or not this zone contains the given XZ coördinate, disregarding world.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return True if this zone contains a point at the given XZ coördinate, disregarding the world. Otherwise, false.
-     */
-    private boolean contains(double x, double z)
-    {
-        synchronized(regions)
+        /**
+         * Creates a new polygonal region, unbounded on the Y coördinate.
+         * @param vertexXs The X coördinates of the polygon's vertices, in order around the polygon.
+         * @param vertexZs The Z coördinates of the polygon's vertices, in the same order as the X coördinates.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         * @throws IllegalArgumentException If the numbers of X and Z coördinates given differ, if fewer than 3 vertices
+         *                                  are given, or if any of the polygon's edges cross.
+         */
+        public ZoneRegionPolygon(int[] vertexXs, int[] vertexZs, boolean isNegating)
+        { this(vertexXs, vertexZs, Integer.MIN_VALUE, Integer.MAX_VALUE, isNegating); }
+
+        /**
+         * Creates a new polygonal region, unbounded on the Y coördinate.
+         * @param vertexXs The X coördinates of the polygon's vertices, in order around the polygon.
+         * @param vertexZs The Z coördinates of the polygon's vertices, in the same order as the X coördinates.
+         * @throws IllegalArgumentException If the numbers of X and Z coördinates given differ, if fewer than 3 vertices
+         *                                  are given, or if any of the polygon's edges cross.
+         */
+        public ZoneRegionPolygon(int[] vertexXs, int[] vertexZs)
+        { this(vertexXs, vertexZs, Integer.MIN_VALUE, Integer.MAX_VALUE, false); }
+
+        protected final int[] vertexXs, vertexZs;
+        protected final int minX, minY, minZ, maxX, maxY, maxZ;
+        protected final boolean isNegating;
+
+        /**
+         * The distinct Z coördinates of the polygon's vertices, in ascending order. Slab i is the part of the polygon
+         * between slabZs[i] and slabZs[i + 1].
+         */
+        private final int[] slabZs;
+
+        /**
+         * For each slab, the indices of the edges that span it, ordered along the X coördinate. Edge i runs from vertex
+         * i to vertex i + 1.
+         */
+        private final int[][] slabEdges;
+
+        /**
+         * For each value in {@link #slabZs}, pairs of X coördinates (as [from, to, from, to, ...]) of the runs along
+         * the X coördinate at that Z coördinate that are on the polygon's boundary without being crossed by the edges
+         * of the slab above - horizontal edges and vertices.
+         */
+        private final int[][] boundaryRunsAtSlabZs;
+
+        /**
+         * Populates {@link #slabEdges} and {@link #boundaryRunsAtSlabZs}.
+         * @throws IllegalArgumentException If any of the polygon's edges cross or touch, other than where adjacent
+         *                                  edges meet.
+         */
+        private void buildSlabs()
         {
-            for(int i = regions.size() - 1; i >= 0; i--)
+            checkEdgesDontCross();
+            int vertexCount = vertexXs.length;
+            int[] edges = new int[vertexCount];
+
+            for(int slab = 0; slab < slabEdges.length; slab++)
             {
-                ZoneRegion iregion = regions.get(i);
+                double bottom = slabZs[slab], top = slabZs[slab + 1], middle = (bottom + top) / 2;
+                int edgeCount = 0;
 
-                if(iregion.contains(x, z))
-                    return !iregion.isNegating();
+                for(int edge = 0; edge < vertexCount; edge++)
+                {
+                    int za = vertexZs[edge], zb = vertexZs[(edge + 1) % vertexCount];
+
+                    if(Math.min(za, zb) <= bottom && Math.max(za, zb) >= top)
+                        edges[edgeCount++] = edge;
+                }
+
+                // Edges don't cross, so they're in the same order throughout the slab, and sorting by their X
+                // coördinates at the middle of the slab sorts them along the X coördinate.
+                for(int i = 1; i < edgeCount; i++)
+                {
+                    int edge = edges[i];
+                    double x = getEdgeXAt(edge, middle);
+                    int j = i;
+
+                    for(; j > 0 && getEdgeXAt(edges[j - 1], middle) > x; j--)
+                        edges[j] = edges[j - 1];
+
+                    edges[j] = edge;
+                }
+
+                slabEdges[slab] = Arrays.copyOf(edges, edgeCount);
             }
-        }
 
-        return false;
-    }
+            int[] runs = new int[vertexCount * 2];
 
-    /**
-     * Gets whether or not this zone contains the given XYZ coördinate, disregarding world.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return True if this zone contains a point at the given XYZ coördinate, disregarding the world. Otherwise, false.
-     */
-    private boolean contains(double x, double y, double z)
-    {
-        synchronized(regions)
+            for(int i = 0; i < slabZs.length; i++)
+            {
+                int runsLength = 0;
+
+                for(int vertex = 0; vertex < vertexCount; vertex++)
+                {
+                    if(vertexZs[vertex] != slabZs[i])
+                        continue;
+
+                    int next = (vertex + 1) % vertexCount;
+                    runs[runsLength++] = vertexXs[vertex];
+                    runs[runsLength++] = vertexZs[next] == slabZs[i] ? vertexXs[next] : vertexXs[vertex];
+                }
+
+                boundaryRunsAtSlabZs[i] = Arrays.copyOf(runs, runsLength);
+            }
+        }
+
+        /**
+         * <p>Checks that the polygon is simple - that no two of its edges cross or touch, other than adjacent edges
+         * meeting at the vertex between them. Edges that touch without crossing, vertices lying on other edges, and
+         * adjacent edges doubling back along each other all count as crossing.</p>
+         *
+         * <p>Edges of no length (where a vertex is repeated) are skipped, with the edges either side of them treated
+         * as adjacent. Edges are checked in order of their lowest Z coördinates, so only pairs of edges that overlap on
+         * the Z coördinate are compared.</p>
+         * @throws IllegalArgumentException If any of the polygon's edges cross.
+         */
+        private void checkEdgesDontCross()
         {
-            for(int i = regions.size() - 1; i >= 0; i--)
+            int vertexCount = vertexXs.length;
+            int[] edgeOrder = new int[vertexCount];
+            int edgeCount = 0;
+
+            for(int edge = 0; edge < vertexCount; edge++)
             {
-                ZoneRegion iregion = regions.get(i);
+                int next = (edge + 1) % vertexCount;
 
-                if(iregion.contains(x, y, z))
-                    return !iregion.isNegating();
+                if(vertexXs[edge] != vertexXs[next] || vertexZs[edge] != vertexZs[next])
+                    edgeOrder[edgeCount++] = edge;
+            }
+
+            if(edgeCount < 3)
+                throw new IllegalArgumentException("Polygon must have at least 3 distinct vertices.");
+
+            // The position of each edge among the edges of some length, for recognising adjacent edges.
+            int[] positions = new int[vertexCount];
+
+            for(int i = 0; i < edgeCount; i++)
+                positions[edgeOrder[i]] = i;
+
+            // Sorted by lowest Z coördinate, packed with the edge's index so that they sort as primitives.
+            long[] edgesByMinZ = new long[edgeCount];
+
+            for(int i = 0; i < edgeCount; i++)
+            {
+                int edge = edgeOrder[i];
+                int minEdgeZ = Math.min(vertexZs[edge], vertexZs[(edge + 1) % vertexCount]);
+                edgesByMinZ[i] = ((long)minEdgeZ << 32) | edge;
+            }
+
+            Arrays.sort(edgesByMinZ);
+
+            for(int i = 0; i < edgeCount; i++)
+            {
+                int edge = (int)edgesByMinZ[i];
+                int maxEdgeZ = Math.max(vertexZs[edge], vertexZs[(edge + 1) % vertexCount]);
+
+                for(int j = i + 1; j < edgeCount && (int)(edgesByMinZ[j] >> 32) <= maxEdgeZ; j++)
+                {
+                    int otherEdge = (int)edgesByMinZ[j];
+                    int positionGap = Math.abs(positions[edge] - positions[otherEdge]);
+                    boolean isAdjacent = positionGap == 1 || positionGap == edgeCount - 1;
+
+                    if(isAdjacent ? adjacentEdgesOverlap(edge, otherEdge) : edgesTouch(edge, otherEdge))
+                        throw new IllegalArgumentException("Polygon has edges that cross.");
+                }
             }
         }
 
-        return false;
-    }
+        /**
+         * Gets whether two edges have any point in common, including their ends.
+         * @param edge The index of one edge.
+         * @param otherEdge The index of the other edge.
+         * @return True if the given edges cross or touch. Otherwise, false.
+         */
+        private boolean edgesTouch(int edge, int otherEdge)
+        {
+            int n = vertexXs.length, edgeEnd = (edge + 1) % n, otherEdgeEnd = (otherEdge + 1) % n;
+            int ax = vertexXs[edge],         az = vertexZs[edge];
+            int bx = vertexXs[edgeEnd],      bz = vertexZs[edgeEnd];
+            int cx = vertexXs[otherEdge],    cz = vertexZs[otherEdge];
+            int dx = vertexXs[otherEdgeEnd], dz = vertexZs[otherEdgeEnd];
+            int abc = getTurn(ax, az, bx, bz, cx, cz), abd = getTurn(ax, az, bx, bz, dx, dz);
+            int cda = getTurn(cx, cz, dx, dz, ax, az), cdb = getTurn(cx, cz, dx, dz, bx, bz);
+
+            if(abc * abd < 0 && cda * cdb < 0)
+                return true;
 
-    /**
-     * Gets whether or not this zone contains the given XZ coördinate.
-     * @param worldId The ID of the world the given coördinate is in.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return True if this zone contains the given XZ coördinate. Otherwise, false.
-     */
-    public boolean contains(String worldId, int x, int z)
-    { return this.worldId.equals(worldId) && contains(x, z); }
+            return (abc == 0 && isWithinBoxOf(cx, cz, ax, az, bx, bz))
+                || (abd == 0 && isWithinBoxOf(dx, dz, ax, az, bx, bz))
+                || (cda == 0 && isWithinBoxOf(ax, az, cx, cz, dx, dz))
+                || (cdb == 0 && isWithinBoxOf(bx, bz, cx, cz, dx, dz));
+        }
 
-    /**
-     * Gets whether or not this zone contains the given XYZ coördinate.
-     * @param worldId The ID of the world the given coördinate is in.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return True if this zone contains the given XYZ coördinate. Otherwise, false.
-     */
-    public boolean contains(String worldId, int x, int y, int z)
-    { return this.worldId.equals(worldId) && contains(x, y, z); }
+        /**
+         * Gets whether two adjacent edges overlap by more than the vertex they share, as where the polygon doubles back
+         * on itself.
+         * @param edge The index of one edge.
+         * @param otherEdge The index of the other edge, which shares a vertex with the first.
+         * @return True if the given edges overlap along some length. Otherwise, false.
+         */
+        private boolean adjacentEdgesOverlap(int edge, int otherEdge)
+        {
+            int n = vertexXs.length, edgeEnd = (edge + 1) % n, otherEdgeEnd = (otherEdge + 1) % n;
+            int ax = vertexXs[edge],         az = vertexZs[edge];
+            int bx = vertexXs[edgeEnd],      bz = vertexZs[edgeEnd];
+            int cx = vertexXs[otherEdge],    cz = vertexZs[otherEdge];
+            int dx = vertexXs[otherEdgeEnd], dz = vertexZs[otherEdgeEnd];
 
-    /**
-     * Gets whether or not this zone contains the given XZ coördinate.
-     * @param worldId The ID of the world the given coördinate is in.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return True if this zone contains the given XZ coördinate. Otherwise, false.
-     */
-    public boolean contains(String worldId, double x, double z)
-    { return this.worldId.equals(worldId) && contains(x, z); }
+            if(getTurn(ax, az, bx, bz, cx, cz) != 0 || getTurn(ax, az, bx, bz, dx, dz) != 0)
+                return false;
 
-    /**
-     * Gets whether or not this zone contains the given XYZ coördinate.
-     * @param worldId The ID of the world the given coördinate is in.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return True if this zone contains the given XYZ coördinate. Otherwise, false.
-     */
-    public boolean contains(String worldId, double x, double y, double z)
-    { return this.worldId.equals(worldId) && contains(x, y, z); }
+            // The edges are on the same line and share an end, so they overlap if the far end of either lies on the
+            // other, other than at the shared end.
+            return (isWithinBoxOf(cx, cz, ax, az, bx, bz) && !isEndOf(cx, cz, ax, az, bx, bz))
+                || (isWithinBoxOf(dx, dz, ax, az, bx, bz) && !isEndOf(dx, dz, ax, az, bx, bz))
+                || (isWithinBoxOf(ax, az, cx, cz, dx, dz) && !isEndOf(ax, az, cx, cz, dx, dz))
+                || (isWithinBoxOf(bx, bz, cx, cz, dx, dz) && !isEndOf(bx, bz, cx, cz, dx, dz));
+        }
 
-    /**
-     * Gets whether or not the given entity is within this zone.
-     * @param entity The entity to check.
-     * @return True if the given entity is within this zone. Otherwise, false.
-     */
-    public boolean contains(Entity entity)
-    {
-        return contains(PluginUtils.getWorldId(entity.getEntityWorld()),
-                        entity.getPosX(),
-                        entity.getPosY(),
-                        entity.getPosZ());
-    }
+        /**
+         * Gets which way the path from a to b to c turns. This is exact for whole number coördinates within the range
+         * of the world.
+         * @return 1 if the path turns anticlockwise, -1 if it turns clockwise, or 0 if the points are on a line.
+         */
+        private static int getTurn(int ax, int az, int bx, int bz, int cx, int cz)
+        { return Long.signum((long)(bx - ax) * (cz - az) - (long)(bz - az) * (cx - ax)); }
 
-    /**
-     * Gets whether or not the given location is within this zone.
-     * @param location The location to check.
-     * @return True if the given location is within this zone. Otherwise, false.
-     */
-    public boolean contains(EntityLocation location)
-    { return contains(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+        /**
+         * Gets whether a point is within the box with two given points at opposite corners, including its edges.
+         */
+        private static boolean isWithinBoxOf(int px, int pz, int ax, int az, int bx, int bz)
+        {
+            return px >= Math.min(ax, bx) && px <= Math.max(ax, bx)
+                && pz >= Math.min(az, bz) && pz <= Math.max(az, bz);
+        }
 
-    /**
-     * Adds a zone region to this zone.
-     * @param region The region to add
-     */
-    void addRegion(ZoneRegion region)
+        /**
+         * Gets whether a point is either of two given points.
+         */
+        private static boolean isEndOf(int px, int pz, int ax, int az, int bx, int bz)
+        { return (px == ax && pz == az) || (px == bx && pz == bz); }
+
+        /**
+         * Gets the X coördinate of an edge at a given Z coördinate. The edge must not be horizontal.
+         * @param edge The index of the edge.
+         * @param z The Z coördinate.
+         * @return The X coördinate of the line the given edge is on at the given Z coördinate.
+         */
+        private double getEdgeXAt(int edge, double z)
+        {
+            int next = (edge + 1) % vertexXs.length;
+            double xa = vertexXs[edge], za = vertexZs[edge], xb = vertexXs[next], zb = vertexZs[next];
+            return xa + (z - za) * (xb - xa) / (zb - za);
+        }
+
+        /**
+         * Compares the X coördinate of a point to that of an edge at the point's Z coördinate. This is exact for whole
+         * number coördinates.
+         * @param edge The index of the edge. This must not be a horizontal edge.
+         * @param x The X coördinate of the point.
+         * @param z The Z coördinate of the point.
+         * @return A positive number if the point is after the edge along the X coördinate, a negative number if it's
+         *         before it, or 0 if the point is on the edge.
+         */
+        private int compareToEdge(int edge, long x, long z)
+        {
+            int next = (edge + 1) % vertexXs.length;
+            long xa = vertexXs[edge], za = vertexZs[edge], xb = vertexXs[next], zb = vertexZs[next];
+            long cross = (x - xa) * (zb - za) - (xb - xa) * (z - za);
+            return Long.signum(cross) * Long.signum(zb - za);
+        }
+
+        /**
+         * Gets whether or not the polygon contains a given block XZ coördinate.
+         * @param x The X coördinate.
+         * @param z The Z coördinate.
+         * @return True if the given block coördinate is within the polygon or on its edges. Otherwise, false.
+         */
+        private boolean polygonContains(long x, long z)
+        {
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+                return false;
+
+            int slab = Arrays.binarySearch(slabZs, (int)z);
+
+            if(slab >= 0)
+            {
+                int[] runs = boundaryRunsAtSlabZs[slab];
+
+                for(int i = 0; i < runs.length; i += 2)
+                    if(Math.min(runs[i], runs[i + 1]) <= x && x <= Math.max(runs[i], runs[i + 1]))
+                        return true;
+
+                if(slab == slabEdges.length)
+                    return false;
+            }
+            else
+                slab = -slab - 2;
+
+            int[] edges = slabEdges[slab];
+            int low = 0, high = edges.length;
+
+            // Finds the number of edges in the slab before the point along the X coördinate.
+            while(low < high)
+            {
+                int middle = (low + high) >>> 1;
+
+                if(compareToEdge(edges[middle], x, z) > 0)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            if(low < edges.length && compareToEdge(edges[low], x, z) == 0)
+                return true;
+
+            return (low & 1) == 1;
+        }
+
+        /**
+         * Gets the X coördinates of the polygon's vertices.
+         * @return A new array containing the X coördinates of the polygon's vertices, in order around the polygon.
+         */
+        public int[] getVertexXs()
+        { return vertexXs.clone(); }
+
+        /**
+         * Gets the Z coördinates of the polygon's vertices.
+         * @return A new array containing the Z coördinates of the polygon's vertices, in order around the polygon.
+         */
+        public int[] getVertexZs()
+        { return vertexZs.clone(); }
+
+        /**
+         * Gets whether or not this region is limited on the Y coördinate.
+         * @return True if this region has a minimum or maximum Y coördinate. Otherwise, false.
+         */
+        public boolean hasYRange()
+        { return minY != Integer.MIN_VALUE || maxY != Integer.MAX_VALUE; }
+
+        @Override
+        public int getMinX()
+        { return minX; }
+
+        @Override
+        public int getMinY()
+        { return minY; }
+
+        @Override
+        public int getMinZ()
+        { return minZ; }
+
+        @Override
+        public int getMaxX()
+        { return maxX; }
+
+        @Override
+        public int getMaxY()
+        { return maxY; }
+
+        @Override
+        public int getMaxZ()
+        { return maxZ; }
+
+        @Override
+        public boolean isNegating()
+        { return isNegating; }
+
+        @Override
+        public boolean contains(int x, int z)
+        { return polygonContains(x, z); }
+
+        @Override
+        public boolean contains(int x, int y, int z)
+        { return minY <= y && y <= maxY && polygonContains(x, z); }
+
+        @Override
+        public boolean contains(double x, double z)
+        { return polygonContains((long)Math.floor(x), (long)Math.floor(z)); }
+
+        @Override
+        public boolean contains(double x, double y, double z)
+        { return minY <= y && y < maxY + 1.0 && polygonContains((long)Math.floor(x), (long)Math.floor(z)); }
+
+        @Override
+        public ZoneRegionPolygon negating()
+        { return new ZoneRegionPolygon(vertexXs, vertexZs, minY, maxY, true); }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder(isNegating ? "-polygon(" : "polygon(");
+
+            for(int i = 0; i < vertexXs.length; i++)
+                sb.append(i == 0 ? "" : "; ").append(vertexXs[i]).append(", ").append(vertexZs[i]);
+
+            sb.append(")");
+
+            if(hasYRange())
+                sb.append(" y ").append(minY).append(" to ").append(maxY);
+
+            return sb.append(" ").toString();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+                return true;
+
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            ZoneRegionPolygon other = (ZoneRegionPolygon)o;
+
+            return minY == other.minY
+                && maxY == other.maxY
+                && isNegating == other.isNegating
+                && Arrays.equals(vertexXs, other.vertexXs)
+                && Arrays.equals(vertexZs, other.vertexZs);
+        }
+
+        @Override
+        public int hashCode()
+        { return Objects.hash(Arrays.hashCode(vertexXs), Arrays.hashCode(vertexZs), minY, maxY, isNegating); }
+    }
+
+    /**
+     * <p>A region representing a sphere - every block whose distance from a centre block is no more than a given
+     * radius. Positions that aren't whole block coördinates are considered to be within the sphere if the block
+     * they're in is.</p>
+     *
+     * <p>Checks are made against the sphere's bounding box first, and then by comparing squared distances, so no
+     * square roots are needed.</p>
+     */
+    public static class ZoneRegionSphere implements ZoneRegion
+    {
+        /**
+         * Creates a new spherical region.
+         * @param centreX The X coördinate of the block at the centre of the sphere.
+         * @param centreY The Y coördinate of the block at the centre of the sphere.
+         * @param centreZ The Z coördinate of the block at the centre of the sphere.
+         * @param radius The distance from the centre block, in blocks, of the furthest blocks within the sphere.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         * @throws IllegalArgumentException If the radius is negative or greater than {@link #maxRadius}.
+         */
+        public ZoneRegionSphere(int centreX, int centreY, int centreZ, int radius, boolean isNegating)
+        {
+            if(radius < 0 || radius > maxRadius)
+                throw new IllegalArgumentException("Radius must be between 0 and " + maxRadius + ".");
+
+            this.centreX = centreX;
+            this.centreY = centreY;
+            this.centreZ = centreZ;
+            this.radius = radius;
+            this.radiusSquared = (long)radius * radius;
+            this.isNegating = isNegating;
+            this.minX = (int)Math.max((long)centreX - radius, Integer.MIN_VALUE);
+            this.minY = (int)Math.max((long)centreY - radius, Integer.MIN_VALUE);
+            this.minZ = (int)Math.max((long)centreZ - radius, Integer.MIN_VALUE);
+            this.maxX = (int)Math.min((long)centreX + radius, Integer.MAX_VALUE);
+            this.maxY = (int)Math.min((long)centreY + radius, Integer.MAX_VALUE);
+            this.maxZ = (int)Math.min((long)centreZ + radius, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Creates a new spherical region.
+         * @param centreX The X coördinate of the block at the centre of the sphere.
+         * @param centreY The Y coördinate of the block at the centre of the sphere.
+         * @param centreZ The Z coördinate of the block at the centre of the sphere.
+         * @param radius The distance from the centre block, in blocks, of the furthest blocks within the sphere.
+         * @throws IllegalArgumentException If the radius is negative or greater than {@link #maxRadius}.
+         */
+        public ZoneRegionSphere(int centreX, int centreY, int centreZ, int radius)
+        { this(centreX, centreY, centreZ, radius, false); }
+
+        /**
+         * The largest radius a sphere may have. This keeps the sum of squared distances along each axis within the
+         * range of a long.
+         */
+        public static final int maxRadius = 1 << 30;
+
+        protected final int centreX, centreY, centreZ, radius;
+        protected final long radiusSquared;
+        protected final int minX, minY, minZ, maxX, maxY, maxZ;
+        protected final boolean isNegating;
+
+        /**
+         * Gets whether or not the block column at the given XZ coördinate passes through the sphere.
+         * @param x The X coördinate.
+         * @param z The Z coördinate.
+         * @return True if any block in the column at the given XZ coördinate is within the sphere. Otherwise, false.
+         */
+        private boolean columnIntersects(long x, long z)
+        {
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+                return false;
+
+            long dx = x - centreX, dz = z - centreZ;
+            return dx * dx + dz * dz <= radiusSquared;
+        }
+
+        /**
+         * Gets whether or not the block at the given XYZ coördinate is within the sphere.
+         * @param x The X coördinate.
+         * @param y The Y coördinate.
+         * @param z The Z coördinate.
+         * @return True if the block at the given XYZ coördinate is within the sphere. Otherwise, false.
+         */
+        private boolean sphereContains(long x, long y, long z)
+        {
+            if(x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)
+                return false;
+
+            long dx = x - centreX, dy = y - centreY, dz = z - centreZ;
+            return dx * dx + dy * dy + dz * dz <= radiusSquared;
+        }
+
+        /**
+         * Gets the X coördinate of the block at the centre of the sphere.
+         * @return The X coördinate of the sphere's centre.
+         */
+        public int getCentreX()
+        { return centreX; }
+
+        /**
+         * Gets the Y coördinate of the block at the centre of the sphere.
+         * @return The Y coördinate of the sphere's centre.
+         */
+        public int getCentreY()
+        { return centreY; }
+
+        /**
+         * Gets the Z coördinate of the block at the centre of the sphere.
+         * @return The Z coördinate of the sphere's centre.
+         */
+        public int getCentreZ()
+        { return centreZ; }
+
+        /**
+         * Gets the radius of the sphere.
+         * @return The distance from the centre block, in blocks, of the furthest blocks within the sphere.
+         */
+        public int getRadius()
+        { return radius; }
+
+        @Override
+        public int getMinX()
+        { return minX; }
+
+        @Override
+        public int getMinY()
+        { return minY; }
+
+        @Override
+        public int getMinZ()
+        { return minZ; }
+
+        @Override
+        public int getMaxX()
+        { return maxX; }
+
+        @Override
+        public int getMaxY()
+        { return maxY; }
+
+        @Override
+        public int getMaxZ()
+        { return maxZ; }
+
+        @Override
+        public boolean isNegating()
+        { return isNegating; }
+
+        @Override
+        public boolean contains(int x, int z)
+        { return columnIntersects(x, z); }
+
+        @Override
+        public boolean contains(int x, int y, int z)
+        { return sphereContains(x, y, z); }
+
+        @Override
+        public boolean contains(double x, double z)
+        { return columnIntersects((long)Math.floor(x), (long)Math.floor(z)); }
+
+        @Override
+        public boolean contains(double x, double y, double z)
+        { return sphereContains((long)Math.floor(x), (long)Math.floor(y), (long)Math.floor(z)); }
+
+        @Override
+        public ZoneRegionSphere negating()
+        { return new ZoneRegionSphere(centreX, centreY, centreZ, radius, true); }
+
+        @Override
+        public String toString()
+        {
+            return (isNegating ? "-sphere(" : "sphere(")
+                   + centreX + ", " + centreY + ", " + centreZ + "; radius " + radius + ") ";
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+                return true;
+
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            ZoneRegionSphere other = (ZoneRegionSphere)o;
+
+            return centreX == other.centreX
+                && centreY == other.centreY
+                && centreZ == other.centreZ
+                && radius == other.radius
+                && isNegating == other.isNegating;
+        }
+
+        @Override
+        public int hashCode()
+        { return Objects.hash(centreX, centreY, centreZ, radius, isNegating); }
+    }
+
+    /**
+     * <p>A region representing a circle on the X and Z coördinates, extending up and down the Y coördinate, optionally
+     * limited to a range of Y values - a cylinder. Every block whose distance on the X and Z coördinates from a centre
+     * column is no more than a given radius is included. Positions that aren't whole block coördinates are considered
+     * to be within the cylinder if the block they're in is.</p>
+     *
+     * <p>Checks are made against the cylinder's bounding box first, and then by comparing squared distances, so no
+     * square roots are needed.</p>
+     */
+    public static class ZoneRegionCylinder implements ZoneRegion
+    {
+        /**
+         * Creates a new cylindrical region.
+         * @param centreX The X coördinate of the column at the centre of the cylinder.
+         * @param centreZ The Z coördinate of the column at the centre of the cylinder.
+         * @param radius The distance from the centre column, in blocks, of the furthest blocks within the cylinder.
+         * @param fromY One of the limits on the Y coördinate.
+         * @param toY The opposite limit on the Y coördinate.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         * @throws IllegalArgumentException If the radius is negative or greater than {@link #maxRadius}.
+         */
+        public ZoneRegionCylinder(int centreX, int centreZ, int radius, int fromY, int toY, boolean isNegating)
+        {
+            if(radius < 0 || radius > maxRadius)
+                throw new IllegalArgumentException("Radius must be between 0 and " + maxRadius + ".");
+
+            this.centreX = centreX;
+            this.centreZ = centreZ;
+            this.radius = radius;
+            this.radiusSquared = (long)radius * radius;
+            this.isNegating = isNegating;
+            this.minX = (int)Math.max((long)centreX - radius, Integer.MIN_VALUE);
+            this.minY = Math.min(fromY, toY);
+            this.minZ = (int)Math.max((long)centreZ - radius, Integer.MIN_VALUE);
+            this.maxX = (int)Math.min((long)centreX + radius, Integer.MAX_VALUE);
+            this.maxY = Math.max(fromY, toY);
+            this.maxZ = (int)Math.min((long)centreZ + radius, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Creates a new cylindrical region, unbounded on the Y coördinate.
+         * @param centreX The X coördinate of the column at the centre of the cylinder.
+         * @param centreZ The Z coördinate of the column at the centre of the cylinder.
+         * @param radius The distance from the centre column, in blocks, of the furthest blocks within the cylinder.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         * @throws IllegalArgumentException If the radius is negative or greater than {@link #maxRadius}.
+         */
+        public ZoneRegionCylinder(int centreX, int centreZ, int radius, boolean isNegating)
+        { this(centreX, centreZ, radius, Integer.MIN_VALUE, Integer.MAX_VALUE, isNegating); }
+
+        /**
+         * Creates a new cylindrical region, unbounded on the Y coördinate.
+         * @param centreX The X coördinate of the column at the centre of the cylinder.
+         * @param centreZ The Z coördinate of the column at the centre of the cylinder.
+         * @param radius The distance from the centre column, in blocks, of the furthest blocks within the cylinder.
+         * @throws IllegalArgumentException If the radius is negative or greater than {@link #maxRadius}.
+         */
+        public ZoneRegionCylinder(int centreX, int centreZ, int radius)
+        { this(centreX, centreZ, radius, Integer.MIN_VALUE, Integer.MAX_VALUE, false); }
+
+        /**
+         * The largest radius a cylinder may have. This matches {@link ZoneRegionSphere#maxRadius}.
+         */
+        public static final int maxRadius = ZoneRegionSphere.maxRadius;
+
+        protected final int centreX, centreZ, radius;
+        protected final long radiusSquared;
+        protected final int minX, minY, minZ, maxX, maxY, maxZ;
+        protected final boolean isNegating;
+
+        /**
+         * Gets whether or not the block column at the given XZ coördinate is within the circle of the cylinder.
+         * @param x The X coördinate.
+         * @param z The Z coördinate.
+         * @return True if the column at the given XZ coördinate is within the cylinder's circle. Otherwise, false.
+         */
+        private boolean circleContains(long x, long z)
+        {
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+                return false;
+
+            long dx = x - centreX, dz = z - centreZ;
+            return dx * dx + dz * dz <= radiusSquared;
+        }
+
+        /**
+         * Gets the X coördinate of the column at the centre of the cylinder.
+         * @return The X coördinate of the cylinder's centre.
+         */
+        public int getCentreX()
+        { return centreX; }
+
+        /**
+         * Gets the Z coördinate of the column at the centre of the cylinder.
+         * @return The Z coördinate of the cylinder's centre.
+         */
+        public int getCentreZ()
+        { return centreZ; }
+
+        /**
+         * Gets the radius of the cylinder.
+         * @return The distance from the centre column, in blocks, of the furthest blocks within the cylinder.
+         */
+        public int getRadius()
+        { return radius; }
+
+        /**
+         * Gets whether or not this region is limited on the Y coördinate.
+         * @return True if this region has a minimum or maximum Y coördinate. Otherwise, false.
+         */
+        public boolean hasYRange()
+        { return minY != Integer.MIN_VALUE || maxY != Integer.MAX_VALUE; }
+
+        @Override
+        public int getMinX()
+        { return minX; }
+
+        @Override
+        public int getMinY()
+        { return minY; }
+
+        @Override
+        public int getMinZ()
+        { return minZ; }
+
+        @Override
+        public int getMaxX()
+        { return maxX; }
+
+        @Override
+        public int getMaxY()
+        { return maxY; }
+
+        @Override
+        public int getMaxZ()
+        { return maxZ; }
+
+        @Override
+        public boolean isNegating()
+        { return isNegating; }
+
+        @Override
+        public boolean contains(int x, int z)
+        { return circleContains(x, z); }
+
+        @Override
+        public boolean contains(int x, int y, int z)
+        { return minY <= y && y <= maxY && circleContains(x, z); }
+
+        @Override
+        public boolean contains(double x, double z)
+        { return circleContains((long)Math.floor(x), (long)Math.floor(z)); }
+
+        @Override
+        public boolean contains(double x, double y, double z)
+        { return minY <= y && y < maxY + 1.0 && circleContains((long)Math.floor(x), (long)Math.floor(z)); }
+
+        @Override
+        public ZoneRegionCylinder negating()
+        { return new ZoneRegionCylinder(centreX, centreZ, radius, minY, maxY, true); }
+
+        @Override
+        public String toString()
+        {
+            String result = (isNegating ? "-cylinder(" : "cylinder(")
+                            + centreX + ", " + centreZ + "; radius " + radius + ")";
+
+            if(hasYRange())
+                result += " y " + minY + " to " + maxY;
+
+            return result + " ";
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+                return true;
+
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            ZoneRegionCylinder other = (ZoneRegionCylinder)o;
+
+            return centreX == other.centreX
+                && centreZ == other.centreZ
+                && radius == other.radius
+                && minY == other.minY
+                && maxY == other.maxY
+                && isNegating == other.isNegating;
+        }
+
+        @Override
+        public int hashCode()
+        { return Objects.hash(centreX, centreZ, radius, minY, maxY, isNegating); }
+    }
+
+    /**
+     * <p>A region representing an arbitrary set of blocks, stored column by column. Each block column (XZ coördinate)
+     * in the region holds the runs of consecutive Y values within the region, so a column costs the same no matter how
+     * tall its runs are, and a region costs the same no matter how many regions it was made from.</p>
+     *
+     * <p>Columns are found through an open-addressed hash table of packed XZ coördinates, and then the column's runs
+     * are binary searched. All data is kept in primitive arrays.</p>
+     *
+     * <p>Regions of this type are normally made by converting existing regions, using
+     * {@link #ofRegions(List)}.</p>
+     */
+    public static class ZoneRegionVoxelColumns implements ZoneRegion
+    {
+        /**
+         * Creates a new voxel column region from its packed data. The data is assumed to be valid.
+         * @param columnKeys The XZ coördinates of the region's columns, as per {@link #getColumnKey(int, int)}, in
+         *                   ascending order.
+         * @param runOffsets The index in runs of the first run of each column, followed by the length of runs. Column
+         *                   i's runs are between runOffsets[i] (inclusive) and runOffsets[i + 1] (exclusive).
+         * @param runs The runs of all columns, as [from Y, to Y, from Y, to Y, ...]. Each column's runs are in
+         *             ascending order, and don't overlap or touch.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         */
+        ZoneRegionVoxelColumns(long[] columnKeys, int[] runOffsets, int[] runs, boolean isNegating)
+        {
+            if(columnKeys.length == 0)
+                throw new IllegalArgumentException("Voxel column regions must contain at least one column.");
+
+            this.columnKeys = columnKeys;
+            this.runOffsets = runOffsets;
+            this.runs = runs;
+            this.isNegating = isNegating;
+
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+            for(int i = 0; i < columnKeys.length; i++)
+            {
+                int x = getColumnKeyX(columnKeys[i]), z = getColumnKeyZ(columnKeys[i]);
+                minX = Math.min(minX, x);
+                minZ = Math.min(minZ, z);
+                maxX = Math.max(maxX, x);
+                maxZ = Math.max(maxZ, z);
+                minY = Math.min(minY, runs[runOffsets[i]]);
+                maxY = Math.max(maxY, runs[runOffsets[i + 1] - 1]);
+            }
+
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+
+            int tableSize = Integer.highestOneBit(columnKeys.length * 2 - 1) << 1;
+            this.tableKeys = new long[tableSize];
+            this.tableColumns = new int[tableSize];
+            Arrays.fill(tableColumns, -1);
+
+            for(int i = 0; i < columnKeys.length; i++)
+            {
+                int slot = hash(columnKeys[i]) & (tableSize - 1);
+
+                while(tableColumns[slot] != -1)
+                    slot = (slot + 1) & (tableSize - 1);
+
+                tableKeys[slot] = columnKeys[i];
+                tableColumns[slot] = i;
+            }
+        }
+
+        /**
+         * The largest number of block columns that may be checked in converting regions into a voxel column region.
+         * Columns are only checked within the bounds of each region being converted, so regions far apart don't count
+         * the columns between them.
+         * @see #ofRegions(List)
+         */
+        public static final int maxColumnsConverted = 1 << 20;
+
+        protected final long[] columnKeys;
+        protected final int[] runOffsets;
+        protected final int[] runs;
+        protected final int minX, minY, minZ, maxX, maxY, maxZ;
+        protected final boolean isNegating;
+
+        /**
+         * The region's hash code, once worked out. This is kept, as hashing the region hashes all of its columns and
+         * runs.
+         */
+        private int hash;
+
+        /**
+         * Whether {@link #hash} has been worked out. This is written after it, so a thread seeing this as true sees the
+         * hash as well.
+         */
+        private volatile boolean hashIsKnown = false;
+
+        /**
+         * The keys of the hash table of columns. Slots not in use have a value of -1 in {@link #tableColumns}.
+         */
+        private final long[] tableKeys;
+
+        /**
+         * The values of the hash table of columns - the index in {@link #columnKeys} of the column with the key in the
+         * same slot of {@link #tableKeys}, or -1 if the slot is empty.
+         */
+        private final int[] tableColumns;
+
+        /**
+         * Creates a voxel column region covering the same blocks as a stack of layered regions would, as in a zone.
+         * Regions that add to the area are included, and regions that are negating are cut away, in order from the
+         * first region to the last.
+         * @param regions The regions to convert, in order from the lowest layer to the highest.
+         * @return A new voxel column region covering the same blocks as the given regions, or null if the given
+         *         regions don't cover any blocks.
+         * @throws IllegalArgumentException If any of the given regions are of a type that can't be converted, or if
+         *                                  more than {@link #maxColumnsConverted} block columns would need to be
+         *                                  checked to convert them.
+         */
+        public static ZoneRegionVoxelColumns ofRegions(List<? extends ZoneRegion> regions)
+        {
+            ColumnSet columns = new ColumnSet();
+            columns.addColumnsOf(regions);
+            return ofColumns(columns, (x, z) -> getRunsOfRegionsInColumn(regions, x, z));
+        }
+
+        /**
+         * Creates a voxel column region covering every block covered by either of two stacks of layered regions.
+         * @see #ofRegions(List)
+         * @param regions The first stack of regions, in order from the lowest layer to the highest.
+         * @param otherRegions The second stack of regions, in order from the lowest layer to the highest.
+         * @return A new voxel column region covering the blocks covered by either stack of regions, or null if neither
+         *         covers any blocks.
+         * @throws IllegalArgumentException If any of the given regions are of a type that can't be converted, or if
+         *                                  more than {@link #maxColumnsConverted} block columns would need to be
+         *                                  checked to convert them.
+         */
+        public static ZoneRegionVoxelColumns union(List<? extends ZoneRegion> regions,
+                                                   List<? extends ZoneRegion> otherRegions)
+        {
+            ColumnSet columns = new ColumnSet();
+            columns.addColumnsOf(regions);
+            columns.addColumnsOf(otherRegions);
+
+            return ofColumns(columns, (x, z) ->
+            {
+                int[] runs = getRunsOfRegionsInColumn(regions, x, z);
+                int[] otherRuns = getRunsOfRegionsInColumn(otherRegions, x, z);
+
+                for(int i = 0; i < otherRuns.length; i += 2)
+                    runs = addRun(runs, otherRuns[i], otherRuns[i + 1]);
+
+                return runs;
+            });
+        }
+
+        /**
+         * Creates a voxel column region covering every block covered by both of two stacks of layered regions. Only
+         * the block columns where the bounds of regions from both stacks overlap are checked.
+         * @see #ofRegions(List)
+         * @param regions The first stack of regions, in order from the lowest layer to the highest.
+         * @param otherRegions The second stack of regions, in order from the lowest layer to the highest.
+         * @return A new voxel column region covering the blocks covered by both stacks of regions, or null if there are
+         *         no such blocks.
+         * @throws IllegalArgumentException If any of the given regions are of a type that can't be converted, or if
+         *                                  more than {@link #maxColumnsConverted} block columns would need to be
+         *                                  checked to convert them.
+         */
+        public static ZoneRegionVoxelColumns intersection(List<? extends ZoneRegion> regions,
+                                                          List<? extends ZoneRegion> otherRegions)
+        {
+            ColumnSet columns = new ColumnSet();
+
+            for(ZoneRegion region : regions)
+                for(ZoneRegion otherRegion : otherRegions)
+                    if(!region.isNegating() && !otherRegion.isNegating())
+                        columns.addColumnsOfOverlap(region, otherRegion);
+
+            return ofColumns(columns, (x, z) ->
+            {
+                int[] runs = getRunsOfRegionsInColumn(regions, x, z);
+                int[] otherRuns = getRunsOfRegionsInColumn(otherRegions, x, z);
+                int[] result = new int[runs.length + otherRuns.length];
+                int resultLength = 0;
+
+                for(int i = 0, j = 0; i < runs.length && j < otherRuns.length;)
+                {
+                    int from = Math.max(runs[i], otherRuns[j]), to = Math.min(runs[i + 1], otherRuns[j + 1]);
+
+                    if(from <= to)
+                    {
+                        result[resultLength++] = from;
+                        result[resultLength++] = to;
+                    }
+
+                    if(runs[i + 1] < otherRuns[j + 1])
+                        i += 2;
+                    else
+                        j += 2;
+                }
+
+                return Arrays.copyOf(result, resultLength);
+            });
+        }
+
+        /**
+         * Creates a voxel column region covering every block covered by one stack of layered regions but not by
+         * another. Only the block columns of the first stack of regions are checked.
+         * @see #ofRegions(List)
+         * @param regions The stack of regions to subtract from, in order from the lowest layer to the highest.
+         * @param otherRegions The stack of regions to subtract, in order from the lowest layer to the highest.
+         * @return A new voxel column region covering the blocks covered by the first stack of regions but not the
+         *         second, or null if there are no such blocks.
+         * @throws IllegalArgumentException If any of the given regions are of a type that can't be converted, or if
+         *                                  more than {@link #maxColumnsConverted} block columns would need to be
+         *                                  checked to convert them.
+         */
+        public static ZoneRegionVoxelColumns difference(List<? extends ZoneRegion> regions,
+                                                        List<? extends ZoneRegion> otherRegions)
+        {
+            ColumnSet columns = new ColumnSet();
+            columns.addColumnsOf(regions);
+
+            return ofColumns(columns, (x, z) ->
+            {
+                int[] runs = getRunsOfRegionsInColumn(regions, x, z);
+
+                if(runs.length == 0)
+                    return runs;
+
+                int[] otherRuns = getRunsOfRegionsInColumn(otherRegions, x, z);
+
+                for(int i = 0; i < otherRuns.length; i += 2)
+                    runs = removeRun(runs, otherRuns[i], otherRuns[i + 1]);
+
+                return runs;
+            });
+        }
+
+        /**
+         * <p>The block columns that may be covered by the regions being converted, gathered from the bounds of each
+         * region separately. Regions far apart from each other don't cause the columns between them to be checked.</p>
+         *
+         * <p>No more than {@link #maxColumnsConverted} columns may be gathered in total, counting columns gathered more
+         * than once each time.</p>
+         */
+        private static final class ColumnSet
+        {
+            final LongOpenHashSet keys = new LongOpenHashSet();
+
+            /**
+             * The number of columns that may still be gathered.
+             */
+            long columnsLeft = maxColumnsConverted;
+
+            /**
+             * Adds the columns within the bounds of each of the given regions that isn't negating.
+             * @param regions The regions to add the columns of.
+             * @throws IllegalArgumentException If this would gather more than {@link #maxColumnsConverted} columns.
+             */
+            void addColumnsOf(List<? extends ZoneRegion> regions)
+            {
+                for(ZoneRegion region : regions)
+                    if(!region.isNegating())
+                        addColumnsOf(region, region.getMinX(), region.getMinZ(), region.getMaxX(), region.getMaxZ());
+            }
+
+            /**
+             * Adds the columns within the bounds of both of the given regions.
+             * @param region One of the regions.
+             * @param otherRegion The other region.
+             * @throws IllegalArgumentException If this would gather more than {@link #maxColumnsConverted} columns.
+             */
+            void addColumnsOfOverlap(ZoneRegion region, ZoneRegion otherRegion)
+            {
+                // Where one of the regions is made of voxel columns, only its columns need to be gathered.
+                if(otherRegion instanceof ZoneRegionVoxelColumns && !(region instanceof ZoneRegionVoxelColumns))
+                {
+                    ZoneRegion temp = region;
+                    region = otherRegion;
+                    otherRegion = temp;
+                }
+
+                addColumnsOf(region,
+                             otherRegion.getMinX(), otherRegion.getMinZ(),
+                             otherRegion.getMaxX(), otherRegion.getMaxZ());
+            }
+
+            /**
+             * Adds the columns within the bounds of a region and within the given area. Where the region is made of
+             * voxel columns, only its columns are added.
+             * @param region The region to add the columns of.
+             * @param fromX The lowest X coördinate of the area.
+             * @param fromZ The lowest Z coördinate of the area.
+             * @param toX The highest X coördinate of the area.
+             * @param toZ The highest Z coördinate of the area.
+             * @throws IllegalArgumentException If this would gather more than {@link #maxColumnsConverted} columns.
+             */
+            private void addColumnsOf(ZoneRegion region, int fromX, int fromZ, int toX, int toZ)
+            {
+                long minX = Math.max(fromX, region.getMinX()), maxX = Math.min(toX, region.getMaxX());
+                long minZ = Math.max(fromZ, region.getMinZ()), maxZ = Math.min(toZ, region.getMaxZ());
+
+                if(minX > maxX || minZ > maxZ)
+                    return;
+
+                if(region instanceof ZoneRegionVoxelColumns)
+                {
+                    long[] columnKeys = ((ZoneRegionVoxelColumns)region).columnKeys;
+                    useUp(columnKeys.length);
+
+                    for(long key : columnKeys)
+                    {
+                        int x = getColumnKeyX(key), z = getColumnKeyZ(key);
+
+                        if(x >= minX && x <= maxX && z >= minZ && z <= maxZ)
+                            keys.add(key);
+                    }
+
+                    return;
+                }
+
+                useUp((maxX - minX + 1) * (maxZ - minZ + 1));
+
+                for(long x = minX; x <= maxX; x++)
+                    for(long z = minZ; z <= maxZ; z++)
+                        keys.add(getColumnKey((int)x, (int)z));
+            }
+
+            /**
+             * Counts columns as having been gathered.
+             * @param columnCount The number of columns being gathered.
+             * @throws IllegalArgumentException If more than {@link #maxColumnsConverted} columns would have been
+             *                                  gathered in total.
+             */
+            private void useUp(long columnCount)
+            {
+                columnsLeft -= columnCount;
+
+                if(columnsLeft < 0)
+                {
+                    throw new IllegalArgumentException("Area covered is larger than " + maxColumnsConverted
+                                                       + " block columns.");
+                }
+            }
+        }
+
+        /**
+         * Source of the runs of Y values in block columns, for building voxel column regions.
+         */
+        private interface ColumnRunsGetter
+        {
+            /**
+             * Gets the runs of Y values in the block column at the given XZ coördinate.
+             * @param x The X coördinate of the column.
+             * @param z The Z coördinate of the column.
+             * @return The runs in the column, as [from Y, to Y, from Y, to Y, ...] in ascending order, not overlapping
+             *         or touching.
+             */
+            int[] getRuns(int x, int z);
+        }
+
+        /**
+         * Creates a voxel column region from the runs of each of the given block columns.
+         * @param columns The block columns to get the runs of.
+         * @param runsGetter The source of the runs in each column.
+         * @return A new voxel column region with the runs provided, or null if no runs were provided.
+         */
+        private static ZoneRegionVoxelColumns ofColumns(ColumnSet columns, ColumnRunsGetter runsGetter)
+        {
+            long[] keysToCheck = columns.keys.toLongArray();
+            Arrays.sort(keysToCheck);
+
+            LongArrayList keys = new LongArrayList();
+            List<int[]> columnsRuns = new ArrayList<>();
+            int runsLength = 0;
+
+            for(long key : keysToCheck)
+            {
+                int[] columnRuns = runsGetter.getRuns(getColumnKeyX(key), getColumnKeyZ(key));
+
+                if(columnRuns.length != 0)
+                {
+                    keys.add(key);
+                    columnsRuns.add(columnRuns);
+                    runsLength += columnRuns.length;
+                }
+            }
+
+            if(keys.isEmpty())
+                return null;
+
+            long[] columnKeys = new long[keys.size()];
+            int[] runOffsets = new int[keys.size() + 1];
+            int[] runs = new int[runsLength];
+
+            for(int i = 0, offset = 0; i < columnKeys.length; i++)
+            {
+                int[] columnRuns = columnsRuns.get(i);
+                columnKeys[i] = keys.getLong(i);
+                runOffsets[i] = offset;
+                System.arraycopy(columnRuns, 0, runs, offset, columnRuns.length);
+                offset += columnRuns.length;
+            }
+
+            runOffsets[columnKeys.length] = runsLength;
+            return new ZoneRegionVoxelColumns(columnKeys, runOffsets, runs, false);
+        }
+
+        /**
+         * Gets the runs of Y values covered by a stack of layered regions in the block column at the given XZ
+         * coördinate.
+         * @param regions The regions to get the runs of, in order from the lowest layer to the highest.
+         * @param x The X coördinate of the column.
+         * @param z The Z coördinate of the column.
+         * @return The runs in the column, as [from Y, to Y, from Y, to Y, ...] in ascending order, not overlapping or
+         *         touching.
+         * @throws IllegalArgumentException If any of the regions are of a type whose runs can't be determined.
+         */
+        private static int[] getRunsOfRegionsInColumn(List<? extends ZoneRegion> regions, int x, int z)
+        {
+            int[] columnRuns = new int[0];
+
+            for(ZoneRegion region : regions)
+            {
+                int[] regionRuns = getRunsOfRegionInColumn(region, x, z);
+
+                for(int i = 0; i < regionRuns.length; i += 2)
+                {
+                    columnRuns = region.isNegating() ? removeRun(columnRuns, regionRuns[i], regionRuns[i + 1])
+                                                     : addRun(columnRuns, regionRuns[i], regionRuns[i + 1]);
+                }
+            }
+
+            return columnRuns;
+        }
+
+        /**
+         * Gets the runs of Y values of the given region in the block column at the given XZ coördinate.
+         * @param region The region to get the runs of.
+         * @param x The X coördinate of the column.
+         * @param z The Z coördinate of the column.
+         * @return The runs of the region in the column, as [from Y, to Y, from Y, to Y, ...].
+         * @throws IllegalArgumentException If the region is of a type whose runs can't be determined.
+         */
+        private static int[] getRunsOfRegionInColumn(ZoneRegion region, int x, int z)
+        {
+            if(x < region.getMinX() || x > region.getMaxX() || z < region.getMinZ() || z > region.getMaxZ())
+                return new int[0];
+
+            if(region instanceof ZoneRegionCuboid)
+                return new int[] { region.getMinY(), region.getMaxY() };
+
+            if(region instanceof ZoneRegionRectangle
+            || region instanceof ZoneRegionPolygon
+            || region instanceof ZoneRegionCylinder)
+            {
+                return region.contains(x, z) ? new int[] { region.getMinY(), region.getMaxY() }
+                                             : new int[0];
+            }
+
+            if(region instanceof ZoneRegionSphere)
+            {
+                ZoneRegionSphere sphere = (ZoneRegionSphere)region;
+                long dx = x - sphere.centreX, dz = z - sphere.centreZ;
+                long remaining = sphere.radiusSquared - dx * dx - dz * dz;
+
+                if(remaining < 0)
+                    return new int[0];
+
+                long dy = (long)Math.sqrt(remaining);
+
+                while(dy * dy > remaining)
+                    dy--;
+
+                while((dy + 1) * (dy + 1) <= remaining)
+                    dy++;
+
+                return new int[] { (int)Math.max(sphere.centreY - dy, Integer.MIN_VALUE),
+                                   (int)Math.min(sphere.centreY + dy, Integer.MAX_VALUE) };
+            }
+
+            if(region instanceof ZoneRegionVoxelColumns)
+            {
+                ZoneRegionVoxelColumns voxels = (ZoneRegionVoxelColumns)region;
+                int column = voxels.getColumnIndex(x, z);
+
+                return column == -1 ? new int[0]
+                                    : Arrays.copyOfRange(voxels.runs,
+                                                         voxels.runOffsets[column],
+                                                         voxels.runOffsets[column + 1]);
+            }
+
+            if(region instanceof ZoneRegionOctree)
+                return ((ZoneRegionOctree)region).getRunsInColumn(x, z);
+
+            throw new IllegalArgumentException("Regions of type " + region.getClass().getSimpleName()
+                                               + " can't be converted to voxel columns.");
+        }
+
+        /**
+         * Adds a run to a set of runs.
+         * @param runs The runs to add to, as [from Y, to Y, from Y, to Y, ...] in ascending order, not overlapping or
+         *             touching.
+         * @param from The lowest Y value of the run to add.
+         * @param to The highest Y value of the run to add.
+         * @return A new array of runs in the same format, including the given run.
+         */
+        private static int[] addRun(int[] runs, int from, int to)
+        {
+            int[] result = new int[runs.length + 2];
+            int resultLength = 0;
+            boolean added = false;
+
+            for(int i = 0; i < runs.length; i += 2)
+            {
+                int runFrom = runs[i], runTo = runs[i + 1];
+
+                if((long)runTo + 1 < from)
+                {
+                    result[resultLength++] = runFrom;
+                    result[resultLength++] = runTo;
+                }
+                else if((long)to + 1 < runFrom)
+                {
+                    if(!added)
+                    {
+                        result[resultLength++] = from;
+                        result[resultLength++] = to;
+                        added = true;
+                    }
+
+                    result[resultLength++] = runFrom;
+                    result[resultLength++] = runTo;
+                }
+                else
+                {
+                    from = Math.min(from, runFrom);
+                    to = Math.max(to, runTo);
+                }
+            }
+
+            if(!added)
+            {
+                result[resultLength++] = from;
+                result[resultLength++] = to;
+            }
+
+            return Arrays.copyOf(result, resultLength);
+        }
+
+        /**
+         * Removes a run from a set of runs.
+         * @param runs The runs to remove from, as [from Y, to Y, from Y, to Y, ...] in ascending order, not overlapping
+         *             or touching.
+         * @param from The lowest Y value of the run to remove.
+         * @param to The highest Y value of the run to remove.
+         * @return A new array of runs in the same format, excluding the given run.
+         */
+        private static int[] removeRun(int[] runs, int from, int to)
+        {
+            int[] result = new int[runs.length + 2];
+            int resultLength = 0;
+
+            for(int i = 0; i < runs.length; i += 2)
+            {
+                int runFrom = runs[i], runTo = runs[i + 1];
+
+                if(runTo < from || runFrom > to)
+                {
+                    result[resultLength++] = runFrom;
+                    result[resultLength++] = runTo;
+                    continue;
+                }
+
+                if(runFrom < from)
+                {
+                    result[resultLength++] = runFrom;
+                    result[resultLength++] = from - 1;
+                }
+
+                if(runTo > to)
+                {
+                    result[resultLength++] = to + 1;
+                    result[resultLength++] = runTo;
+                }
+            }
+
+            return Arrays.copyOf(result, resultLength);
+        }
+
+        /**
+         * Packs an XZ coördinate into a single key, such that keys sort in order of X coördinate and then Z
+         * coördinate.
+         * @param x The X coördinate.
+         * @param z The Z coördinate.
+         * @return The key of the given XZ coördinate.
+         */
+        static long getColumnKey(int x, int z)
+        { return ((long)x << 32) | ((z ^ Integer.MIN_VALUE) & 0xFFFFFFFFL); }
+
+        /**
+         * Gets the X coördinate from a key created by {@link #getColumnKey(int, int)}.
+         * @param key The key.
+         * @return The X coördinate of the key.
+         */
+        static int getColumnKeyX(long key)
+        { return (int)(key >> 32); }
+
+        /**
+         * Gets the Z coördinate from a key created by {@link #getColumnKey(int, int)}.
+         * @param key The key.
+         * @return The Z coördinate of the key.
+         */
+        static int getColumnKeyZ(long key)
+        { return (int)key ^ Integer.MIN_VALUE; }
+
+        /**
+         * Gets the hash of a column key for use in the hash table of columns.
+         * @param key The column key.
+         * @return The hash of the key, with its bits well distributed.
+         */
+        private static int hash(long key)
+        {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int)(h ^ (h >>> 32));
+        }
+
+        /**
+         * Gets the index of the column at the given XZ coördinate.
+         * @param x The X coördinate.
+         * @param z The Z coördinate.
+         * @return The index in {@link #columnKeys} of the column at the given coördinate, or -1 if the region has no
+         *         blocks in that column.
+         */
+        private int getColumnIndex(long x, long z)
+        {
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+                return -1;
+
+            long key = getColumnKey((int)x, (int)z);
+            int mask = tableKeys.length - 1;
+
+            for(int slot = hash(key) & mask; tableColumns[slot] != -1; slot = (slot + 1) & mask)
+                if(tableKeys[slot] == key)
+                    return tableColumns[slot];
+
+            return -1;
+        }
+
+        /**
+         * Gets whether or not the block at the given XYZ coördinate is within the region.
+         * @param x The X coördinate.
+         * @param y The Y coördinate.
+         * @param z The Z coördinate.
+         * @return True if the block at the given coördinate is within the region. Otherwise, false.
+         */
+        private boolean voxelsContain(long x, long y, long z)
+        {
+            if(y < minY || y > maxY)
+                return false;
+
+            int column = getColumnIndex(x, z);
+
+            if(column == -1)
+                return false;
+
+            // Finds the last run starting at or below y.
+            int low = runOffsets[column] / 2, high = runOffsets[column + 1] / 2 - 1;
+
+            while(low < high)
+            {
+                int middle = (low + high + 1) >>> 1;
+
+                if(runs[middle * 2] <= y)
+                    low = middle;
+                else
+                    high = middle - 1;
+            }
+
+            return runs[low * 2] <= y && y <= runs[low * 2 + 1];
+        }
+
+        /**
+         * Gets the number of block columns in this region.
+         * @return The number of XZ coördinates at which this region contains at least one block.
+         */
+        public int getColumnCount()
+        { return columnKeys.length; }
+
+        /**
+         * Gets the total number of runs in all columns in this region.
+         * @return The number of runs of consecutive Y values in this region.
+         */
+        public int getRunCount()
+        { return runs.length / 2; }
+
+        @Override
+        public int getMinX()
+        { return minX; }
+
+        @Override
+        public int getMinY()
+        { return minY; }
+
+        @Override
+        public int getMinZ()
+        { return minZ; }
+
+        @Override
+        public int getMaxX()
+        { return maxX; }
+
+        @Override
+        public int getMaxY()
+        { return maxY; }
+
+        @Override
+        public int getMaxZ()
+        { return maxZ; }
+
+        @Override
+        public boolean isNegating()
+        { return isNegating; }
+
+        @Override
+        public boolean contains(int x, int z)
+        { return getColumnIndex(x, z) != -1; }
+
+        @Override
+        public boolean contains(int x, int y, int z)
+        { return voxelsContain(x, y, z); }
+
+        @Override
+        public boolean contains(double x, double z)
+        { return getColumnIndex((long)Math.floor(x), (long)Math.floor(z)) != -1; }
+
+        @Override
+        public boolean contains(double x, double y, double z)
+        { return voxelsContain((long)Math.floor(x), (long)Math.floor(y), (long)Math.floor(z)); }
+
+        @Override
+        public ZoneRegionVoxelColumns negating()
+        { return new ZoneRegionVoxelColumns(columnKeys, runOffsets, runs, true); }
+
+        @Override
+        public String toString()
+        {
+            return (isNegating ? "-voxelcolumns(" : "voxelcolumns(")
+                   + "(" + minX + ", " + minY + ", " + minZ + ") to (" + maxX + ", " + maxY + ", " + maxZ + "); "
+                   + getColumnCount() + " columns, " + getRunCount() + " runs) ";
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+                return true;
+
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            ZoneRegionVoxelColumns other = (ZoneRegionVoxelColumns)o;
+
+            return isNegating == other.isNegating
+                && hashCode() == other.hashCode()
+                && Arrays.equals(columnKeys, other.columnKeys)
+                && Arrays.equals(runOffsets, other.runOffsets)
+                && Arrays.equals(runs, other.runs);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            if(!hashIsKnown)
+            {
+                hash = Objects.hash(Arrays.hashCode(columnKeys), Arrays.hashCode(runs), isNegating);
+                hashIsKnown = true;
+            }
+
+            return hash;
+        }
+    }
+
+    /**
+     * <p>A region representing an arbitrary set of blocks, stored as a sparse octree. The octree is a cube whose width
+     * is a power of two, divided into eight equal cubes, each of which is either entirely within the region, entirely
+     * outside of it, or divided again in the same way. Cubes whose eight parts are all in or all out of the region are
+     * always merged back into one, so large solid or empty volumes cost a single node.</p>
+     *
+     * <p>Regions of this type are immutable. Filling or carving out a cuboid creates a new region, sharing all the
+     * nodes the change doesn't touch with the original.</p>
+     *
+     * <p>Internally, coördinates are offset by 2<sup>31</sup> so they're all non-negative, which allows a single cube
+     * 2<sup>32</sup> blocks wide to cover every possible coördinate.</p>
+     */
+    public static class ZoneRegionOctree implements ZoneRegion
+    {
+        /**
+         * A cube in the octree.
+         */
+        static final class Node
+        {
+            /**
+             * Creates a new leaf node.
+             * @param isFull Whether or not the cube is entirely within the region.
+             */
+            private Node(boolean isFull)
+            {
+                this.children = null;
+                this.isFull = isFull;
+            }
+
+            /**
+             * Creates a new branch node.
+             * @param children The eight cubes this cube is divided into. Child i has offset (i &amp; 1) on the X
+             *                 coördinate, (i &amp; 2) on the Y coördinate, and (i &amp; 4) on the Z coördinate.
+             */
+            private Node(Node[] children)
+            {
+                this.children = children;
+                this.isFull = false;
+            }
+
+            /**
+             * The cube entirely within the region.
+             */
+            static final Node FULL = new Node(true);
+
+            /**
+             * The cube entirely outside of the region.
+             */
+            static final Node EMPTY = new Node(false);
+
+            /**
+             * The eight cubes this cube is divided into, or null if this is a leaf.
+             */
+            final Node[] children;
+
+            /**
+             * Whether or not this cube is entirely within the region. Always false for branches.
+             */
+            final boolean isFull;
+
+            /**
+             * The node's hash code, once worked out. This is kept, as hashing a branch hashes its whole subtree.
+             */
+            private int hash;
+
+            /**
+             * Whether {@link #hash} has been worked out. This is written after it, so a thread seeing this as true sees
+             * the hash as well.
+             */
+            private volatile boolean hashIsKnown = false;
+
+            /**
+             * Gets a node for a cube divided into the given eight cubes, merging them into a leaf if they're all the
+             * same leaf.
+             * @param children The eight cubes.
+             * @return A leaf node if the given nodes are all the same leaf. Otherwise, a new branch node.
+             */
+            static Node of(Node[] children)
+            {
+                Node first = children[0];
+
+                if(first.children != null)
+                    return new Node(children);
+
+                for(int i = 1; i < 8; i++)
+                    if(children[i] != first)
+                        return new Node(children);
+
+                return first;
+            }
+
+            /**
+             * Gets the number of nodes in the subtree rooted at this node.
+             * @return The number of nodes in this subtree, including this one.
+             */
+            int count()
+            {
+                if(children == null)
+                    return 1;
+
+                int result = 1;
+
+                for(Node child : children)
+                    result += child.count();
+
+                return result;
+            }
+
+            @Override
+            public boolean equals(Object o)
+            {
+                if(this == o)
+                    return true;
+
+                if(o == null || getClass() != o.getClass())
+                    return false;
+
+                Node other = (Node)o;
+
+                return isFull == other.isFull
+                    && hashCode() == other.hashCode()
+                    && Arrays.equals(children, other.children);
+            }
+
+            @Override
+            public int hashCode()
+            {
+                if(!hashIsKnown)
+                {
+                    hash = children == null ? (isFull ? 1 : 0) : Arrays.hashCode(children);
+                    hashIsKnown = true;
+                }
+
+                return hash;
+            }
+        }
+
+        /**
+         * Creates a new octree region. The root should already be as small as possible.
+         * @param root The root node of the octree. This may not be {@link Node#EMPTY}.
+         * @param level The base 2 logarithm of the width of the root cube, from 0 to 32.
+         * @param originX The offset X coördinate of the root cube's lowest corner. This must be a multiple of the
+         *                cube's width.
+         * @param originY The offset Y coördinate of the root cube's lowest corner. This must be a multiple of the
+         *                cube's width.
+         * @param originZ The offset Z coördinate of the root cube's lowest corner. This must be a multiple of the
+         *                cube's width.
+         * @param isNegating Whether or not this region should be removing itself from the zone it's in rather than
+         *                   adding to it.
+         */
+        ZoneRegionOctree(Node root, int level, long originX, long originY, long originZ, boolean isNegating)
+        {
+            if(root == Node.EMPTY)
+                throw new IllegalArgumentException("Octree regions must contain at least one block.");
+
+            this.root = root;
+            this.level = level;
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.isNegating = isNegating;
+
+            long[] bounds = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE,
+                              Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE };
+
+            findBounds(root, level, originX, originY, originZ, bounds);
+            this.minX = fromOffset(bounds[0]);
+            this.minY = fromOffset(bounds[1]);
+            this.minZ = fromOffset(bounds[2]);
+            this.maxX = fromOffset(bounds[3]);
+            this.maxY = fromOffset(bounds[4]);
+            this.maxZ = fromOffset(bounds[5]);
+        }
+
+        /**
+         * The largest level of the root cube, at which it covers every possible coördinate.
+         */
+        static final int maxLevel = 32;
+
+        /**
+         * The largest number of nodes that may be divided by a single fill or carve operation. Cuboids that are very
+         * large on some axes but not aligned to large cubes on others (e.g. a layer a few blocks thick spanning the
+         * whole world) would otherwise need an impractical number of nodes.
+         */
+        public static final int maxNodesDividedPerEdit = 1 << 18;
+
+        final Node root;
+        final int level;
+        final long originX, originY, originZ;
+        protected final int minX, minY, minZ, maxX, maxY, maxZ;
+        protected final boolean isNegating;
+
+        /**
+         * Creates a new octree region containing the blocks in a cuboid.
+         * @param fromX One of the edges on the X coördinate.
+         * @param fromY One of the edges on the Y coördinate.
+         * @param fromZ One of the edges on the Z coördinate.
+         * @param toX The opposite edge on the X coördinate.
+         * @param toY The opposite edge on the Y coördinate.
+         * @param toZ The opposite edge on the Z coördinate.
+         * @return A new octree region containing the blocks in the given cuboid.
+         * @throws IllegalArgumentException If the cuboid would require more than {@link #maxNodesDividedPerEdit}
+         *                                  nodes to be divided.
+         */
+        public static ZoneRegionOctree ofCuboid(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+        {
+            return withCuboidSetTo(Node.EMPTY, 0, toOffset(fromX), toOffset(fromY), toOffset(fromZ),
+                                   fromX, fromY, fromZ, toX, toY, toZ, Node.FULL, false);
+        }
+
+        /**
+         * Creates a copy of this region with all of the blocks in a cuboid added to it.
+         * @param fromX One of the edges on the X coördinate.
+         * @param fromY One of the edges on the Y coördinate.
+         * @param fromZ One of the edges on the Z coördinate.
+         * @param toX The opposite edge on the X coördinate.
+         * @param toY The opposite edge on the Y coördinate.
+         * @param toZ The opposite edge on the Z coördinate.
+         * @return A new octree region containing the blocks in this region and the given cuboid.
+         * @throws IllegalArgumentException If the cuboid would require more than {@link #maxNodesDividedPerEdit}
+         *                                  nodes to be divided.
+         */
+        public ZoneRegionOctree filled(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+        {
+            return withCuboidSetTo(root, level, originX, originY, originZ,
+                                   fromX, fromY, fromZ, toX, toY, toZ, Node.FULL, isNegating);
+        }
+
+        /**
+         * Creates a copy of this region with all of the blocks in a cuboid removed from it.
+         * @param fromX One of the edges on the X coördinate.
+         * @param fromY One of the edges on the Y coördinate.
+         * @param fromZ One of the edges on the Z coördinate.
+         * @param toX The opposite edge on the X coördinate.
+         * @param toY The opposite edge on the Y coördinate.
+         * @param toZ The opposite edge on the Z coördinate.
+         * @return A new octree region containing the blocks in this region that aren't in the given cuboid, or null if
+         *         there are no such blocks.
+         * @throws IllegalArgumentException If the cuboid would require more than {@link #maxNodesDividedPerEdit}
+         *                                  nodes to be divided.
+         */
+        public ZoneRegionOctree carved(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+        {
+            return withCuboidSetTo(root, level, originX, originY, originZ,
+                                   fromX, fromY, fromZ, toX, toY, toZ, Node.EMPTY, isNegating);
+        }
+
+        /**
+         * Creates an octree region from an existing octree with all blocks in a cuboid set to be in or out of the
+         * region. The root is grown first if the cuboid isn't within it, and shrunk afterwards to be as small as
+         * possible.
+         * @return A new octree region, or null if the resulting octree contains no blocks.
+         * @throws IllegalArgumentException If the cuboid would require more than {@link #maxNodesDividedPerEdit}
+         *                                  nodes to be divided.
+         */
+        private static ZoneRegionOctree withCuboidSetTo(Node root, int level, long originX, long originY, long originZ,
+                                                        int fromX, int fromY, int fromZ, int toX, int toY, int toZ,
+                                                        Node value, boolean isNegating)
+        {
+            long[] box = { toOffset(Math.min(fromX, toX)), toOffset(Math.min(fromY, toY)),
+                           toOffset(Math.min(fromZ, toZ)), toOffset(Math.max(fromX, toX)),
+                           toOffset(Math.max(fromY, toY)), toOffset(Math.max(fromZ, toZ)) };
+
+            // Grow the root until it covers the cuboid.
+            while(value == Node.FULL
+                  && level < maxLevel
+                  && (box[0] < originX || box[1] < originY || box[2] < originZ
+                      || box[3] >= originX + (1L << level)
+                      || box[4] >= originY + (1L << level)
+                      || box[5] >= originZ + (1L << level)))
+            {
+                long mask = ~((1L << (level + 1)) - 1);
+                Node[] children = new Node[8];
+                Arrays.fill(children, Node.EMPTY);
+                children[getOctant(originX, originY, originZ, level + 1)] = root;
+                root = Node.of(children);
+                level++;
+                originX &= mask;
+                originY &= mask;
+                originZ &= mask;
+            }
+
+            root = withCuboidSetTo(root, level, originX, originY, originZ, box, value, new int[] { 0 });
+
+            // Shrink the root while only one of its children isn't empty.
+            while(root.children != null)
+            {
+                int onlyOctant = -1;
+
+                for(int i = 0; i < 8; i++)
+                {
+                    if(root.children[i] == Node.EMPTY)
+                        continue;
+
+                    onlyOctant = onlyOctant == -1 ? i : 8;
+                }
+
+                if(onlyOctant == 8)
+                    break;
+
+                long half = 1L << (level - 1);
+                root = root.children[onlyOctant];
+                level--;
+                originX += (onlyOctant & 1) != 0 ? half : 0;
+                originY += (onlyOctant & 2) != 0 ? half : 0;
+                originZ += (onlyOctant & 4) != 0 ? half : 0;
+            }
+
+            return root == Node.EMPTY ? null
+                                      : new ZoneRegionOctree(root, level, originX, originY, originZ, isNegating);
+        }
+
+        /**
+         * Sets all blocks in a cuboid within a subtree to be in or out of the region.
+         * @param node The root of the subtree.
+         * @param level The level of the subtree's root.
+         * @param ox The offset X coördinate of the lowest corner of the subtree's root cube.
+         * @param oy The offset Y coördinate of the lowest corner of the subtree's root cube.
+         * @param oz The offset Z coördinate of the lowest corner of the subtree's root cube.
+         * @param box The offset coördinates of the cuboid, as [minX, minY, minZ, maxX, maxY, maxZ].
+         * @param value {@link Node#FULL} to add the blocks in the cuboid to the region, or {@link Node#EMPTY} to
+         *              remove them.
+         * @param nodesDivided A single-element array holding the number of nodes divided so far in this operation.
+         * @return The root of the new subtree.
+         * @throws IllegalArgumentException If more than {@link #maxNodesDividedPerEdit} nodes would be divided.
+         */
+        private static Node withCuboidSetTo(Node node, int level, long ox, long oy, long oz, long[] box, Node value,
+                                            int[] nodesDivided)
+        {
+            long last = (1L << level) - 1;
+
+            if(node == value
+            || box[0] > ox + last || box[3] < ox
+            || box[1] > oy + last || box[4] < oy
+            || box[2] > oz + last || box[5] < oz)
+            { return node; }
+
+            if(box[0] <= ox && ox + last <= box[3]
+            && box[1] <= oy && oy + last <= box[4]
+            && box[2] <= oz && oz + last <= box[5])
+            { return value; }
+
+            if(++nodesDivided[0] > maxNodesDividedPerEdit)
+                throw new IllegalArgumentException("Cuboid is too large or too finely divided to add to an octree.");
+
+            Node[] children;
+
+            if(node.children != null)
+                children = node.children.clone();
+            else
+            {
+                children = new Node[8];
+                Arrays.fill(children, node);
+            }
+
+            long half = 1L << (level - 1);
+
+            for(int i = 0; i < 8; i++)
+            {
+                children[i] = withCuboidSetTo(children[i],
+                                              level - 1,
+                                              ox + ((i & 1) != 0 ? half : 0),
+                                              oy + ((i & 2) != 0 ? half : 0),
+                                              oz + ((i & 4) != 0 ? half : 0),
+                                              box,
+                                              value,
+                                              nodesDivided);
+            }
+
+            return Node.of(children);
+        }
+
+        /**
+         * Finds the bounds of the full cubes within a subtree.
+         * @param node The root of the subtree.
+         * @param level The level of the subtree's root.
+         * @param ox The offset X coördinate of the lowest corner of the subtree's root cube.
+         * @param oy The offset Y coördinate of the lowest corner of the subtree's root cube.
+         * @param oz The offset Z coördinate of the lowest corner of the subtree's root cube.
+         * @param bounds The bounds found so far, as offset [minX, minY, minZ, maxX, maxY, maxZ], to be expanded to
+         *               include the subtree's full cubes.
+         */
+        private static void findBounds(Node node, int level, long ox, long oy, long oz, long[] bounds)
+        {
+            long last = (1L << level) - 1;
+
+            // Skip subtrees that can't expand the bounds.
+            if(ox >= bounds[0] && oy >= bounds[1] && oz >= bounds[2]
+            && ox + last <= bounds[3] && oy + last <= bounds[4] && oz + last <= bounds[5])
+            { return; }
+
+            if(node.children == null)
+            {
+                if(node.isFull)
+                {
+                    bounds[0] = Math.min(bounds[0], ox);
+                    bounds[1] = Math.min(bounds[1], oy);
+                    bounds[2] = Math.min(bounds[2], oz);
+                    bounds[3] = Math.max(bounds[3], ox + last);
+                    bounds[4] = Math.max(bounds[4], oy + last);
+                    bounds[5] = Math.max(bounds[5], oz + last);
+                }
+
+                return;
+            }
+
+            long half = 1L << (level - 1);
+
+            for(int i = 0; i < 8; i++)
+            {
+                findBounds(node.children[i],
+                           level - 1,
+                           ox + ((i & 1) != 0 ? half : 0),
+                           oy + ((i & 2) != 0 ? half : 0),
+                           oz + ((i & 4) != 0 ? half : 0),
+                           bounds);
+            }
+        }
+
+        /**
+         * Converts a coördinate into an offset coördinate, as used within the octree.
+         * @param coörd The coördinate.
+         * @return The offset coördinate, from 0 to 2<sup>32</sup> - 1.
+         */
+        static long toOffset(long coörd)
+        { return coörd - Integer.MIN_VALUE; }
+
+        /**
+         * Converts an offset coördinate, as used within the octree, back into a coördinate.
+         * @param offsetCoörd The offset coördinate.
+         * @return The coördinate.
+         */
+        static int fromOffset(long offsetCoörd)
+        { return (int)(offsetCoörd + Integer.MIN_VALUE); }
+
+        /**
+         * Gets which of the eight cubes of a cube at the given level a point is in.
+         * @param ox The offset X coördinate of the point.
+         * @param oy The offset Y coördinate of the point.
+         * @param oz The offset Z coördinate of the point.
+         * @param level The level of the cube the point is in.
+         * @return The index of the child cube the point is in.
+         */
+        private static int getOctant(long ox, long oy, long oz, int level)
+        {
+            int shift = level - 1;
+            return (int)(((ox >>> shift) & 1) | (((oy >>> shift) & 1) << 1) | (((oz >>> shift) & 1) << 2));
+        }
+
+        /**
+         * Gets whether or not the block at the given XYZ coördinate is within the region.
+         * @param x The X coördinate.
+         * @param y The Y coördinate.
+         * @param z The Z coördinate.
+         * @return True if the block at the given coördinate is within the region. Otherwise, false.
+         */
+        private boolean octreeContains(long x, long y, long z)
+        {
+            if(x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)
+                return false;
+
+            long ox = toOffset(x), oy = toOffset(y), oz = toOffset(z);
+            Node node = root;
+
+            for(int nodeLevel = level; node.children != null; nodeLevel--)
+                node = node.children[getOctant(ox, oy, oz, nodeLevel)];
+
+            return node.isFull;
+        }
+
+        /**
+         * Gets whether or not any block in the block column at the given XZ coördinate is within the region.
+         * @param x The X coördinate.
+         * @param z The Z coördinate.
+         * @return True if any block in the column at the given XZ coördinate is within the region. Otherwise, false.
+         */
+        private boolean columnIntersects(long x, long z)
+        {
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+                return false;
+
+            return columnIntersects(root, level, toOffset(x), toOffset(z));
+        }
+
+        /**
+         * Gets whether or not any block in the block column at the given offset XZ coördinate is within a subtree that
+         * the column passes through.
+         * @param node The root of the subtree.
+         * @param level The level of the subtree's root.
+         * @param ox The offset X coördinate.
+         * @param oz The offset Z coördinate.
+         * @return True if any block in the column is within the subtree. Otherwise, false.
+         */
+        private static boolean columnIntersects(Node node, int level, long ox, long oz)
+        {
+            if(node.children == null)
+                return node.isFull;
+
+            int octant = getOctant(ox, 0, oz, level);
+
+            return columnIntersects(node.children[octant],     level - 1, ox, oz)
+                || columnIntersects(node.children[octant | 2], level - 1, ox, oz);
+        }
+
+        /**
+         * Gets the runs of Y values within the region in the block column at the given XZ coördinate.
+         * @param x The X coördinate of the column.
+         * @param z The Z coördinate of the column.
+         * @return The runs in the column, as [from Y, to Y, from Y, to Y, ...] in ascending order, not overlapping or
+         *         touching.
+         */
+        int[] getRunsInColumn(int x, int z)
+        {
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+                return new int[0];
+
+            return addRunsInColumn(root, level, originY, toOffset(x), toOffset(z), new int[0]);
+        }
+
+        /**
+         * Adds the runs of Y values within a subtree in the block column at the given offset XZ coördinate to a set of
+         * runs.
+         * @param node The root of the subtree.
+         * @param level The level of the subtree's root.
+         * @param oy The offset Y coördinate of the lowest corner of the subtree's root cube.
+         * @param ox The offset X coördinate of the column.
+         * @param oz The offset Z coördinate of the column.
+         * @param runs The runs to add to.
+         * @return A new array of runs, including those of the subtree in the column.
+         */
+        private static int[] addRunsInColumn(Node node, int level, long oy, long ox, long oz, int[] runs)
+        {
+            if(node.children == null)
+            {
+                return node.isFull ? ZoneRegionVoxelColumns.addRun(runs,
+                                                                   fromOffset(oy),
+                                                                   fromOffset(oy + (1L << level) - 1))
+                                   : runs;
+            }
+
+            int octant = getOctant(ox, 0, oz, level);
+            runs = addRunsInColumn(node.children[octant], level - 1, oy, ox, oz, runs);
+            return addRunsInColumn(node.children[octant | 2], level - 1, oy + (1L << (level - 1)), ox, oz, runs);
+        }
+
+        /**
+         * Gets the number of nodes in this region's octree.
+         * @return The number of nodes in this region's octree.
+         */
+        public int getNodeCount()
+        { return root.count(); }
+
+        @Override
+        public int getMinX()
+        { return minX; }
+
+        @Override
+        public int getMinY()
+        { return minY; }
+
+        @Override
+        public int getMinZ()
+        { return minZ; }
+
+        @Override
+        public int getMaxX()
+        { return maxX; }
+
+        @Override
+        public int getMaxY()
+        { return maxY; }
+
+        @Override
+        public int getMaxZ()
+        { return maxZ; }
+
+        @Override
+        public boolean isNegating()
+        { return isNegating; }
+
+        @Override
+        public boolean contains(int x, int z)
+        { return columnIntersects(x, z); }
+
+        @Override
+        public boolean contains(int x, int y, int z)
+        { return octreeContains(x, y, z); }
+
+        @Override
+        public boolean contains(double x, double z)
+        { return columnIntersects((long)Math.floor(x), (long)Math.floor(z)); }
+
+        @Override
+        public boolean contains(double x, double y, double z)
+        { return octreeContains((long)Math.floor(x), (long)Math.floor(y), (long)Math.floor(z)); }
+
+        @Override
+        public ZoneRegionOctree negating()
+        { return new ZoneRegionOctree(root, level, originX, originY, originZ, true); }
+
+        @Override
+        public String toString()
+        {
+            return (isNegating ? "-octree(" : "octree(")
+                   + "(" + minX + ", " + minY + ", " + minZ + ") to (" + maxX + ", " + maxY + ", " + maxZ + "); "
+                   + getNodeCount() + " nodes) ";
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o)
+                return true;
+
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            ZoneRegionOctree other = (ZoneRegionOctree)o;
+
+            return level == other.level
+                && originX == other.originX
+                && originY == other.originY
+                && originZ == other.originZ
+                && isNegating == other.isNegating
+                && root.hashCode() == other.root.hashCode()
+                && root.equals(other.root);
+        }
+
+        @Override
+        public int hashCode()
+        { return Objects.hash(root, level, originX, originY, originZ, isNegating); }
+    }
+
+    /**
+     * Creates a new zone.
+     * @param name The unique name of the zone.
+     * @param worldId The ID of the world the zone represents an area in.
+     */
+    public Zone(String name, String worldId)
+    {
+        this.name = name;
+        this.worldId = worldId;
+    }
+
+    /**
+     * Creates a new zone within a parent zone.
+     * @see #getParentName()
+     * @param name The unique name of the zone.
+     * @param worldId The ID of the world the zone represents an area in.
+     * @param parentName The name of the zone this zone is within, or null if it isn't within another zone.
+     */
+    public Zone(String name, String worldId, String parentName)
+    {
+        this(name, worldId);
+        this.parentName = parentName;
+    }
+
+    /**
+     * The name of this zone. This is expected to be used as a unique identifier among zones.
+     */
+    private final String name;
+
+    /**
+     * The world id this zone is in, in the format of "mod:world_name". (wq)
+     */
+    private final String worldId;
+
+    /**
+     * The layers of the zone. These are in order from bottom layer to top layer, so the first item in the list may be
+     * overridden by everything else, and the last item isn't overridden by anything.
+     */
+    private final List<ZoneRegion> regions = new ArrayList<>();
+
+    /**
+     * The name of the zone this zone is within, or null if it isn't within another zone.
+     */
+    private String parentName = null;
+
+    /**
+     * The priority of this zone over other zones. Where zones overlap, the zone with the highest priority is the
+     * effective zone.
+     */
+    private int priority = 0;
+
+    /**
+     * The tags this zone has been given, for identifying what the zone is used for.
+     */
+    private final SortedSet<String> tags = new TreeSet<>();
+
+    /**
+     * The maximum number of entities of each type that may be spawned into this zone, by entity type ID.
+     */
+    private final SortedMap<String, Integer> entityCaps = new TreeMap<>();
+
+    /**
+     * Gets the name of this zone.
+     * @return The name of this zone.
+     */
+    public String getName()
+    { return name; }
+
+    /**
+     * Gets the world ID of the world this represents an area in.
+     * @return The ID of the world this zone is in.
+     */
+    public String getWorldId()
+    { return worldId; }
+
+    /**
+     * <p>Gets the name of the zone this zone is within, if any.</p>
+     *
+     * <p>Zones in a registry form a containment tree, where zones with a parent are only checked for a point if their
+     * parent contains it. As such, a zone with a parent is only considered to cover the part of its area also covered
+     * by its parent. A zone whose parent isn't registered, is in a different world, or is within this zone (directly
+     * or otherwise) is treated as having no parent.</p>
+     * @return The name of this zone's parent zone, or null if it doesn't have one.
+     */
+    public String getParentName()
+    { return parentName; }
+
+    /**
+     * Sets the name of the zone this zone is within.
+     * @param parentName The name of the parent zone, or null if this zone shouldn't be within another zone.
+     */
+    void setParentName(String parentName)
+    { this.parentName = parentName; }
+
+    /**
+     * Gets the priority of this zone. Where zones overlap, the zone with the highest priority is the effective zone at
+     * a given point. Zones have a priority of 0 unless given another.
+     * @return This zone's priority.
+     */
+    public int getPriority()
+    { return priority; }
+
+    /**
+     * Sets the priority of this zone.
+     * @see #getPriority()
+     * @param priority The new priority of this zone.
+     */
+    void setPriority(int priority)
+    { this.priority = priority; }
+
+    /**
+     * Gets the tags this zone has been given. Tags identify what a zone is used for, (e.g. "claim", "pvp-off", or
+     * "shop") so that a subsystem may query only the zones relevant to it.
+     * @return A list of this zone's tags, in alphabetical order.
+     */
+    public List<String> getTags()
+    { return new ArrayList<>(tags); }
+
+    /**
+     * Gets whether or not this zone has been given the given tag.
+     * @see #getTags()
+     * @param tag The tag to check for.
+     * @return True if this zone has the given tag. Otherwise, false.
+     */
+    public boolean hasTag(String tag)
+    { return tags.contains(tag); }
+
+    /**
+     * Gives this zone a tag.
+     * @param tag The tag to give this zone.
+     * @return True if this zone didn't already have the given tag. Otherwise, false.
+     */
+    boolean addTag(String tag)
+    { return tags.add(tag); }
+
+    /**
+     * Removes a tag from this zone.
+     * @param tag The tag to remove.
+     * @return True if this zone had the given tag. Otherwise, false.
+     */
+    boolean removeTag(String tag)
+    { return tags.remove(tag); }
+
+    /**
+     * Gets the maximum number of entities of each type that may be spawned into this zone. Where an entity type has no
+     * cap, any number of entities of that type may be spawned into this zone.
+     * @return A map of the entity caps of this zone, where the keys are entity type IDs (e.g. "minecraft:cow") in
+     *         alphabetical order and the values are the maximum number of entities of that type.
+     */
+    public SortedMap<String, Integer> getEntityCaps()
+    { return new TreeMap<>(entityCaps); }
+
+    /**
+     * Gets the maximum number of entities of the given type that may be spawned into this zone.
+     * @see #getEntityCaps()
+     * @param entityTypeId The ID of the entity type. (e.g. "minecraft:cow")
+     * @return The maximum number of entities of the given type, or null if entities of the given type aren't capped in
+     *         this zone.
+     */
+    public Integer getEntityCap(String entityTypeId)
+    { return entityCaps.get(entityTypeId); }
+
+    /**
+     * Gets whether or not this zone caps the number of entities of any type.
+     * @see #getEntityCaps()
+     * @return True if this zone has any entity caps. Otherwise, false.
+     */
+    public boolean hasEntityCaps()
+    { return !entityCaps.isEmpty(); }
+
+    /**
+     * Sets the maximum number of entities of the given type that may be spawned into this zone.
+     * @param entityTypeId The ID of the entity type.
+     * @param cap The maximum number of entities of the given type.
+     * @return True if this changed the cap of the given entity type. Otherwise, false.
+     */
+    boolean setEntityCap(String entityTypeId, int cap)
+    {
+        Integer oldCap = entityCaps.put(entityTypeId, cap);
+        return oldCap == null || oldCap != cap;
+    }
+
+    /**
+     * Removes the cap on the number of entities of the given type that may be spawned into this zone.
+     * @param entityTypeId The ID of the entity type.
+     * @return True if entities of the given type were capped in this zone. Otherwise, false.
+     */
+    boolean removeEntityCap(String entityTypeId)
+    { return entityCaps.remove(entityTypeId) != null; }
+
+    /**
+     * Gets all regions in the zone, in order from lowest level layer to highest level. As in, later regions override
+     * earlier ones, where some may be removing area from the zone rather than adding to it.
+     * @return A list of the regions in this zone in order from lowest level layer to highest level.
+     */
+    public List<ZoneRegion> getRegions()
+    {
+        synchronized(regions)
+        { return new ArrayList<>(regions); }
+    }
+
+    /**
+     * Gets whether or not this zone contains the given XZ coördinate, disregarding world.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return True if this zone contains a point at the given XZ coördinate, disregarding the world. Otherwise, false.
+     */
+    private boolean contains(double x, double z)
+    {
+        synchronized(regions)
+        {
+            for(int i = regions.size() - 1; i >= 0; i--)
+            {
+                ZoneRegion iregion = regions.get(i);
+
+                if(iregion.contains(x, z))
+                    return !iregion.isNegating();
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets whether or not this zone contains the given XYZ coördinate, disregarding world.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return True if this zone contains a point at the given XYZ coördinate, disregarding the world. Otherwise, false.
+     */
+    private boolean contains(double x, double y, double z)
+    {
+        synchronized(regions)
+        {
+            for(int i = regions.size() - 1; i >= 0; i--)
+            {
+                ZoneRegion iregion = regions.get(i);
+
+                if(iregion.contains(x, y, z))
+                    return !iregion.isNegating();
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets whether or not this zone contains the given XZ coördinate.
+     * @param worldId The ID of the world the given coördinate is in.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return True if this zone contains the given XZ coördinate. Otherwise, false.
+     */
+    public boolean contains(String worldId, int x, int z)
+    { return this.worldId.equals(worldId) && contains(x, z); }
+
+    /**
+     * Gets whether or not this zone contains the given XYZ coördinate.
+     * @param worldId The ID of the world the given coördinate is in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return True if this zone contains the given XYZ coördinate. Otherwise, false.
+     */
+    public boolean contains(String worldId, int x, int y, int z)
+    { return this.worldId.equals(worldId) && contains(x, y, z); }
+
+    /**
+     * Gets whether or not this zone contains the given XZ coördinate.
+     * @param worldId The ID of the world the given coördinate is in.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return True if this zone contains the given XZ coördinate. Otherwise, false.
+     */
+    public boolean contains(String worldId, double x, double z)
+    { return this.worldId.equals(worldId) && contains(x, z); }
+
+    /**
+     * Gets whether or not this zone contains the given XYZ coördinate.
+     * @param worldId The ID of the world the given coördinate is in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return True if this zone contains the given XYZ coördinate. Otherwise, false.
+     */
+    public boolean contains(String worldId, double x, double y, double z)
+    { return this.worldId.equals(worldId) && contains(x, y, z); }
+
+    /**
+     * <p>Creates a zone covering every block covered by either this zone or another zone.</p>
+     *
+     * <p>The new zone is a copy of this one, with its regions replaced by a single voxel column region, which never
+     * needs more than one region to be checked. If neither zone covers any blocks, the new zone has no regions.</p>
+     *
+     * <p>Where the zones can't be converted to voxel columns (e.g. where they cover too large an area), the new zone
+     * instead has the regions of both zones layered, with the regions of whichever zone has no negating regions on
+     * top.</p>
+     * @see ZoneRegionVoxelColumns#union(List, List)
+     * @param other The zone to combine with this one.
+     * @return A new zone, covering the blocks covered by either this zone or the given zone.
+     * @throws IllegalArgumentException If the given zone is in a different world, or if the zones can't be converted
+     *                                  to voxel columns and both have negating regions.
+     */
+    public Zone union(Zone other)
+    {
+        List<ZoneRegion> regions = getRegions(), otherRegions = getRegionsOfZoneInSameWorld(other);
+
+        try
+        { return withOnlyRegion(ZoneRegionVoxelColumns.union(regions, otherRegions)); }
+        catch(IllegalArgumentException e)
+        {
+            // Regions layered on top of a zone only add to it where they have no negating regions of their own.
+            if(!hasNegatingRegions(otherRegions))
+                return withRegions(regions, otherRegions, false);
+
+            if(!hasNegatingRegions(regions))
+                return withRegions(otherRegions, regions, false);
+
+            throw e;
+        }
+    }
+
+    /**
+     * <p>Creates a zone covering every block covered by both this zone and another zone.</p>
+     *
+     * <p>The new zone is a copy of this one, with its regions replaced by a single voxel column region, which never
+     * needs more than one region to be checked. If there are no blocks covered by both zones, the new zone has no
+     * regions. Only the block columns where the bounds of regions from both zones overlap are converted, so large
+     * zones may be intersected with small ones.</p>
+     * @see ZoneRegionVoxelColumns#intersection(List, List)
+     * @param other The zone to intersect with this one.
+     * @return A new zone, covering the blocks covered by both this zone and the given zone.
+     * @throws IllegalArgumentException If the given zone is in a different world, if either zone contains a region of
+     *                                  a type that can't be converted to voxel columns, or if the area where the zones
+     *                                  overlap is too large to be converted.
+     */
+    public Zone intersect(Zone other)
+    { return withOnlyRegion(ZoneRegionVoxelColumns.intersection(getRegions(), getRegionsOfZoneInSameWorld(other))); }
+
+    /**
+     * <p>Creates a zone covering every block covered by this zone but not another zone.</p>
+     *
+     * <p>The new zone is a copy of this one, with its regions replaced by a single voxel column region, which never
+     * needs more than one region to be checked. If there are no blocks covered by this zone but not the other, the new
+     * zone has no regions.</p>
+     *
+     * <p>Where the zones can't be converted to voxel columns (e.g. where this zone covers too large an area), the new
+     * zone instead has this zone's regions with negating copies of the other zone's regions layered on top.</p>
+     * @see ZoneRegionVoxelColumns#difference(List, List)
+     * @param other The zone to subtract from this one.
+     * @return A new zone, covering the blocks covered by this zone but not the given zone.
+     * @throws IllegalArgumentException If the given zone is in a different world, or if the zones can't be converted
+     *                                  to voxel columns and the given zone has negating regions.
+     */
+    public Zone subtract(Zone other)
+    {
+        List<ZoneRegion> regions = getRegions(), otherRegions = getRegionsOfZoneInSameWorld(other);
+
+        try
+        { return withOnlyRegion(ZoneRegionVoxelColumns.difference(regions, otherRegions)); }
+        catch(IllegalArgumentException e)
+        {
+            if(!hasNegatingRegions(otherRegions))
+                return withRegions(regions, otherRegions, true);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Gets whether any of the given regions are negating.
+     * @param regions The regions to check.
+     * @return True if any of the given regions remove from the zone they're in rather than adding to it. Otherwise,
+     *         false.
+     */
+    private static boolean hasNegatingRegions(List<ZoneRegion> regions)
+    {
+        for(ZoneRegion region : regions)
+            if(region.isNegating())
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Gets the regions of another zone, for combining with this one.
+     * @param other The other zone.
+     * @return A list of the regions in the given zone, in order from lowest level layer to highest level.
+     * @throws IllegalArgumentException If the given zone is in a different world to this one.
+     */
+    private List<ZoneRegion> getRegionsOfZoneInSameWorld(Zone other)
+    {
+        if(!worldId.equals(other.worldId))
+            throw new IllegalArgumentException("Zones in different worlds can't be combined.");
+
+        return other.getRegions();
+    }
+
+    /**
+     * Makes a copy of this zone with its regions replaced by a single region.
+     * @param region The region to give the copy, or null to give the copy no regions.
+     * @return A new zone object, which is a copy of this one with only the given region.
+     */
+    Zone withOnlyRegion(ZoneRegion region)
+    {
+        Zone zone = copy();
+        zone.clear();
+
+        if(region != null)
+            zone.addRegion(region);
+
+        return zone;
+    }
+
+    /**
+     * Makes a copy of this zone with its regions replaced by one stack of regions layered on top of another. The
+     * regions are taken from zones, so are only interned again where they're negated.
+     * @param lowerRegions The regions to give the copy first, in order from the lowest layer to the highest.
+     * @param upperRegions The regions to layer on top, in order from the lowest layer to the highest.
+     * @param negateUpperRegions Whether the upper regions should be negated, so that they remove from the zone rather
+     *                           than add to it.
+     * @return A new zone object, which is a copy of this one with the given regions.
+     */
+    private Zone withRegions(List<ZoneRegion> lowerRegions, List<ZoneRegion> upperRegions, boolean negateUpperRegions)
+    {
+        Zone zone = copy();
+        zone.clear();
+
+        for(ZoneRegion region : lowerRegions)
+            zone.addRegionAsIs(region);
+
+        for(ZoneRegion region : upperRegions)
+        {
+            if(negateUpperRegions)
+                zone.addRegion(region.negating());
+            else
+                zone.addRegionAsIs(region);
+        }
+
+        return zone;
+    }
+
+    /**
+     * Gets whether or not this zone has the same name, world, parent, priority, tags, entity caps, and regions (in the
+     * same order) as another zone.
+     * @param other The zone to compare against.
+     * @return True if the given zone is made up of the same contents as this one. Otherwise, false.
+     */
+    boolean hasSameContentsAs(Zone other)
+    {
+        if(this == other)
+            return true;
+
+        if(!name.equals(other.name) || !worldId.equals(other.worldId) || !Objects.equals(parentName, other.parentName))
+            return false;
+
+        if(priority != other.priority || !tags.equals(other.tags))
+            return false;
+
+        if(!entityCaps.equals(other.entityCaps))
+            return false;
+
+        List<ZoneRegion> otherRegions = other.getRegions();
+
+        synchronized(regions)
+        { return regions.equals(otherRegions); }
+    }
+
+    /**
+     * Adds a zone region to this zone. Where the region is a cuboid or rectangle, its canonical instance is added in
+     * its place, so that equal regions across zones share a single instance.
+     * @see ZoneRegionInterner#intern(ZoneRegion)
+     * @param region The region to add
+     */
+    void addRegion(ZoneRegion region)
+    { addRegionAsIs(ZoneRegionInterner.intern(region)); }
+
+    /**
+     * Adds a zone region to this zone without interning it. This is for regions taken from zones, which were already
+     * interned where they're interned at all.
+     * @param region The region to add.
+     */
+    void addRegionAsIs(ZoneRegion region)
     {
         synchronized(regions)
         { regions.add(region); }
@@ -610,7 +3210,10 @@ public final class Zone
      */
     public Zone copy()
     {
-        Zone zone = new Zone(name, worldId);
+        Zone zone = new Zone(name, worldId, parentName);
+        zone.priority = priority;
+        zone.tags.addAll(tags);
+        zone.entityCaps.putAll(entityCaps);
         zone.regions.addAll(regions);
         return zone;
     }
@@ -622,7 +3225,10 @@ public final class Zone
      */
     public Zone copyWithNewName(String newName)
     {
-        Zone zone = new Zone(newName, worldId);
+        Zone zone = new Zone(newName, worldId, parentName);
+        zone.priority = priority;
+        zone.tags.addAll(tags);
+        zone.entityCaps.putAll(entityCaps);
         zone.regions.addAll(regions);
         return zone;
     }
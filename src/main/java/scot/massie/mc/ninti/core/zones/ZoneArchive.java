@@ -0,0 +1,213 @@
+package scot.massie.mc.ninti.core.zones;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>A rolling archive of compressed, timestamped copies of a set of zones, kept in a folder.</p>
+ *
+ * <p>Archives are written in the same format as the zones registry's files, compressed with GZIP. Writing archives is
+ * done on a background thread, so archiving zones doesn't hold up the caller while they're compressed and written.
+ * Where more than the maximum number of archives are kept, the oldest are deleted once the newest has been written.</p>
+ *
+ * <p>Archives are read back by decompressing and parsing the file as a stream, so the uncompressed text of an archive
+ * is never held in memory all at once.</p>
+ */
+public final class ZoneArchive
+{
+    /**
+     * Creates a new zone archive.
+     * @param folderPath The folder to keep archives in. This is created when the first archive is written, if it
+     *                   doesn't already exist.
+     * @param maxArchiveCount The maximum number of archives to keep.
+     * @throws IllegalArgumentException If the maximum number of archives to keep is less than 1.
+     */
+    public ZoneArchive(Path folderPath, int maxArchiveCount)
+    {
+        if(maxArchiveCount < 1)
+            throw new IllegalArgumentException("At least one zone archive must be kept. Was: " + maxArchiveCount);
+
+        this.folderPath = folderPath;
+        this.maxArchiveCount = maxArchiveCount;
+    }
+
+    private static final String ARCHIVE_NAME_PREFIX = "zones-";
+    private static final String ARCHIVE_FILE_EXTENSION = ".txt.gz";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss-SSS");
+
+    /**
+     * Matches the names of archives, as returned by {@link #archive(List)}. Archive names are timestamps, so sorting
+     * them alphabetically sorts them from oldest to newest.
+     */
+    private static final Pattern ARCHIVE_NAME_PATTERN
+            = Pattern.compile("zones-\\d{4}-\\d{2}-\\d{2}-\\d{2}-\\d{2}-\\d{2}-\\d{3}");
+
+    private final Path folderPath;
+    private final int maxArchiveCount;
+
+    /*
+     * Archives are written one at a time, in the order they were made. The writer thread stops once it's been idle for
+     * a second, and isn't a daemon thread, so archives still being written when the server stops are finished first.
+     */
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+                                                                     new LinkedBlockingQueue<>(),
+                                                                     ZoneArchive::newWriterThread);
+
+    private static Thread newWriterThread(Runnable runnable)
+    {
+        Thread thread = new Thread(runnable, "NintiCore zone archiver");
+        thread.setDaemon(false);
+        return thread;
+    }
+
+    /**
+     * Gets the folder archives are kept in.
+     * @return The path of the archive folder.
+     */
+    public Path getFolderPath()
+    { return folderPath; }
+
+    /**
+     * Gets the maximum number of archives kept. Where more archives than this are in the archive folder, the oldest
+     * are deleted.
+     * @return The maximum number of archives kept.
+     */
+    public int getMaxArchiveCount()
+    { return maxArchiveCount; }
+
+    /**
+     * <p>Archives the given zones, named by the current time.</p>
+     *
+     * <p>The archive is compressed and written on a background thread, after any archives already waiting to be
+     * written. Errors in writing it are printed rather than thrown.</p>
+     * @param zonesToArchive The zones to archive. The archive takes ownership of these, so they shouldn't be modified
+     *                       afterwards. (e.g. as copied by {@link ZoneRegistry#getZones()})
+     * @return The name of the archive, which it may be read by once written.
+     */
+    public String archive(List<Zone> zonesToArchive)
+    {
+        String archiveName = ARCHIVE_NAME_PREFIX + TIMESTAMP_FORMAT.format(LocalDateTime.now());
+        writer.execute(() -> writeArchive(archiveName, zonesToArchive));
+        return archiveName;
+    }
+
+    /**
+     * Gets the names of the archives in the archive folder, not including those still waiting to be written.
+     * @return A list of the names of the archives in the archive folder, from newest to oldest.
+     * @throws IOException If an IO exception is thrown in listing the archive folder.
+     */
+    public List<String> getArchiveNames() throws IOException
+    {
+        List<String> result = new ArrayList<>();
+
+        if(!Files.isDirectory(folderPath))
+            return result;
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(folderPath, "*" + ARCHIVE_FILE_EXTENSION))
+        {
+            for(Path file : files)
+            {
+                String fileName = file.getFileName().toString();
+                String archiveName = fileName.substring(0, fileName.length() - ARCHIVE_FILE_EXTENSION.length());
+
+                if(ARCHIVE_NAME_PATTERN.matcher(archiveName).matches())
+                    result.add(archiveName);
+            }
+        }
+
+        result.sort(Comparator.reverseOrder());
+        return result;
+    }
+
+    /**
+     * Reads the zones in the archive by the given name. The archive is decompressed and parsed as it's read.
+     * @param archiveName The name of the archive to read, as returned by {@link #archive(List)} or
+     *                    {@link #getArchiveNames()}.
+     * @return A list of the zones in the archive.
+     * @throws IllegalArgumentException If the given name isn't the name of an archive.
+     * @throws NoSuchFileException If there's no archive by the given name in the archive folder.
+     * @throws IOException If an IO exception is thrown in reading the archive, or if the archive is not parsable as
+     *                     zones.
+     */
+    public List<Zone> read(String archiveName) throws IOException
+    {
+        if(!ARCHIVE_NAME_PATTERN.matcher(archiveName).matches())
+            throw new IllegalArgumentException("Not the name of a zone archive: " + archiveName);
+
+        Path file = getArchiveFile(archiveName);
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)))
+        { return ZoneRegistry.readZones(reader); }
+    }
+
+    private Path getArchiveFile(String archiveName)
+    { return folderPath.resolve(archiveName + ARCHIVE_FILE_EXTENSION); }
+
+    /**
+     * Compresses and writes the given zones to the archive by the given name, then deletes the oldest archives beyond
+     * the maximum number to keep. The archive is written to a temporary file first, so a partly written archive is
+     * never listed.
+     * @param archiveName The name of the archive to write.
+     * @param zonesToArchive The zones to write to the archive.
+     */
+    private void writeArchive(String archiveName, List<Zone> zonesToArchive)
+    {
+        Path file = getArchiveFile(archiveName);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try
+        {
+            Files.createDirectories(folderPath);
+
+            try(BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile)), StandardCharsets.UTF_8)))
+            { ZoneRegistry.writeZones(bufferedWriter, zonesToArchive); }
+
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            deleteOldArchives();
+        }
+        catch(IOException e)
+        {
+            System.err.println("Could not write the zone archive " + file + ".");
+            e.printStackTrace();
+
+            try
+            { Files.deleteIfExists(tempFile); }
+            catch(IOException e2)
+            { e2.printStackTrace(); }
+        }
+    }
+
+    /**
+     * Deletes the oldest archives in the archive folder beyond the maximum number to keep.
+     * @throws IOException If an IO exception is thrown in listing the archive folder or deleting an archive.
+     */
+    private void deleteOldArchives() throws IOException
+    {
+        List<String> archiveNames = getArchiveNames();
+
+        for(int i = maxArchiveCount; i < archiveNames.size(); i++)
+            Files.deleteIfExists(getArchiveFile(archiveNames.get(i)));
+    }
+}
@@ -0,0 +1,235 @@
+package scot.massie.mc.ninti.core.zones;
+
+import net.minecraft.entity.Entity;
+import scot.massie.mc.ninti.core.PluginUtils;
+import scot.massie.mc.ninti.core.utilclasses.EntityLocation;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>Queries zones, zone regions, and zone registries by Minecraft entities and entity locations.</p>
+ *
+ * <p>{@link Zone}, {@link Zone.ZoneRegion}, and {@link ZoneRegistry} don't depend on Minecraft or Forge, and only deal
+ * in world IDs and coördinates, so that they can be used by tools running outside of a Minecraft server. This class
+ * adapts Minecraft's entities to them.</p>
+ */
+public final class ZoneEntities
+{
+    private ZoneEntities()
+    {}
+
+    /**
+     * Gets the ID of the world the given entity is in.
+     * @param entity The entity to get the world ID of.
+     * @return The ID of the world the given entity is in.
+     */
+    public static String getWorldId(Entity entity)
+    { return PluginUtils.getWorldId(entity.getEntityWorld()); }
+
+    /**
+     * Creates a new rectangular zone region corresponding to the chunk a given entity is currently in.
+     * @param entity The entity to derive the chunk from.
+     * @return A new zone region corresponding to the chunk the given entity is in.
+     */
+    public static Zone.ZoneRegionRectangle getChunkRegion(Entity entity)
+    { return Zone.ZoneRegionRectangle.ofChunk(entity.chunkCoordX, entity.chunkCoordZ); }
+
+    /**
+     * Gets whether or not a given entity is within the area represented by a region.
+     * @param region The region to check.
+     * @param entity The entity to check.
+     * @return True if the given entity's location is within the given region. Otherwise, false. Does not consider the
+     *         entity's world, only its position.
+     */
+    public static boolean contains(Zone.ZoneRegion region, Entity entity)
+    { return region.contains(entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+
+    /**
+     * Gets whether or not the given entity is within a zone.
+     * @param zone The zone to check.
+     * @param entity The entity to check.
+     * @return True if the given entity is within the given zone. Otherwise, false.
+     */
+    public static boolean contains(Zone zone, Entity entity)
+    { return zone.contains(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+
+    /**
+     * Gets whether or not the given location is within a zone.
+     * @param zone The zone to check.
+     * @param location The location to check.
+     * @return True if the given location is within the given zone. Otherwise, false.
+     */
+    public static boolean contains(Zone zone, EntityLocation location)
+    { return zone.contains(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+
+    /**
+     * Gets all zones in the registry covering the given location object.
+     * @param registry The registry to query.
+     * @param location The location to get the zones covering.
+     * @return A collection of all zones that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(ZoneRegistry registry, EntityLocation location)
+    { return registry.getZonesAt(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+
+    /**
+     * Gets all zones the given entity is in.
+     * @param registry The registry to query.
+     * @param entity The entity to get the current zones of.
+     * @return A collection of all zones that the given entity is in.
+     */
+    public static Collection<Zone> getZonesEntityIsIn(ZoneRegistry registry, Entity entity)
+    { return registry.getZonesAt(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+
+    /**
+     * Gets the names of all zones covering the given location object.
+     * @param registry The registry to query.
+     * @param location The location to get the names of zones at.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public static List<String> getZoneNamesAt(ZoneRegistry registry, EntityLocation location)
+    { return registry.getZoneNamesAt(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+
+    /**
+     * Gets the names of all zones the given entity is in.
+     * @param registry The registry to query.
+     * @param entity The entity to get the names of zones it's currently in.
+     * @return A list of the zones currently containing the given entity's location, in alphabetical order.
+     */
+    public static List<String> getZoneNamesEntityIsIn(ZoneRegistry registry, Entity entity)
+    { return registry.getZoneNamesAt(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the given location object.
+     * @param registry The registry to query.
+     * @param location The location to get the zones covering.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(ZoneRegistry registry, EntityLocation location, String tag)
+    { return registry.getZonesAt(location.getWorldId(), location.getX(), location.getY(), location.getZ(), tag); }
+
+    /**
+     * Gets all zones with the given tag that the given entity is in.
+     * @param registry The registry to query.
+     * @param entity The entity to get the current zones of.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that the given entity is in.
+     */
+    public static Collection<Zone> getZonesEntityIsIn(ZoneRegistry registry, Entity entity, String tag)
+    { return registry.getZonesAt(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ(), tag); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the given location object.
+     * @param registry The registry to query.
+     * @param location The location to get the names of zones at.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public static List<String> getZoneNamesAt(ZoneRegistry registry, EntityLocation location, String tag)
+    { return registry.getZoneNamesAt(location.getWorldId(), location.getX(), location.getY(), location.getZ(), tag); }
+
+    /**
+     * Gets the names of all zones with the given tag that the given entity is in.
+     * @param registry The registry to query.
+     * @param entity The entity to get the names of zones it's currently in.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the zones with the given tag currently containing the given entity's location, in
+     *         alphabetical order.
+     */
+    public static List<String> getZoneNamesEntityIsIn(ZoneRegistry registry, Entity entity, String tag)
+    { return registry.getZoneNamesAt(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ(), tag); }
+
+    /**
+     * Gets the most deeply nested zone covering the given location object. Where multiple zones at the same depth
+     * cover the location, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param registry The registry to query.
+     * @param location The location to get the zone at.
+     * @return The most deeply nested zone covering the given location, or null if no zones cover it.
+     */
+    public static Zone getDeepestZoneAt(ZoneRegistry registry, EntityLocation location)
+    { return registry.getDeepestZoneAt(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+
+    /**
+     * Gets the most deeply nested zone the given entity is in. Where multiple zones at the same depth contain the
+     * entity, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param registry The registry to query.
+     * @param entity The entity to get the zone of.
+     * @return The most deeply nested zone containing the given entity's location, or null if it's not in any zones.
+     */
+    public static Zone getDeepestZoneEntityIsIn(ZoneRegistry registry, Entity entity)
+    { return registry.getDeepestZoneAt(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+
+    /**
+     * Gets the highest priority zone covering the given location object. Where multiple zones of the same priority
+     * cover the location, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param registry The registry to query.
+     * @param location The location to get the zone at.
+     * @return The highest priority zone covering the given location, or null if no zones cover it.
+     */
+    public static Zone getEffectiveZoneAt(ZoneRegistry registry, EntityLocation location)
+    { return registry.getEffectiveZoneAt(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+
+    /**
+     * Gets the highest priority zone the given entity is in. Where multiple zones of the same priority contain the
+     * entity, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param registry The registry to query.
+     * @param entity The entity to get the zone of.
+     * @return The highest priority zone containing the given entity's location, or null if it's not in any zones.
+     */
+    public static Zone getEffectiveZoneEntityIsIn(ZoneRegistry registry, Entity entity)
+    { return registry.getEffectiveZoneAt(getWorldId(entity), entity.getPosX(), entity.getPosY(), entity.getPosZ()); }
+
+    /**
+     * Gets the points at which a straight line segment between two locations enters and leaves zones.
+     * @see ZoneRegistry#getZonesAlongSegment(String, double, double, double, double, double, double)
+     * @param registry The registry to query.
+     * @param from The start of the segment.
+     * @param to The end of the segment.
+     * @return A list of the points at which the segment enters or leaves zones, in order from the start of the segment
+     *         to the end.
+     * @throws IllegalArgumentException If the given locations are in different worlds.
+     */
+    public static List<ZoneRegistry.ZoneCrossing> getZonesAlongSegment(ZoneRegistry registry,
+                                                                       EntityLocation from,
+                                                                       EntityLocation to)
+    {
+        if(!from.getWorldId().equals(to.getWorldId()))
+            throw new IllegalArgumentException("The start and end of a segment must be in the same world.");
+
+        return registry.getZonesAlongSegment(from.getWorldId(), from.getX(), from.getY(), from.getZ(),
+                                             to.getX(), to.getY(), to.getZ());
+    }
+
+    /**
+     * Gets the zone nearest to the given location object.
+     * @see ZoneRegistry#getNearestZone(String, double, double, double)
+     * @param registry The registry to query.
+     * @param location The location to get the nearest zone to.
+     * @return The zone nearest to the given location, the first alphabetically where multiple are equally near, or
+     *         null if there are no zones in the location's world.
+     */
+    public static Zone getNearestZone(ZoneRegistry registry, EntityLocation location)
+    { return registry.getNearestZone(location.getWorldId(), location.getX(), location.getY(), location.getZ()); }
+
+    /**
+     * Gets all zones within a given distance of the given location object.
+     * @see ZoneRegistry#getZonesWithin(String, double, double, double, double)
+     * @param registry The registry to query.
+     * @param location The location to get the zones near.
+     * @param radius The greatest distance from the location a zone may be to be included.
+     * @return A list of all zones within the given distance of the given location, ordered from nearest to furthest,
+     *         then by name.
+     * @throws IllegalArgumentException If the given radius is negative.
+     */
+    public static List<Zone> getZonesWithin(ZoneRegistry registry, EntityLocation location, double radius)
+    {
+        return registry.getZonesWithin(location.getWorldId(), location.getX(), location.getY(), location.getZ(),
+                                       radius);
+    }
+}
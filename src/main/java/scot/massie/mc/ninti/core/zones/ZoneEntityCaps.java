@@ -0,0 +1,75 @@
+package scot.massie.mc.ninti.core.zones;
+
+import net.minecraft.entity.AgeableEntity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.world.World;
+import net.minecraftforge.event.entity.living.BabyEntitySpawnEvent;
+import net.minecraftforge.event.entity.living.LivingSpawnEvent;
+import net.minecraftforge.eventbus.api.Event;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import scot.massie.mc.ninti.core.PluginUtils;
+
+/**
+ * <p>Prevents entities from spawning into zones that already have as many entities of their type as the zones' entity
+ * caps allow.</p>
+ *
+ * <p>This checks natural and spawner spawns, and animals being bred. Entities joining a world for other reasons
+ * aren't checked, as entities being loaded from disk with their chunks also join the world, and refusing those would
+ * delete them. Entities are counted using the counts kept by {@link Zones#getEntityCount(String, EntityType)}, so
+ * checking a spawn doesn't require counting the entities in the zones it's in.</p>
+ * @see Zone#getEntityCaps()
+ */
+public final class ZoneEntityCaps
+{
+    private ZoneEntityCaps()
+    {}
+
+    @SubscribeEvent
+    public static void onCheckSpawn(LivingSpawnEvent.CheckSpawn event)
+    {
+        LivingEntity entity = event.getEntityLiving();
+        World world = entity.getEntityWorld();
+
+        if(world.isRemote())
+            return;
+
+        if(isAtEntityCap(world, event.getX(), event.getY(), event.getZ(), entity.getType()))
+            event.setResult(Event.Result.DENY);
+    }
+
+    @SubscribeEvent
+    public static void onBabySpawn(BabyEntitySpawnEvent event)
+    {
+        AgeableEntity child = event.getChild();
+        MobEntity parent = event.getParentA();
+        World world = parent.getEntityWorld();
+
+        if(child == null || world.isRemote())
+            return;
+
+        // The child is placed at its parent's position after this event.
+        if(isAtEntityCap(world, parent.getPosX(), parent.getPosY(), parent.getPosZ(), child.getType()))
+            event.setCanceled(true);
+    }
+
+    /**
+     * Gets whether any zone covering the given position caps entities of the given type and is already at its cap.
+     * @param world The world the position is in.
+     * @param x The X coördinate of the position.
+     * @param y The Y coördinate of the position.
+     * @param z The Z coördinate of the position.
+     * @param entityType The type of entity being spawned.
+     * @return True if spawning another entity of the given type at the given position would put a zone over its cap.
+     *         Otherwise, false.
+     */
+    private static boolean isAtEntityCap(World world, double x, double y, double z, EntityType<?> entityType)
+    {
+        return Zones.isAtEntityCap(PluginUtils.getWorldId(world),
+                                   (int)Math.floor(x),
+                                   (int)Math.floor(y),
+                                   (int)Math.floor(z),
+                                   entityType);
+    }
+}
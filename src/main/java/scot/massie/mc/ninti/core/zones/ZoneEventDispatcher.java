@@ -0,0 +1,344 @@
+package scot.massie.mc.ninti.core.zones;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import scot.massie.lib.events.EventListener;
+import scot.massie.lib.events.InvokableEvent;
+import scot.massie.lib.events.SetEvent;
+import scot.massie.lib.events.args.CancellableEventArgs;
+import scot.massie.lib.events.args.EventArgs;
+import scot.massie.mc.ninti.core.PluginUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Calls listeners registered for events happening within particular zones, as registered with
+ * {@link Zones#onBlockBreakIn(String, EventListener)}, {@link Zones#onBlockPlaceIn(String, EventListener)}, and
+ * {@link Zones#onPlayerMoveIn(String, EventListener)}.</p>
+ *
+ * <p>Each event is checked against the zones registry once, however many zone-scoped listeners are registered, and not
+ * at all where no zone-scoped listeners are registered for that kind of event. Listeners are called on the server
+ * thread, without the zones registry locked.</p>
+ *
+ * <p>Listeners are registered to zones by name. Where a zone is renamed, listeners registered to it under its old name
+ * aren't moved to its new name.</p>
+ */
+public final class ZoneEventDispatcher
+{
+    /**
+     * Event args for a block being broken or placed within a zone. Cancelling these cancels the Forge event.
+     */
+    public static final class BlockEventArgs implements CancellableEventArgs
+    {
+        /**
+         * Creates a new set of event args for a block being broken or placed within a zone.
+         * @param event The Forge event for the block being broken or placed.
+         * @param player The player breaking or placing the block, or null if it wasn't a player.
+         * @param zoneName The name of the zone the block is in.
+         * @param worldId The ID of the world the block is in.
+         */
+        BlockEventArgs(BlockEvent event, PlayerEntity player, String zoneName, String worldId)
+        {
+            this.event = event;
+            this.player = player;
+            this.zoneName = zoneName;
+            this.worldId = worldId;
+        }
+
+        private final BlockEvent event;
+        private final PlayerEntity player;
+        private final String zoneName;
+        private final String worldId;
+
+        /**
+         * Gets the Forge event for the block being broken or placed.
+         * @return The underlying Forge event.
+         */
+        public BlockEvent getEvent()
+        { return event; }
+
+        /**
+         * Gets the player breaking or placing the block.
+         * @return The player breaking or placing the block, or null if it wasn't broken or placed by a player.
+         */
+        public PlayerEntity getPlayer()
+        { return player; }
+
+        /**
+         * Gets the name of the zone the block is in that the listener was registered for.
+         * @return The name of the zone.
+         */
+        public String getZoneName()
+        { return zoneName; }
+
+        /**
+         * Gets the ID of the world the block is in.
+         * @return The world ID of the block.
+         */
+        public String getWorldId()
+        { return worldId; }
+
+        /**
+         * Gets the position of the block.
+         * @return The position of the block being broken or placed.
+         */
+        public BlockPos getPos()
+        { return event.getPos(); }
+
+        @Override
+        public boolean isCancelled()
+        { return event.isCanceled(); }
+
+        @Override
+        public void setCancelled(boolean cancellationState)
+        { event.setCanceled(cancellationState); }
+    }
+
+    /**
+     * Event args for a player moving to a different block within a zone, including by entering the zone.
+     */
+    public static final class PlayerMoveEventArgs implements EventArgs
+    {
+        /**
+         * Creates a new set of event args for a player moving within a zone.
+         * @param player The player that moved.
+         * @param zoneName The name of the zone the player moved within.
+         * @param isEntering Whether the player wasn't in the zone before moving.
+         */
+        PlayerMoveEventArgs(PlayerEntity player, String zoneName, boolean isEntering)
+        {
+            this.player = player;
+            this.zoneName = zoneName;
+            this.isEntering = isEntering;
+        }
+
+        private final PlayerEntity player;
+        private final String zoneName;
+        private final boolean isEntering;
+
+        /**
+         * Gets the player that moved.
+         * @return The player that moved.
+         */
+        public PlayerEntity getPlayer()
+        { return player; }
+
+        /**
+         * Gets the name of the zone the player moved within that the listener was registered for.
+         * @return The name of the zone.
+         */
+        public String getZoneName()
+        { return zoneName; }
+
+        /**
+         * Gets whether the player entered the zone by moving, rather than already being in it.
+         * @return True if the player wasn't in the zone before moving. Otherwise, false.
+         */
+        public boolean isEntering()
+        { return isEntering; }
+    }
+
+    /**
+     * The listeners registered for one kind of event, by the name of the zone they were registered for.
+     * @param <T> The type of the event args listeners are called with.
+     */
+    private static final class ZoneListeners<T extends EventArgs>
+    {
+        private final Map<String, InvokableEvent<T>> listenersByZone = new HashMap<>();
+
+        /**
+         * The names of the zones with listeners registered, replaced rather than modified whenever a zone gains its
+         * first listener or loses its last, so that it may be read without locking.
+         */
+        private volatile Set<String> zoneNames = Collections.emptySet();
+
+        /**
+         * Gets the names of the zones with listeners registered.
+         * @return An unmodifiable set of the names of the zones with any listeners registered.
+         */
+        Set<String> getZoneNames()
+        { return zoneNames; }
+
+        /**
+         * Gets the listeners registered for the zone by the given name.
+         * @param zoneName The name of the zone.
+         * @return The listeners registered for the given zone, or null if there are none.
+         */
+        synchronized InvokableEvent<T> get(String zoneName)
+        { return listenersByZone.get(zoneName); }
+
+        /**
+         * Registers a listener for the zone by the given name.
+         * @param zoneName The name of the zone.
+         * @param listener The listener to register.
+         */
+        synchronized void add(String zoneName, EventListener<T> listener)
+        {
+            InvokableEvent<T> listeners = listenersByZone.get(zoneName);
+
+            if(listeners == null)
+            {
+                listenersByZone.put(zoneName, listeners = new SetEvent<>());
+                zoneNames = Collections.unmodifiableSet(new HashSet<>(listenersByZone.keySet()));
+            }
+
+            listeners.register(listener);
+        }
+
+        /**
+         * Deregisters a listener registered for the zone by the given name.
+         * @param zoneName The name of the zone.
+         * @param listener The listener to deregister.
+         */
+        synchronized void remove(String zoneName, EventListener<T> listener)
+        {
+            InvokableEvent<T> listeners = listenersByZone.get(zoneName);
+
+            if(listeners == null)
+                return;
+
+            listeners.deregister(listener);
+
+            if(listeners.getListeners().isEmpty())
+            {
+                listenersByZone.remove(zoneName);
+                zoneNames = Collections.unmodifiableSet(new HashSet<>(listenersByZone.keySet()));
+            }
+        }
+    }
+
+    private ZoneEventDispatcher()
+    {}
+
+    private static final ZoneListeners<BlockEventArgs> blockBreakListeners = new ZoneListeners<>();
+    private static final ZoneListeners<BlockEventArgs> blockPlaceListeners = new ZoneListeners<>();
+    private static final ZoneListeners<PlayerMoveEventArgs> playerMoveListeners = new ZoneListeners<>();
+
+    /*
+     * Listened to at a lower priority than zone protection, so that listeners aren't called for block events zone
+     * protection cancels.
+     */
+
+    @SubscribeEvent(priority = EventPriority.LOW)
+    public static void onBlockBreak(BlockEvent.BreakEvent event)
+    {
+        if(!event.getWorld().isRemote())
+            dispatchBlockEvent(blockBreakListeners, event, event.getPlayer());
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOW)
+    public static void onBlockPlace(BlockEvent.EntityPlaceEvent event)
+    {
+        if(event.getWorld().isRemote())
+            return;
+
+        Entity placer = event.getEntity();
+        dispatchBlockEvent(blockPlaceListeners, event, placer instanceof PlayerEntity ? (PlayerEntity)placer : null);
+    }
+
+    /**
+     * Registers a listener to be called when a block is broken within the zone by the given name.
+     * @param zoneName The name of the zone.
+     * @param listener The listener to register.
+     */
+    static void addBlockBreakListener(String zoneName, EventListener<BlockEventArgs> listener)
+    { blockBreakListeners.add(zoneName, listener); }
+
+    /**
+     * Deregisters a listener registered with {@link #addBlockBreakListener(String, EventListener)}.
+     * @param zoneName The name of the zone the listener was registered for.
+     * @param listener The listener to deregister.
+     */
+    static void removeBlockBreakListener(String zoneName, EventListener<BlockEventArgs> listener)
+    { blockBreakListeners.remove(zoneName, listener); }
+
+    /**
+     * Registers a listener to be called when a block is placed within the zone by the given name.
+     * @param zoneName The name of the zone.
+     * @param listener The listener to register.
+     */
+    static void addBlockPlaceListener(String zoneName, EventListener<BlockEventArgs> listener)
+    { blockPlaceListeners.add(zoneName, listener); }
+
+    /**
+     * Deregisters a listener registered with {@link #addBlockPlaceListener(String, EventListener)}.
+     * @param zoneName The name of the zone the listener was registered for.
+     * @param listener The listener to deregister.
+     */
+    static void removeBlockPlaceListener(String zoneName, EventListener<BlockEventArgs> listener)
+    { blockPlaceListeners.remove(zoneName, listener); }
+
+    /**
+     * Registers a listener to be called when a player moves to a different block within the zone by the given name.
+     * @param zoneName The name of the zone.
+     * @param listener The listener to register.
+     */
+    static void addPlayerMoveListener(String zoneName, EventListener<PlayerMoveEventArgs> listener)
+    { playerMoveListeners.add(zoneName, listener); }
+
+    /**
+     * Deregisters a listener registered with {@link #addPlayerMoveListener(String, EventListener)}.
+     * @param zoneName The name of the zone the listener was registered for.
+     * @param listener The listener to deregister.
+     */
+    static void removePlayerMoveListener(String zoneName, EventListener<PlayerMoveEventArgs> listener)
+    { playerMoveListeners.remove(zoneName, listener); }
+
+    /**
+     * Calls the listeners registered for a player moving within the zones the player is now in.
+     * @param player The player that moved.
+     * @param oldZoneNames The names of the zones the player was in before moving, in alphabetical order.
+     * @param newZoneNames The names of the zones the player is in now, in alphabetical order.
+     */
+    static void playerMoved(PlayerEntity player, List<String> oldZoneNames, List<String> newZoneNames)
+    {
+        for(String zoneName : newZoneNames)
+        {
+            InvokableEvent<PlayerMoveEventArgs> listeners = playerMoveListeners.get(zoneName);
+
+            if(listeners != null)
+            {
+                boolean isEntering = Collections.binarySearch(oldZoneNames, zoneName) < 0;
+                listeners.invoke(new PlayerMoveEventArgs(player, zoneName, isEntering));
+            }
+        }
+    }
+
+    /**
+     * Calls the listeners registered for a block event in the zones the block is in. Only the zones with listeners
+     * registered are checked against the zones registry.
+     * @param listenersByZone The listeners for the kind of event, by zone name.
+     * @param event The block event.
+     * @param player The player causing the event, or null if it wasn't caused by a player.
+     */
+    private static void dispatchBlockEvent(ZoneListeners<BlockEventArgs> listenersByZone,
+                                           BlockEvent event,
+                                           PlayerEntity player)
+    {
+        Set<String> zoneNames = listenersByZone.getZoneNames();
+
+        if(zoneNames.isEmpty())
+            return;
+
+        String worldId = PluginUtils.getWorldId((World)event.getWorld());
+        BlockPos pos = event.getPos();
+
+        for(String zoneName : Zones.getZoneNamesAtAmong(worldId, pos.getX(), pos.getY(), pos.getZ(), zoneNames))
+        {
+            InvokableEvent<BlockEventArgs> listeners = listenersByZone.get(zoneName);
+
+            if(listeners != null)
+                listeners.invoke(new BlockEventArgs(event, player, zoneName, worldId));
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package scot.massie.mc.ninti.core.zones;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Records how often zone queries are made and how long they take.</p>
+ *
+ * <p>For each query, by name, this records the number of calls, the total and maximum time taken, the total and
+ * maximum time spent waiting for the zones registry's lock, and histograms of the time taken and of the number of
+ * results returned. Recording is done with striped counters ({@link LongAdder}), so queries made from different
+ * threads don't contend over the same counters.</p>
+ *
+ * <p>Where metrics aren't enabled, nothing is recorded, and the recording methods return immediately without reading
+ * the clock.</p>
+ */
+public final class ZoneMetrics
+{
+    /**
+     * A histogram with fixed power-of-two buckets. The first bucket counts values of 0, and each bucket after that
+     * counts values from {@code 2^(i - 1)} up to {@code 2^i - 1}, where i is the index of the bucket. The last bucket
+     * also counts all values greater than that.
+     */
+    public static final class Histogram
+    {
+        Histogram()
+        {
+            for(int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        private final LongAdder[] buckets = new LongAdder[bucketCount];
+
+        /**
+         * Counts a value in this histogram.
+         * @param value The value to count. Negative values are counted as 0.
+         */
+        void record(long value)
+        {
+            int bucket = value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+            buckets[Math.min(bucket, bucketCount - 1)].increment();
+        }
+
+        /**
+         * Gets the number of values counted in each bucket.
+         * @return An array of the number of values counted in each bucket, in order of bucket.
+         */
+        public long[] getCounts()
+        {
+            long[] result = new long[bucketCount];
+
+            for(int i = 0; i < bucketCount; i++)
+                result[i] = buckets[i].sum();
+
+            return result;
+        }
+
+        /**
+         * Gets the upper bound of the bucket containing the value at the given percentile. This is an approximation of
+         * the value at the given percentile, that it's guaranteed not to be above unless it's in the last bucket.
+         * @param percentile The percentile to get, from 0 to 100.
+         * @return The highest value counted by the bucket containing the given percentile, or 0 if no values have been
+         *         counted.
+         */
+        public long getPercentileUpperBound(double percentile)
+        {
+            long[] counts = getCounts();
+            long total = 0;
+
+            for(long count : counts)
+                total += count;
+
+            long target = (long)Math.ceil(total * percentile / 100);
+            long seen = 0;
+
+            for(int i = 0; i < bucketCount; i++)
+            {
+                seen += counts[i];
+
+                if(seen >= target && seen > 0)
+                    return getBucketUpperBound(i);
+            }
+
+            return 0;
+        }
+
+        /**
+         * Gets the highest value counted by the bucket at the given index.
+         * @param bucket The index of the bucket.
+         * @return The highest value the given bucket counts, or {@link Long#MAX_VALUE} for the last bucket.
+         */
+        public static long getBucketUpperBound(int bucket)
+        { return bucket == bucketCount - 1 ? Long.MAX_VALUE : (1L << bucket) - 1; }
+
+        void reset()
+        {
+            for(LongAdder bucket : buckets)
+                bucket.reset();
+        }
+    }
+
+    /**
+     * The metrics recorded for a single query.
+     */
+    public static final class QueryMetrics
+    {
+        QueryMetrics(String name)
+        { this.name = name; }
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder totalLockWaitNanos = new LongAdder();
+        private final LongAccumulator maxLockWaitNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder totalResults = new LongAdder();
+        private final Histogram latencyNanos = new Histogram();
+        private final Histogram resultSizes = new Histogram();
+
+        /**
+         * Gets the name of the query.
+         * @return The name of the query these are the metrics of.
+         */
+        public String getName()
+        { return name; }
+
+        /**
+         * Gets the number of times the query has been made.
+         * @return The number of calls recorded.
+         */
+        public long getCallCount()
+        { return calls.sum(); }
+
+        /**
+         * Gets the total time spent in the query, including waiting for the zones registry's lock.
+         * @return The total time taken by all calls recorded, in nanoseconds.
+         */
+        public long getTotalNanos()
+        { return totalNanos.sum(); }
+
+        /**
+         * Gets the longest time a single call of the query has taken, including waiting for the zones registry's lock.
+         * @return The time taken by the slowest call recorded, in nanoseconds.
+         */
+        public long getMaxNanos()
+        { return maxNanos.get(); }
+
+        /**
+         * Gets the total time the query has spent waiting for the zones registry's lock.
+         * @return The total time spent waiting for the lock by all calls recorded, in nanoseconds.
+         */
+        public long getTotalLockWaitNanos()
+        { return totalLockWaitNanos.sum(); }
+
+        /**
+         * Gets the longest time a single call of the query has spent waiting for the zones registry's lock.
+         * @return The longest time spent waiting for the lock by a call recorded, in nanoseconds.
+         */
+        public long getMaxLockWaitNanos()
+        { return maxLockWaitNanos.get(); }
+
+        /**
+         * Gets the total number of results the query has returned.
+         * @see #getResultSizeHistogram()
+         * @return The total of the result sizes of all calls recorded.
+         */
+        public long getTotalResultCount()
+        { return totalResults.sum(); }
+
+        /**
+         * Gets the histogram of the time taken by each call of the query, in nanoseconds.
+         * @return The histogram of the query's latency.
+         */
+        public Histogram getLatencyHistogram()
+        { return latencyNanos; }
+
+        /**
+         * Gets the histogram of the number of results returned by each call of the query. Queries returning a single
+         * object (or a boolean) count as returning 1 result where they return an object (or true) and 0 otherwise.
+         * Queries returning a number count as returning that many results.
+         * @return The histogram of the query's result sizes.
+         */
+        public Histogram getResultSizeHistogram()
+        { return resultSizes; }
+
+        void record(long calledAt, long lockedAt, long returnedAt, long resultSize)
+        {
+            long nanos = returnedAt - calledAt;
+            long lockWaitNanos = lockedAt - calledAt;
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            totalLockWaitNanos.add(lockWaitNanos);
+            maxLockWaitNanos.accumulate(lockWaitNanos);
+            totalResults.add(resultSize);
+            latencyNanos.record(nanos);
+            resultSizes.record(resultSize);
+        }
+
+        void reset()
+        {
+            calls.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            totalLockWaitNanos.reset();
+            maxLockWaitNanos.reset();
+            totalResults.reset();
+            latencyNanos.reset();
+            resultSizes.reset();
+        }
+    }
+
+    /**
+     * The number of buckets in each histogram. In nanoseconds, this covers latencies of up to 2^31 - 1 (about 2.1
+     * seconds), with the last bucket, from 2^30 (about 1.07 seconds), also counting all latencies above that.
+     */
+    public static final int bucketCount = 32;
+
+    /**
+     * Creates a new set of zone query metrics.
+     * @param isEnabled Whether or not anything should be recorded.
+     */
+    public ZoneMetrics(boolean isEnabled)
+    { this.isEnabled = isEnabled; }
+
+    private final boolean isEnabled;
+
+    /**
+     * The metrics of each query that's been recorded, by name.
+     */
+    private final Map<String, QueryMetrics> queries = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets whether or not metrics are being recorded.
+     * @return True if metrics are being recorded. Otherwise, false.
+     */
+    public boolean isEnabled()
+    { return isEnabled; }
+
+    /**
+     * Gets the current time, for recording the time a query was called or acquired a lock at.
+     * @return The current value of {@link System#nanoTime()}, or 0 if metrics aren't enabled.
+     */
+    long now()
+    { return isEnabled ? System.nanoTime() : 0; }
+
+    /**
+     * Records a call of a query.
+     * @param queryName The name of the query.
+     * @param calledAt The time, as given by {@link #now()}, the query was called at.
+     * @param lockedAt The time, as given by {@link #now()}, the query acquired the zones registry's lock at.
+     * @param result The result of the query.
+     * @param <T> The type of the result of the query.
+     * @return The given result.
+     */
+    <T> T record(String queryName, long calledAt, long lockedAt, T result)
+    {
+        if(isEnabled)
+            record(queryName, calledAt, lockedAt, getResultSize(result));
+
+        return result;
+    }
+
+    /**
+     * Records a call of a query returning a number.
+     * @param queryName The name of the query.
+     * @param calledAt The time, as given by {@link #now()}, the query was called at.
+     * @param lockedAt The time, as given by {@link #now()}, the query acquired the zones registry's lock at.
+     * @param result The result of the query.
+     * @return The given result.
+     */
+    int record(String queryName, long calledAt, long lockedAt, int result)
+    {
+        if(isEnabled)
+            record(queryName, calledAt, lockedAt, (long)result);
+
+        return result;
+    }
+
+    /**
+     * Records a call of a query returning a boolean.
+     * @param queryName The name of the query.
+     * @param calledAt The time, as given by {@link #now()}, the query was called at.
+     * @param lockedAt The time, as given by {@link #now()}, the query acquired the zones registry's lock at.
+     * @param result The result of the query.
+     * @return The given result.
+     */
+    boolean record(String queryName, long calledAt, long lockedAt, boolean result)
+    {
+        if(isEnabled)
+            record(queryName, calledAt, lockedAt, result ? 1L : 0L);
+
+        return result;
+    }
+
+    private void record(String queryName, long calledAt, long lockedAt, long resultSize)
+    {
+        queries.computeIfAbsent(queryName, QueryMetrics::new)
+               .record(calledAt, lockedAt, System.nanoTime(), resultSize);
+    }
+
+    private static long getResultSize(Object result)
+    {
+        if(result instanceof Collection)
+            return ((Collection<?>)result).size();
+
+        if(result instanceof Boolean)
+            return (Boolean)result ? 1 : 0;
+
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * Gets the metrics of each query that's been called since metrics were enabled or last reset.
+     * @return A list of the metrics of each query, ordered by the name of the query.
+     */
+    public List<QueryMetrics> getQueryMetrics()
+    { return new ArrayList<>(queries.values()); }
+
+    /**
+     * Forgets all metrics recorded so far.
+     */
+    public void reset()
+    {
+        for(QueryMetrics query : queries.values())
+            query.reset();
+    }
+
+    /**
+     * Writes all metrics recorded so far, including the full histograms, to the given file, overwriting it if it
+     * exists.
+     * @param file The file to write the metrics to.
+     * @throws IOException If an IO exception is thrown in writing to the file.
+     */
+    public void dump(Path file) throws IOException
+    {
+        if(file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        { writeReport(writer); }
+    }
+
+    /**
+     * Writes all metrics recorded so far, including the full histograms, to the given writer. Each query's metrics are
+     * written as a line with the query's name, followed by indented lines of its metrics. Histograms are written as the
+     * upper bound of each non-empty bucket followed by the number of values in it.
+     * @param writer The writer to write to.
+     * @throws IOException If an IO exception is thrown in writing to the writer.
+     */
+    public void writeReport(Writer writer) throws IOException
+    {
+        for(QueryMetrics query : getQueryMetrics())
+        {
+            long calls = query.getCallCount();
+
+            if(calls == 0)
+                continue;
+
+            writer.write(query.getName() + "\n");
+            writer.write("    calls: " + calls + "\n");
+            writer.write("    total nanos: " + query.getTotalNanos() + "\n");
+            writer.write("    mean nanos: " + query.getTotalNanos() / calls + "\n");
+            writer.write("    max nanos: " + query.getMaxNanos() + "\n");
+            writer.write("    total lock wait nanos: " + query.getTotalLockWaitNanos() + "\n");
+            writer.write("    max lock wait nanos: " + query.getMaxLockWaitNanos() + "\n");
+            writer.write("    total results: " + query.getTotalResultCount() + "\n");
+            writer.write("    latency nanos: " + histogramToString(query.getLatencyHistogram()) + "\n");
+            writer.write("    result sizes: " + histogramToString(query.getResultSizeHistogram()) + "\n\n");
+        }
+    }
+
+    private static String histogramToString(Histogram histogram)
+    {
+        long[] counts = histogram.getCounts();
+        StringBuilder result = new StringBuilder();
+
+        for(int i = 0; i < counts.length; i++)
+        {
+            if(counts[i] == 0)
+                continue;
+
+            if(result.length() != 0)
+                result.append(", ");
+
+            result.append(i == bucketCount - 1 ? "more" : "<=" + Histogram.getBucketUpperBound(i))
+                  .append(": ")
+                  .append(counts[i]);
+        }
+
+        return result.toString();
+    }
+}
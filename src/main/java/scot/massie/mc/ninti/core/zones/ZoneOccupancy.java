@@ -0,0 +1,725 @@
+package scot.massie.mc.ninti.core.zones;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.player.PlayerEntity;
+import scot.massie.lib.utils.tuples.Pair;
+import scot.massie.mc.ninti.core.PluginUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Keeps track of which entities are in which zones of a zone registry, so that the number of players or entities in
+ * a zone can be looked up without checking every entity against the zone.</p>
+ *
+ * <p>The tracker doesn't watch entities itself - it's told when an entity may have moved, joined a world, or left a
+ * world, and only works out which zones an entity is in again when its block position or world has changed since it
+ * was last told about it. Where zones in the registry change, the entities in the worlds of those zones are reassessed
+ * the next time the tracker is used.</p>
+ *
+ * <p>The number of players in each zone is also recorded over time, minute by minute, for the last
+ * {@link #historyLengthInMinutes} minutes. This is recorded as players enter and leave zones rather than by sampling,
+ * into fixed-size buffers that are reused as time moves on.</p>
+ *
+ * <p>Like {@link ZoneRegistry}, this is not threadsafe by itself. Calls to it should be synchronised on the registry it
+ * tracks the zones of.</p>
+ */
+public final class ZoneOccupancy
+{
+    /**
+     * A record of the number of players in a zone over time, minute by minute, as of when it was taken.
+     */
+    public static final class History
+    {
+        /**
+         * Creates a new occupancy history.
+         * @param firstMinuteStartTime The time at which the first minute recorded started, in milliseconds since the
+         *                             epoch.
+         * @param playerMillis The total time spent in the zone by all players in each minute recorded, in
+         *                     milliseconds, oldest first.
+         * @param peakPlayers The most players in the zone at once in each minute recorded, oldest first.
+         * @param millisRecorded The length of time over which players in the zone were recorded, in milliseconds.
+         * @param currentPlayers The number of players in the zone at the time of the history being taken.
+         */
+        History(long firstMinuteStartTime, long[] playerMillis, int[] peakPlayers, long millisRecorded,
+                int currentPlayers)
+        {
+            this.firstMinuteStartTime = firstMinuteStartTime;
+            this.playerMillis = playerMillis;
+            this.peakPlayers = peakPlayers;
+            this.millisRecorded = millisRecorded;
+            this.currentPlayers = currentPlayers;
+        }
+
+        private final long firstMinuteStartTime;
+        private final long[] playerMillis;
+        private final int[] peakPlayers;
+        private final long millisRecorded;
+        private final int currentPlayers;
+
+        /**
+         * Gets the number of minutes recorded. The last minute recorded is the minute the history was taken in, and
+         * may not be complete.
+         * @return The number of minutes recorded.
+         */
+        public int getMinuteCount()
+        { return playerMillis.length; }
+
+        /**
+         * Gets the time at which a recorded minute started.
+         * @param minute The index of the minute, where 0 is the oldest minute recorded.
+         * @return The time at which the given minute started, in milliseconds since the epoch.
+         */
+        public long getMinuteStartTime(int minute)
+        { return firstMinuteStartTime + (long)minute * millisPerMinute; }
+
+        /**
+         * Gets the total time spent in the zone by all players in a recorded minute. Two players in the zone for the
+         * whole of a minute amounts to 120 player-seconds.
+         * @param minute The index of the minute, where 0 is the oldest minute recorded.
+         * @return The number of player-seconds spent in the zone in the given minute.
+         */
+        public double getPlayerSeconds(int minute)
+        { return playerMillis[minute] / 1000.0; }
+
+        /**
+         * Gets the most players in the zone at once in a recorded minute.
+         * @param minute The index of the minute, where 0 is the oldest minute recorded.
+         * @return The peak number of players in the zone in the given minute.
+         */
+        public int getPeakPlayers(int minute)
+        { return peakPlayers[minute]; }
+
+        /**
+         * Gets the most players in the zone at once over all of the minutes recorded.
+         * @return The peak number of players in the zone.
+         */
+        public int getPeakPlayers()
+        {
+            int result = 0;
+
+            for(int peak : peakPlayers)
+                result = Math.max(result, peak);
+
+            return result;
+        }
+
+        /**
+         * Gets the average number of players in the zone over the time recorded.
+         * @return The number of players in the zone on average, or 0 if no time has been recorded.
+         */
+        public double getAveragePlayers()
+        {
+            if(millisRecorded <= 0)
+                return 0;
+
+            long totalPlayerMillis = 0;
+
+            for(long millis : playerMillis)
+                totalPlayerMillis += millis;
+
+            return (double)totalPlayerMillis / millisRecorded;
+        }
+
+        /**
+         * Gets the number of players in the zone when the history was taken.
+         * @return The number of players in the zone.
+         */
+        public int getCurrentPlayers()
+        { return currentPlayers; }
+    }
+
+    /**
+     * The number of players in a single zone over time, recorded minute by minute into ring buffers.
+     */
+    private static final class PlayerCountRecord
+    {
+        /**
+         * Creates a new record, starting at the given time.
+         * @param now The current time, in milliseconds since the epoch.
+         */
+        PlayerCountRecord(long now)
+        {
+            startedAt = now;
+            lastChangedAt = now;
+            firstMinute = now / millisPerMinute;
+            currentMinute = firstMinute;
+        }
+
+        /**
+         * The total time spent in the zone by all players in each minute, in milliseconds. The minute {@code m} is
+         * stored at index {@code m % historyLengthInMinutes}.
+         */
+        final long[] playerMillis = new long[historyLengthInMinutes];
+
+        /**
+         * The most players in the zone at once in each minute, stored in the same way as {@link #playerMillis}.
+         */
+        final int[] peakPlayers = new int[historyLengthInMinutes];
+
+        final long startedAt;
+        final long firstMinute;
+
+        /**
+         * The minute the record has been brought up to, as the number of minutes since the epoch.
+         */
+        long currentMinute;
+
+        /**
+         * The time up to which player time has been added to the record, in milliseconds since the epoch.
+         */
+        long lastChangedAt;
+
+        int players = 0;
+
+        /**
+         * Brings the record up to the given time, counting the current number of players as having been in the zone
+         * since the last change.
+         * @param now The current time, in milliseconds since the epoch.
+         */
+        void advanceTo(long now)
+        {
+            // The clock shouldn't go backwards, but if it does, treat it as not having moved.
+            now = Math.max(now, lastChangedAt);
+            long minute = now / millisPerMinute;
+
+            if(minute - currentMinute > historyLengthInMinutes)
+            {
+                // Every minute in the buffer would be overwritten - skip to the oldest that'll still be in it.
+                currentMinute = minute - historyLengthInMinutes;
+                lastChangedAt = currentMinute * millisPerMinute;
+                startMinute(currentMinute);
+            }
+
+            while(currentMinute < minute)
+            {
+                long minuteEnd = (currentMinute + 1) * millisPerMinute;
+                playerMillis[slotOf(currentMinute)] += players * (minuteEnd - lastChangedAt);
+                lastChangedAt = minuteEnd;
+                startMinute(++currentMinute);
+            }
+
+            playerMillis[slotOf(currentMinute)] += players * (now - lastChangedAt);
+            lastChangedAt = now;
+        }
+
+        /**
+         * Records the number of players in the zone as having changed at the given time.
+         * @param now The current time, in milliseconds since the epoch.
+         * @param newPlayerCount The number of players now in the zone.
+         */
+        void setPlayers(long now, int newPlayerCount)
+        {
+            advanceTo(now);
+            players = newPlayerCount;
+            int slot = slotOf(currentMinute);
+            peakPlayers[slot] = Math.max(peakPlayers[slot], players);
+        }
+
+        /**
+         * Clears a minute's slot in the buffers, ready for it to be recorded into.
+         * @param minute The minute to start, as the number of minutes since the epoch.
+         */
+        private void startMinute(long minute)
+        {
+            int slot = slotOf(minute);
+            playerMillis[slot] = 0;
+            peakPlayers[slot] = players;
+        }
+
+        private static int slotOf(long minute)
+        { return (int)(minute % historyLengthInMinutes); }
+
+        /**
+         * Gets a copy of this record, brought up to the given time.
+         * @param now The current time, in milliseconds since the epoch.
+         * @return A new history object containing the contents of this record.
+         */
+        History toHistory(long now)
+        {
+            advanceTo(now);
+            long oldestMinute = Math.max(firstMinute, currentMinute - historyLengthInMinutes + 1);
+            int minuteCount = (int)(currentMinute - oldestMinute + 1);
+            long[] playerMillisCopy = new long[minuteCount];
+            int[] peakPlayersCopy = new int[minuteCount];
+
+            for(int i = 0; i < minuteCount; i++)
+            {
+                playerMillisCopy[i] = playerMillis[slotOf(oldestMinute + i)];
+                peakPlayersCopy[i] = peakPlayers[slotOf(oldestMinute + i)];
+            }
+
+            long millisRecorded = lastChangedAt - Math.max(startedAt, oldestMinute * millisPerMinute);
+            return new History(oldestMinute * millisPerMinute, playerMillisCopy, peakPlayersCopy, millisRecorded,
+                               players);
+        }
+    }
+
+    /**
+     * The number of minutes of history kept of the number of players in each zone.
+     */
+    public static final int historyLengthInMinutes = 60;
+
+    private static final long millisPerMinute = 60_000;
+
+    /**
+     * An entity being tracked, and where it was as of the last time it was checked.
+     */
+    private static final class Occupant
+    {
+        /**
+         * Creates a new occupant record for an entity.
+         * @param entity The entity being tracked.
+         */
+        Occupant(Entity entity)
+        {
+            this.entity = entity;
+            this.isPlayer = entity instanceof PlayerEntity;
+        }
+
+        final Entity entity;
+        final boolean isPlayer;
+
+        String worldId = null;
+        int x, y, z;
+
+        /**
+         * The names of the zones the entity was in as of the last time it was checked, in alphabetical order.
+         */
+        List<String> zoneNames = Collections.emptyList();
+    }
+
+    /**
+     * The entities in a single zone.
+     */
+    private static final class ZoneOccupants
+    {
+        final Set<Occupant> players = new HashSet<>();
+        final Object2IntOpenHashMap<EntityType<?>> countsByType = new Object2IntOpenHashMap<>();
+
+        boolean isEmpty()
+        { return players.isEmpty() && countsByType.isEmpty(); }
+    }
+
+    /**
+     * Creates a new occupancy tracker for the zones of the given registry.
+     * @param registry The registry to track entities in the zones of.
+     */
+    ZoneOccupancy(ZoneRegistry registry)
+    { this(registry, System::currentTimeMillis); }
+
+    /**
+     * Creates a new occupancy tracker for the zones of the given registry, using the given clock to record the number
+     * of players in zones over time.
+     * @param registry The registry to track entities in the zones of.
+     * @param clock The source of the current time, in milliseconds since the epoch.
+     */
+    ZoneOccupancy(ZoneRegistry registry, LongSupplier clock)
+    {
+        this.registry = registry;
+        this.clock = clock;
+
+        registry.zoneChanged.register(args ->
+        {
+            if(args.getChangeType() == ZoneRegistry.ZoneChangedEventArgs.ChangeType.REMOVED)
+                playerCountRecords.remove(args.getZoneName());
+
+            if(args.getOldZone() != null)
+                worldsToReassess.add(args.getOldZone().getWorldId());
+
+            if(args.getNewZone() != null)
+                worldsToReassess.add(args.getNewZone().getWorldId());
+        });
+    }
+
+    private final ZoneRegistry registry;
+    private final LongSupplier clock;
+
+    /**
+     * The entities being tracked, by their world ID, then by their UUID.
+     */
+    private final Map<String, Map<UUID, Occupant>> occupantsByWorld = new HashMap<>();
+
+    /**
+     * The entities in each zone with any entities in it, by zone name.
+     */
+    private final Map<String, ZoneOccupants> occupantsByZone = new HashMap<>();
+
+    /**
+     * The IDs of worlds containing zones that have changed since the entities in them were last checked.
+     */
+    private final Set<String> worldsToReassess = new HashSet<>();
+
+    /**
+     * The record of the number of players in each zone that's had players in it, by zone name.
+     */
+    private final Map<String, PlayerCountRecord> playerCountRecords = new HashMap<>();
+
+    /**
+     * The IDs of the entity types entity caps have been checked for, by entity type.
+     */
+    private final Map<EntityType<?>, String> entityTypeIds = new HashMap<>();
+
+    /**
+     * Updates the zones the given entity is recorded as being in, if it's moved to a different block or world since it
+     * was last updated, and starts tracking it if it isn't already.
+     * @param entity The entity to update.
+     * @return A pair of the names of the zones the entity was recorded as being in before the update and the names of
+     *         the zones it's recorded as being in after, each in alphabetical order, or null if the entity hasn't moved
+     *         to a different block or world since it was last updated. Where the entity is replacing another entity
+     *         with the same UUID, the zones it was recorded as being in before are those of the entity it replaced.
+     */
+    Pair<List<String>, List<String>> update(Entity entity)
+    {
+        reassessChangedWorlds();
+
+        String worldId = PluginUtils.getWorldId(entity.getEntityWorld());
+        int x = (int)Math.floor(entity.getPosX());
+        int y = (int)Math.floor(entity.getPosY());
+        int z = (int)Math.floor(entity.getPosZ());
+        Occupant occupant = occupantsByWorld.getOrDefault(worldId, Collections.emptyMap()).get(entity.getUniqueID());
+        List<String> oldZoneNames;
+
+        if(occupant != null && occupant.entity == entity)
+        {
+            if(occupant.x == x && occupant.y == y && occupant.z == z)
+                return null;
+
+            oldZoneNames = occupant.zoneNames;
+        }
+        else
+        {
+            Occupant replaced = remove(entity.getUniqueID());
+            oldZoneNames = replaced != null ? replaced.zoneNames : Collections.emptyList();
+            occupant = new Occupant(entity);
+            occupant.worldId = worldId;
+            occupantsByWorld.computeIfAbsent(worldId, k -> new HashMap<>()).put(entity.getUniqueID(), occupant);
+        }
+
+        moveOccupant(occupant, x, y, z);
+        return new Pair<>(oldZoneNames, occupant.zoneNames);
+    }
+
+    /**
+     * Stops tracking the given entity, removing it from the zones it was recorded as being in. Does nothing if the
+     * entity isn't being tracked, or if a different entity with the same UUID has since replaced it.
+     * @param entity The entity to stop tracking.
+     */
+    void remove(Entity entity)
+    {
+        for(Map<UUID, Occupant> worldOccupants : occupantsByWorld.values())
+        {
+            Occupant occupant = worldOccupants.get(entity.getUniqueID());
+
+            if(occupant != null && occupant.entity == entity)
+            {
+                removeOccupant(occupant);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops tracking the entity with the given UUID, removing it from the zones it was recorded as being in.
+     * @param entityId The UUID of the entity to stop tracking.
+     * @return The tracked entity that was removed, or null if no entity with the given UUID was being tracked.
+     */
+    private Occupant remove(UUID entityId)
+    {
+        for(Map<UUID, Occupant> worldOccupants : occupantsByWorld.values())
+        {
+            Occupant occupant = worldOccupants.get(entityId);
+
+            if(occupant != null)
+            {
+                removeOccupant(occupant);
+                return occupant;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Stops tracking all entities other than players, removing them from the zones they were recorded as being in.
+     */
+    void removeNonPlayers()
+    {
+        List<Occupant> nonPlayers = new ArrayList<>();
+
+        for(Map<UUID, Occupant> worldOccupants : occupantsByWorld.values())
+            for(Occupant occupant : worldOccupants.values())
+                if(!occupant.isPlayer)
+                    nonPlayers.add(occupant);
+
+        for(Occupant occupant : nonPlayers)
+            removeOccupant(occupant);
+    }
+
+    /**
+     * Stops tracking all entities.
+     */
+    void clear()
+    {
+        occupantsByWorld.clear();
+        occupantsByZone.clear();
+        worldsToReassess.clear();
+        playerCountRecords.clear();
+    }
+
+    /**
+     * Gets the number of players in the zone by the given name.
+     * @param zoneName The name of the zone to get the number of players in.
+     * @return The number of tracked players in the zone by the given name, or 0 if there's no zone by that name.
+     */
+    int getPlayerCount(String zoneName)
+    {
+        reassessChangedWorlds();
+        ZoneOccupants zoneOccupants = occupantsByZone.get(zoneName);
+        return zoneOccupants == null ? 0 : zoneOccupants.players.size();
+    }
+
+    /**
+     * Gets the players in the zone by the given name.
+     * @param zoneName The name of the zone to get the players in.
+     * @return A list of the tracked players in the zone by the given name, in no particular order. If there's no zone
+     *         by that name, returns an empty list.
+     */
+    List<PlayerEntity> getPlayersIn(String zoneName)
+    {
+        reassessChangedWorlds();
+        ZoneOccupants zoneOccupants = occupantsByZone.get(zoneName);
+        List<PlayerEntity> result = new ArrayList<>();
+
+        if(zoneOccupants != null)
+            for(Occupant occupant : zoneOccupants.players)
+                result.add((PlayerEntity)occupant.entity);
+
+        return result;
+    }
+
+    /**
+     * Gets the number of entities of the given type in the zone by the given name.
+     * @param zoneName The name of the zone to get the number of entities in.
+     * @param entityType The type of entity to count.
+     * @return The number of tracked entities of the given type in the zone by the given name, or 0 if there's no zone
+     *         by that name.
+     */
+    int getEntityCount(String zoneName, EntityType<?> entityType)
+    {
+        reassessChangedWorlds();
+        ZoneOccupants zoneOccupants = occupantsByZone.get(zoneName);
+        return zoneOccupants == null ? 0 : zoneOccupants.countsByType.getInt(entityType);
+    }
+
+    /**
+     * Gets whether any zone covering the given block caps entities of the given type, and already has as many as its
+     * cap in it. This only counts entities being tracked.
+     * @see Zone#getEntityCaps()
+     * @param worldId The ID of the world the block is in.
+     * @param x The X coördinate of the block.
+     * @param y The Y coördinate of the block.
+     * @param z The Z coördinate of the block.
+     * @param entityType The type of entity.
+     * @return True if another entity of the given type at the given block would put a zone over its cap for that
+     *         entity type. Otherwise, false.
+     */
+    boolean isAtEntityCap(String worldId, int x, int y, int z, EntityType<?> entityType)
+    {
+        String entityTypeId = getEntityTypeId(entityType);
+
+        if(!registry.hasEntityCaps(entityTypeId))
+            return false;
+
+        reassessChangedWorlds();
+        return registry.isAtEntityCap(worldId, x, y, z, entityTypeId, zoneName ->
+        {
+            ZoneOccupants zoneOccupants = occupantsByZone.get(zoneName);
+            return zoneOccupants == null ? 0 : zoneOccupants.countsByType.getInt(entityType);
+        });
+    }
+
+    /**
+     * Gets the ID of an entity type, as zones' entity caps are keyed by. These are kept once worked out, so checking
+     * entity caps for an entity type doesn't make a new string each time.
+     * @param entityType The entity type to get the ID of.
+     * @return The ID of the given entity type. (e.g. "minecraft:cow")
+     */
+    private String getEntityTypeId(EntityType<?> entityType)
+    { return entityTypeIds.computeIfAbsent(entityType, type -> EntityType.getKey(type).toString()); }
+
+    /**
+     * Gets the record of the number of players in the zone by the given name over the last
+     * {@link #historyLengthInMinutes} minutes.
+     * @param zoneName The name of the zone to get the occupancy history of.
+     * @return The occupancy history of the zone by the given name, or null if there's no zone by that name. If no
+     *         players have been in the zone since it was created or since the server started, the history returned
+     *         has no minutes recorded.
+     */
+    History getHistory(String zoneName)
+    {
+        reassessChangedWorlds();
+        PlayerCountRecord record = playerCountRecords.get(zoneName);
+
+        if(record != null)
+            return record.toHistory(clock.getAsLong());
+
+        if(registry.get(zoneName) == null)
+            return null;
+
+        return new History(0, new long[0], new int[0], 0, 0);
+    }
+
+    /**
+     * Updates the zones each entity in a world containing zones that have changed is recorded as being in, from the
+     * entity's current position.
+     */
+    private void reassessChangedWorlds()
+    {
+        if(worldsToReassess.isEmpty())
+            return;
+
+        for(String worldId : worldsToReassess)
+        {
+            Map<UUID, Occupant> worldOccupants = occupantsByWorld.get(worldId);
+
+            if(worldOccupants == null)
+                continue;
+
+            for(Occupant occupant : worldOccupants.values())
+            {
+                Entity entity = occupant.entity;
+                occupant.zoneNames = moveBetweenZones(occupant,
+                                                      occupant.zoneNames,
+                                                      registry.getZoneNamesAt(worldId,
+                                                                              (int)Math.floor(entity.getPosX()),
+                                                                              (int)Math.floor(entity.getPosY()),
+                                                                              (int)Math.floor(entity.getPosZ())));
+            }
+        }
+
+        worldsToReassess.clear();
+    }
+
+    /**
+     * Records a tracked entity as being at the given block position in its world, and updates the zones it's recorded
+     * as being in accordingly.
+     * @param occupant The tracked entity.
+     * @param x The X coördinate of the block the entity is in.
+     * @param y The Y coördinate of the block the entity is in.
+     * @param z The Z coördinate of the block the entity is in.
+     */
+    private void moveOccupant(Occupant occupant, int x, int y, int z)
+    {
+        occupant.x = x;
+        occupant.y = y;
+        occupant.z = z;
+        occupant.zoneNames = moveBetweenZones(occupant,
+                                              occupant.zoneNames,
+                                              registry.getZoneNamesAt(occupant.worldId, x, y, z));
+    }
+
+    /**
+     * Stops tracking an entity, and removes it from the zones it's recorded as being in.
+     * @param occupant The tracked entity.
+     */
+    private void removeOccupant(Occupant occupant)
+    {
+        moveBetweenZones(occupant, occupant.zoneNames, Collections.emptyList());
+        Map<UUID, Occupant> worldOccupants = occupantsByWorld.get(occupant.worldId);
+        worldOccupants.remove(occupant.entity.getUniqueID());
+
+        if(worldOccupants.isEmpty())
+            occupantsByWorld.remove(occupant.worldId);
+    }
+
+    /**
+     * Removes a tracked entity from the zones it's no longer in, and adds it to the zones it's newly in.
+     * @param occupant The tracked entity.
+     * @param oldZoneNames The names of the zones the entity was in, in alphabetical order.
+     * @param newZoneNames The names of the zones the entity is now in, in alphabetical order.
+     * @return The names of the zones the entity is now in.
+     */
+    private List<String> moveBetweenZones(Occupant occupant, List<String> oldZoneNames, List<String> newZoneNames)
+    {
+        int oldIndex = 0, newIndex = 0;
+
+        while(oldIndex < oldZoneNames.size() || newIndex < newZoneNames.size())
+        {
+            int comparison = oldIndex >= oldZoneNames.size() ?  1
+                           : newIndex >= newZoneNames.size() ? -1
+                           : oldZoneNames.get(oldIndex).compareTo(newZoneNames.get(newIndex));
+
+            if(comparison < 0)
+                removeFromZone(occupant, oldZoneNames.get(oldIndex++));
+            else if(comparison > 0)
+                addToZone(occupant, newZoneNames.get(newIndex++));
+            else
+            {
+                oldIndex++;
+                newIndex++;
+            }
+        }
+
+        return newZoneNames;
+    }
+
+    /**
+     * Records a tracked entity as being in a zone.
+     * @param occupant The tracked entity.
+     * @param zoneName The name of the zone it's in.
+     */
+    private void addToZone(Occupant occupant, String zoneName)
+    {
+        ZoneOccupants zoneOccupants = occupantsByZone.computeIfAbsent(zoneName, k -> new ZoneOccupants());
+
+        if(occupant.isPlayer && zoneOccupants.players.add(occupant))
+        {
+            long now = clock.getAsLong();
+            PlayerCountRecord record = playerCountRecords.get(zoneName);
+
+            if(record == null)
+                playerCountRecords.put(zoneName, record = new PlayerCountRecord(now));
+
+            record.setPlayers(now, zoneOccupants.players.size());
+        }
+
+        zoneOccupants.countsByType.addTo(occupant.entity.getType(), 1);
+    }
+
+    /**
+     * Records a tracked entity as no longer being in a zone.
+     * @param occupant The tracked entity.
+     * @param zoneName The name of the zone it's no longer in.
+     */
+    private void removeFromZone(Occupant occupant, String zoneName)
+    {
+        ZoneOccupants zoneOccupants = occupantsByZone.get(zoneName);
+
+        if(occupant.isPlayer && zoneOccupants.players.remove(occupant))
+        {
+            PlayerCountRecord record = playerCountRecords.get(zoneName);
+
+            // The zone's record is dropped as soon as the zone is removed, before its players are.
+            if(record != null)
+                record.setPlayers(clock.getAsLong(), zoneOccupants.players.size());
+        }
+
+        EntityType<?> type = occupant.entity.getType();
+
+        if(zoneOccupants.countsByType.addTo(type, -1) <= 1)
+            zoneOccupants.countsByType.removeInt(type);
+
+        if(zoneOccupants.isEmpty())
+            occupantsByZone.remove(zoneName);
+    }
+}
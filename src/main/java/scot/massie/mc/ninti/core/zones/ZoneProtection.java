@@ -0,0 +1,196 @@
+package scot.massie.mc.ninti.core.zones;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.entity.player.PlayerInteractEvent;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.Event;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import scot.massie.mc.ninti.core.NintiCore;
+import scot.massie.mc.ninti.core.Permissions;
+import scot.massie.mc.ninti.core.PluginUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Prevents players from breaking, placing, or interacting with blocks in protected zones without permission.</p>
+ *
+ * <p>A zone is protected where it has the tag {@link #PROTECTED_TAG}. Where a block is in multiple protected zones,
+ * only the effective one (the one with the highest priority, as per
+ * {@link Zones#getEffectiveZoneNameAt(String, int, int, int, String)}) applies. Players may break and place blocks in a
+ * protected zone where they have the permission {@link NintiCore#PERMISSION_ZONES_BUILD}{@code .<zone name>}, and may
+ * interact with blocks in it where they have the permission
+ * {@link NintiCore#PERMISSION_ZONES_INTERACT}{@code .<zone name>}. Operators may do both anywhere.</p>
+ *
+ * <p>Chunks known to contain no protected zones, and whether each player has each permission checked, are cached so
+ * that most block events don't need to query the zones or permissions registries. The caches are cleared when zones or
+ * permissions change.</p>
+ */
+public final class ZoneProtection
+{
+    /**
+     * The tag that marks a zone as protected.
+     */
+    public static final String PROTECTED_TAG = "protected";
+
+    /**
+     * The number of chunks without protected zones that may be cached for a single world before the world's cache is
+     * emptied.
+     */
+    private static final int maxCachedChunksPerWorld = 65536;
+
+    /**
+     * Creates a new zone protection engine. It has no effect until it's registered to the Forge event bus.
+     */
+    public ZoneProtection()
+    {
+        Zones.zoneChanged.register(args -> invalidationCount.incrementAndGet());
+        Permissions.registry.contentsChanged.register(args -> invalidationCount.incrementAndGet());
+    }
+
+    /*
+     * The caches are only used from the server thread, but zones and permissions may be changed from any thread, and
+     * their change events are fired while their registries are locked. Rather than clearing the caches directly (and
+     * risking taking locks in the opposite order to the server thread), changes are counted, and the server thread
+     * clears the caches when it next sees the count has changed.
+     */
+    private final AtomicInteger invalidationCount = new AtomicInteger();
+    private int invalidationCountAtLastClear = 0;
+
+    /**
+     * The chunks that have been checked and found to contain no protected zones, by world ID. Chunks are represented
+     * by {@link ChunkPos#asLong(int, int)}, and kept unboxed.
+     */
+    private final Map<String, LongOpenHashSet> unprotectedChunks = new HashMap<>();
+
+    /**
+     * Whether each player has each of the permissions they've been checked for, by player ID, then by permission.
+     */
+    private final Map<UUID, Map<String, Boolean>> permissionDecisions = new HashMap<>();
+
+    @SubscribeEvent
+    public void onBlockBreak(BlockEvent.BreakEvent event)
+    {
+        if(!event.getWorld().isRemote())
+            guard(event, event.getPlayer(), (World)event.getWorld(), event.getPos(), NintiCore.PERMISSION_ZONES_BUILD);
+    }
+
+    @SubscribeEvent
+    public void onBlockPlace(BlockEvent.EntityPlaceEvent event)
+    {
+        Entity placer = event.getEntity();
+
+        if(!(placer instanceof PlayerEntity) || event.getWorld().isRemote())
+            return;
+
+        guard(event, (PlayerEntity)placer, (World)event.getWorld(), event.getPos(), NintiCore.PERMISSION_ZONES_BUILD);
+    }
+
+    @SubscribeEvent
+    public void onBlockInteract(PlayerInteractEvent.RightClickBlock event)
+    {
+        if(!event.getWorld().isRemote())
+            guard(event, event.getPlayer(), event.getWorld(), event.getPos(), NintiCore.PERMISSION_ZONES_INTERACT);
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event)
+    { permissionDecisions.remove(event.getPlayer().getUniqueID()); }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event)
+    {
+        if(!event.getWorld().isRemote())
+            unprotectedChunks.remove(PluginUtils.getWorldId((World)event.getWorld()));
+    }
+
+    /**
+     * Cancels the given event, and tells the player, if the player doesn't have permission to do what the event
+     * represents at the given block.
+     * @param event The event to cancel.
+     * @param player The player causing the event.
+     * @param world The world the block is in.
+     * @param pos The position of the block.
+     * @param permissionRoot The permission the player needs for the zone the block is in, without the zone name.
+     */
+    private void guard(Event event, PlayerEntity player, World world, BlockPos pos, String permissionRoot)
+    {
+        if(mayActAt(player, PluginUtils.getWorldId(world), pos.getX(), pos.getY(), pos.getZ(), permissionRoot))
+            return;
+
+        event.setCanceled(true);
+
+        if(player instanceof ServerPlayerEntity)
+            PluginUtils.sendMessage((ServerPlayerEntity)player, "You don't have permission to do that here.");
+    }
+
+    /**
+     * Gets whether the given player may do something at the given block.
+     * @param player The player.
+     * @param worldId The ID of the world the block is in.
+     * @param x The X coördinate of the block.
+     * @param y The Y coördinate of the block.
+     * @param z The Z coördinate of the block.
+     * @param permissionRoot The permission the player needs for the zone the block is in, without the zone name.
+     * @return True if the block isn't in a protected zone, or if the player has the given permission for the
+     *         protected zone it's in. Otherwise, false.
+     */
+    private boolean mayActAt(PlayerEntity player, String worldId, int x, int y, int z, String permissionRoot)
+    {
+        clearCachesIfInvalidated();
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        LongOpenHashSet worldUnprotectedChunks = unprotectedChunks.computeIfAbsent(worldId, k -> new LongOpenHashSet());
+        long chunk = ChunkPos.asLong(chunkX, chunkZ);
+
+        if(worldUnprotectedChunks.contains(chunk))
+            return true;
+
+        // Where the chunk is loaded, its summary of zones is looked up rather than worked out again.
+        if(!Zones.getChunkZones(worldId, chunkX, chunkZ).hasZonesWithTag(PROTECTED_TAG))
+        {
+            if(worldUnprotectedChunks.size() >= maxCachedChunksPerWorld)
+                worldUnprotectedChunks.clear();
+
+            worldUnprotectedChunks.add(chunk);
+            return true;
+        }
+
+        String zoneName = Zones.getEffectiveZoneNameAt(worldId, x, y, z, PROTECTED_TAG);
+
+        if(zoneName == null || PluginUtils.playerIsOp(player))
+            return true;
+
+        String permission = permissionRoot + "." + zoneName;
+
+        return permissionDecisions.computeIfAbsent(player.getUniqueID(), k -> new HashMap<>())
+                                  .computeIfAbsent(permission,
+                                                   k -> Permissions.registry.userHasPermission(player.getUniqueID(),
+                                                                                               permission));
+    }
+
+    /**
+     * Clears the caches if zones or permissions have changed since they were last cleared.
+     */
+    private void clearCachesIfInvalidated()
+    {
+        int invalidations = invalidationCount.get();
+
+        if(invalidations == invalidationCountAtLastClear)
+            return;
+
+        unprotectedChunks.clear();
+        permissionDecisions.clear();
+        invalidationCountAtLastClear = invalidations;
+    }
+}
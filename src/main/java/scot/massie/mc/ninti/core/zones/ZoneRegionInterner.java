@@ -0,0 +1,80 @@
+package scot.massie.mc.ninti.core.zones;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * <p>Canonicalises cuboid and rectangular zone regions, so that equal regions created separately (e.g. the same chunk
+ * claimed by multiple zones, or zones read again from their files) share a single instance.</p>
+ *
+ * <p>Only cuboids and rectangles are interned, as they're small, fixed in size, cheap to hash and compare, and the
+ * regions most often duplicated. Other regions are returned as they are: those that are large, such as voxel column
+ * and octree regions, would cost more to hash and compare in full than sharing them would save.</p>
+ *
+ * <p>Regions are held weakly, so interning a region doesn't keep it in memory once no zones use it. Canonical regions
+ * are spread over several separately locked tables by their hash codes, so that regions interned on different threads
+ * (e.g. as zone files are read in parallel) rarely wait on each other. Regions are immutable, so sharing them between
+ * zones, copies of zones, and registries is safe.</p>
+ */
+final class ZoneRegionInterner
+{
+    private ZoneRegionInterner()
+    {}
+
+    /**
+     * The number of tables canonical regions are spread across. This must be a power of 2.
+     */
+    private static final int tableCount = 16;
+
+    /**
+     * The canonical instance of each region in use, by itself, spread across {@link #tableCount} tables by hash code.
+     * Each table is locked on separately. Values are weak references to the keys, so that they don't stop the keys
+     * from being collected.
+     */
+    private static final List<Map<Zone.ZoneRegion, WeakReference<Zone.ZoneRegion>>> canonicalRegionTables
+            = makeTables();
+
+    private static List<Map<Zone.ZoneRegion, WeakReference<Zone.ZoneRegion>>> makeTables()
+    {
+        List<Map<Zone.ZoneRegion, WeakReference<Zone.ZoneRegion>>> result = new ArrayList<>(tableCount);
+
+        for(int i = 0; i < tableCount; i++)
+            result.add(new WeakHashMap<>());
+
+        return result;
+    }
+
+    /**
+     * Gets the canonical instance of the given region, being the first instance equal to it interned that's still in
+     * use. Where there isn't one, the given region becomes the canonical instance. Regions other than cuboids and
+     * rectangles aren't interned, and are returned as they are.
+     * @param region The region to intern.
+     * @param <T> The type of the region.
+     * @return The canonical instance of the given region. This is equal to the given region, and of the same type.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Zone.ZoneRegion> T intern(T region)
+    {
+        if(!(region instanceof Zone.ZoneRegionCuboid || region instanceof Zone.ZoneRegionRectangle))
+            return region;
+
+        int hash = region.hashCode();
+        Map<Zone.ZoneRegion, WeakReference<Zone.ZoneRegion>> table
+                = canonicalRegionTables.get((hash ^ (hash >>> 16)) & (tableCount - 1));
+
+        synchronized(table)
+        {
+            WeakReference<Zone.ZoneRegion> canonicalReference = table.get(region);
+            Zone.ZoneRegion canonical = canonicalReference == null ? null : canonicalReference.get();
+
+            if(canonical != null)
+                return (T)canonical;
+
+            table.put(region, new WeakReference<>(region));
+            return region;
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package scot.massie.mc.ninti.core.zones;
 
-import net.minecraft.entity.Entity;
-import scot.massie.mc.ninti.core.utilclasses.EntityLocation;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import scot.massie.lib.events.Event;
+import scot.massie.lib.events.InvokableEvent;
+import scot.massie.lib.events.ProtectedEvent;
+import scot.massie.lib.events.SetEvent;
+import scot.massie.lib.events.args.EventArgs;
+import scot.massie.lib.utils.tuples.Pair;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Registry for registering areas of the server's worlds to be indentifiable by name.
@@ -19,475 +40,4588 @@ import java.util.*;
 public final class ZoneRegistry
 {
     /**
-     * Creates a new zone registry.
-     * @param filePath The file path to save the zone registry's file at.
+     * Event args for a zone in the registry being added, removed, or having its contents changed.
      */
-    public ZoneRegistry(String filePath)
-    { this.filePath = Paths.get(filePath); }
+    public static final class ZoneChangedEventArgs implements EventArgs
+    {
+        /**
+         * The ways in which a zone in the registry may change.
+         */
+        public enum ChangeType
+        {
+            /**
+             * A zone was added to the registry where there wasn't one by its name before.
+             */
+            ADDED,
 
-    /**
-     * Creates a new zone registry.
-     * @param filePath The file path to save the zone registry's file at.
-     */
-    public ZoneRegistry(Path filePath)
-    { this.filePath = filePath; }
+            /**
+             * A zone was removed from the registry.
+             */
+            REMOVED,
 
-    /**
-     * Creates a new zone registry.
-     * @param filePath The file path to save the zone registry's file at.
-     */
-    public ZoneRegistry(File filePath)
-    { this.filePath = filePath.toPath(); }
+            /**
+             * A zone in the registry was replaced with or modified into a zone with different contents.
+             */
+            MODIFIED
+        }
 
-    private final Map<String, Zone> zones = new HashMap<>();
-    private final Path filePath;
-    private boolean changedSinceLoad = false;
+        /**
+         * Creates a new set of event args for a zone changing.
+         * @param changeType The way in which the zone changed.
+         * @param oldZone The zone as it was before the change, or null if it was added.
+         * @param newZone The zone as it is after the change, or null if it was removed.
+         */
+        ZoneChangedEventArgs(ChangeType changeType, Zone oldZone, Zone newZone)
+        {
+            this.changeType = changeType;
+            this.oldZone = oldZone;
+            this.newZone = newZone;
+        }
+
+        private final ChangeType changeType;
+        private final Zone oldZone;
+        private final Zone newZone;
+
+        /**
+         * Gets the way in which the zone changed.
+         * @return The type of change made.
+         */
+        public ChangeType getChangeType()
+        { return changeType; }
+
+        /**
+         * Gets the name of the zone that changed.
+         * @return The name of the zone that changed.
+         */
+        public String getZoneName()
+        { return (newZone != null ? newZone : oldZone).getName(); }
+
+        /**
+         * Gets the zone as it was before the change.
+         * @return A copy of the zone as it was before the change, or null if the zone was added.
+         */
+        public Zone getOldZone()
+        { return oldZone; }
+
+        /**
+         * Gets the zone as it is after the change.
+         * @return A copy of the zone as it is after the change, or null if the zone was removed.
+         */
+        public Zone getNewZone()
+        { return newZone; }
+    }
 
     /**
-     * Marks the zone registry as having had its contents modified since the last time it was saved or loaded.
+     * The contents of a zone registry's files, as read by {@link #readFiles()}.
      */
-    private void markAsChanged()
-    { changedSinceLoad = true; }
+    public static final class FileContents
+    {
+        /**
+         * Creates a new representation of the contents of a registry's files.
+         * @param zonesByShard The zones read, by the name of the shard they were read from.
+         * @param fileTimes The last modified times of the files read, as of just before they were read.
+         * @param isFromLegacyFile Whether or not the zones were read from a legacy single file.
+         */
+        FileContents(Map<String, List<Zone>> zonesByShard, Map<Path, FileTime> fileTimes, boolean isFromLegacyFile)
+        {
+            this.zonesByShard = zonesByShard;
+            this.fileTimes = fileTimes;
+            this.isFromLegacyFile = isFromLegacyFile;
+        }
+
+        private final Map<String, List<Zone>> zonesByShard;
+        private final Map<Path, FileTime> fileTimes;
+        private final boolean isFromLegacyFile;
+
+        /**
+         * Gets all of the zones read.
+         * @return A list of all zones read, in the order they were read.
+         */
+        public List<Zone> getZones()
+        {
+            List<Zone> result = new ArrayList<>();
+
+            for(List<Zone> shardZones : zonesByShard.values())
+                result.addAll(shardZones);
+
+            return result;
+        }
+    }
 
     /**
-     * Marks the zone registry as not having had its contents modified since the last time it was saved or loaded.
+     * A point at which a line segment enters or leaves a zone, as returned by
+     * {@link #getZonesAlongSegment(String, double, double, double, double, double, double)}.
      */
-    private void resetChangedFlag()
-    { changedSinceLoad = false; }
+    public static final class ZoneCrossing
+    {
+        /**
+         * Creates a new record of a line segment entering or leaving a zone.
+         * @param zone The zone entered or left.
+         * @param isEntering Whether the segment enters the zone at this point, rather than leaving it.
+         * @param fraction How far along the segment the crossing is, from 0 at the start to 1 at the end.
+         * @param x The X coördinate of the crossing.
+         * @param y The Y coördinate of the crossing.
+         * @param z The Z coördinate of the crossing.
+         */
+        ZoneCrossing(Zone zone, boolean isEntering, double fraction, double x, double y, double z)
+        {
+            this.zone = zone;
+            this.isEntering = isEntering;
+            this.fraction = fraction;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        private final Zone zone;
+        private final boolean isEntering;
+        private final double fraction;
+        private final double x, y, z;
+
+        /**
+         * Gets the zone entered or left.
+         * @return A copy of the zone the segment enters or leaves at this crossing.
+         */
+        public Zone getZone()
+        { return zone; }
+
+        /**
+         * Gets whether the segment enters the zone at this crossing, rather than leaving it.
+         * @return True if the segment enters the zone at this crossing. False if it leaves it.
+         */
+        public boolean isEntering()
+        { return isEntering; }
+
+        /**
+         * Gets how far along the segment the crossing is.
+         * @return The distance along the segment of the crossing as a fraction of the segment's length, from 0 at the
+         *         start to 1 at the end.
+         */
+        public double getFraction()
+        { return fraction; }
+
+        /**
+         * Gets the X coördinate of the crossing.
+         * @return The X coördinate of the point at which the segment enters or leaves the zone.
+         */
+        public double getX()
+        { return x; }
+
+        /**
+         * Gets the Y coördinate of the crossing.
+         * @return The Y coördinate of the point at which the segment enters or leaves the zone.
+         */
+        public double getY()
+        { return y; }
+
+        /**
+         * Gets the Z coördinate of the crossing.
+         * @return The Z coördinate of the point at which the segment enters or leaves the zone.
+         */
+        public double getZ()
+        { return z; }
+
+        @Override
+        public String toString()
+        { return (isEntering ? "Entering " : "Leaving ") + zone.getName() + " at " + x + ", " + y + ", " + z; }
+    }
 
     /**
-     * Registers a new zone. If the zone shares a name with a zone already present, overwrites that zone.
-     * @param zone The zone to register.
+     * <p>A summary of which zones cover a chunk, as returned by {@link #getChunkZones(String, int, int)}.</p>
+     *
+     * <p>Chunks are considered to span the height of a world's buildable area, from Y {@link #chunkMinY} to Y
+     * {@link #chunkMaxY}.</p>
      */
-    public void register(Zone zone)
+    public static final class ChunkZones
     {
-        zones.put(zone.getName(), zone.copy());
-        markAsChanged();
+        /**
+         * The ways in which a chunk may be covered by zones.
+         */
+        public enum Coverage
+        {
+            /**
+             * No zones cover any part of the chunk.
+             */
+            NONE,
+
+            /**
+             * Every zone covering any part of the chunk covers all of it.
+             */
+            FULL,
+
+            /**
+             * Zones may cover some parts of the chunk but not others.
+             */
+            PARTIAL
+        }
+
+        /**
+         * Creates a new summary of the zones covering a chunk.
+         * @param index The index the summary was made from.
+         * @param coverage How the chunk is covered by the given zones.
+         * @param zones The zones that may cover some part of the chunk, ordered by name.
+         */
+        private ChunkZones(ZoneIndex index, Coverage coverage, List<IndexedZone> zones)
+        {
+            this.index = index;
+            this.coverage = coverage;
+            this.zones = zones;
+            List<IndexedZone> cappedZones = new ArrayList<>();
+
+            for(IndexedZone zone : zones)
+                if(zone.zone.hasEntityCaps())
+                    cappedZones.add(zone);
+
+            this.cappedZones = cappedZones.isEmpty() ? noIndexedZones : cappedZones.toArray(noIndexedZones);
+        }
+
+        /**
+         * The index this summary was made from. Where the registry's index has been rebuilt since, this summary may
+         * no longer be accurate.
+         */
+        private final ZoneIndex index;
+        private final Coverage coverage;
+        private final List<IndexedZone> zones;
+
+        /**
+         * Those of the zones that may cover some part of the chunk that have entity caps, ordered by name.
+         */
+        private final IndexedZone[] cappedZones;
+
+        /**
+         * Gets how the chunk is covered by zones.
+         * @return The coverage of the chunk.
+         */
+        public Coverage getCoverage()
+        { return coverage; }
+
+        /**
+         * Gets whether any zones cover any part of the chunk.
+         * @return True if any zones may cover any part of the chunk. Otherwise, false.
+         */
+        public boolean hasZones()
+        { return coverage != Coverage.NONE; }
+
+        /**
+         * Gets whether any zones with the given tag cover any part of the chunk.
+         * @param tag The tag to check for.
+         * @return True if any zones with the given tag may cover any part of the chunk. Otherwise, false.
+         */
+        public boolean hasZonesWithTag(String tag)
+        {
+            for(IndexedZone zone : zones)
+                if(zone.tags.contains(tag))
+                    return true;
+
+            return false;
+        }
+
+        /**
+         * Gets the names of the zones that cover the chunk. Where the chunk's coverage is {@link Coverage#FULL}, these
+         * are the zones covering the whole chunk. Where it's {@link Coverage#PARTIAL}, these are the zones that may
+         * cover some part of it.
+         * @return A list of the names of the zones covering the chunk, in alphabetical order.
+         */
+        public List<String> getZoneNames()
+        {
+            List<String> result = new ArrayList<>(zones.size());
+
+            for(IndexedZone zone : zones)
+                result.add(zone.zone.getName());
+
+            return result;
+        }
+
+        /**
+         * Gets the zones covering a block within the chunk.
+         * @param x The X coördinate of the block.
+         * @param y The Y coördinate of the block, which must be within the chunk's height.
+         * @param z The Z coördinate of the block.
+         * @return A list of the zones (not copies) covering the given block, ordered by name.
+         */
+        private List<Zone> getZonesAt(int x, int y, int z)
+        {
+            List<Zone> result = new ArrayList<>(zones.size());
+
+            for(IndexedZone zone : zones)
+                if(coverage == Coverage.FULL || zone.containsWithAncestors(x, y, z))
+                    result.add(zone.zone);
+
+            return result;
+        }
+
+        /**
+         * Gets the highest priority zone with a tag covering a block within the chunk. Only the zones with the tag that
+         * may cover the chunk are checked.
+         * @param x The X coördinate of the block.
+         * @param y The Y coördinate of the block, which must be within the chunk's height.
+         * @param z The Z coördinate of the block.
+         * @param tag The tag the zone must have.
+         * @return The highest priority zone (indexed) with the given tag covering the given block, the first
+         *         alphabetically where there are multiple of the same priority, or null if no zones with the tag cover
+         *         it.
+         */
+        private IndexedZone getEffectiveZoneAt(int x, int y, int z, String tag)
+        {
+            IndexedZone result = null;
+
+            for(IndexedZone zone : zones)
+                if((result == null || zone.priority > result.priority)
+                && zone.tags.contains(tag)
+                && (coverage == Coverage.FULL || zone.containsWithAncestors(x, y, z)))
+                    result = zone;
+
+            return result;
+        }
+
+        /**
+         * Gets the names of those of the given zones covering a block within the chunk. Only the zones that may cover
+         * the chunk are checked, and only where they're among the given zones.
+         * @param x The X coördinate of the block.
+         * @param y The Y coördinate of the block, which must be within the chunk's height.
+         * @param z The Z coördinate of the block.
+         * @param zoneNames The names of the zones to check.
+         * @return A list of the names of the given zones covering the given block, in alphabetical order.
+         */
+        private List<String> getZoneNamesAt(int x, int y, int z, Set<String> zoneNames)
+        {
+            List<String> result = new ArrayList<>();
+
+            for(IndexedZone zone : zones)
+                if(zoneNames.contains(zone.zone.getName())
+                && (coverage == Coverage.FULL || zone.containsWithAncestors(x, y, z)))
+                    result.add(zone.zone.getName());
+
+            return result;
+        }
     }
 
     /**
-     * Deregisters the zone by the given name.
-     * @param zoneName The name of the zone to deregister.
-     * @return The zone deregistered, or null if there was no zone by the given name.
+     * A zone in a registry's index, along with its place in the containment tree and the bounds of its regions.
      */
-    public Zone deregister(String zoneName)
+    private static final class IndexedZone
     {
-        Zone result = zones.remove(zoneName);
+        /**
+         * Creates a new indexed zone, with no parent or children.
+         * @param zone The zone being indexed.
+         */
+        IndexedZone(Zone zone)
+        {
+            this.zone = zone;
+            this.name = zone.getName();
+            this.worldId = zone.getWorldId();
+            this.parentName = zone.getParentName();
+            this.priority = zone.getPriority();
+            this.tags = zone.getTags();
+            this.regions = zone.getRegions();
+            boolean isMadeOfBoxes = true;
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
 
-        if(result != null)
-            markAsChanged();
+            for(Zone.ZoneRegion region : regions)
+            {
+                if(!(region instanceof Zone.ZoneRegionCuboid || region instanceof Zone.ZoneRegionRectangle))
+                    isMadeOfBoxes = false;
 
-        return result;
+                if(region.isNegating())
+                    continue;
+
+                nonNegatingRegions.add(region);
+                minX = Math.min(minX, region.getMinX());
+                minY = Math.min(minY, region.getMinY());
+                minZ = Math.min(minZ, region.getMinZ());
+                maxX = Math.max(maxX, region.getMaxX());
+                maxY = Math.max(maxY, region.getMaxY());
+                maxZ = Math.max(maxZ, region.getMaxZ());
+            }
+
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.isMadeOfBoxes = isMadeOfBoxes;
+        }
+
+        /**
+         * The zone being indexed. As zones in the registry may be changed in place, this is indexed as of when this was
+         * created, as given by the other fields, rather than as it is now.
+         */
+        final Zone zone;
+
+        /*
+         * The name, world ID, parent name (or null if the zone has no parent), and priority of the zone.
+         */
+        final String name, worldId, parentName;
+        final int priority;
+
+        /**
+         * The zone's tags.
+         */
+        final List<String> tags;
+
+        /**
+         * All of the zone's regions, in order from lowest level layer to highest level.
+         */
+        final List<Zone.ZoneRegion> regions;
+
+        /**
+         * Whether all of the zone's regions are cuboids or rectangles, so that where a line segment enters and leaves
+         * the zone can be worked out exactly from the bounds of its regions.
+         */
+        final boolean isMadeOfBoxes;
+
+        /**
+         * The regions of the zone that add to it rather than remove from it.
+         */
+        final List<Zone.ZoneRegion> nonNegatingRegions = new ArrayList<>();
+
+        /**
+         * The indexed zone this zone is effectively within, or null if it's a root zone.
+         */
+        IndexedZone parent = null;
+
+        /**
+         * The indexed zones directly within this zone, ordered by name.
+         */
+        final List<IndexedZone> children = new ArrayList<>();
+
+        /*
+         * The inclusive bounds of all of the zone's non-negating regions. Where the zone has no non-negating regions,
+         * the minimums are greater than the maximums, so no point is within them.
+         */
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        /**
+         * Orders indexed zones by name.
+         */
+        static final Comparator<IndexedZone> nameOrder = Comparator.comparing(x -> x.name);
+
+        /**
+         * Orders indexed zones from the highest priority to the lowest, then by name.
+         */
+        static final Comparator<IndexedZone> priorityOrder
+                = Comparator.comparingInt((IndexedZone x) -> x.priority).reversed().thenComparing(x -> x.name);
+
+        /**
+         * Gets whether the zone's regions have any bounds, as in, whether it has any non-negating regions.
+         */
+        boolean hasBounds()
+        { return minX <= maxX; }
+
+        /**
+         * Gets whether the zone contains the given point, checking the point against the bounds of the zone's regions
+         * before checking the regions themselves.
+         */
+        boolean contains(int x, int z)
+        {
+            return x >= minX && x <= maxX && z >= minZ && z <= maxZ
+                && zone.contains(zone.getWorldId(), x, z);
+        }
+
+        /**
+         * Gets whether the zone contains the given point, checking the point against the bounds of the zone's regions
+         * before checking the regions themselves.
+         */
+        boolean contains(int x, int y, int z)
+        {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ
+                && zone.contains(zone.getWorldId(), x, y, z);
+        }
+
+        /**
+         * Gets whether the zone contains the given point, checking the point against the bounds of the zone's regions
+         * before checking the regions themselves.
+         */
+        boolean contains(double x, double z)
+        {
+            return x >= minX && x < maxX + 1.0 && z >= minZ && z < maxZ + 1.0
+                && zone.contains(zone.getWorldId(), x, z);
+        }
+
+        /**
+         * Gets whether the zone contains the given point, checking the point against the bounds of the zone's regions
+         * before checking the regions themselves.
+         */
+        boolean contains(double x, double y, double z)
+        {
+            return x >= minX && x < maxX + 1.0 && y >= minY && y < maxY + 1.0 && z >= minZ && z < maxZ + 1.0
+                && zone.contains(zone.getWorldId(), x, y, z);
+        }
+
+        /**
+         * Gets whether the bounds of the zone's regions overlap the given cuboid area.
+         */
+        boolean boundsOverlap(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+        {
+            return minX <= toX && fromX <= maxX && minY <= toY && fromY <= maxY && minZ <= toZ && fromZ <= maxZ;
+        }
+
+        /**
+         * Gets whether the zone contains the given block, and all of the zones it's within contain it as well.
+         */
+        boolean containsWithAncestors(int x, int y, int z)
+        {
+            for(IndexedZone zone = this; zone != null; zone = zone.parent)
+                if(!zone.contains(x, y, z))
+                    return false;
+
+            return true;
+        }
+
+        /**
+         * Gets whether the zone contains the given point, and all of the zones it's within contain it as well.
+         */
+        boolean containsWithAncestors(double x, double y, double z)
+        {
+            for(IndexedZone zone = this; zone != null; zone = zone.parent)
+                if(!zone.contains(x, y, z))
+                    return false;
+
+            return true;
+        }
+
+        /**
+         * Gets whether the zone and all of the zones it's within are made up only of cuboids and rectangles.
+         * @see #isMadeOfBoxes
+         */
+        boolean isMadeOfBoxesWithAncestors()
+        {
+            for(IndexedZone zone = this; zone != null; zone = zone.parent)
+                if(!zone.isMadeOfBoxes)
+                    return false;
+
+            return true;
+        }
+
+        /**
+         * Gets the squared distance from a point to the bounds of all of the zone's regions. This is never greater
+         * than the squared distance to the zone as given by {@link #getDistanceSquaredWithAncestors}.
+         */
+        double getDistanceSquaredToBounds(double x, double y, double z)
+        { return getDistanceSquaredToBox(x, y, z, minX, minY, minZ, maxX, maxY, maxZ); }
+
+        /**
+         * Gets the squared distance from a point to the zone. This is 0 if the zone contains the point, and otherwise
+         * the squared distance to the nearest bounds of any of the zone's non-negating regions. Where the zone is
+         * within other zones, this is the greatest of the distances to it and each of the zones it's within.
+         */
+        double getDistanceSquaredWithAncestors(double x, double y, double z)
+        {
+            double result = 0;
+
+            for(IndexedZone zone = this; zone != null; zone = zone.parent)
+            {
+                if(zone.contains(x, y, z))
+                    continue;
+
+                double distanceToZone = Double.POSITIVE_INFINITY;
+
+                for(Zone.ZoneRegion r : zone.nonNegatingRegions)
+                {
+                    double distanceToRegion = getDistanceSquaredToBox(x, y, z, r.getMinX(), r.getMinY(), r.getMinZ(),
+                                                                      r.getMaxX(), r.getMaxY(), r.getMaxZ());
+
+                    distanceToZone = Math.min(distanceToZone, distanceToRegion);
+                }
+
+                result = Math.max(result, distanceToZone);
+            }
+
+            return result;
+        }
+
+        /**
+         * Gets the squared distance from a point to the nearest point within a box of blocks.
+         * @return The squared distance from the given point to the box, or 0 if the point is within it. Where the box
+         *         is empty, positive infinity.
+         */
+        private static double getDistanceSquaredToBox(double x, double y, double z,
+                                                      int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+        {
+            if(minX > maxX || minY > maxY || minZ > maxZ)
+                return Double.POSITIVE_INFINITY;
+
+            double dx = x < minX ? minX - x : Math.max(x - (maxX + 1.0), 0);
+            double dy = y < minY ? minY - y : Math.max(y - (maxY + 1.0), 0);
+            double dz = z < minZ ? minZ - z : Math.max(z - (maxZ + 1.0), 0);
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        /**
+         * Gets the part of a line segment that's within the bounds of the zone's regions.
+         * @param fromX The X coördinate of the start of the segment.
+         * @param fromY The Y coördinate of the start of the segment.
+         * @param fromZ The Z coördinate of the start of the segment.
+         * @param deltaX The difference on the X axis between the start and end of the segment.
+         * @param deltaY The difference on the Y axis between the start and end of the segment.
+         * @param deltaZ The difference on the Z axis between the start and end of the segment.
+         * @return An array of the fractions along the segment at which it enters and leaves the zone's bounds, or null
+         *         if the segment doesn't pass through them.
+         */
+        double[] getOverlapWithSegment(double fromX, double fromY, double fromZ,
+                                       double deltaX, double deltaY, double deltaZ)
+        {
+            return getOverlapOfSegmentWithBox(fromX, fromY, fromZ, deltaX, deltaY, deltaZ,
+                                              minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        /**
+         * Gets the parts of a line segment within the zone and all of the zones it's within, worked out from the bounds
+         * of their regions. This is only exact where {@link #isMadeOfBoxesWithAncestors()} is true.
+         * @param fromX The X coördinate of the start of the segment.
+         * @param fromY The Y coördinate of the start of the segment.
+         * @param fromZ The Z coördinate of the start of the segment.
+         * @param deltaX The difference on the X axis between the start and end of the segment.
+         * @param deltaY The difference on the Y axis between the start and end of the segment.
+         * @param deltaZ The difference on the Z axis between the start and end of the segment.
+         * @return A list of the parts of the segment within the zone, in order along the segment, as arrays of the
+         *         fractions along the segment at which it enters and leaves the zone. Parts of no length (e.g. where
+         *         the segment only touches a corner of the zone) aren't included.
+         */
+        List<double[]> getSpansAlongSegmentWithAncestors(double fromX, double fromY, double fromZ,
+                                                         double deltaX, double deltaY, double deltaZ)
+        {
+            List<double[]> result = getSpansAlongSegment(fromX, fromY, fromZ, deltaX, deltaY, deltaZ);
+
+            for(IndexedZone zone = parent; zone != null && !result.isEmpty(); zone = zone.parent)
+                result = intersectSpans(result, zone.getSpansAlongSegment(fromX, fromY, fromZ, deltaX, deltaY, deltaZ));
+
+            return result;
+        }
+
+        /**
+         * Gets the parts of a line segment within the zone, worked out by layering the parts of the segment within the
+         * bounds of each of its regions.
+         * @see #getSpansAlongSegmentWithAncestors(double, double, double, double, double, double)
+         */
+        private List<double[]> getSpansAlongSegment(double fromX, double fromY, double fromZ,
+                                                    double deltaX, double deltaY, double deltaZ)
+        {
+            List<double[]> result = new ArrayList<>();
+
+            for(Zone.ZoneRegion r : regions)
+            {
+                double[] overlap = getOverlapOfSegmentWithBox(fromX, fromY, fromZ, deltaX, deltaY, deltaZ,
+                                                              r.getMinX(), r.getMinY(), r.getMinZ(),
+                                                              r.getMaxX(), r.getMaxY(), r.getMaxZ());
+
+                if(overlap == null || overlap[0] >= overlap[1])
+                    continue;
+
+                result = r.isNegating() ? subtractSpan(result, overlap) : addSpan(result, overlap);
+            }
+
+            return result;
+        }
+
+        /**
+         * Adds a part of a line segment to a list of parts of it.
+         * @param spans The parts of the segment, in order along it, as pairs of fractions along it. None overlap or
+         *              touch.
+         * @param span The part to add.
+         * @return A new list of the given parts with the given part added, in order along the segment, with parts that
+         *         overlap or touch it merged into it.
+         */
+        private static List<double[]> addSpan(List<double[]> spans, double[] span)
+        {
+            List<double[]> result = new ArrayList<>(spans.size() + 1);
+            double start = span[0], end = span[1];
+            boolean isAdded = false;
+
+            for(double[] s : spans)
+            {
+                if(s[1] < start)
+                    result.add(s);
+                else if(s[0] > end)
+                {
+                    if(!isAdded)
+                    {
+                        result.add(new double[] {start, end});
+                        isAdded = true;
+                    }
+
+                    result.add(s);
+                }
+                else
+                {
+                    start = Math.min(start, s[0]);
+                    end = Math.max(end, s[1]);
+                }
+            }
+
+            if(!isAdded)
+                result.add(new double[] {start, end});
+
+            return result;
+        }
+
+        /**
+         * Removes a part of a line segment from a list of parts of it.
+         * @param spans The parts of the segment, in order along it, as pairs of fractions along it. None overlap or
+         *              touch.
+         * @param span The part to remove.
+         * @return A new list of the given parts with the given part cut out of them, in order along the segment.
+         */
+        private static List<double[]> subtractSpan(List<double[]> spans, double[] span)
+        {
+            List<double[]> result = new ArrayList<>(spans.size() + 1);
+
+            for(double[] s : spans)
+            {
+                if(s[1] <= span[0] || s[0] >= span[1])
+                {
+                    result.add(s);
+                    continue;
+                }
+
+                if(s[0] < span[0])
+                    result.add(new double[] {s[0], span[0]});
+
+                if(s[1] > span[1])
+                    result.add(new double[] {span[1], s[1]});
+            }
+
+            return result;
+        }
+
+        /**
+         * Gets the parts of a line segment in both of two lists of parts of it.
+         * @param a The first parts of the segment, in order along it, as pairs of fractions along it. None overlap.
+         * @param b The second parts of the segment, in the same form.
+         * @return A new list of the parts of the segment in both the given lists, in order along the segment. Parts of
+         *         no length aren't included.
+         */
+        private static List<double[]> intersectSpans(List<double[]> a, List<double[]> b)
+        {
+            List<double[]> result = new ArrayList<>();
+
+            for(int i = 0, j = 0; i < a.size() && j < b.size();)
+            {
+                double start = Math.max(a.get(i)[0], b.get(j)[0]);
+                double end = Math.min(a.get(i)[1], b.get(j)[1]);
+
+                if(start < end)
+                    result.add(new double[] {start, end});
+
+                if(a.get(i)[1] < b.get(j)[1])
+                    i++;
+                else
+                    j++;
+            }
+
+            return result;
+        }
+
+        /**
+         * Gets the part of a line segment that's within a box of blocks.
+         * @return An array of the fractions along the segment at which it enters and leaves the box, or null if the
+         *         segment doesn't pass through it.
+         */
+        private static double[] getOverlapOfSegmentWithBox(double fromX, double fromY, double fromZ,
+                                                           double deltaX, double deltaY, double deltaZ,
+                                                           int minX, int minY, int minZ,
+                                                           int maxX, int maxY, int maxZ)
+        {
+            if(minX > maxX)
+                return null;
+
+            double[] overlap = {0.0, 1.0};
+
+            if(!clipToSlab(overlap, fromX, deltaX, minX, maxX + 1.0)
+            || !clipToSlab(overlap, fromY, deltaY, minY, maxY + 1.0)
+            || !clipToSlab(overlap, fromZ, deltaZ, minZ, maxZ + 1.0))
+                return null;
+
+            return overlap;
+        }
+
+        /**
+         * Narrows the part of a line segment being considered to the part between two planes on one axis.
+         * @param overlap The fractions along the segment of the start and end of the part being considered, which is
+         *                narrowed in-place.
+         * @param from The start of the segment on the axis.
+         * @param delta The difference between the start and end of the segment on the axis.
+         * @param min The lower of the two planes.
+         * @param max The higher of the two planes.
+         * @return True if any of the segment is left being considered. Otherwise, false.
+         */
+        private static boolean clipToSlab(double[] overlap, double from, double delta, double min, double max)
+        {
+            if(delta == 0)
+                return from >= min && from < max;
+
+            double enteredAt = (min - from) / delta;
+            double leftAt = (max - from) / delta;
+
+            if(enteredAt > leftAt)
+            {
+                double temp = enteredAt;
+                enteredAt = leftAt;
+                leftAt = temp;
+            }
+
+            overlap[0] = Math.max(overlap[0], enteredAt);
+            overlap[1] = Math.min(overlap[1], leftAt);
+            return overlap[0] <= overlap[1];
+        }
     }
 
     /**
-     * Renames a zone. If another zone exists with the given name, overwrites that.
-     * @param zoneName The name of the zone to rename.
-     * @param newZoneName The name to rename the zone to.
-     * @return The zone renamed.
+     * Records where a line segment enters and leaves zones, walking along it block by block, or, for zones made up of
+     * cuboids and rectangles, working it out from the bounds of their regions.
      */
-    public Zone rename(String zoneName, String newZoneName)
+    private static final class SegmentWalker
     {
-        Zone oldZone = zones.remove(zoneName);
+        /**
+         * Creates a new walker for a line segment.
+         * @param fromX The X coördinate of the start of the segment.
+         * @param fromY The Y coördinate of the start of the segment.
+         * @param fromZ The Z coördinate of the start of the segment.
+         * @param toX The X coördinate of the end of the segment.
+         * @param toY The Y coördinate of the end of the segment.
+         * @param toZ The Z coördinate of the end of the segment.
+         */
+        SegmentWalker(double fromX, double fromY, double fromZ, double toX, double toY, double toZ)
+        {
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.fromZ = fromZ;
+            this.deltaX = toX - fromX;
+            this.deltaY = toY - fromY;
+            this.deltaZ = toZ - fromZ;
+        }
 
-        if(oldZone == null)
-            return null;
+        final double fromX, fromY, fromZ, deltaX, deltaY, deltaZ;
 
-        Zone newZone = oldZone.copyWithNewName(newZoneName);
-        zones.put(newZoneName, newZone);
-        markAsChanged();
-        return newZone.copy();
+        /**
+         * The order of crossings, being along the segment, then with zones being left before zones being entered, then
+         * by the zones' names. At the start of the segment, zones are entered before being left instead, as the only
+         * zones left there are those the segment only touches at its start, which must first be entered.
+         */
+        private static final Comparator<ZoneCrossing> crossingOrder
+                = Comparator.comparingDouble(ZoneCrossing::getFraction)
+                            .thenComparing(x -> x.isEntering() == (x.getFraction() > 0))
+                            .thenComparing(x -> x.getZone().getName());
+
+        /**
+         * The crossings found so far by walking along the segment, in order along the segment.
+         */
+        private final List<ZoneCrossing> walkedCrossings = new ArrayList<>();
+
+        /**
+         * The crossings found so far from the bounds of zones' regions, in no particular order.
+         */
+        private final List<ZoneCrossing> boxCrossings = new ArrayList<>();
+
+        /**
+         * The zones containing the last block walked through, ordered by name.
+         */
+        private List<IndexedZone> currentZones = new ArrayList<>();
+
+        /**
+         * The zones containing the block being walked through, ordered by name. This is swapped with
+         * {@link #currentZones} once the block has been walked through, and reused for the next block.
+         */
+        private List<IndexedZone> zonesAtBlock = new ArrayList<>();
+
+        /**
+         * The copies of zones given in crossings, so each zone is only copied once.
+         */
+        private final Map<IndexedZone, Zone> zoneCopies = new HashMap<>();
+
+        /**
+         * Walks through each block along part of the segment, in order, using a 3D DDA. Where the part walked ends
+         * before the end of the segment, all zones are left at the end of it.
+         * @param fromFraction How far along the segment to start walking, as a fraction of its length.
+         * @param toFraction How far along the segment to stop walking, as a fraction of its length.
+         * @param zonesToCheck The zones that may contain blocks in the part of the segment being walked, ordered by
+         *                     name.
+         */
+        void walk(double fromFraction, double toFraction, List<IndexedZone> zonesToCheck)
+        {
+            long blockX = (long)Math.floor(fromX + deltaX * fromFraction);
+            long blockY = (long)Math.floor(fromY + deltaY * fromFraction);
+            long blockZ = (long)Math.floor(fromZ + deltaZ * fromFraction);
+            double nextX = getFractionOfNextBoundary(blockX, fromX, deltaX);
+            double nextY = getFractionOfNextBoundary(blockY, fromY, deltaY);
+            double nextZ = getFractionOfNextBoundary(blockZ, fromZ, deltaZ);
+            double fraction = fromFraction;
+
+            while(fraction < toFraction)
+            {
+                visit(blockX, blockY, blockZ, fraction, zonesToCheck);
+
+                if(nextX <= nextY && nextX <= nextZ)
+                {
+                    fraction = Math.max(fraction, nextX);
+                    blockX += deltaX > 0 ? 1 : -1;
+                    nextX = getFractionOfNextBoundary(blockX, fromX, deltaX);
+                }
+                else if(nextY <= nextZ)
+                {
+                    fraction = Math.max(fraction, nextY);
+                    blockY += deltaY > 0 ? 1 : -1;
+                    nextY = getFractionOfNextBoundary(blockY, fromY, deltaY);
+                }
+                else
+                {
+                    fraction = Math.max(fraction, nextZ);
+                    blockZ += deltaZ > 0 ? 1 : -1;
+                    nextZ = getFractionOfNextBoundary(blockZ, fromZ, deltaZ);
+                }
+            }
+
+            if(toFraction < 1.0)
+            {
+                zonesAtBlock.clear();
+                moveIntoZonesAtBlock(toFraction);
+                return;
+            }
+
+            // Stepping stops where the segment ends, rather than stepping on past the end of the segment where it ends
+            // on a block's boundary, so the block containing the end of the segment is visited last.
+            visit((long)Math.floor(fromX + deltaX),
+                  (long)Math.floor(fromY + deltaY),
+                  (long)Math.floor(fromZ + deltaZ),
+                  1.0,
+                  zonesToCheck);
+        }
+
+        /**
+         * Records the segment entering and leaving a zone made up of cuboids and rectangles, working out where from the
+         * bounds of its regions rather than walking through the blocks along the segment.
+         * @param zone The zone to record the segment entering and leaving. This and all of the zones it's within must
+         *             be made up only of cuboids and rectangles.
+         */
+        void addCrossingsOfBoxes(IndexedZone zone)
+        {
+            List<double[]> spans = zone.getSpansAlongSegmentWithAncestors(fromX, fromY, fromZ, deltaX, deltaY, deltaZ);
+            boolean containsStart = zone.containsWithAncestors(fromX, fromY, fromZ);
+            boolean containsEnd = zone.containsWithAncestors(fromX + deltaX, fromY + deltaY, fromZ + deltaZ);
+
+            // Zones containing the ends of the segment are entered at its start and not left at its end, even where
+            // the segment only touches them there.
+            if(containsStart && (spans.isEmpty() || spans.get(0)[0] > 0))
+                spans.add(0, new double[] {0, 0});
+
+            if(containsEnd && (spans.isEmpty() || spans.get(spans.size() - 1)[1] < 1))
+                spans.add(new double[] {1, 1});
+
+            for(double[] span : spans)
+            {
+                addCrossing(boxCrossings, zone, true, span[0]);
+
+                if(span[1] < 1 || !containsEnd)
+                    addCrossing(boxCrossings, zone, false, span[1]);
+            }
+        }
+
+        /**
+         * Gets the crossings found so far.
+         * @return A list of the crossings found so far, in the order given by {@link #crossingOrder}.
+         */
+        List<ZoneCrossing> getCrossings()
+        {
+            if(boxCrossings.isEmpty())
+                return walkedCrossings;
+
+            boxCrossings.sort(crossingOrder);
+            List<ZoneCrossing> result = new ArrayList<>(walkedCrossings.size() + boxCrossings.size());
+            int i = 0, j = 0;
+
+            while(i < walkedCrossings.size() && j < boxCrossings.size())
+                result.add(crossingOrder.compare(walkedCrossings.get(i), boxCrossings.get(j)) <= 0
+                                   ? walkedCrossings.get(i++)
+                                   : boxCrossings.get(j++));
+
+            result.addAll(walkedCrossings.subList(i, walkedCrossings.size()));
+            result.addAll(boxCrossings.subList(j, boxCrossings.size()));
+            return result;
+        }
+
+        /**
+         * Gets how far along the segment it crosses from one block to the next on one axis.
+         * @param block The coördinate of the current block on the axis.
+         * @param from The start of the segment on the axis.
+         * @param delta The difference between the start and end of the segment on the axis.
+         * @return The fraction along the segment at which it leaves the given block on the axis, or positive infinity
+         *         if the segment is parallel to the axis.
+         */
+        private static double getFractionOfNextBoundary(long block, double from, double delta)
+        {
+            if(delta == 0)
+                return Double.POSITIVE_INFINITY;
+
+            return ((delta > 0 ? block + 1 : block) - from) / delta;
+        }
+
+        /**
+         * Records the segment passing into a block.
+         * @param x The X coördinate of the block.
+         * @param y The Y coördinate of the block.
+         * @param z The Z coördinate of the block.
+         * @param fraction How far along the segment it enters the block, as a fraction of its length.
+         * @param zonesToCheck The zones that may contain the block, ordered by name.
+         */
+        private void visit(long x, long y, long z, double fraction, List<IndexedZone> zonesToCheck)
+        {
+            zonesAtBlock.clear();
+
+            if(x == (int)x && y == (int)y && z == (int)z)
+                for(IndexedZone zone : zonesToCheck)
+                    if(zone.containsWithAncestors((int)x, (int)y, (int)z))
+                        zonesAtBlock.add(zone);
+
+            moveIntoZonesAtBlock(fraction);
+        }
+
+        /**
+         * Records the segment leaving the zones it was in that it's no longer in, and entering the zones it's now in
+         * that it wasn't before, where the zones it's now in are those in {@link #zonesAtBlock}.
+         * @param fraction How far along the segment the change is, as a fraction of its length.
+         */
+        private void moveIntoZonesAtBlock(double fraction)
+        {
+            for(IndexedZone zone : currentZones)
+                if(!zonesAtBlock.contains(zone))
+                    addCrossing(walkedCrossings, zone, false, fraction);
+
+            for(IndexedZone zone : zonesAtBlock)
+                if(!currentZones.contains(zone))
+                    addCrossing(walkedCrossings, zone, true, fraction);
+
+            List<IndexedZone> previousZones = currentZones;
+            currentZones = zonesAtBlock;
+            zonesAtBlock = previousZones;
+        }
+
+        /**
+         * Records the segment entering or leaving a zone.
+         * @param crossings The list of crossings to add the crossing to.
+         * @param zone The zone entered or left.
+         * @param isEntering Whether the zone is being entered, rather than left.
+         * @param fraction How far along the segment the zone is entered or left, as a fraction of its length.
+         */
+        private void addCrossing(List<ZoneCrossing> crossings, IndexedZone zone, boolean isEntering, double fraction)
+        {
+            crossings.add(new ZoneCrossing(zoneCopies.computeIfAbsent(zone, x -> x.zone.copy()),
+                                           isEntering,
+                                           fraction,
+                                           fromX + deltaX * fraction,
+                                           fromY + deltaY * fraction,
+                                           fromZ + deltaZ * fraction));
+        }
+    }
+
+    /**
+     * A node of a {@link ZoneBoundsTree} or an indexed zone, paired with its squared distance from a point, for
+     * searching for the zones nearest to the point. Zone distances are ordered by distance, then with distances to
+     * nodes before distances to zones' bounds, and distances to zones' bounds before actual distances (so that zones
+     * that may be equally near are resolved first), then by the zones' names.
+     */
+    private static final class ZoneDistance implements Comparable<ZoneDistance>
+    {
+        /**
+         * Creates a new zone distance to a node of a zone bounds tree.
+         * @param node The node.
+         * @param distanceSquared The squared distance from the point to the node's bounds.
+         */
+        ZoneDistance(ZoneBoundsTree.Node node, double distanceSquared)
+        {
+            this.node = node;
+            this.zone = null;
+            this.distanceSquared = distanceSquared;
+            this.isActualDistance = false;
+        }
+
+        /**
+         * Creates a new zone distance.
+         * @param zone The indexed zone.
+         * @param distanceSquared The squared distance from the point to the zone, or to the zone's bounds.
+         * @param isActualDistance Whether the given distance is to the zone itself, rather than to its bounds.
+         */
+        ZoneDistance(IndexedZone zone, double distanceSquared, boolean isActualDistance)
+        {
+            this.node = null;
+            this.zone = zone;
+            this.distanceSquared = distanceSquared;
+            this.isActualDistance = isActualDistance;
+        }
+
+        /**
+         * The node the distance is to, or null if it's to a zone.
+         */
+        final ZoneBoundsTree.Node node;
+
+        /**
+         * The zone the distance is to, or null if it's to a node.
+         */
+        final IndexedZone zone;
+
+        final double distanceSquared;
+        final boolean isActualDistance;
+
+        /**
+         * Gets how far along being resolved this distance is - 0 for distances to nodes, 1 for distances to zones'
+         * bounds, and 2 for actual distances to zones.
+         */
+        private int getStage()
+        { return node != null ? 0 : isActualDistance ? 2 : 1; }
+
+        @Override
+        public int compareTo(ZoneDistance other)
+        {
+            int result = Double.compare(distanceSquared, other.distanceSquared);
+
+            if(result == 0)
+                result = Integer.compare(getStage(), other.getStage());
+
+            if(result == 0 && zone != null)
+                result = zone.zone.getName().compareTo(other.zone.zone.getName());
+
+            return result;
+        }
+    }
+
+    /**
+     * <p>A bounding volume hierarchy over the bounds of the zones in a world, so that the zones along a line or near a
+     * point can be found without checking the bounds of every zone in the world.</p>
+     *
+     * <p>Each node holds the overall bounds of the zones below it. The tree is built with the index, by repeatedly
+     * splitting the zones in half along the axis their bounds are most spread out on, until each leaf holds no more
+     * than {@link #maxZonesPerLeaf} zones. Zones with no non-negating regions have no bounds, so aren't in the
+     * tree.</p>
+     *
+     * <p>As zones change, they're added to and removed from the tree in place. Nodes' bounds only grow as this happens,
+     * so they may come to be larger than the zones below them, which makes searches slower but not wrong. Once as many
+     * zones have been added and removed as the tree holds, it should be built again.</p>
+     */
+    private static final class ZoneBoundsTree
+    {
+        /**
+         * A node of the tree - either a branch with two child nodes, or a leaf holding zones.
+         */
+        static final class Node
+        {
+            /**
+             * Creates a new node over the given zones, splitting them between child nodes if there are too many for
+             * one leaf.
+             * @param zones The zones to go below the node. This list may be reordered.
+             */
+            Node(List<IndexedZone> zones)
+            {
+                this.zones = new ArrayList<>(zones);
+
+                for(IndexedZone zone : zones)
+                    include(zone);
+
+                if(zones.size() > maxZonesPerLeaf)
+                    split();
+            }
+
+            /*
+             * The inclusive bounds of all of the zones below this node. These may be larger than needed where zones
+             * have been removed from below this node.
+             */
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+            /**
+             * The zones in this node, or null if this node is a branch.
+             */
+            List<IndexedZone> zones;
+
+            /*
+             * The child nodes of this node, or null if this node is a leaf.
+             */
+            Node left = null, right = null;
+
+            /**
+             * Grows the bounds of this node to include the bounds of a zone.
+             */
+            void include(IndexedZone zone)
+            {
+                minX = Math.min(minX, zone.minX);
+                minY = Math.min(minY, zone.minY);
+                minZ = Math.min(minZ, zone.minZ);
+                maxX = Math.max(maxX, zone.maxX);
+                maxY = Math.max(maxY, zone.maxY);
+                maxZ = Math.max(maxZ, zone.maxZ);
+            }
+
+            /**
+             * Gets how much the volume of this node's bounds would grow by to include the bounds of a zone.
+             */
+            double getGrowthToInclude(IndexedZone zone)
+            {
+                double volume = ((double)maxX - minX + 1) * ((double)maxY - minY + 1) * ((double)maxZ - minZ + 1);
+
+                double grownVolume = ((double)Math.max(maxX, zone.maxX) - Math.min(minX, zone.minX) + 1)
+                                   * ((double)Math.max(maxY, zone.maxY) - Math.min(minY, zone.minY) + 1)
+                                   * ((double)Math.max(maxZ, zone.maxZ) - Math.min(minZ, zone.minZ) + 1);
+
+                return grownVolume - volume;
+            }
+
+            /**
+             * Turns this leaf node into a branch, splitting its zones in half between two new child nodes along the
+             * axis their bounds are most spread out on.
+             */
+            void split()
+            {
+                List<IndexedZone> zonesToSplit = zones;
+                zonesToSplit.sort(getComparatorForLongestAxis(zonesToSplit));
+                int middle = zonesToSplit.size() / 2;
+                zones = null;
+                left = new Node(zonesToSplit.subList(0, middle));
+                right = new Node(zonesToSplit.subList(middle, zonesToSplit.size()));
+            }
+
+            /**
+             * Gets whether this node holds zones rather than other nodes.
+             */
+            boolean isLeaf()
+            { return zones != null; }
+
+            /**
+             * Gets the squared distance from a point to the bounds of this node. This is never greater than the squared
+             * distance to any zone below it.
+             */
+            double getDistanceSquaredToBounds(double x, double y, double z)
+            { return IndexedZone.getDistanceSquaredToBox(x, y, z, minX, minY, minZ, maxX, maxY, maxZ); }
+
+            /**
+             * Gets whether the bounds of this node overlap the given cuboid area.
+             */
+            boolean boundsOverlap(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+            {
+                return minX <= toX && fromX <= maxX && minY <= toY && fromY <= maxY && minZ <= toZ && fromZ <= maxZ;
+            }
+
+            /**
+             * Gets the part of a line segment that's within the bounds of this node.
+             * @return An array of the fractions along the segment at which it enters and leaves this node's bounds, or
+             *         null if the segment doesn't pass through them.
+             */
+            double[] getOverlapWithSegment(double fromX, double fromY, double fromZ,
+                                           double deltaX, double deltaY, double deltaZ)
+            {
+                return IndexedZone.getOverlapOfSegmentWithBox(fromX, fromY, fromZ, deltaX, deltaY, deltaZ,
+                                                              minX, minY, minZ, maxX, maxY, maxZ);
+            }
+
+            /**
+             * Gets a comparator ordering zones by the centres of their bounds on whichever axis those centres are
+             * most spread out on.
+             */
+            private static Comparator<IndexedZone> getComparatorForLongestAxis(List<IndexedZone> zones)
+            {
+                long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, minZ = Long.MAX_VALUE;
+                long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE, maxZ = Long.MIN_VALUE;
+
+                // Centres are doubled, so they stay whole numbers.
+                for(IndexedZone zone : zones)
+                {
+                    long x = (long)zone.minX + zone.maxX, y = (long)zone.minY + zone.maxY;
+                    long z = (long)zone.minZ + zone.maxZ;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    minZ = Math.min(minZ, z);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                    maxZ = Math.max(maxZ, z);
+                }
+
+                long spreadX = maxX - minX, spreadY = maxY - minY, spreadZ = maxZ - minZ;
+
+                if(spreadX >= spreadY && spreadX >= spreadZ)
+                    return Comparator.comparingLong(zone -> (long)zone.minX + zone.maxX);
+
+                if(spreadZ >= spreadY)
+                    return Comparator.comparingLong(zone -> (long)zone.minZ + zone.maxZ);
+
+                return Comparator.comparingLong(zone -> (long)zone.minY + zone.maxY);
+            }
+        }
+
+        /**
+         * The greatest number of zones a leaf node may hold.
+         */
+        static final int maxZonesPerLeaf = 8;
+
+        /**
+         * Creates a new tree over the given zones.
+         * @param zones The zones of a world.
+         */
+        ZoneBoundsTree(List<IndexedZone> zones)
+        {
+            List<IndexedZone> zonesWithBounds = new ArrayList<>(zones.size());
+
+            for(IndexedZone zone : zones)
+            {
+                if(zone.hasBounds())
+                    zonesWithBounds.add(zone);
+                else
+                    zonesWithoutBounds.add(zone);
+            }
+
+            root = zonesWithBounds.isEmpty() ? null : new Node(zonesWithBounds);
+        }
+
+        /**
+         * The root node of the tree, or null if none of the zones have bounds.
+         */
+        Node root;
+
+        /**
+         * The zones with no non-negating regions, which aren't in the tree.
+         */
+        final List<IndexedZone> zonesWithoutBounds = new ArrayList<>();
+
+        /**
+         * The number of zones added to or removed from the tree since it was built.
+         */
+        private int changesSinceBuilt = 0;
+
+        /**
+         * Adds a zone to the tree, descending from the root into whichever child node's bounds would grow the least to
+         * include it, then splitting the leaf it's added to if that leaf then holds too many zones.
+         * @param zone The zone to add.
+         */
+        void add(IndexedZone zone)
+        {
+            changesSinceBuilt++;
+
+            if(!zone.hasBounds())
+            {
+                zonesWithoutBounds.add(zone);
+                return;
+            }
+
+            if(root == null)
+            {
+                root = new Node(Collections.singletonList(zone));
+                return;
+            }
+
+            Node node = root;
+            node.include(zone);
+
+            while(!node.isLeaf())
+            {
+                boolean isLeftBetter = node.left.getGrowthToInclude(zone) <= node.right.getGrowthToInclude(zone);
+                node = isLeftBetter ? node.left : node.right;
+                node.include(zone);
+            }
+
+            node.zones.add(zone);
+
+            if(node.zones.size() > maxZonesPerLeaf)
+                node.split();
+        }
+
+        /**
+         * Removes a zone from the tree, descending only into the nodes whose bounds overlap the zone's. The bounds of
+         * the nodes it was below are left as they are.
+         * @param zone The zone to remove.
+         */
+        void remove(IndexedZone zone)
+        {
+            changesSinceBuilt++;
+
+            if(!zone.hasBounds())
+            {
+                zonesWithoutBounds.remove(zone);
+                return;
+            }
+
+            if(root == null)
+                return;
+
+            Deque<Node> toCheck = new ArrayDeque<>();
+            toCheck.push(root);
+
+            while(!toCheck.isEmpty())
+            {
+                Node node = toCheck.pop();
+
+                if(!node.boundsOverlap(zone.minX, zone.minY, zone.minZ, zone.maxX, zone.maxY, zone.maxZ))
+                    continue;
+
+                if(!node.isLeaf())
+                {
+                    toCheck.push(node.left);
+                    toCheck.push(node.right);
+                    continue;
+                }
+
+                if(node.zones.remove(zone))
+                    return;
+            }
+        }
+
+        /**
+         * Gets whether the tree has had enough zones added and removed since it was built that it should be built
+         * again, as its nodes' bounds may have grown much larger than needed.
+         * @param zoneCount The number of zones the tree holds.
+         * @return True if the tree should be built again. Otherwise, false.
+         */
+        boolean needsRebuilding(int zoneCount)
+        { return changesSinceBuilt > Math.max(maxZonesPerLeaf, zoneCount); }
+
+        /**
+         * Gets the zones whose bounds a line segment passes through, by descending only into the nodes whose bounds the
+         * segment passes through.
+         * @param fromX The X coördinate of the start of the segment.
+         * @param fromY The Y coördinate of the start of the segment.
+         * @param fromZ The Z coördinate of the start of the segment.
+         * @param deltaX The difference on the X axis between the start and end of the segment.
+         * @param deltaY The difference on the Y axis between the start and end of the segment.
+         * @param deltaZ The difference on the Z axis between the start and end of the segment.
+         * @return A list of the zones whose bounds the segment passes through, each paired with the fractions along the
+         *         segment at which it enters and leaves them, in no particular order.
+         */
+        List<Pair<IndexedZone, double[]>> getZonesAlongSegment(double fromX, double fromY, double fromZ,
+                                                              double deltaX, double deltaY, double deltaZ)
+        {
+            List<Pair<IndexedZone, double[]>> result = new ArrayList<>();
+
+            if(root == null)
+                return result;
+
+            Deque<Node> toCheck = new ArrayDeque<>();
+            toCheck.push(root);
+
+            while(!toCheck.isEmpty())
+            {
+                Node node = toCheck.pop();
+
+                if(node.getOverlapWithSegment(fromX, fromY, fromZ, deltaX, deltaY, deltaZ) == null)
+                    continue;
+
+                if(!node.isLeaf())
+                {
+                    toCheck.push(node.left);
+                    toCheck.push(node.right);
+                    continue;
+                }
+
+                for(IndexedZone zone : node.zones)
+                {
+                    double[] overlap = zone.getOverlapWithSegment(fromX, fromY, fromZ, deltaX, deltaY, deltaZ);
+
+                    if(overlap != null)
+                        result.add(new Pair<>(zone, overlap));
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Gets the zones whose bounds overlap a cuboid area, by descending only into the nodes whose bounds overlap the
+         * area.
+         * @param fromX The lowest X coördinate in the area.
+         * @param fromY The lowest Y coördinate in the area.
+         * @param fromZ The lowest Z coördinate in the area.
+         * @param toX The highest X coördinate in the area.
+         * @param toY The highest Y coördinate in the area.
+         * @param toZ The highest Z coördinate in the area.
+         * @return A list of the zones whose bounds overlap the given area, in no particular order.
+         */
+        List<IndexedZone> getZonesOverlapping(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+        {
+            List<IndexedZone> result = new ArrayList<>();
+
+            if(root == null)
+                return result;
+
+            Deque<Node> toCheck = new ArrayDeque<>();
+            toCheck.push(root);
+
+            while(!toCheck.isEmpty())
+            {
+                Node node = toCheck.pop();
+
+                if(!node.boundsOverlap(fromX, fromY, fromZ, toX, toY, toZ))
+                    continue;
+
+                if(!node.isLeaf())
+                {
+                    toCheck.push(node.left);
+                    toCheck.push(node.right);
+                    continue;
+                }
+
+                for(IndexedZone zone : node.zones)
+                    if(zone.boundsOverlap(fromX, fromY, fromZ, toX, toY, toZ))
+                        result.add(zone);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * The zones of a registry arranged for querying - into a containment tree by the zones they're within, and in
+     * order of priority. As zones change, the index is updated in place for the changed zones.
+     * @see Zone#getParentName()
+     * @see Zone#getPriority()
+     */
+    private static final class ZoneIndex
+    {
+        /**
+         * The zones without an effective parent, by the ID of the world they're in. Each list is ordered by name.
+         */
+        final Map<String, List<IndexedZone>> rootsByWorld = new HashMap<>();
+
+        /**
+         * All zones, by name.
+         */
+        final Map<String, IndexedZone> byName = new HashMap<>();
+
+        /**
+         * The zones naming a parent, by the name of the parent they name, whether or not they're effectively within
+         * it. Each list is in no particular order.
+         */
+        final Map<String, List<IndexedZone>> byParentName = new HashMap<>();
+
+        /**
+         * All zones, by the ID of the world they're in. Each list is ordered from the highest priority to the lowest,
+         * then by name.
+         */
+        final Map<String, List<IndexedZone>> byPriorityByWorld = new HashMap<>();
+
+        /**
+         * The bounds of all zones arranged into a tree, by the ID of the world they're in.
+         */
+        final Map<String, ZoneBoundsTree> boundsTreesByWorld = new HashMap<>();
+
+        /**
+         * The zones with each tag, by the tag, then by the ID of the world they're in. Each list is ordered by name.
+         */
+        final Map<String, Map<String, List<IndexedZone>>> byWorldByTag = new HashMap<>();
+
+        /**
+         * The zones with entity caps, by the ID of the world they're in. Each array is ordered by name.
+         */
+        final Map<String, IndexedZone[]> cappedByWorld = new HashMap<>();
+
+        /**
+         * The IDs of the entity types any zones have caps for.
+         */
+        final Set<String> cappedEntityTypeIds = new HashSet<>();
+
+        /**
+         * The summary given for chunks no zones cover, shared between all such chunks.
+         */
+        final ChunkZones noZones = new ChunkZones(this, ChunkZones.Coverage.NONE, Collections.emptyList());
+    }
+
+    /**
+     * The lowest Y coördinate considered to be within a chunk, for the purposes of {@link ChunkZones}.
+     */
+    public static final int chunkMinY = 0;
+
+    /**
+     * The highest Y coördinate considered to be within a chunk, for the purposes of {@link ChunkZones}.
+     */
+    public static final int chunkMaxY = 255;
+
+    /**
+     * Gets a shard name for each zone according to the world it's in, so each world's zones are saved in their own
+     * file.
+     */
+    public static final Function<Zone, String> SHARD_BY_WORLD = zone -> toFileSafeName(zone.getWorldId());
+
+    /**
+     * The name of the single shard used by registries that save all of their zones to one file.
+     */
+    private static final String singleFileShardName = "";
+
+    /**
+     * The file extension given to shard files.
+     */
+    private static final String shardFileExtension = ".txt";
+
+    /**
+     * An empty array of indexed zones, shared between everything with no indexed zones to give.
+     */
+    private static final IndexedZone[] noIndexedZones = new IndexedZone[0];
+
+    /**
+     * Creates a new zone registry that saves all of its zones into a single file.
+     * @param filePath The file path to save the zone registry's file at.
+     */
+    public ZoneRegistry(String filePath)
+    { this(Paths.get(filePath)); }
+
+    /**
+     * Creates a new zone registry that saves all of its zones into a single file.
+     * @param filePath The file path to save the zone registry's file at.
+     */
+    public ZoneRegistry(Path filePath)
+    {
+        this.folderPath = filePath.toAbsolutePath().getParent();
+        this.singleFilePath = filePath;
+        this.legacyFilePath = null;
+        this.shardNameGetter = zone -> singleFileShardName;
+    }
+
+    /**
+     * Creates a new zone registry that saves all of its zones into a single file.
+     * @param filePath The file path to save the zone registry's file at.
+     */
+    public ZoneRegistry(File filePath)
+    { this(filePath.toPath()); }
+
+    /**
+     * <p>Creates a new zone registry that saves its zones across multiple files ("shards") in a folder.</p>
+     *
+     * <p>Each zone is saved in the shard named by the given function, in a file in the given folder by that name.
+     * Changes to zones mark only the shards they're in as needing to be saved, so saving only rewrites the files of
+     * shards that have changed.</p>
+     * @param folderPath The folder to save the registry's shard files in.
+     * @param shardNameGetter The function to get the name of the shard a zone should be saved in. This should only
+     *                        depend on the zone's name and world, and should produce names that are valid as file
+     *                        names. e.g. {@link #SHARD_BY_WORLD}.
+     */
+    public ZoneRegistry(Path folderPath, Function<Zone, String> shardNameGetter)
+    { this(folderPath, shardNameGetter, null); }
+
+    /**
+     * <p>Creates a new zone registry that saves its zones across multiple files ("shards") in a folder.</p>
+     *
+     * <p>Each zone is saved in the shard named by the given function, in a file in the given folder by that name.
+     * Changes to zones mark only the shards they're in as needing to be saved, so saving only rewrites the files of
+     * shards that have changed.</p>
+     *
+     * <p>If there are no shard files when the registry is loaded, zones are loaded from the given legacy file instead
+     * (if it exists) and will be saved into shards the next time the registry is saved. Once they are, the legacy file
+     * is renamed, with ".migrated" appended to its name.</p>
+     * @param folderPath The folder to save the registry's shard files in.
+     * @param shardNameGetter The function to get the name of the shard a zone should be saved in. This should only
+     *                        depend on the zone's name and world, and should produce names that are valid as file
+     *                        names. e.g. {@link #SHARD_BY_WORLD}.
+     * @param legacyFilePath The path of a single file, as used by registries that don't save zones in shards, to load
+     *                       from if there are no shard files yet. May be null.
+     */
+    public ZoneRegistry(Path folderPath, Function<Zone, String> shardNameGetter, Path legacyFilePath)
+    {
+        this.folderPath = folderPath;
+        this.singleFilePath = null;
+        this.legacyFilePath = legacyFilePath;
+        this.shardNameGetter = shardNameGetter;
+    }
+
+    private final Map<String, Zone> zones = new HashMap<>();
+
+    /**
+     * The folder the registry's files are saved in.
+     */
+    private final Path folderPath;
+
+    /**
+     * The file all zones are saved in, or null if zones are saved in shards in {@link #folderPath}.
+     */
+    private final Path singleFilePath;
+
+    /**
+     * The single file to load zones from if there are no shard files yet, or null if there isn't one.
+     */
+    private final Path legacyFilePath;
+
+    /**
+     * Gets the name of the shard a zone should be saved in.
+     */
+    private final Function<Zone, String> shardNameGetter;
+
+    /**
+     * The names of the shards containing zones that have been modified since the last time they were saved or loaded.
+     */
+    private final Set<String> changedShards = new HashSet<>();
+
+    /**
+     * Whether or not the registry's contents were loaded from {@link #legacyFilePath} and haven't been saved into
+     * shards yet.
+     */
+    private boolean isMigratingFromLegacyFile = false;
+
+    /**
+     * The last modified times of each of the registry's files as of the last time this registry saved to or loaded from
+     * them.
+     */
+    private volatile Map<Path, FileTime> fileTimesAtLastSync = Collections.emptyMap();
+
+    private final InvokableEvent<ZoneChangedEventArgs> zoneChanged_internal = new SetEvent<>();
+
+    /**
+     * Fired when a zone is added to, removed from, or modified in the registry. This is only fired for actual changes
+     * - re-registering or reloading a zone with identical contents does not fire it.
+     */
+    public final Event<ZoneChangedEventArgs> zoneChanged = new ProtectedEvent<>(zoneChanged_internal);
+
+    /**
+     * The registry's zones arranged for querying, or null if it hasn't been built since the registry was created.
+     */
+    private ZoneIndex zoneIndex = null;
+
+    /**
+     * The names of the zones that have been added, removed, or changed since {@link #zoneIndex} was last brought up to
+     * date. The index is updated for these zones when it's next needed.
+     */
+    private final Set<String> zoneNamesChangedSinceIndexed = new HashSet<>();
+
+    /**
+     * Where the time spent building the registry's index and chunk summaries is recorded.
+     */
+    private ZoneMetrics metrics = new ZoneMetrics(false);
+
+    /**
+     * The view of the registry's zones last taken by {@link #snapshot()}, or null if the zones have changed since.
+     */
+    private ZoneView view = null;
+
+    /**
+     * The summaries of the zones covering each loaded chunk, by the world ID, then by the chunk as per
+     * {@link #getChunkKey(int, int)}. Where zones covering a loaded chunk have changed since its summary was made, its
+     * summary is replaced with null. Those summaries, and summaries made from an index since rebuilt, are remade when
+     * they're next needed.
+     */
+    private final Map<String, Long2ObjectOpenHashMap<ChunkZones>> loadedChunkZones = new HashMap<>();
+
+    /**
+     * Converts a string into a form usable as a file name, by replacing any characters other than letters, digits,
+     * underscores, hyphens, and full stops with underscores.
+     * @param s The string to convert.
+     * @return The given string with any characters that may not be valid in a file name replaced.
+     */
+    private static String toFileSafeName(String s)
+    { return s.replaceAll("[^A-Za-z0-9_.-]", "_"); }
+
+    /**
+     * Gets the name of the shard the given zone belongs in.
+     * @param zone The zone to get the shard name of.
+     * @return The name of the shard the given zone should be saved in.
+     */
+    private String getShardName(Zone zone)
+    { return shardNameGetter.apply(zone); }
+
+    /**
+     * Gets the file the shard by the given name is saved in.
+     * @param shardName The name of the shard.
+     * @return The path of the file the shard is saved in.
+     */
+    private Path getShardFile(String shardName)
+    {
+        return singleFilePath != null ? singleFilePath
+                                      : folderPath.resolve(shardName + shardFileExtension);
+    }
+
+    /**
+     * Packs a chunk's coördinates into a single long, in the same way as Minecraft's ChunkPos does, so that chunks can
+     * be looked up without depending on Minecraft's classes.
+     * @param chunkX The X coördinate of the chunk.
+     * @param chunkZ The Z coördinate of the chunk.
+     * @return A long uniquely representing the chunk at the given coördinates.
+     */
+    private static long getChunkKey(int chunkX, int chunkZ)
+    { return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32); }
+
+    /**
+     * Gets the name of the shard saved in the given file.
+     * @param shardFile The path of a shard file.
+     * @return The name of the shard saved in the given file.
+     */
+    private String getShardNameOfFile(Path shardFile)
+    {
+        if(singleFilePath != null)
+            return singleFileShardName;
+
+        String fileName = shardFile.getFileName().toString();
+        return fileName.substring(0, fileName.length() - shardFileExtension.length());
+    }
+
+    /**
+     * Gets the files the registry's zones are currently saved in.
+     * @return A list of the paths of the existing files of the registry, in alphabetical order.
+     */
+    private List<Path> getExistingShardFiles()
+    {
+        if(singleFilePath != null)
+        {
+            return Files.isReadable(singleFilePath) && !Files.isDirectory(singleFilePath)
+                           ? Collections.singletonList(singleFilePath)
+                           : Collections.emptyList();
+        }
+
+        if(!Files.isDirectory(folderPath))
+            return Collections.emptyList();
+
+        List<Path> result = new ArrayList<>();
+
+        try(DirectoryStream<Path> folderContents = Files.newDirectoryStream(folderPath, "*" + shardFileExtension))
+        {
+            for(Path file : folderContents)
+                if(Files.isRegularFile(file))
+                    result.add(file);
+        }
+        catch(IOException e)
+        { throw new RuntimeException("Could not list the zone files.", e); }
+
+        result.sort(Comparator.naturalOrder());
+        return result;
+    }
+
+    /**
+     * Marks the shard containing the given zone as having been modified since the last time it was saved or loaded.
+     * @param zone The zone that was modified.
+     */
+    private void markAsChanged(Zone zone)
+    { changedShards.add(getShardName(zone)); }
+
+    /**
+     * Marks the zone registry as not having had its contents modified since the last time it was saved or loaded.
+     */
+    private void resetChangedFlag()
+    { changedShards.clear(); }
+
+    /**
+     * Gets the registry's zones arranged for querying, bringing the index up to date if the zones have changed since it
+     * was last. Where only some zones have changed, the index is updated for those zones. Where over a quarter of the
+     * registry's zones need to be reindexed (e.g. after loading), the index is built again from scratch.
+     * @return The registry's index.
+     */
+    private ZoneIndex getZoneIndex()
+    {
+        if(zoneIndex != null && zoneNamesChangedSinceIndexed.isEmpty())
+            return zoneIndex;
+
+        long startedAt = metrics.now();
+
+        if(zoneIndex != null)
+        {
+            Set<String> zoneNamesToReindex = getZoneNamesToReindex(zoneIndex, zoneNamesChangedSinceIndexed);
+            zoneNamesChangedSinceIndexed.clear();
+
+            if(zoneNamesToReindex.size() * 4 <= zones.size())
+            {
+                updateZoneIndex(zoneIndex, zoneNamesToReindex);
+                return metrics.record("ZoneRegistry.updateZoneIndex", startedAt, startedAt, zoneIndex);
+            }
+        }
+
+        zoneNamesChangedSinceIndexed.clear();
+        return zoneIndex = metrics.record("ZoneRegistry.buildZoneIndex", startedAt, startedAt, buildZoneIndex());
+    }
+
+    /**
+     * Gets the names of the zones that need to be reindexed after the given zones have changed. These are the changed
+     * zones, along with:
+     * <ul>
+     *     <li>The zones within them (directly or otherwise) before the change, or naming them as their parent after it,
+     *     as the zones those are within have changed.</li>
+     *     <li>The zones in a loop of zones within each other that a changed zone now closes, as those are no longer
+     *     effectively within each other.</li>
+     *     <li>The zones the zones being reindexed are now within where those haven't been indexed as they now are,
+     *     (e.g. where they're yet to be given as changed, during a rename) so they're never within an outdated
+     *     zone.</li>
+     * </ul>
+     * @param index The registry's index, as it was before the zones changed.
+     * @param changedZoneNames The names of the zones that have changed.
+     * @return The names of the zones that need to be reindexed, including zones that are no longer in the registry.
+     */
+    private Set<String> getZoneNamesToReindex(ZoneIndex index, Set<String> changedZoneNames)
+    {
+        Set<String> result = new HashSet<>();
+        Deque<String> toCheck = new ArrayDeque<>(changedZoneNames);
+
+        for(String zoneName : changedZoneNames)
+        {
+            Zone zone = zones.get(zoneName);
+
+            if(zone == null || getEffectiveParent(zone) != null)
+                continue;
+
+            // A zone with a parent but no effective parent may now be in a loop, in which case so is each zone it's
+            // within.
+            Set<String> visited = new HashSet<>();
+
+            for(Zone ancestor = getParentInSameWorld(zone); ancestor != null; ancestor = getParentInSameWorld(ancestor))
+            {
+                if(!visited.add(ancestor.getName()))
+                    break;
+
+                toCheck.push(ancestor.getName());
+            }
+        }
+
+        while(!toCheck.isEmpty())
+        {
+            String zoneName = toCheck.pop();
+
+            if(!result.add(zoneName))
+                continue;
+
+            IndexedZone indexedZone = index.byName.get(zoneName);
+
+            if(indexedZone != null)
+                for(IndexedZone child : indexedZone.children)
+                    toCheck.push(child.name);
+
+            for(IndexedZone child : index.byParentName.getOrDefault(zoneName, Collections.emptyList()))
+                toCheck.push(child.name);
+
+            Zone zone = zones.get(zoneName);
+            Zone parent = zone == null ? null : getEffectiveParent(zone);
+
+            if(parent != null && !result.contains(parent.getName()))
+            {
+                IndexedZone indexedParent = index.byName.get(parent.getName());
+
+                if(indexedParent == null || indexedParent.zone != parent)
+                    toCheck.push(parent.getName());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reindexes zones in the registry's index, in place. The zones' old entries are removed from the index, and new
+     * entries are added for those still in the registry. The summaries of loaded chunks the zones' bounds overlap,
+     * before or after, are marked as outdated.
+     * @param index The registry's index.
+     * @param zoneNames The names of the zones to reindex, as given by {@link #getZoneNamesToReindex(ZoneIndex, Set)}.
+     */
+    private void updateZoneIndex(ZoneIndex index, Set<String> zoneNames)
+    {
+        Set<String> changedWorldIds = new HashSet<>();
+        Set<String> cappedWorldIds = new HashSet<>();
+        List<IndexedZone> newZones = new ArrayList<>();
+
+        for(String zoneName : zoneNames)
+        {
+            IndexedZone oldZone = index.byName.remove(zoneName);
+
+            if(oldZone == null)
+                continue;
+
+            removeFromIndex(index, oldZone);
+            markLoadedChunkZonesOutdated(oldZone);
+            changedWorldIds.add(oldZone.worldId);
+
+            // The zone may have been changed in place since it was indexed, so it may have had entity caps then.
+            if(index.cappedByWorld.containsKey(oldZone.worldId))
+                cappedWorldIds.add(oldZone.worldId);
+        }
+
+        for(String zoneName : zoneNames)
+        {
+            Zone zone = zones.get(zoneName);
+
+            if(zone == null)
+                continue;
+
+            IndexedZone newZone = new IndexedZone(zone);
+            index.byName.put(zoneName, newZone);
+            newZones.add(newZone);
+        }
+
+        for(IndexedZone newZone : newZones)
+        {
+            addToIndex(index, newZone);
+            markLoadedChunkZonesOutdated(newZone);
+            changedWorldIds.add(newZone.worldId);
+
+            if(newZone.zone.hasEntityCaps())
+                cappedWorldIds.add(newZone.worldId);
+        }
+
+        for(String worldId : changedWorldIds)
+        {
+            List<IndexedZone> worldZones = index.byPriorityByWorld.get(worldId);
+            ZoneBoundsTree tree = index.boundsTreesByWorld.get(worldId);
+
+            if(worldZones == null)
+                index.boundsTreesByWorld.remove(worldId);
+            else if(tree.needsRebuilding(worldZones.size()))
+                index.boundsTreesByWorld.put(worldId, new ZoneBoundsTree(worldZones));
+        }
+
+        for(String worldId : cappedWorldIds)
+        {
+            List<IndexedZone> cappedZones = new ArrayList<>();
+
+            for(IndexedZone zone : index.cappedByWorld.getOrDefault(worldId, noIndexedZones))
+                if(index.byName.get(zone.name) == zone)
+                    cappedZones.add(zone);
+
+            for(IndexedZone zone : newZones)
+                if(zone.worldId.equals(worldId) && zone.zone.hasEntityCaps())
+                    cappedZones.add(zone);
+
+            cappedZones.sort(IndexedZone.nameOrder);
+
+            if(cappedZones.isEmpty())
+                index.cappedByWorld.remove(worldId);
+            else
+                index.cappedByWorld.put(worldId, cappedZones.toArray(noIndexedZones));
+        }
+
+        if(!cappedWorldIds.isEmpty())
+        {
+            index.cappedEntityTypeIds.clear();
+
+            for(IndexedZone[] cappedZones : index.cappedByWorld.values())
+                for(IndexedZone zone : cappedZones)
+                    index.cappedEntityTypeIds.addAll(zone.zone.getEntityCaps().keySet());
+        }
+    }
+
+    /**
+     * Removes a zone's entry from the lists of the registry's index and from the zones it was within. Its entry by
+     * name, and the zones it has entity caps in, are left to the caller.
+     * @param index The registry's index.
+     * @param zone The entry of the zone to remove.
+     */
+    private static void removeFromIndex(ZoneIndex index, IndexedZone zone)
+    {
+        if(zone.parent == null)
+            removeInOrder(index.rootsByWorld, zone.worldId, zone, IndexedZone.nameOrder);
+        else
+            zone.parent.children.remove(zone);
+
+        if(zone.parentName != null)
+        {
+            List<IndexedZone> siblings = index.byParentName.get(zone.parentName);
+            siblings.remove(zone);
+
+            if(siblings.isEmpty())
+                index.byParentName.remove(zone.parentName);
+        }
+
+        removeInOrder(index.byPriorityByWorld, zone.worldId, zone, IndexedZone.priorityOrder);
+
+        for(String tag : zone.tags)
+        {
+            Map<String, List<IndexedZone>> zonesWithTag = index.byWorldByTag.get(tag);
+            removeInOrder(zonesWithTag, zone.worldId, zone, IndexedZone.nameOrder);
+
+            if(zonesWithTag.isEmpty())
+                index.byWorldByTag.remove(tag);
+        }
+
+        index.boundsTreesByWorld.get(zone.worldId).remove(zone);
+    }
+
+    /**
+     * Adds a new zone entry to the lists of the registry's index and to the zone it's within. Its entry by name must
+     * already have been added, along with that of the zone it's within, and the zones it has entity caps in are left
+     * to the caller.
+     * @param index The registry's index.
+     * @param zone The entry of the zone to add.
+     */
+    private void addToIndex(ZoneIndex index, IndexedZone zone)
+    {
+        Zone parent = getEffectiveParent(zone.zone);
+
+        if(parent == null)
+            addInOrder(index.rootsByWorld, zone.worldId, zone, IndexedZone.nameOrder);
+        else
+        {
+            zone.parent = index.byName.get(parent.getName());
+            addInOrder(zone.parent.children, zone, IndexedZone.nameOrder);
+        }
+
+        if(zone.parentName != null)
+            index.byParentName.computeIfAbsent(zone.parentName, x -> new ArrayList<>()).add(zone);
+
+        addInOrder(index.byPriorityByWorld, zone.worldId, zone, IndexedZone.priorityOrder);
+
+        for(String tag : zone.tags)
+            addInOrder(index.byWorldByTag.computeIfAbsent(tag, x -> new HashMap<>()),
+                       zone.worldId,
+                       zone,
+                       IndexedZone.nameOrder);
+
+        index.boundsTreesByWorld.computeIfAbsent(zone.worldId, x -> new ZoneBoundsTree(Collections.emptyList()))
+                                .add(zone);
+    }
+
+    /**
+     * Adds a zone entry to a list of zone entries in order.
+     * @param zones The list to add to, which must already be in the given order.
+     * @param zone The zone entry to add.
+     * @param order The order of the list.
+     */
+    private static void addInOrder(List<IndexedZone> zones, IndexedZone zone, Comparator<IndexedZone> order)
+    {
+        int index = Collections.binarySearch(zones, zone, order);
+        zones.add(index < 0 ? -index - 1 : index, zone);
+    }
+
+    /**
+     * Adds a zone entry to a list of zone entries in order, creating the list if there isn't one.
+     * @param zonesByKey The lists of zone entries to add to, by key.
+     * @param key The key of the list to add to.
+     * @param zone The zone entry to add.
+     * @param order The order of the lists.
+     */
+    private static void addInOrder(Map<String, List<IndexedZone>> zonesByKey,
+                                   String key,
+                                   IndexedZone zone,
+                                   Comparator<IndexedZone> order)
+    { addInOrder(zonesByKey.computeIfAbsent(key, x -> new ArrayList<>()), zone, order); }
+
+    /**
+     * Removes a zone entry from a list of zone entries in order, removing the list if it's left empty.
+     * @param zonesByKey The lists of zone entries to remove from, by key.
+     * @param key The key of the list to remove from.
+     * @param zone The zone entry to remove.
+     * @param order The order of the lists.
+     */
+    private static void removeInOrder(Map<String, List<IndexedZone>> zonesByKey,
+                                      String key,
+                                      IndexedZone zone,
+                                      Comparator<IndexedZone> order)
+    {
+        List<IndexedZone> zones = zonesByKey.get(key);
+        int index = Collections.binarySearch(zones, zone, order);
+
+        if(index >= 0 && zones.get(index) == zone)
+            zones.remove(index);
+        else
+            zones.remove(zone);
+
+        if(zones.isEmpty())
+            zonesByKey.remove(key);
+    }
+
+    /**
+     * Marks the summaries of the loaded chunks a zone's bounds overlap as outdated, so that they're remade when they're
+     * next needed. Where the zone's bounds span fewer chunks than are loaded in its world, each of those chunks is
+     * looked up. Otherwise, each loaded chunk is checked.
+     * @param zone The zone entry whose bounds to mark the summaries of loaded chunks within.
+     */
+    private void markLoadedChunkZonesOutdated(IndexedZone zone)
+    {
+        Long2ObjectOpenHashMap<ChunkZones> worldChunks = loadedChunkZones.get(zone.worldId);
+
+        if(worldChunks == null || !zone.boundsOverlap(zone.minX, chunkMinY, zone.minZ, zone.maxX, chunkMaxY, zone.maxZ))
+            return;
+
+        int fromChunkX = zone.minX >> 4, toChunkX = zone.maxX >> 4;
+        int fromChunkZ = zone.minZ >> 4, toChunkZ = zone.maxZ >> 4;
+
+        if(((long)toChunkX - fromChunkX + 1) * ((long)toChunkZ - fromChunkZ + 1) <= worldChunks.size())
+        {
+            for(int chunkX = fromChunkX; chunkX <= toChunkX; chunkX++)
+                for(int chunkZ = fromChunkZ; chunkZ <= toChunkZ; chunkZ++)
+                {
+                    long chunk = getChunkKey(chunkX, chunkZ);
+
+                    if(worldChunks.containsKey(chunk))
+                        worldChunks.put(chunk, null);
+                }
+
+            return;
+        }
+
+        for(Long2ObjectMap.Entry<ChunkZones> entry : worldChunks.long2ObjectEntrySet())
+        {
+            int chunkX = (int)entry.getLongKey(), chunkZ = (int)(entry.getLongKey() >>> 32);
+
+            if(chunkX >= fromChunkX && chunkX <= toChunkX && chunkZ >= fromChunkZ && chunkZ <= toChunkZ)
+                entry.setValue(null);
+        }
+    }
+
+    /**
+     * Arranges the registry's zones for querying.
+     * @return A new index of the registry's zones.
+     */
+    private ZoneIndex buildZoneIndex()
+    {
+        ZoneIndex index = new ZoneIndex();
+        List<Zone> zonesSorted = new ArrayList<>(zones.values());
+        zonesSorted.sort(Comparator.comparing(Zone::getName));
+        Map<String, IndexedZone> indexedZones = index.byName;
+        Map<String, List<IndexedZone>> cappedZonesByWorld = new HashMap<>();
+
+        for(Zone zone : zonesSorted)
+            indexedZones.put(zone.getName(), new IndexedZone(zone));
+
+        for(Zone zone : zonesSorted)
+        {
+            IndexedZone indexedZone = indexedZones.get(zone.getName());
+            Zone parent = getEffectiveParent(zone);
+            index.byPriorityByWorld.computeIfAbsent(zone.getWorldId(), x -> new ArrayList<>()).add(indexedZone);
+
+            if(zone.getParentName() != null)
+                index.byParentName.computeIfAbsent(zone.getParentName(), x -> new ArrayList<>()).add(indexedZone);
+
+            for(String tag : zone.getTags())
+                index.byWorldByTag.computeIfAbsent(tag, x -> new HashMap<>())
+                                  .computeIfAbsent(zone.getWorldId(), x -> new ArrayList<>())
+                                  .add(indexedZone);
+
+            if(zone.hasEntityCaps())
+            {
+                cappedZonesByWorld.computeIfAbsent(zone.getWorldId(), x -> new ArrayList<>()).add(indexedZone);
+                index.cappedEntityTypeIds.addAll(zone.getEntityCaps().keySet());
+            }
+
+            if(parent == null)
+                index.rootsByWorld.computeIfAbsent(zone.getWorldId(), x -> new ArrayList<>()).add(indexedZone);
+            else
+            {
+                indexedZone.parent = indexedZones.get(parent.getName());
+                indexedZone.parent.children.add(indexedZone);
+            }
+        }
+
+        for(Map.Entry<String, List<IndexedZone>> worldZones : index.byPriorityByWorld.entrySet())
+        {
+            worldZones.getValue().sort(Comparator.comparingInt((IndexedZone x) -> x.zone.getPriority()).reversed());
+            index.boundsTreesByWorld.put(worldZones.getKey(), new ZoneBoundsTree(worldZones.getValue()));
+        }
+
+        for(Map.Entry<String, List<IndexedZone>> worldZones : cappedZonesByWorld.entrySet())
+            index.cappedByWorld.put(worldZones.getKey(), worldZones.getValue().toArray(noIndexedZones));
+
+        return index;
+    }
+
+    /**
+     * Gets the zone a zone is within. A zone is treated as having no parent if its parent isn't registered, is in a
+     * different world, or is within the zone itself, directly or otherwise.
+     * @param zone The zone to get the parent of.
+     * @return The zone in the registry the given zone is within, or null if it's not effectively within another zone.
+     */
+    private Zone getEffectiveParent(Zone zone)
+    {
+        Zone parent = getParentInSameWorld(zone);
+        Set<String> visited = new HashSet<>();
+
+        for(Zone ancestor = parent; ancestor != null; ancestor = getParentInSameWorld(ancestor))
+        {
+            if(ancestor.getName().equals(zone.getName()))
+                return null;
+
+            if(!visited.add(ancestor.getName()))
+                break;
+        }
+
+        return parent;
+    }
+
+    /**
+     * Gets the registered zone a zone names as its parent, if it's in the same world.
+     * @param zone The zone to get the parent of.
+     * @return The given zone's parent, or null if it has none, its parent isn't registered, or its parent is in a
+     *         different world.
+     */
+    private Zone getParentInSameWorld(Zone zone)
+    {
+        if(zone.getParentName() == null)
+            return null;
+
+        Zone parent = zones.get(zone.getParentName());
+        return (parent == null || !parent.getWorldId().equals(zone.getWorldId())) ? null : parent;
+    }
+
+    /**
+     * Fires the zone changed event for a zone having been changed.
+     * @param oldZone The zone as it was before the change, or null if it's been added.
+     * @param newZone The zone as it is after the change, or null if it's been removed.
+     */
+    private void fireZoneChanged(Zone oldZone, Zone newZone)
+    {
+        if(zoneIndex != null)
+        {
+            if(oldZone != null)
+                zoneNamesChangedSinceIndexed.add(oldZone.getName());
+
+            if(newZone != null)
+                zoneNamesChangedSinceIndexed.add(newZone.getName());
+        }
+
+        view = null;
+        ZoneChangedEventArgs.ChangeType changeType = oldZone == null ? ZoneChangedEventArgs.ChangeType.ADDED
+                                                   : newZone == null ? ZoneChangedEventArgs.ChangeType.REMOVED
+                                                   : ZoneChangedEventArgs.ChangeType.MODIFIED;
+
+        zoneChanged_internal.invoke(new ZoneChangedEventArgs(changeType,
+                                                             oldZone == null ? null : oldZone.copy(),
+                                                             newZone == null ? null : newZone.copy()));
+    }
+
+    /**
+     * Registers a new zone. If the zone shares a name with a zone already present, overwrites that zone.
+     * @param zone The zone to register.
+     */
+    public void register(Zone zone)
+    {
+        Zone newZone = zone.copy();
+        Zone oldZone = zones.put(zone.getName(), newZone);
+        markAsChanged(newZone);
+
+        if(oldZone != null)
+            markAsChanged(oldZone);
+
+        if(oldZone == null || !oldZone.hasSameContentsAs(newZone))
+            fireZoneChanged(oldZone, newZone);
+    }
+
+    /**
+     * Deregisters the zone by the given name.
+     * @param zoneName The name of the zone to deregister.
+     * @return The zone deregistered, or null if there was no zone by the given name.
+     */
+    public Zone deregister(String zoneName)
+    {
+        Zone result = zones.remove(zoneName);
+
+        if(result != null)
+        {
+            markAsChanged(result);
+            fireZoneChanged(result, null);
+        }
+
+        return result;
+    }
+
+    /**
+     * Renames a zone. If another zone exists with the given name, overwrites that. Zones within the renamed zone are
+     * updated to be within it under its new name. Renaming a zone to its current name leaves it unchanged.
+     * @param zoneName The name of the zone to rename.
+     * @param newZoneName The name to rename the zone to.
+     * @return The zone renamed, or null if there was no zone by the given name.
+     */
+    public Zone rename(String zoneName, String newZoneName)
+    {
+        if(zoneName.equals(newZoneName))
+            return get(zoneName);
+
+        Zone oldZone = zones.remove(zoneName);
+
+        if(oldZone == null)
+            return null;
+
+        Zone newZone = oldZone.copyWithNewName(newZoneName);
+        Zone overwrittenZone = zones.put(newZoneName, newZone);
+        markAsChanged(oldZone);
+        markAsChanged(newZone);
+
+        if(overwrittenZone != null)
+            markAsChanged(overwrittenZone);
+
+        List<Pair<Zone, Zone>> childChanges = new ArrayList<>();
+
+        for(Zone child : zones.values())
+        {
+            if(child == newZone || !zoneName.equals(child.getParentName()))
+                continue;
+
+            Zone oldChild = child.copy();
+            child.setParentName(newZoneName);
+            markAsChanged(child);
+            childChanges.add(new Pair<>(oldChild, child));
+        }
+
+        fireZoneChanged(oldZone, null);
+
+        if(overwrittenZone == null || !overwrittenZone.hasSameContentsAs(newZone))
+            fireZoneChanged(overwrittenZone, newZone);
+
+        for(Pair<Zone, Zone> change : childChanges)
+            fireZoneChanged(change.getFirst(), change.getSecond());
+
+        return newZone.copy();
+    }
+
+    /**
+     * Sets the zone the zone by the given name is within, if a zone by the given name exists in the registry.
+     * @see Zone#getParentName()
+     * @param zoneName The name of the zone to set the parent of.
+     * @param parentZoneName The name of the zone it should be within, or null if it shouldn't be within another zone.
+     * @return The zone the parent was set of, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If there's no zone by the given parent zone name, the parent zone is in a
+     *                                  different world, or the parent zone is the zone itself or within it.
+     */
+    public Zone setParent(String zoneName, String parentZoneName)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        if(parentZoneName != null)
+        {
+            Zone parent = zones.get(parentZoneName);
+
+            if(parent == null)
+                throw new IllegalArgumentException("No zone found by the name " + parentZoneName);
+
+            if(!parent.getWorldId().equals(zone.getWorldId()))
+                throw new IllegalArgumentException(parentZoneName + " is in a different world to " + zoneName);
+
+            Set<String> visited = new HashSet<>();
+
+            for(Zone ancestor = parent; ancestor != null; ancestor = getParentInSameWorld(ancestor))
+            {
+                if(ancestor.getName().equals(zoneName))
+                    throw new IllegalArgumentException(parentZoneName + " is " + zoneName + " or within it.");
+
+                if(!visited.add(ancestor.getName()))
+                    break;
+            }
+        }
+
+        if(Objects.equals(zone.getParentName(), parentZoneName))
+            return zone.copy();
+
+        Zone oldZone = zone.copy();
+        zone.setParentName(parentZoneName);
+        markAsChanged(zone);
+        fireZoneChanged(oldZone, zone);
+        return zone.copy();
+    }
+
+    /**
+     * Sets the priority of the zone by the given name, if a zone by the given name exists in the registry.
+     * @see Zone#getPriority()
+     * @param zoneName The name of the zone to set the priority of.
+     * @param priority The new priority of the zone.
+     * @return The zone the priority was set of, or null if there was no zone by the given name.
+     */
+    public Zone setPriority(String zoneName, int priority)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        if(zone.getPriority() == priority)
+            return zone.copy();
+
+        Zone oldZone = zone.copy();
+        zone.setPriority(priority);
+        markAsChanged(zone);
+        fireZoneChanged(oldZone, zone);
+        return zone.copy();
+    }
+
+    /**
+     * Sets where the registry records the time it spends building and updating its index of zones and its summaries
+     * of which zones cover chunks, as "ZoneRegistry.buildZoneIndex", "ZoneRegistry.updateZoneIndex", and
+     * "ZoneRegistry.makeChunkZones". Nothing is recorded unless this is called with metrics that are enabled.
+     * @param metrics The metrics to record to.
+     */
+    public void setMetrics(ZoneMetrics metrics)
+    { this.metrics = metrics; }
+
+    /**
+     * Gives a tag to the zone by the given name, if a zone by the given name exists in the registry.
+     * @see Zone#getTags()
+     * @param zoneName The name of the zone to tag.
+     * @param tag The tag to give the zone.
+     * @return The zone tagged, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the given tag is empty or contains whitespace.
+     */
+    public Zone addTag(String zoneName, String tag)
+    {
+        if(!tag.matches("\\S+"))
+            throw new IllegalArgumentException("Tags may not be empty or contain whitespace: \"" + tag + "\"");
+
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        Zone oldZone = zone.copy();
+
+        if(zone.addTag(tag))
+        {
+            markAsChanged(zone);
+            fireZoneChanged(oldZone, zone);
+        }
+
+        return zone.copy();
+    }
+
+    /**
+     * Removes a tag from the zone by the given name, if a zone by the given name exists in the registry.
+     * @see Zone#getTags()
+     * @param zoneName The name of the zone to untag.
+     * @param tag The tag to remove from the zone.
+     * @return The zone untagged, or null if there was no zone by the given name.
+     */
+    public Zone removeTag(String zoneName, String tag)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        Zone oldZone = zone.copy();
+
+        if(zone.removeTag(tag))
+        {
+            markAsChanged(zone);
+            fireZoneChanged(oldZone, zone);
+        }
+
+        return zone.copy();
+    }
+
+    /**
+     * Sets the maximum number of entities of the given type that may be spawned into the zone by the given name, if a
+     * zone by the given name exists in the registry.
+     * @see Zone#getEntityCaps()
+     * @param zoneName The name of the zone to cap entities in.
+     * @param entityTypeId The ID of the entity type to cap. (e.g. "minecraft:cow")
+     * @param cap The maximum number of entities of the given type.
+     * @return The zone the entity cap was set of, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the given entity type ID is empty or contains whitespace or "=", or if the
+     *                                  given cap is negative.
+     */
+    public Zone setEntityCap(String zoneName, String entityTypeId, int cap)
+    {
+        if(!entityTypeId.matches("[^\\s=]+"))
+            throw new IllegalArgumentException("Entity type IDs may not be empty or contain whitespace or \"=\": \""
+                                               + entityTypeId + "\"");
+
+        if(cap < 0)
+            throw new IllegalArgumentException("Entity caps may not be negative: " + cap);
+
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        Zone oldZone = zone.copy();
+
+        if(zone.setEntityCap(entityTypeId, cap))
+        {
+            markAsChanged(zone);
+            fireZoneChanged(oldZone, zone);
+        }
+
+        return zone.copy();
+    }
+
+    /**
+     * Removes the cap on the number of entities of the given type that may be spawned into the zone by the given name,
+     * if a zone by the given name exists in the registry.
+     * @see Zone#getEntityCaps()
+     * @param zoneName The name of the zone to uncap entities in.
+     * @param entityTypeId The ID of the entity type to uncap.
+     * @return The zone the entity cap was removed from, or null if there was no zone by the given name.
+     */
+    public Zone removeEntityCap(String zoneName, String entityTypeId)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        Zone oldZone = zone.copy();
+
+        if(zone.removeEntityCap(entityTypeId))
+        {
+            markAsChanged(zone);
+            fireZoneChanged(oldZone, zone);
+        }
+
+        return zone.copy();
+    }
+
+    /**
+     * Adds the zone region to the zone by the given name, if a zone by the given name exists in the registry.
+     * @param zoneName The name of the zone to add the zone region to.
+     * @param region The zone region to add to the zone.
+     * @return The zone added to.
+     */
+    public Zone addToZoneIfThere(String zoneName, Zone.ZoneRegion region)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        Zone oldZone = zone.copy();
+        zone.addRegion(region);
+        markAsChanged(zone);
+        fireZoneChanged(oldZone, zone);
+        return zone.copy();
+    }
+
+    /**
+     * Replaces the regions of the zone by the given name with a single voxel column region covering the same blocks,
+     * if a zone by the given name exists in the registry.
+     * @see Zone.ZoneRegionVoxelColumns#ofRegions(List)
+     * @param zoneName The name of the zone to compact.
+     * @return The zone compacted, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the zone's regions can't be converted into a voxel column region.
+     */
+    public Zone compactToVoxelColumns(String zoneName)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        Zone newZone = zone.withOnlyRegion(Zone.ZoneRegionVoxelColumns.ofRegions(zone.getRegions()));
+        register(newZone);
+        return newZone.copy();
+    }
+
+    /**
+     * Adds all of the blocks in a cuboid to the octree region of the zone by the given name, if a zone by the given
+     * name exists in the registry. The zone's octree region is the last non-negating octree region in it. If it has
+     * none, a new octree region containing the cuboid is added to the top of the zone.
+     * @param zoneName The name of the zone to fill the cuboid in.
+     * @param fromX One of the edges on the X coördinate.
+     * @param fromY One of the edges on the Y coördinate.
+     * @param fromZ One of the edges on the Z coördinate.
+     * @param toX The opposite edge on the X coördinate.
+     * @param toY The opposite edge on the Y coördinate.
+     * @param toZ The opposite edge on the Z coördinate.
+     * @return The zone filled in, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the cuboid is too large or too finely divided to apply to an octree. See
+     *                                  {@link Zone.ZoneRegionOctree#maxNodesDividedPerEdit}.
+     */
+    public Zone fillInOctree(String zoneName, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        List<Zone.ZoneRegion> regions = zone.getRegions();
+        int octreeIndex = getIndexOfOctreeRegion(regions);
+
+        if(octreeIndex == -1)
+            regions.add(Zone.ZoneRegionOctree.ofCuboid(fromX, fromY, fromZ, toX, toY, toZ));
+        else
+        {
+            Zone.ZoneRegionOctree octree = (Zone.ZoneRegionOctree)regions.get(octreeIndex);
+            regions.set(octreeIndex, octree.filled(fromX, fromY, fromZ, toX, toY, toZ));
+        }
+
+        return replaceRegions(zone, regions);
+    }
+
+    /**
+     * Removes all of the blocks in a cuboid from the octree region of the zone by the given name, if a zone by the
+     * given name exists in the registry. The zone's octree region is the last non-negating octree region in it. If it
+     * has none, the zone is left unchanged. If no blocks are left in the octree region, it's removed from the zone.
+     * @param zoneName The name of the zone to carve the cuboid out of.
+     * @param fromX One of the edges on the X coördinate.
+     * @param fromY One of the edges on the Y coördinate.
+     * @param fromZ One of the edges on the Z coördinate.
+     * @param toX The opposite edge on the X coördinate.
+     * @param toY The opposite edge on the Y coördinate.
+     * @param toZ The opposite edge on the Z coördinate.
+     * @return The zone carved from, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the cuboid is too large or too finely divided to apply to an octree. See
+     *                                  {@link Zone.ZoneRegionOctree#maxNodesDividedPerEdit}.
+     */
+    public Zone carveFromOctree(String zoneName, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        List<Zone.ZoneRegion> regions = zone.getRegions();
+        int octreeIndex = getIndexOfOctreeRegion(regions);
+
+        if(octreeIndex == -1)
+            return zone.copy();
+
+        Zone.ZoneRegionOctree octree = (Zone.ZoneRegionOctree)regions.get(octreeIndex);
+        Zone.ZoneRegionOctree carved = octree.carved(fromX, fromY, fromZ, toX, toY, toZ);
+
+        if(carved == null)
+            regions.remove(octreeIndex);
+        else
+            regions.set(octreeIndex, carved);
+
+        return replaceRegions(zone, regions);
+    }
+
+    /**
+     * Gets the index of the last non-negating octree region in a list of regions.
+     * @param regions The regions to search.
+     * @return The index of the last non-negating octree region in the given list, or -1 if there are none.
+     */
+    private static int getIndexOfOctreeRegion(List<Zone.ZoneRegion> regions)
+    {
+        for(int i = regions.size() - 1; i >= 0; i--)
+            if(regions.get(i) instanceof Zone.ZoneRegionOctree && !regions.get(i).isNegating())
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * Registers a copy of the given zone with its regions replaced, in place of the given zone. The regions are added
+     * as they are, without being interned again, as they're the zone's own regions other than the octree region being
+     * replaced, and octree regions aren't interned.
+     * @param zone The zone to replace the regions of.
+     * @param regions The regions to give the zone.
+     * @return A copy of the new zone.
+     */
+    private Zone replaceRegions(Zone zone, List<Zone.ZoneRegion> regions)
+    {
+        Zone newZone = zone.copy();
+        newZone.clear();
+
+        for(Zone.ZoneRegion region : regions)
+            newZone.addRegionAsIs(region);
+
+        register(newZone);
+        return newZone.copy();
+    }
+
+    /**
+     * Gets the zone by the given name.
+     * @param zoneName The name of the zone to get.
+     * @return The zone by the given name, or null if there is no zone by the given name.
+     */
+    public Zone get(String zoneName)
+    {
+        Zone zone = zones.get(zoneName);
+
+        if(zone == null)
+            return null;
+
+        return zone.copy();
+    }
+
+    /**
+     * Gets all zones in the registry.
+     * @return A list of the zones in the registry, ordered by name.
+     */
+    public List<Zone> getZones()
+    {
+        List<Zone> result = new ArrayList<>();
+
+        for(Zone z : zones.values())
+            result.add(z.copy());
+
+        result.sort(Comparator.comparing(Zone::getName));
+        return result;
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag.
+     * @see Zone#getTags()
+     * @param tag The tag to get the zones with.
+     * @return A list of the zones in the registry with the given tag, ordered by name.
+     */
+    public List<Zone> getZonesWithTag(String tag)
+    {
+        List<Zone> result = new ArrayList<>();
+
+        Map<String, List<IndexedZone>> zonesWithTag = getZoneIndex().byWorldByTag.get(tag);
+
+        if(zonesWithTag == null)
+            return result;
+
+        for(List<IndexedZone> worldZones : zonesWithTag.values())
+            for(IndexedZone zone : worldZones)
+                result.add(zone.zone.copy());
+
+        result.sort(Comparator.comparing(Zone::getName));
+        return result;
+    }
+
+    /**
+     * Gets whether any zones in the registry have entity caps.
+     * @see Zone#getEntityCaps()
+     * @return True if any zones in the registry cap the number of entities of any type. Otherwise, false.
+     */
+    public boolean hasEntityCaps()
+    { return !getZoneIndex().cappedEntityTypeIds.isEmpty(); }
+
+    /**
+     * Gets whether any zones in the registry cap the number of entities of the given type.
+     * @see Zone#getEntityCaps()
+     * @param entityTypeId The ID of the entity type. (e.g. "minecraft:cow")
+     * @return True if any zones in the registry cap the number of entities of the given type. Otherwise, false.
+     */
+    public boolean hasEntityCaps(String entityTypeId)
+    { return getZoneIndex().cappedEntityTypeIds.contains(entityTypeId); }
+
+    /**
+     * Gets the entity caps for the given entity type of all zones in the registry covering the point represented by
+     * the given coördinates and world ID.
+     * @see Zone#getEntityCaps()
+     * @param worldId The ID of the world the point is in.
+     * @param x The X coördinate of the point.
+     * @param y The Y coördinate of the point.
+     * @param z The Z coördinate of the point.
+     * @param entityTypeId The ID of the entity type to get the caps of.
+     * @return A map of the maximum number of entities of the given type, by the names of the zones covering the given
+     *         position that cap entities of the given type. This is empty where no zones covering the given position
+     *         cap entities of the given type.
+     */
+    public Map<String, Integer> getEntityCapsAt(String worldId, int x, int y, int z, String entityTypeId)
+    {
+        if(!hasEntityCaps(entityTypeId))
+            return Collections.emptyMap();
+
+        Map<String, Integer> result = null;
+        ChunkZones chunkZones = getLoadedChunkZonesAt(worldId, x, y, z);
+        boolean coversWholeChunk = chunkZones != null && chunkZones.coverage == ChunkZones.Coverage.FULL;
+
+        for(IndexedZone zone : chunkZones != null ? chunkZones.cappedZones : getCappedZones(worldId))
+        {
+            Integer cap = zone.zone.getEntityCap(entityTypeId);
+
+            if(cap == null || !(coversWholeChunk || zone.containsWithAncestors(x, y, z)))
+                continue;
+
+            if(result == null)
+                result = new HashMap<>();
+
+            result.put(zone.zone.getName(), cap);
+        }
+
+        return result == null ? Collections.emptyMap() : result;
+    }
+
+    /**
+     * <p>Gets whether any zone in the registry covering the point represented by the given coördinates and world ID
+     * caps the number of entities of the given type, and already has at least as many as its cap in it.</p>
+     *
+     * <p>This returns false without looking up any zones where no zones cap entities of the given type. Where the
+     * point's chunk is loaded, only the zones with entity caps that may cover the chunk are checked. Otherwise, only
+     * the zones in the world with entity caps are checked. Neither allocates anything.</p>
+     * @see Zone#getEntityCaps()
+     * @param worldId The ID of the world the point is in.
+     * @param x The X coördinate of the point.
+     * @param y The Y coördinate of the point.
+     * @param z The Z coördinate of the point.
+     * @param entityTypeId The ID of the entity type.
+     * @param getEntityCount Gets the number of entities of the given type in the zone by the given name.
+     * @return True if any zone covering the given point has at least as many entities of the given type as its cap
+     *         for that type. Otherwise, false.
+     */
+    public boolean isAtEntityCap(String worldId,
+                                 int x,
+                                 int y,
+                                 int z,
+                                 String entityTypeId,
+                                 ToIntFunction<String> getEntityCount)
+    {
+        if(!hasEntityCaps(entityTypeId))
+            return false;
+
+        ChunkZones chunkZones = getLoadedChunkZonesAt(worldId, x, y, z);
+        boolean coversWholeChunk = chunkZones != null && chunkZones.coverage == ChunkZones.Coverage.FULL;
+
+        for(IndexedZone zone : chunkZones != null ? chunkZones.cappedZones : getCappedZones(worldId))
+        {
+            Integer cap = zone.zone.getEntityCap(entityTypeId);
+
+            if(cap != null
+            && (coversWholeChunk || zone.containsWithAncestors(x, y, z))
+            && getEntityCount.applyAsInt(zone.zone.getName()) >= cap)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the zones in a world with entity caps.
+     * @param worldId The ID of the world to get the zones of.
+     * @return An array of the indexed zones in the given world with entity caps, ordered by name. This is shared, and
+     *         shouldn't be modified.
+     */
+    private IndexedZone[] getCappedZones(String worldId)
+    { return getZoneIndex().cappedByWorld.getOrDefault(worldId, noIndexedZones); }
+
+    /**
+     * <p>Gets whether any zones with the given tag may cover any part of the given area, at any height, going by the
+     * overall bounds of the zones.</p>
+     *
+     * <p>Where this returns false, no zones with the tag cover any point in the area. Where this returns true, zones
+     * with the tag may or may not cover points in the area.</p>
+     * @param worldId The ID of the world the area is in.
+     * @param fromX The lowest X coördinate in the area.
+     * @param fromZ The lowest Z coördinate in the area.
+     * @param toX The highest X coördinate in the area.
+     * @param toZ The highest Z coördinate in the area.
+     * @param tag The tag zones must have.
+     * @return False if no zones with the given tag cover any point in the area. Otherwise, true.
+     */
+    public boolean mayHaveZonesWithTagIn(String worldId, int fromX, int fromZ, int toX, int toZ, String tag)
+    {
+        Map<String, List<IndexedZone>> zonesWithTag = getZoneIndex().byWorldByTag.get(tag);
+
+        if(zonesWithTag == null)
+            return false;
+
+        for(IndexedZone zone : zonesWithTag.getOrDefault(worldId, Collections.emptyList()))
+            if(zone.minX <= toX && fromX <= zone.maxX && zone.minZ <= toZ && fromZ <= zone.maxZ)
+                return true;
+
+        return false;
+    }
+
+    /**
+     * <p>Gets an immutable view of the registry's zones as they are now. The view may be queried from any thread
+     * without locking the registry, and isn't affected by later changes to the registry.</p>
+     *
+     * <p>Taking a view copies every zone in the registry, but where the registry hasn't changed since the last view was
+     * taken, that view is returned again instead.</p>
+     * @return A view of the registry's current zones.
+     */
+    public ZoneView snapshot()
+    {
+        if(view != null)
+            return view;
+
+        long startedAt = metrics.now();
+        return view = metrics.record("ZoneRegistry.snapshot", startedAt, startedAt, new ZoneView(copyForView()));
+    }
+
+    /**
+     * Creates a copy of this registry for a {@link ZoneView} to answer queries from, containing copies of this
+     * registry's zones, with its index already built and no chunks loaded. The copy is never saved.
+     * @return A new registry containing copies of this registry's zones.
+     */
+    private ZoneRegistry copyForView()
+    {
+        ZoneRegistry copy = new ZoneRegistry(folderPath, shardNameGetter);
+
+        for(Zone zone : zones.values())
+            copy.zones.put(zone.getName(), zone.copy());
+
+        copy.zoneIndex = copy.buildZoneIndex();
+        return copy;
+    }
+
+    /**
+     * Gets a summary of which zones cover the given chunk. Where the chunk has been marked as loaded with
+     * {@link #chunkLoaded(String, int, int)}, this is looked up rather than worked out again.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     * @return A summary of the zones covering the given chunk.
+     */
+    public ChunkZones getChunkZones(String worldId, int chunkX, int chunkZ)
+    {
+        ChunkZones result = getLoadedChunkZones(worldId, chunkX, chunkZ);
+        return result != null ? result : makeChunkZones(worldId, chunkX, chunkZ);
+    }
+
+    /**
+     * Marks a chunk as loaded, so that a summary of which zones cover it is kept until it's unloaded. While a chunk is
+     * loaded, queries of the zones at blocks within it only check the zones that may cover the chunk, and don't check
+     * any zones at all if no zones cover it.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     */
+    public void chunkLoaded(String worldId, int chunkX, int chunkZ)
+    {
+        loadedChunkZones.computeIfAbsent(worldId, k -> new Long2ObjectOpenHashMap<>())
+                        .put(getChunkKey(chunkX, chunkZ), makeChunkZones(worldId, chunkX, chunkZ));
+    }
+
+    /**
+     * Marks a chunk as no longer loaded, discarding the summary of which zones cover it.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     */
+    public void chunkUnloaded(String worldId, int chunkX, int chunkZ)
+    {
+        Long2ObjectOpenHashMap<ChunkZones> worldChunks = loadedChunkZones.get(worldId);
+
+        if(worldChunks == null)
+            return;
+
+        worldChunks.remove(getChunkKey(chunkX, chunkZ));
+
+        if(worldChunks.isEmpty())
+            loadedChunkZones.remove(worldId);
+    }
+
+    /**
+     * Marks all chunks in the given world as no longer loaded.
+     * @param worldId The ID of the world.
+     */
+    public void worldUnloaded(String worldId)
+    { loadedChunkZones.remove(worldId); }
+
+    /**
+     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int z)
+    { return copyAll(findZonesAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int y, int z)
+    { return copyAll(findZonesAt(worldId, x, y, z)); }
+
+    /**
+     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double z)
+    { return copyAll(findZonesAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double y, double z)
+    { return copyAll(findZonesAt(worldId, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets a list of all zones in the registry.
+     * @return A list of the names of all zones in the registry, in alphabetical order.
+     */
+    public List<String> getZoneNames()
+    {
+        List<String> result = new ArrayList<>();
+
+        for(Zone z : zones.values())
+            result.add(z.getName());
+
+        result.sort(Comparator.naturalOrder());
+        return result;
+    }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int z)
+    { return getSortedNames(findZonesAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int y, int z)
+    { return getSortedNames(findZonesAt(worldId, x, y, z)); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double z)
+    { return getSortedNames(findZonesAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double y, double z)
+    { return getSortedNames(findZonesAt(worldId, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * <p>Gets the names of those of the given zones covering the point represented by the given coördinates and world
+     * ID, in alphabetical order.</p>
+     *
+     * <p>Only the given zones are checked, so where few zones are given, this is quicker than getting the names of all
+     * zones at the point. Where the point's chunk is loaded, only the given zones that may cover the chunk are checked,
+     * and none are checked where none of the given zones may cover it.</p>
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param zoneNames The names of the zones to check. Names of zones not in the registry are ignored.
+     * @return A list of the names of the given zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAtAmong(String worldId, int x, int y, int z, Set<String> zoneNames)
+    {
+        if(y >= chunkMinY && y <= chunkMaxY)
+        {
+            ChunkZones chunkZones = getLoadedChunkZones(worldId, x >> 4, z >> 4);
+
+            if(chunkZones != null)
+                return chunkZones.getZoneNamesAt(x, y, z, zoneNames);
+        }
+
+        List<String> result = new ArrayList<>();
+        ZoneIndex index = getZoneIndex();
+
+        for(String zoneName : zoneNames)
+        {
+            IndexedZone zone = index.byName.get(zoneName);
+
+            if(zone != null && zone.zone.getWorldId().equals(worldId) && zone.containsWithAncestors(x, y, z))
+                result.add(zoneName);
+        }
+
+        result.sort(Comparator.naturalOrder());
+        return result;
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int z, String tag)
+    { return copyAll(findZonesAt(worldId, tag, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int y, int z, String tag)
+    { return copyAll(findZonesAt(worldId, tag, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double z, String tag)
+    { return copyAll(findZonesAt(worldId, tag, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double y, double z, String tag)
+    { return copyAll(findZonesAt(worldId, tag, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int z, String tag)
+    { return getSortedNames(findZonesAt(worldId, tag, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int y, int z, String tag)
+    { return getSortedNames(findZonesAt(worldId, tag, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double z, String tag)
+    { return getSortedNames(findZonesAt(worldId, tag, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double y, double z, String tag)
+    { return getSortedNames(findZonesAt(worldId, tag, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, int x, int z)
+    { return copyOrNull(findDeepestZoneAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, int x, int y, int z)
+    { return copyOrNull(findDeepestZoneAt(worldId, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, double x, double z)
+    { return copyOrNull(findDeepestZoneAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, double x, double y, double z)
+    { return copyOrNull(findDeepestZoneAt(worldId, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, int x, int z)
+    { return copyOrNull(findEffectiveZoneAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, int x, int y, int z)
+    { return copyOrNull(findEffectiveZoneAt(worldId, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, double x, double z)
+    { return copyOrNull(findEffectiveZoneAt(worldId, zone -> zone.contains(x, z))); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, double x, double y, double z)
+    { return copyOrNull(findEffectiveZoneAt(worldId, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * Gets the highest priority zone with the given tag covering the point represented by the given coördinates and
+     * world ID. Where multiple zones with the tag of the same priority cover the point, the first alphabetically is
+     * returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag the zone must have.
+     * @return The highest priority zone with the given tag covering the given position, or null if no zones with the
+     *         tag cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, int x, int y, int z, String tag)
+    { return copyOrNull(findEffectiveZoneAt(worldId, tag, zone -> zone.contains(x, y, z))); }
+
+    /**
+     * <p>Gets the name of the highest priority zone with the given tag covering the point represented by the given
+     * coördinates and world ID. Where multiple zones with the tag of the same priority cover the point, the first
+     * alphabetically is given.</p>
+     *
+     * <p>This doesn't copy the zone. Where the point's chunk is loaded, only the zones with the tag that may cover the
+     * chunk are checked.</p>
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag the zone must have.
+     * @return The name of the highest priority zone with the given tag covering the given position, or null if no
+     *         zones with the tag cover it.
+     */
+    public String getEffectiveZoneNameAt(String worldId, int x, int y, int z, String tag)
+    {
+        ChunkZones chunkZones = getLoadedChunkZonesAt(worldId, x, y, z);
+
+        if(chunkZones != null)
+        {
+            IndexedZone effectiveZone = chunkZones.getEffectiveZoneAt(x, y, z, tag);
+            return effectiveZone == null ? null : effectiveZone.name;
+        }
+
+        Zone effectiveZone = findEffectiveZoneAt(worldId, tag, zone -> zone.contains(x, y, z));
+        return effectiveZone == null ? null : effectiveZone.getName();
+    }
+
+    /**
+     * <p>Gets the points at which a straight line segment enters and leaves zones.</p>
+     *
+     * <p>Zones containing the start of the segment are entered at its start, and zones containing the end of the
+     * segment are not left. Crossings at the same point are ordered with zones being left before zones being entered
+     * (except at the start of the segment, where zones it only touches there are left after all zones are entered),
+     * then by the zones' names. A zone within another zone is only entered where the zones it's within are as well.</p>
+     *
+     * <p>The zones whose bounds the segment passes through are found by walking the index's tree of zone bounds along
+     * the segment, so only the bounds of zones in the tree's nodes the segment passes through are checked. Where a zone
+     * and the zones it's within are made up only of cuboids and rectangles, where the segment enters and leaves it is
+     * worked out directly from the bounds of their regions. Other zones are then only checked for the blocks the
+     * segment passes through within their bounds.</p>
+     * @param worldId The ID of the world the segment is in.
+     * @param fromX The X coördinate of the start of the segment.
+     * @param fromY The Y coördinate of the start of the segment.
+     * @param fromZ The Z coördinate of the start of the segment.
+     * @param toX The X coördinate of the end of the segment.
+     * @param toY The Y coördinate of the end of the segment.
+     * @param toZ The Z coördinate of the end of the segment.
+     * @return A list of the points at which the segment enters or leaves zones, in order from the start of the segment
+     *         to the end.
+     */
+    public List<ZoneCrossing> getZonesAlongSegment(String worldId,
+                                                   double fromX, double fromY, double fromZ,
+                                                   double toX, double toY, double toZ)
+    {
+        SegmentWalker walker = new SegmentWalker(fromX, fromY, fromZ, toX, toY, toZ);
+        ZoneBoundsTree tree = getZoneIndex().boundsTreesByWorld.get(worldId);
+
+        if(tree == null)
+            return walker.getCrossings();
+
+        List<Pair<IndexedZone, double[]>> candidates = new ArrayList<>();
+
+        for(Pair<IndexedZone, double[]> candidate
+                : tree.getZonesAlongSegment(fromX, fromY, fromZ, walker.deltaX, walker.deltaY, walker.deltaZ))
+        {
+            if(candidate.getFirst().isMadeOfBoxesWithAncestors())
+                walker.addCrossingsOfBoxes(candidate.getFirst());
+            else
+                candidates.add(candidate);
+        }
+
+        candidates.sort(Comparator.comparingDouble(x -> x.getSecond()[0]));
+
+        for(int i = 0; i < candidates.size();)
+        {
+            // Walk each run of overlapping zone bounds separately, skipping the parts of the segment outside them.
+            double runStart = candidates.get(i).getSecond()[0];
+            double runEnd = candidates.get(i).getSecond()[1];
+            List<IndexedZone> zonesInRun = new ArrayList<>();
+
+            for(; i < candidates.size() && candidates.get(i).getSecond()[0] <= runEnd; i++)
+            {
+                zonesInRun.add(candidates.get(i).getFirst());
+                runEnd = Math.max(runEnd, candidates.get(i).getSecond()[1]);
+            }
+
+            zonesInRun.sort(Comparator.comparing(x -> x.zone.getName()));
+            walker.walk(runStart, runEnd, zonesInRun);
+        }
+
+        return walker.getCrossings();
+    }
+
+    /**
+     * <p>Gets the zone nearest to the point represented by the given coördinates and world ID.</p>
+     *
+     * <p>The distance to a zone is 0 where it contains the point, and otherwise the distance to the nearest edge of
+     * the bounds of any of its non-negating regions. This is exact for zones made up of cuboids and rectangles, and
+     * never greater than the true distance for other zones. Where a zone is within other zones, the distance to it is
+     * the greatest of the distances to it and each of the zones it's within.</p>
+     *
+     * <p>Zones are found by searching the index's tree of zone bounds nearest first, and the search stops as soon as
+     * no unchecked part of the tree can hold a zone nearer than the nearest zone found.</p>
+     * @param worldId The ID of the world to get the nearest zone in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The zone nearest to the given point, the first alphabetically where multiple are equally near, or null
+     *         if there are no zones in the given world.
+     */
+    public Zone getNearestZone(String worldId, double x, double y, double z)
+    {
+        List<ZoneDistance> nearest = findZonesNear(worldId, x, y, z, Double.POSITIVE_INFINITY, 1);
+        return nearest.isEmpty() ? null : nearest.get(0).zone.zone.copy();
+    }
+
+    /**
+     * Gets all zones within a given distance of the point represented by the given coördinates and world ID. Distances
+     * to zones are as described in {@link #getNearestZone(String, double, double, double)}.
+     * @param worldId The ID of the world to get zones in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param radius The greatest distance from the point a zone may be to be included.
+     * @return A list of all zones within the given distance of the given point, ordered from nearest to furthest, then
+     *         by name.
+     * @throws IllegalArgumentException If the given radius is negative.
+     */
+    public List<Zone> getZonesWithin(String worldId, double x, double y, double z, double radius)
+    {
+        if(radius < 0)
+            throw new IllegalArgumentException("Radius may not be negative: " + radius);
+
+        List<Zone> result = new ArrayList<>();
+
+        for(ZoneDistance zoneDistance : findZonesNear(worldId, x, y, z, radius * radius, -1))
+            result.add(zoneDistance.zone.zone.copy());
+
+        return result;
+    }
+
+    /**
+     * Gets the zones in a world that contain a block. Where the block's chunk is loaded, only the zones that may cover
+     * the chunk are checked.
+     * @param worldId The ID of the world the block is in.
+     * @param x The X coördinate of the block.
+     * @param y The Y coördinate of the block.
+     * @param z The Z coördinate of the block.
+     * @return A list of the zones (not copies) containing the block.
+     */
+    private List<Zone> findZonesAt(String worldId, int x, int y, int z)
+    {
+        if(y >= chunkMinY && y <= chunkMaxY)
+        {
+            ChunkZones chunkZones = getLoadedChunkZones(worldId, x >> 4, z >> 4);
+
+            if(chunkZones != null)
+                return chunkZones.getZonesAt(x, y, z);
+        }
+
+        return findZonesAt(worldId, zone -> zone.contains(x, y, z));
+    }
+
+    /**
+     * Gets the summary of which zones cover the loaded chunk containing a block, where the block is within the chunk's
+     * height.
+     * @param worldId The ID of the world the block is in.
+     * @param x The X coördinate of the block.
+     * @param y The Y coördinate of the block.
+     * @param z The Z coördinate of the block.
+     * @return The summary of the zones covering the chunk the given block is in, or null if the chunk isn't marked as
+     *         loaded or the block is above or below the chunk.
+     */
+    private ChunkZones getLoadedChunkZonesAt(String worldId, int x, int y, int z)
+    { return y >= chunkMinY && y <= chunkMaxY ? getLoadedChunkZones(worldId, x >> 4, z >> 4) : null; }
+
+    /**
+     * Gets the summary of which zones cover a loaded chunk, remaking it if the registry's zones have changed since it
+     * was made.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     * @return The summary of the zones covering the given chunk, or null if the chunk isn't marked as loaded.
+     */
+    private ChunkZones getLoadedChunkZones(String worldId, int chunkX, int chunkZ)
+    {
+        ZoneIndex index = getZoneIndex();
+        Long2ObjectOpenHashMap<ChunkZones> worldChunks = loadedChunkZones.get(worldId);
+
+        if(worldChunks == null)
+            return null;
+
+        long chunk = getChunkKey(chunkX, chunkZ);
+        ChunkZones result = worldChunks.get(chunk);
+
+        if(result != null ? result.index == index : !worldChunks.containsKey(chunk))
+            return result;
+
+        result = makeChunkZones(worldId, chunkX, chunkZ);
+        worldChunks.put(chunk, result);
+        return result;
+    }
+
+    /**
+     * Works out which zones cover a chunk.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     * @return A summary of the zones covering the given chunk.
+     */
+    private ChunkZones makeChunkZones(String worldId, int chunkX, int chunkZ)
+    {
+        long startedAt = metrics.now();
+        return metrics.record("ZoneRegistry.makeChunkZones", startedAt, startedAt,
+                              buildChunkZones(worldId, chunkX, chunkZ));
+    }
+
+    /**
+     * Works out which zones cover a chunk, without recording it in the registry's metrics.
+     * @see #makeChunkZones(String, int, int)
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     * @return A summary of the zones covering the given chunk.
+     */
+    private ChunkZones buildChunkZones(String worldId, int chunkX, int chunkZ)
+    {
+        ZoneIndex index = getZoneIndex();
+        ZoneBoundsTree tree = index.boundsTreesByWorld.get(worldId);
+        int fromX = chunkX << 4, toX = fromX + 15;
+        int fromZ = chunkZ << 4, toZ = fromZ + 15;
+
+        if(tree == null)
+            return index.noZones;
+
+        List<IndexedZone> zonesInChunk = tree.getZonesOverlapping(fromX, chunkMinY, fromZ, toX, chunkMaxY, toZ);
+        boolean allCoverChunk = true;
+
+        if(zonesInChunk.isEmpty())
+            return index.noZones;
+
+        for(IndexedZone zone : zonesInChunk)
+            for(IndexedZone z = zone; z != null && allCoverChunk; z = z.parent)
+                allCoverChunk = coversArea(z.zone, fromX, chunkMinY, fromZ, toX, chunkMaxY, toZ);
+
+        zonesInChunk.sort(Comparator.comparing(zone -> zone.zone.getName()));
+        return new ChunkZones(index,
+                              allCoverChunk ? ChunkZones.Coverage.FULL : ChunkZones.Coverage.PARTIAL,
+                              zonesInChunk);
+    }
+
+    /**
+     * Gets whether a zone can be shown to cover every block in a cuboid area without checking each block. This is
+     * the case where one of the zone's cuboid or rectangular regions covers the whole area and no negating region
+     * layered above it overlaps the area.
+     * @param zone The zone to check.
+     * @param fromX The lowest X coördinate in the area.
+     * @param fromY The lowest Y coördinate in the area.
+     * @param fromZ The lowest Z coördinate in the area.
+     * @param toX The highest X coördinate in the area.
+     * @param toY The highest Y coördinate in the area.
+     * @param toZ The highest Z coördinate in the area.
+     * @return True if the zone is shown to cover the whole area. Otherwise, false, although the zone may still cover
+     *         the whole area.
+     */
+    private static boolean coversArea(Zone zone, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+    {
+        List<Zone.ZoneRegion> regions = zone.getRegions();
+
+        for(int i = regions.size() - 1; i >= 0; i--)
+        {
+            Zone.ZoneRegion region = regions.get(i);
+
+            boolean overlapsArea = region.getMaxX() >= fromX && region.getMinX() <= toX
+                                && region.getMaxY() >= fromY && region.getMinY() <= toY
+                                && region.getMaxZ() >= fromZ && region.getMinZ() <= toZ;
+
+            if(!overlapsArea)
+                continue;
+
+            if(region.isNegating())
+                return false;
+
+            boolean isBox = region instanceof Zone.ZoneRegionCuboid || region instanceof Zone.ZoneRegionRectangle;
+            boolean containsArea = region.getMinX() <= fromX && region.getMaxX() >= toX
+                                && region.getMinY() <= fromY && region.getMaxY() >= toY
+                                && region.getMinZ() <= fromZ && region.getMaxZ() >= toZ;
+
+            if(isBox && containsArea)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the zones in a world that contain a point, by descending the containment tree from the world's root zones
+     * and only checking the children of zones that contain the point.
+     * @param worldId The ID of the world the point is in.
+     * @param containsPoint Tests whether an indexed zone contains the point.
+     * @return A list of the zones (not copies) containing the point, in no particular order.
+     */
+    private List<Zone> findZonesAt(String worldId, Predicate<IndexedZone> containsPoint)
+    {
+        List<Zone> result = new ArrayList<>();
+        List<IndexedZone> roots = getZoneIndex().rootsByWorld.getOrDefault(worldId, Collections.emptyList());
+        Deque<IndexedZone> toCheck = new ArrayDeque<>(roots);
+
+        while(!toCheck.isEmpty())
+        {
+            IndexedZone zone = toCheck.pop();
+
+            if(!containsPoint.test(zone))
+                continue;
+
+            result.add(zone.zone);
+            toCheck.addAll(zone.children);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the zones in a world with a tag that contain a point, by checking only the zones with the tag, as looked up
+     * in the registry's index. A zone within another zone only contains the point if all of the zones it's within do
+     * as well.
+     * @param worldId The ID of the world the point is in.
+     * @param tag The tag zones must have.
+     * @param containsPoint Tests whether an indexed zone contains the point.
+     * @return A list of the zones (not copies) with the given tag containing the point, ordered by name.
+     */
+    private List<Zone> findZonesAt(String worldId, String tag, Predicate<IndexedZone> containsPoint)
+    {
+        List<Zone> result = new ArrayList<>();
+        Map<String, List<IndexedZone>> zonesWithTag = getZoneIndex().byWorldByTag.get(tag);
+
+        if(zonesWithTag == null)
+            return result;
+
+        for(IndexedZone zone : zonesWithTag.getOrDefault(worldId, Collections.emptyList()))
+        {
+            boolean containsPointWithAncestors = true;
+
+            for(IndexedZone z = zone; z != null && containsPointWithAncestors; z = z.parent)
+                containsPointWithAncestors = containsPoint.test(z);
+
+            if(containsPointWithAncestors)
+                result.add(zone.zone);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the most deeply nested zone in a world that contains a point, by descending the containment tree one level
+     * at a time from the world's root zones.
+     * @param worldId The ID of the world the point is in.
+     * @param containsPoint Tests whether an indexed zone contains the point.
+     * @return The most deeply nested zone (not a copy) containing the point, the first alphabetically where there are
+     *         multiple at the same depth, or null if no zones contain the point.
+     */
+    private Zone findDeepestZoneAt(String worldId, Predicate<IndexedZone> containsPoint)
+    {
+        Zone deepest = null;
+        List<IndexedZone> level = getZoneIndex().rootsByWorld.getOrDefault(worldId, Collections.emptyList());
+
+        while(!level.isEmpty())
+        {
+            List<IndexedZone> nextLevel = new ArrayList<>();
+            Zone firstAtLevel = null;
+
+            for(IndexedZone zone : level)
+            {
+                if(!containsPoint.test(zone))
+                    continue;
+
+                if(firstAtLevel == null || zone.zone.getName().compareTo(firstAtLevel.getName()) < 0)
+                    firstAtLevel = zone.zone;
+
+                nextLevel.addAll(zone.children);
+            }
+
+            if(firstAtLevel != null)
+                deepest = firstAtLevel;
+
+            level = nextLevel;
+        }
+
+        return deepest;
     }
 
     /**
-     * Adds the zone region to the zone by the given name, if a zone by the given name exists in the registry.
-     * @param zoneName The name of the zone to add the zone region to.
-     * @param region The zone region to add to the zone.
-     * @return The zone added to.
+     * Gets the highest priority zone in a world that contains a point, by checking the world's zones in order of
+     * priority and stopping at the first that contains the point. A zone within another zone only contains the point
+     * if all of the zones it's within do as well.
+     * @param worldId The ID of the world the point is in.
+     * @param containsPoint Tests whether an indexed zone contains the point.
+     * @return The highest priority zone (not a copy) containing the point, the first alphabetically where there are
+     *         multiple of the same priority, or null if no zones contain the point.
      */
-    public Zone addToZoneIfThere(String zoneName, Zone.ZoneRegion region)
+    private Zone findEffectiveZoneAt(String worldId, Predicate<IndexedZone> containsPoint)
     {
-        Zone zone = zones.get(zoneName);
+        for(IndexedZone zone : getZoneIndex().byPriorityByWorld.getOrDefault(worldId, Collections.emptyList()))
+        {
+            if(!containsPoint.test(zone))
+                continue;
 
-        if(zone == null)
-            return null;
+            boolean isInAncestors = true;
 
-        zone.addRegion(region);
-        markAsChanged();
-        return zone.copy();
+            for(IndexedZone ancestor = zone.parent; ancestor != null && isInAncestors; ancestor = ancestor.parent)
+                isInAncestors = containsPoint.test(ancestor);
+
+            if(isInAncestors)
+                return zone.zone;
+        }
+
+        return null;
     }
 
     /**
-     * Gets the zone by the given name.
-     * @param zoneName The name of the zone to get.
-     * @return The zone by the given name, or null if there is no zone by the given name.
+     * Gets the highest priority zone in a world with a tag that contains a point, checking only the zones with the tag.
+     * @param worldId The ID of the world the point is in.
+     * @param tag The tag the zone must have.
+     * @param containsPoint Tests whether an indexed zone contains the point.
+     * @return The highest priority zone (not a copy) with the given tag containing the point, the first alphabetically
+     *         where there are multiple of the same priority, or null if no zones with the tag contain the point.
      */
-    public Zone get(String zoneName)
+    private Zone findEffectiveZoneAt(String worldId, String tag, Predicate<IndexedZone> containsPoint)
     {
-        Zone zone = zones.get(zoneName);
+        IndexedZone result = null;
+        Map<String, List<IndexedZone>> zonesWithTag = getZoneIndex().byWorldByTag.get(tag);
 
-        if(zone == null)
+        if(zonesWithTag == null)
             return null;
 
-        return zone.copy();
+        // Zones with the tag are ordered by name, so only replacing the result with zones of strictly higher priority
+        // gives the first alphabetically of the highest priority. Zones no higher in priority than the result so far
+        // aren't checked.
+        for(IndexedZone zone : zonesWithTag.getOrDefault(worldId, Collections.emptyList()))
+        {
+            if(result != null && zone.priority <= result.priority)
+                continue;
+
+            boolean containsPointWithAncestors = true;
+
+            for(IndexedZone z = zone; z != null && containsPointWithAncestors; z = z.parent)
+                containsPointWithAncestors = containsPoint.test(z);
+
+            if(containsPointWithAncestors)
+                result = zone;
+        }
+
+        return result == null ? null : result.zone;
     }
 
     /**
-     * Gets all zones in the registry.
-     * @return A list of the zones in the registry, ordered by name.
+     * Gets the zones in a world nearest to a point, using a best-first search over the index's tree of zone bounds.
+     * Nodes of the tree are queued by the squared distance to their bounds, and when a node is taken from the queue,
+     * its child nodes or zones are queued in its place. Zones are first queued by the squared distance to their overall
+     * bounds, which is never greater than the squared distance to them. When a zone is taken from the queue, it's
+     * queued again by its actual squared distance, and when it's taken from the queue a second time, nothing left in
+     * the queue can be nearer. Nodes further than the greatest distance given are never queued, so the zones below
+     * them are never checked.
+     * @param worldId The ID of the world the point is in.
+     * @param x The X coördinate of the point.
+     * @param y The Y coördinate of the point.
+     * @param z The Z coördinate of the point.
+     * @param maxDistanceSquared The greatest squared distance from the point a zone may be to be included.
+     * @param maxResults The greatest number of zones to get, or -1 to get all zones within the given distance.
+     * @return A list of the zones (not copies) nearest to the point with their squared distances from it, ordered
+     *         from nearest to furthest, then by name.
      */
-    public List<Zone> getZones()
+    private List<ZoneDistance> findZonesNear(String worldId,
+                                             double x, double y, double z,
+                                             double maxDistanceSquared,
+                                             int maxResults)
     {
-        List<Zone> result = new ArrayList<>();
+        List<ZoneDistance> result = new ArrayList<>();
+        ZoneBoundsTree tree = getZoneIndex().boundsTreesByWorld.get(worldId);
 
-        for(Zone z : zones.values())
-            result.add(z.copy());
+        if(tree == null)
+            return result;
+
+        PriorityQueue<ZoneDistance> queue = new PriorityQueue<>();
+
+        if(tree.root != null)
+            queueIfWithin(queue, new ZoneDistance(tree.root, tree.root.getDistanceSquaredToBounds(x, y, z)),
+                          maxDistanceSquared);
+
+        // Zones without bounds are infinitely far away, so are only included where any distance is allowed.
+        for(IndexedZone zone : tree.zonesWithoutBounds)
+            queueIfWithin(queue, new ZoneDistance(zone, Double.POSITIVE_INFINITY, false), maxDistanceSquared);
+
+        while(!queue.isEmpty() && (maxResults < 0 || result.size() < maxResults))
+        {
+            ZoneDistance next = queue.poll();
+
+            if(next.node != null)
+            {
+                if(next.node.isLeaf())
+                {
+                    for(IndexedZone zone : next.node.zones)
+                        queueIfWithin(queue, new ZoneDistance(zone, zone.getDistanceSquaredToBounds(x, y, z), false),
+                                      maxDistanceSquared);
+                }
+                else
+                {
+                    for(ZoneBoundsTree.Node child : new ZoneBoundsTree.Node[] { next.node.left, next.node.right })
+                        queueIfWithin(queue, new ZoneDistance(child, child.getDistanceSquaredToBounds(x, y, z)),
+                                      maxDistanceSquared);
+                }
+            }
+            else if(next.isActualDistance)
+                result.add(next);
+            else
+            {
+                double distance = next.zone.getDistanceSquaredWithAncestors(x, y, z);
+                queueIfWithin(queue, new ZoneDistance(next.zone, distance, true), maxDistanceSquared);
+            }
+        }
 
-        result.sort(Comparator.comparing(Zone::getName));
         return result;
     }
 
     /**
-     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return A collection of all zones that cover the given position.
+     * Adds a zone distance to a queue, if it's no greater than the given distance.
+     * @param queue The queue to add to.
+     * @param zoneDistance The zone distance to add.
+     * @param maxDistanceSquared The greatest squared distance that may be added.
      */
-    public Collection<Zone> getZonesAt(String worldId, int x, int z)
+    private static void queueIfWithin(PriorityQueue<ZoneDistance> queue,
+                                      ZoneDistance zoneDistance,
+                                      double maxDistanceSquared)
     {
-        Collection<Zone> result = new ArrayList<>();
-
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, z))
-                result.add(zone.copy());
-
-        return result;
+        if(zoneDistance.distanceSquared <= maxDistanceSquared)
+            queue.add(zoneDistance);
     }
 
     /**
-     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return A collection of all zones that cover the given position.
+     * Gets copies of the given zones.
+     * @param zonesToCopy The zones to copy.
+     * @return A collection of copies of the given zones, in the same order.
      */
-    public Collection<Zone> getZonesAt(String worldId, int x, int y, int z)
+    private static Collection<Zone> copyAll(List<Zone> zonesToCopy)
     {
-        Collection<Zone> result = new ArrayList<>();
+        Collection<Zone> result = new ArrayList<>(zonesToCopy.size());
 
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, y, z))
-                result.add(zone.copy());
+        for(Zone zone : zonesToCopy)
+            result.add(zone.copy());
 
         return result;
     }
 
     /**
-     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return A collection of all zones that cover the given position.
+     * Gets a copy of the given zone, or null if the given zone is null.
+     * @param zone The zone to copy.
+     * @return A copy of the given zone, or null.
      */
-    public Collection<Zone> getZonesAt(String worldId, double x, double z)
+    private static Zone copyOrNull(Zone zone)
+    { return zone == null ? null : zone.copy(); }
+
+    /**
+     * Gets the names of the given zones.
+     * @param zonesToGetNamesOf The zones to get the names of.
+     * @return A list of the names of the given zones, in alphabetical order.
+     */
+    private static List<String> getSortedNames(List<Zone> zonesToGetNamesOf)
     {
-        Collection<Zone> result = new ArrayList<>();
+        List<String> result = new ArrayList<>(zonesToGetNamesOf.size());
 
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, z))
-                result.add(zone.copy());
+        for(Zone zone : zonesToGetNamesOf)
+            result.add(zone.getName());
 
+        result.sort(Comparator.naturalOrder());
         return result;
     }
 
+    //region Saving
+
     /**
-     * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return A collection of all zones that cover the given position.
+     * Saves the contents of the zones registry to the registry's save file location. Only the files of shards
+     * containing zones that have changed since they were last saved or loaded are written.
      */
-    public Collection<Zone> getZonesAt(String worldId, double x, double y, double z)
+    public void save()
     {
-        Collection<Zone> result = new ArrayList<>();
+        if(changedShards.isEmpty())
+            return;
+
+        try
+        { Files.createDirectories(singleFilePath != null ? singleFilePath.toAbsolutePath().getParent() : folderPath); }
+        catch(IOException e)
+        { throw new RuntimeException("Could not create the directory the zone files should be in.", e); }
+
+        Map<String, List<Zone>> changedZonesByShard = new HashMap<>();
 
         for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, y, z))
-                result.add(zone.copy());
+        {
+            String shardName = getShardName(zone);
 
-        return result;
+            if(changedShards.contains(shardName))
+                changedZonesByShard.computeIfAbsent(shardName, x -> new ArrayList<>()).add(zone);
+        }
+
+        Map<Path, FileTime> newFileTimes = new HashMap<>(fileTimesAtLastSync);
+
+        for(String shardName : changedShards)
+        {
+            Path shardFile = getShardFile(shardName);
+            List<Zone> shardZones = changedZonesByShard.getOrDefault(shardName, Collections.emptyList());
+
+            try
+            {
+                if(shardZones.isEmpty() && singleFilePath == null)
+                {
+                    Files.deleteIfExists(shardFile);
+                    newFileTimes.remove(shardFile);
+                    continue;
+                }
+
+                try(BufferedWriter writer = Files.newBufferedWriter(shardFile))
+                { writeZones(writer, shardZones); }
+
+                newFileTimes.put(shardFile, Files.getLastModifiedTime(shardFile));
+            }
+            catch(IOException e)
+            { throw new RuntimeException("Could not save the zones file " + shardFile + ".", e); }
+        }
+
+        resetChangedFlag();
+        fileTimesAtLastSync = newFileTimes;
+
+        if(isMigratingFromLegacyFile)
+        {
+            // Now that the zones are saved in shards, the legacy file is retired so it isn't loaded again.
+            try
+            {
+                Path retiredLegacyFilePath = legacyFilePath.resolveSibling(legacyFilePath.getFileName() + ".migrated");
+                Files.move(legacyFilePath, retiredLegacyFilePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch(IOException e)
+            { throw new RuntimeException("Could not retire the old zones file " + legacyFilePath + ".", e); }
+
+            isMigratingFromLegacyFile = false;
+        }
     }
 
     /**
-     * Gets all zones in the registry covering the given location object.
-     * @param location The location to get the zones covering.
-     * @return A collection of all zones that cover the given position.
+     * Gets the last modified times of the given files.
+     * @param files The files to get the last modified times of.
+     * @return A map of the given files to their last modified times. Files whose last modified times couldn't be read
+     *         are omitted.
      */
-    public Collection<Zone> getZonesAt(EntityLocation location)
+    private static Map<Path, FileTime> getFileTimes(List<Path> files)
     {
-        Collection<Zone> result = new ArrayList<>();
+        Map<Path, FileTime> result = new HashMap<>();
 
-        for(Zone zone : zones.values())
-            if(zone.contains(location))
-                result.add(zone.copy());
+        for(Path file : files)
+        {
+            // Files removed since they were listed are no longer among the registry's files.
+            FileTime fileTime = getFileTime(file);
+
+            if(fileTime != null)
+                result.put(file, fileTime);
+        }
 
         return result;
     }
 
     /**
-     * Gets all zones the given entity is in.
-     * @param entity The entity to get the current zones of.
-     * @return A collection of all zones that the given entity is in.
+     * Gets the last modified time of the given file.
+     * @param file The file to get the last modified time of.
+     * @return The last modified time of the given file, or null if it couldn't be read, e.g. because the file doesn't
+     *         exist.
      */
-    public Collection<Zone> getZonesEntityIsIn(Entity entity)
+    private static FileTime getFileTime(Path file)
     {
-        Collection<Zone> result = new ArrayList<>();
+        try
+        { return Files.getLastModifiedTime(file); }
+        catch(IOException e)
+        { return null; }
+    }
 
-        for(Zone zone : zones.values())
-            if(zone.contains(entity))
-                result.add(zone.copy());
+    /**
+     * Gets whether or not any zones have been changed since the registry was last saved or loaded.
+     * @return True if the next call to {@link #save()} would write anything. Otherwise, false.
+     */
+    public boolean hasUnsavedChanges()
+    { return !changedShards.isEmpty(); }
 
-        return result;
+    /**
+     * Gets whether or not any of the registry's files have been modified, added, or removed by something other than
+     * this registry since the last time the registry saved to or loaded from them. This may be called from any thread.
+     * @return True if the registry's files were modified since the registry last saved to or loaded from them.
+     *         Otherwise, false.
+     */
+    public boolean filesHaveChangedExternally()
+    { return !getFileTimes(getExistingShardFiles()).equals(fileTimesAtLastSync); }
+
+    /**
+     * Saves the given zones to the given writer. Zones are formatted as specified by {@link #zoneToString(Zone)}.
+     * @param writer The writer to write to.
+     * @param zonesToWrite The zones to write.
+     * @throws IOException If an IO exception is thrown by the given writer.
+     */
+    static void writeZones(Writer writer, List<Zone> zonesToWrite) throws IOException
+    {
+        List<Zone> zonesSorted = new ArrayList<>(zonesToWrite);
+        zonesSorted.sort(Comparator.comparing(Zone::getName));
+
+        for(Zone z : zonesSorted)
+            writer.write(zoneToString(z));
     }
 
     /**
-     * Gets a list of all zones in the registry.
-     * @return A list of the names of all zones in the registry, in alphabetical order.
+     * Converts a zone into a parsable string representation for the purposes of saving. This produces a string where
+     * the first line is the zone's name, followed by a colon, followed by the ID of the world the zone is in. If the
+     * zone is within another zone, the next line is "PARENT" followed by the name of the parent zone. If the zone has
+     * a priority other than 0, the next line is "PRIORITY" followed by the zone's priority. If the zone has any tags,
+     * the next line is "TAGS" followed by the zone's tags, separated by spaces. If the zone has any entity caps, the
+     * next line is "ENTITYCAPS" followed by the zone's entity caps, separated by spaces, each as the entity type ID
+     * followed by "=" followed by the cap. (e.g. "ENTITYCAPS minecraft:cow=20 minecraft:sheep=10") Each successive
+     * line is a region in the zone as provided by {@link #zoneRegionToString(Zone.ZoneRegion)}, in order from the
+     * bottom layering region to the top.
+     * @param zone The zone to get a string representation of.
+     * @return A string representation of the given zone.
      */
-    public List<String> getZoneNames()
+    private static String zoneToString(Zone zone)
     {
-        List<String> result = new ArrayList<>();
+        StringBuilder result = new StringBuilder(zone.getName() + ": " + zone.getWorldId());
 
-        for(Zone z : zones.values())
-            result.add(z.getName());
+        if(zone.getParentName() != null)
+            result.append("\n    PARENT ").append(zone.getParentName());
 
-        result.sort(Comparator.naturalOrder());
-        return result;
+        if(zone.getPriority() != 0)
+            result.append("\n    PRIORITY ").append(zone.getPriority());
+
+        if(!zone.getTags().isEmpty())
+            result.append("\n    TAGS ").append(String.join(" ", zone.getTags()));
+
+        if(zone.hasEntityCaps())
+        {
+            result.append("\n    ENTITYCAPS");
+
+            for(Map.Entry<String, Integer> cap : zone.getEntityCaps().entrySet())
+                result.append(" ").append(cap.getKey()).append("=").append(cap.getValue());
+        }
+
+        for(Zone.ZoneRegion region : zone.getRegions())
+            result.append("\n    ").append(zoneRegionToString(region));
+
+        return result + "\n\n";
     }
 
     /**
-     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
-     * order.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     * <p>Converts a zone region into a parsable string representation for the purposes of saving.</p>
+     *
+     * <p>As: ["NOT" if negating] [x], [y], [z] -> [x], [y], [z]</p>
+     *
+     * <p>e.g.: 5, 10, 12 -> 50, 20, 20</p>
+     *
+     * <p>Polygon prisms are written as: ["NOT" if negating] POLYGON [x], [z]; [x], [z]; [x], [z]; ... [Y [y] -> [y] if
+     * the prism has a height range]</p>
+     *
+     * <p>e.g.: POLYGON 0, 0; 10, 0; 10, 10 Y 5 -> 60</p>
+     *
+     * <p>Spheres are written as: ["NOT" if negating] SPHERE [x], [y], [z] RADIUS [radius]</p>
+     *
+     * <p>e.g.: SPHERE 100, 64, -30 RADIUS 20</p>
+     *
+     * <p>Cylinders are written as: ["NOT" if negating] CYLINDER [x], [z] RADIUS [radius] [Y [y] -> [y] if the cylinder
+     * has a height range]</p>
+     *
+     * <p>e.g.: CYLINDER 100, -30 RADIUS 20 Y 60 -> 90</p>
+     *
+     * <p>Voxel column regions are written as: ["NOT" if negating] VOXELCOLUMNS [data], where the data is the region's
+     * columns and runs in binary, compressed, and encoded as base 64. See {@link #voxelColumnsToString}.</p>
+     *
+     * <p>Octree regions are written as: ["NOT" if negating] OCTREE [data], where the data is the region's octree in
+     * binary, compressed, and encoded as base 64. See {@link #octreeToString}.</p>
+     * @param region The region to get a string representation of.
+     * @return A string representation of the given zone region.
      */
-    public List<String> getZoneNamesAt(String worldId, int x, int z)
+    private static String zoneRegionToString(Zone.ZoneRegion region)
     {
-        List<String> result = new ArrayList<>();
+        String result;
 
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, z))
-                result.add(zone.getName());
+        if(region instanceof Zone.ZoneRegionPolygon)
+            result = polygonToString((Zone.ZoneRegionPolygon)region);
+        else if(region instanceof Zone.ZoneRegionSphere)
+        {
+            Zone.ZoneRegionSphere sphere = (Zone.ZoneRegionSphere)region;
+            result = "SPHERE " + sphere.getCentreX() + ", " + sphere.getCentreY() + ", " + sphere.getCentreZ()
+                     + " RADIUS " + sphere.getRadius();
+        }
+        else if(region instanceof Zone.ZoneRegionVoxelColumns)
+            result = voxelColumnsToString((Zone.ZoneRegionVoxelColumns)region);
+        else if(region instanceof Zone.ZoneRegionOctree)
+            result = octreeToString((Zone.ZoneRegionOctree)region);
+        else if(region instanceof Zone.ZoneRegionCylinder)
+        {
+            Zone.ZoneRegionCylinder cylinder = (Zone.ZoneRegionCylinder)region;
+            result = "CYLINDER " + cylinder.getCentreX() + ", " + cylinder.getCentreZ()
+                     + " RADIUS " + cylinder.getRadius();
+
+            if(cylinder.hasYRange())
+                result += " Y " + cylinder.getMinY() + " -> " + cylinder.getMaxY();
+        }
+        else if(region instanceof Zone.ZoneRegionRectangle)
+            result = region.getMinX() + ", " + region.getMinZ() + " -> " + region.getMaxX() + ", " + region.getMaxZ();
+        else
+            result =          region.getMinX() + ", " + region.getMinY() + ", " + region.getMinZ()
+                              + " -> " + region.getMaxX() + ", " + region.getMaxY() + ", " + region.getMaxZ();
+
+        if(region.isNegating())
+            result = "NOT " + result;
 
-        result.sort(Comparator.naturalOrder());
         return result;
     }
 
     /**
-     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
-     * order.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     * Converts a polygon prism region into a parsable string representation for the purposes of saving, not including
+     * whether or not the region is negating.
+     * @see #zoneRegionToString(Zone.ZoneRegion)
+     * @param region The polygon prism region to get a string representation of.
+     * @return A string representation of the given polygon prism region.
      */
-    public List<String> getZoneNamesAt(String worldId, int x, int y, int z)
+    private static String polygonToString(Zone.ZoneRegionPolygon region)
     {
-        List<String> result = new ArrayList<>();
+        int[] xs = region.getVertexXs();
+        int[] zs = region.getVertexZs();
+        StringBuilder result = new StringBuilder("POLYGON ");
 
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, y, z))
-                result.add(zone.getName());
+        for(int i = 0; i < xs.length; i++)
+        {
+            if(i != 0)
+                result.append("; ");
 
-        result.sort(Comparator.naturalOrder());
-        return result;
+            result.append(xs[i]).append(", ").append(zs[i]);
+        }
+
+        if(region.hasYRange())
+            result.append(" Y ").append(region.getMinY()).append(" -> ").append(region.getMaxY());
+
+        return result.toString();
     }
 
     /**
-     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
-     * order.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param z The Z coördinate.
-     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     * <p>Converts a voxel column region into a parsable string representation for the purposes of saving, not
+     * including whether or not the region is negating.</p>
+     *
+     * <p>The region is written as "VOXELCOLUMNS " followed by the base 64 encoding of the deflate-compressed binary
+     * data of the region. The binary data is the number of columns, followed by each column in order as its X
+     * coördinate, its Z coördinate, the number of runs in it, and then the lowest and highest Y value of each run in
+     * order. All numbers are 32-bit big-endian integers.</p>
+     * @see #zoneRegionToString(Zone.ZoneRegion)
+     * @param region The voxel column region to get a string representation of.
+     * @return A string representation of the given voxel column region.
      */
-    public List<String> getZoneNamesAt(String worldId, double x, double z)
+    private static String voxelColumnsToString(Zone.ZoneRegionVoxelColumns region)
     {
-        List<String> result = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
 
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, z))
-                result.add(zone.getName());
+        try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes)))
+        {
+            out.writeInt(region.columnKeys.length);
 
-        result.sort(Comparator.naturalOrder());
-        return result;
+            for(int i = 0; i < region.columnKeys.length; i++)
+            {
+                out.writeInt(Zone.ZoneRegionVoxelColumns.getColumnKeyX(region.columnKeys[i]));
+                out.writeInt(Zone.ZoneRegionVoxelColumns.getColumnKeyZ(region.columnKeys[i]));
+                out.writeInt((region.runOffsets[i + 1] - region.runOffsets[i]) / 2);
+
+                for(int j = region.runOffsets[i]; j < region.runOffsets[i + 1]; j++)
+                    out.writeInt(region.runs[j]);
+            }
+        }
+        catch(IOException e)
+        { throw new RuntimeException("Writing to an in-memory stream should never fail.", e); }
+
+        return "VOXELCOLUMNS " + Base64.getEncoder().encodeToString(bytes.toByteArray());
     }
 
     /**
-     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
-     * order.
-     * @param worldId The ID of the world to get zones of.
-     * @param x The X coördinate.
-     * @param y The Y coördinate.
-     * @param z The Z coördinate.
-     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     * <p>Converts an octree region into a parsable string representation for the purposes of saving, not including
+     * whether or not the region is negating.</p>
+     *
+     * <p>The region is written as "OCTREE " followed by the base 64 encoding of the deflate-compressed binary data of
+     * the region. The binary data is the level of the octree's root as a single byte, followed by the offset X, Y, and
+     * Z coördinates of the root's lowest corner as 32-bit big-endian unsigned integers, followed by the octree's nodes
+     * in depth-first order, packed 4 to a byte from the highest bits to the lowest. Each node is 2 bits: 0 for an empty
+     * cube, 1 for a full cube, or 2 for a cube divided into the 8 nodes that follow it.</p>
+     * @see #zoneRegionToString(Zone.ZoneRegion)
+     * @param region The octree region to get a string representation of.
+     * @return A string representation of the given octree region.
      */
-    public List<String> getZoneNamesAt(String worldId, double x, double y, double z)
+    private static String octreeToString(Zone.ZoneRegionOctree region)
     {
-        List<String> result = new ArrayList<>();
+        byte[] nodes = new byte[(region.getNodeCount() + 3) / 4];
+        writeOctreeNodes(region.root, nodes, 0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
 
-        for(Zone zone : zones.values())
-            if(zone.contains(worldId, x, y, z))
-                result.add(zone.getName());
+        try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes)))
+        {
+            out.writeByte(region.level);
+            out.writeInt((int)region.originX);
+            out.writeInt((int)region.originY);
+            out.writeInt((int)region.originZ);
+            out.write(nodes);
+        }
+        catch(IOException e)
+        { throw new RuntimeException("Writing to an in-memory stream should never fail.", e); }
 
-        result.sort(Comparator.naturalOrder());
-        return result;
+        return "OCTREE " + Base64.getEncoder().encodeToString(bytes.toByteArray());
     }
 
     /**
-     * Gets the names of all zones covering the given location object.
-     * @param location The location to get the names of zones at.
-     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     * Writes the nodes of an octree into an array, 2 bits per node, in depth-first order.
+     * @see #octreeToString(Zone.ZoneRegionOctree)
+     * @param node The root node of the octree to write.
+     * @param nodes The array to write to.
+     * @param index The index of the node being written, in nodes rather than bytes.
+     * @return The index of the next node to be written.
      */
-    public List<String> getZoneNamesAt(EntityLocation location)
+    private static int writeOctreeNodes(Zone.ZoneRegionOctree.Node node, byte[] nodes, int index)
     {
-        List<String> result = new ArrayList<>();
+        int code = node.children != null ? 2 : node.isFull ? 1 : 0;
+        nodes[index / 4] |= code << (6 - (index % 4) * 2);
+        index++;
 
-        for(Zone zone : zones.values())
-            if(zone.contains(location))
-                result.add(zone.getName());
+        if(node.children != null)
+            for(Zone.ZoneRegionOctree.Node child : node.children)
+                index = writeOctreeNodes(child, nodes, index);
 
-        result.sort(Comparator.naturalOrder());
-        return result;
+        return index;
     }
+    //endregion
+
+    //region Loading
 
     /**
-     * Gets the names of all zones the given entity is in.
-     * @param entity The entity to get the names of zones it's currently in.
-     * @return A list of the zones currently containing the given entity's location, in alphabetical order.
+     * <p>Replaces the contents of the zones registry with the interpreted contents of the zones registry files at the
+     * registry's save location.</p>
+     *
+     * <p>Rather than clearing the registry and rebuilding it, this compares the zones read against those already in the
+     * registry and only adds, removes, or replaces zones that actually differ. Zones whose contents are unchanged keep
+     * their existing zone objects, and {@link #zoneChanged} is only fired for zones that differ.</p>
      */
-    public List<String> getZoneNamesEntityIsIn(Entity entity)
+    public void load()
     {
-        List<String> result = new ArrayList<>();
-
-        for(Zone zone : zones.values())
-            if(zone.contains(entity))
-                result.add(zone.getName());
+        FileContents contents = readFiles();
 
-        result.sort(Comparator.naturalOrder());
-        return result;
+        if(contents != null)
+            load(contents);
     }
 
-    //region Saving
+    /**
+     * Replaces the contents of the zones registry with the given zones, as read by {@link #readFiles()}. As with
+     * {@link #load()}, only the zones that differ from those currently in the registry are changed.
+     * @param contents The contents of the registry's files.
+     */
+    public void load(FileContents contents)
+    {
+        applyLoadedZones(contents.getZones(), zone -> true);
+        resetChangedFlag();
+        fileTimesAtLastSync = contents.fileTimes;
+        isMigratingFromLegacyFile = contents.isFromLegacyFile;
+        markMisplacedZones(contents.zonesByShard, contents.isFromLegacyFile);
+    }
 
     /**
-     * Saves the contents of the zones registry to the registry's save file location.
+     * <p>Reloads the zones of the shards whose files have changed since the registry last saved to or loaded from
+     * them, from the given contents of the registry's files, as read by {@link #readFiles()}. The zones of other shards
+     * are left as they are.</p>
+     *
+     * <p>This is for applying changes made to the registry's files by external tools while the registry is in use, and
+     * may be given contents read some time ago on another thread. As such:</p>
+     *
+     * <ul>
+     *     <li>Files that have changed again since the contents were read (including by being saved by the registry)
+     *     aren't reloaded, as the contents read from them are out of date. Where changed by something else, they may
+     *     be read and reloaded again.</li>
+     *     <li>Files of shards with zones changed since they were last saved aren't reloaded, so that those changes
+     *     aren't lost. A warning is printed for each, and saving the registry overwrites the file.</li>
+     *     <li>Contents read from a legacy single file aren't reloaded.</li>
+     * </ul>
+     * @param contents The contents of the registry's files.
      */
-    public void save()
+    public void reloadChangedFiles(FileContents contents)
     {
-        if(!changedSinceLoad)
+        if(contents.isFromLegacyFile)
             return;
 
-        if(!filePath.getParent().toFile().mkdirs())
-            throw new RuntimeException("Could not create the directory the zone file should be in.");
+        Set<Path> files = new HashSet<>(contents.fileTimes.keySet());
+        files.addAll(fileTimesAtLastSync.keySet());
+        Map<Path, FileTime> newFileTimes = new HashMap<>(fileTimesAtLastSync);
+        Map<String, List<Zone>> zonesByShardReloaded = new HashMap<>();
 
-        try(BufferedWriter writer = Files.newBufferedWriter(filePath))
-        { writeZones(writer); }
-        catch(IOException e)
-        { throw new RuntimeException("Could not save the zones file.", e); }
+        for(Path file : files)
+        {
+            FileTime timeRead = contents.fileTimes.get(file);
 
-        resetChangedFlag();
+            if(Objects.equals(timeRead, fileTimesAtLastSync.get(file))
+            || !Objects.equals(timeRead, getFileTime(file)))
+            { continue; }
+
+            String shardName = getShardNameOfFile(file);
+
+            if(changedShards.contains(shardName))
+            {
+                System.err.println("The zones file " + file + " was changed externally, but wasn't reloaded, as zones "
+                                   + "saved in it have been changed since it was last saved. Saving zones will "
+                                   + "overwrite the external changes.");
+                continue;
+            }
+
+            zonesByShardReloaded.put(shardName, contents.zonesByShard.getOrDefault(shardName, Collections.emptyList()));
+
+            if(timeRead == null)
+                newFileTimes.remove(file);
+            else
+                newFileTimes.put(file, timeRead);
+        }
+
+        if(zonesByShardReloaded.isEmpty())
+            return;
+
+        List<Zone> zonesRead = new ArrayList<>();
+
+        for(List<Zone> shardZones : zonesByShardReloaded.values())
+            zonesRead.addAll(shardZones);
+
+        applyLoadedZones(zonesRead, zone -> zonesByShardReloaded.containsKey(getShardName(zone)));
+        fileTimesAtLastSync = newFileTimes;
+        markMisplacedZones(zonesByShardReloaded, false);
     }
 
     /**
-     * Saves the zones in the zones registry to the given writer. Zones are formatted as specified by
-     * {@link #zoneToString(Zone)}.
-     * @param writer The writer to write to.
-     * @throws IOException If an IO exception is thrown by the given writer.
+     * Marks as changed the shards whose files contain zones that don't belong in them, (or that are overridden by zones
+     * in other files) as well as the shards those zones belong in, so that they're rewritten on the next save. When
+     * migrating from a single file, every shard needs to be written.
+     * @param zonesByShard The zones read, by the name of the shard they were read from.
+     * @param isFromLegacyFile Whether or not the zones were read from a legacy single file.
      */
-    private void writeZones(Writer writer) throws IOException
+    private void markMisplacedZones(Map<String, List<Zone>> zonesByShard, boolean isFromLegacyFile)
     {
-        List<Zone> zonesSorted = new ArrayList<>(zones.values());
-        zonesSorted.sort(Comparator.comparing(Zone::getName));
+        Map<String, String> shardsZonesWereReadFrom = new HashMap<>();
 
-        for(Zone z : zonesSorted)
-            writer.write(zoneToString(z));
+        for(Map.Entry<String, List<Zone>> entry : zonesByShard.entrySet())
+        {
+            for(Zone zone : entry.getValue())
+            {
+                String belongsInShard = getShardName(zone);
+
+                if(isFromLegacyFile)
+                {
+                    changedShards.add(belongsInShard);
+                    continue;
+                }
+
+                String readFromShard = entry.getKey();
+                String previouslyReadFromShard = shardsZonesWereReadFrom.put(zone.getName(), readFromShard);
+
+                if(!readFromShard.equals(belongsInShard))
+                {
+                    changedShards.add(readFromShard);
+                    changedShards.add(belongsInShard);
+                }
+
+                if(previouslyReadFromShard != null)
+                    changedShards.add(previouslyReadFromShard);
+            }
+        }
     }
 
     /**
-     * Converts a zone into a parsable string representation for the purposes of saving. This produces a string where
-     * the first line is the zone's name, followed by a colon, followed by the ID of the world the zone is in. Each
-     * successive line is a region in the zone as provided by {@link #zoneRegionToString(Zone.ZoneRegion)}, in order
-     * from the bottom layering region to the top.
-     * @param zone The zone to get a string representation of.
-     * @return A string representation of the given zone.
+     * <p>Replaces the contents of the zones registry with the given zones, e.g. as read from a {@link ZoneArchive}.</p>
+     *
+     * <p>As with {@link #load()}, only the zones that differ from those currently in the registry are changed. Unlike
+     * loading, the zones changed are marked as needing to be saved, as the registry's files don't contain them.</p>
+     * @param zonesToRestore The zones the registry should contain. The registry takes ownership of these, so they
+     *                       shouldn't be used elsewhere afterwards.
      */
-    private static String zoneToString(Zone zone)
+    public void restore(List<Zone> zonesToRestore)
     {
-        StringBuilder result = new StringBuilder(zone.getName() + ": " + zone.getWorldId());
-
-        for(Zone.ZoneRegion region : zone.getRegions())
-            result.append("\n    ").append(zoneRegionToString(region));
+        for(Pair<Zone, Zone> change : applyLoadedZones(zonesToRestore, zone -> true))
+        {
+            if(change.getFirst() != null)
+                markAsChanged(change.getFirst());
 
-        return result + "\n\n";
+            if(change.getSecond() != null)
+                markAsChanged(change.getSecond());
+        }
     }
 
     /**
-     * <p>Converts a zone region into a parsable string representation for the purposes of saving.</p>
+     * <p>Reads the zones in the registry's files, without modifying the registry's contents.</p>
      *
-     * <p>As: ["NOT" if negating] [x], [y], [z] -> [x], [y], [z]</p>
-     *
-     * <p>e.g.: 5, 10, 12 -> 50, 20, 20</p>
-     * @param region The region to get a string representation of.
-     * @return A string representation of the given zone region.
+     * <p>This doesn't touch the registry's contents, so it may be called from any thread without holding the registry,
+     * and the result passed to {@link #load(FileContents)} afterwards. This allows the files to be read and parsed away
+     * from threads that use the registry. Where the registry's zones are saved across multiple files, the files are
+     * read in parallel.</p>
+     * @return The contents of the registry's files, or null if there are no files to read.
      */
-    private static String zoneRegionToString(Zone.ZoneRegion region)
+    public FileContents readFiles()
     {
-        String result;
+        boolean isFromLegacyFile = false;
+        List<Path> files = getExistingShardFiles();
 
-        if(region instanceof Zone.ZoneRegionRectangle)
-            result = region.getMinX() + ", " + region.getMinZ() + " -> " + region.getMaxX() + ", " + region.getMaxZ();
-        else
-            result =          region.getMinX() + ", " + region.getMinY() + ", " + region.getMinZ()
-                              + " -> " + region.getMaxX() + ", " + region.getMaxY() + ", " + region.getMaxZ();
+        if(files.isEmpty())
+        {
+            if(singleFilePath != null || legacyFilePath == null
+               || !Files.isReadable(legacyFilePath) || Files.isDirectory(legacyFilePath))
+            { return null; }
 
-        if(region.isNegating())
-            result = "NOT " + result;
+            files = Collections.singletonList(legacyFilePath);
+            isFromLegacyFile = true;
+        }
 
-        return result;
+        Map<Path, FileTime> fileTimes = getFileTimes(files);
+        List<List<Zone>> zonesReadPerFile = files.parallelStream()
+                                                 .map(ZoneRegistry::readZonesFile)
+                                                 .collect(Collectors.toList());
+
+        Map<String, List<Zone>> zonesByShard = new LinkedHashMap<>();
+
+        for(int i = 0; i < files.size(); i++)
+        {
+            String shardName = isFromLegacyFile ? singleFileShardName : getShardNameOfFile(files.get(i));
+            zonesByShard.put(shardName, zonesReadPerFile.get(i));
+        }
+
+        return new FileContents(zonesByShard, isFromLegacyFile ? Collections.emptyMap() : fileTimes, isFromLegacyFile);
     }
-    //endregion
 
-    //region Loading
+    /**
+     * Reads the zones in the given file.
+     * @param file The file to read.
+     * @return A list of the zones in the given file.
+     * @throws RuntimeException If the file could not be read or parsed.
+     */
+    private static List<Zone> readZonesFile(Path file)
+    {
+        try(BufferedReader reader = Files.newBufferedReader(file))
+        { return readZones(reader); }
+        catch(IOException e)
+        { throw new RuntimeException("Could not load the zones file " + file + ".", e); }
+    }
 
     /**
-     * Replaces the contents of the zones registry with the interpreted contents of the zones registry file at the
-     * registry's save file location.
+     * Brings the contents of the registry in line with the given zones, changing only the zones that differ.
+     * @param zonesRead The zones that the registry should contain. Where multiple zones share a name, the last one is
+     *                  used.
+     * @param isReplaced Tests whether a zone already in the registry is one of those the given zones replace, so should
+     *                   be removed if not among them. Zones already in the registry that this doesn't accept are kept
+     *                   unless replaced by a zone of the same name.
+     * @return The changes made, each as the zone before the change (or null if it was added) paired with the zone
+     *         after the change (or null if it was removed).
      */
-    public void load()
+    private List<Pair<Zone, Zone>> applyLoadedZones(List<Zone> zonesRead, Predicate<Zone> isReplaced)
     {
-        if((filePath == null) || (!Files.isReadable(filePath)) || (Files.isDirectory(filePath)))
-            return;
+        Map<String, Zone> zonesReadByName = new HashMap<>();
 
-        List<Zone> zonesRead;
+        for(Zone zone : zonesRead)
+            zonesReadByName.put(zone.getName(), zone);
 
-        try
-        { zonesRead = readZones(Files.newBufferedReader(filePath)); }
-        catch(IOException e)
-        { throw new RuntimeException("Could not load the zones file.", e); }
+        List<Pair<Zone, Zone>> changes = new ArrayList<>();
 
-        zones.clear();
+        for(Iterator<Zone> iter = zones.values().iterator(); iter.hasNext();)
+        {
+            Zone existingZone = iter.next();
 
-        for(Zone zone : zonesRead)
-            zones.put(zone.getName(), zone);
+            if(isReplaced.test(existingZone) && !zonesReadByName.containsKey(existingZone.getName()))
+            {
+                iter.remove();
+                changes.add(new Pair<>(existingZone, null));
+            }
+        }
 
-        resetChangedFlag();
+        for(Zone zoneRead : zonesReadByName.values())
+        {
+            Zone existingZone = zones.get(zoneRead.getName());
+
+            if(existingZone != null && existingZone.hasSameContentsAs(zoneRead))
+                continue;
+
+            zones.put(zoneRead.getName(), zoneRead);
+            changes.add(new Pair<>(existingZone, zoneRead));
+        }
+
+        for(Pair<Zone, Zone> change : changes)
+            fireZoneChanged(change.getFirst(), change.getSecond());
+
+        return changes;
     }
 
     /**
@@ -498,7 +4632,7 @@ public final class ZoneRegistry
      * @throws IOException If an IO exception is thrown by the given reader, or if the text read by the reader is not
      *                     parsable as zones.
      */
-    private static List<Zone> readZones(BufferedReader reader) throws IOException
+    static List<Zone> readZones(BufferedReader reader) throws IOException
     {
         List<Zone> result = new ArrayList<>();
         Zone currentZone = null;
@@ -513,7 +4647,24 @@ public final class ZoneRegistry
                 if(currentZone == null)
                     continue;
 
-                currentZone.addRegion(readZoneRegionFromLine(line.substring(4).trim()));
+                String property = line.substring(4).trim();
+
+                if(property.startsWith("PARENT "))
+                    currentZone.setParentName(property.substring("PARENT ".length()).trim());
+                else if(property.startsWith("PRIORITY "))
+                    currentZone.setPriority(readPriorityFromLine(property.substring("PRIORITY ".length()).trim()));
+                else if(property.startsWith("TAGS "))
+                {
+                    for(String tag : property.substring("TAGS ".length()).trim().split("\\s+"))
+                        currentZone.addTag(tag);
+                }
+                else if(property.startsWith("ENTITYCAPS "))
+                {
+                    for(String cap : property.substring("ENTITYCAPS ".length()).trim().split("\\s+"))
+                        readEntityCapIntoZone(cap, currentZone);
+                }
+                else
+                    currentZone.addRegion(readZoneRegionFromLine(property));
             }
             else
             {
@@ -547,6 +4698,49 @@ public final class ZoneRegistry
         return new Zone(split[0].trim(), split[1].trim());
     }
 
+    /**
+     * Reads a zone's priority from the text following "PRIORITY" in a zone string representation as specified by
+     * {@link #zoneToString(Zone)}.
+     * @param priorityAsString The string representation of the priority.
+     * @return The priority represented.
+     * @throws IOException If the given string was not parsable as an integer.
+     */
+    private static int readPriorityFromLine(String priorityAsString) throws IOException
+    {
+        try
+        { return Integer.parseInt(priorityAsString); }
+        catch(NumberFormatException e)
+        { throw new IOException("Zone priority was not an integer: " + priorityAsString, e); }
+    }
+
+    /**
+     * Reads an entity cap from the text following "ENTITYCAPS" in a zone string representation as specified by
+     * {@link #zoneToString(Zone)}, and gives it to the given zone.
+     * @param capAsString The string representation of a single entity cap.
+     * @param zone The zone to give the entity cap to.
+     * @throws IOException If the given string was not parsable as an entity cap.
+     */
+    private static void readEntityCapIntoZone(String capAsString, Zone zone) throws IOException
+    {
+        int separatorIndex = capAsString.lastIndexOf('=');
+
+        if(separatorIndex <= 0)
+            throw new IOException("Entity cap was not an entity type ID and a cap separated by \"=\": " + capAsString);
+
+        String capNumberAsString = capAsString.substring(separatorIndex + 1);
+        int cap;
+
+        try
+        { cap = Integer.parseInt(capNumberAsString); }
+        catch(NumberFormatException e)
+        { throw new IOException("Entity cap was not an integer: " + capNumberAsString, e); }
+
+        if(cap < 0)
+            throw new IOException("Entity cap was negative: " + capNumberAsString);
+
+        zone.setEntityCap(capAsString.substring(0, separatorIndex), cap);
+    }
+
     /**
      * Creates a zone region from a string representation of a zone region, as specified by
      * {@link #zoneRegionToString(Zone.ZoneRegion)}.
@@ -561,6 +4755,21 @@ public final class ZoneRegistry
         if(negates)
             line = line.substring(4);
 
+        if(line.startsWith("POLYGON "))
+            return readPolygonFromLine(line.substring(8), negates);
+
+        if(line.startsWith("SPHERE "))
+            return readSphereFromLine(line.substring(7), negates);
+
+        if(line.startsWith("CYLINDER "))
+            return readCylinderFromLine(line.substring(9), negates);
+
+        if(line.startsWith("VOXELCOLUMNS "))
+            return readVoxelColumnsFromLine(line.substring(13), negates);
+
+        if(line.startsWith("OCTREE "))
+            return readOctreeFromLine(line.substring(7), negates);
+
         String[] split = line.split("->", 2);
 
         if(split.length != 2)
@@ -625,5 +4834,292 @@ public final class ZoneRegistry
             return new Zone.ZoneRegionRectangle(fromX, fromZ, toX, toZ, negates);
         }
     }
+
+    /**
+     * Creates a polygon prism region from a string representation of one, as specified by
+     * {@link #zoneRegionToString(Zone.ZoneRegion)}, with the leading "POLYGON" (and "NOT", if present) removed.
+     * @param line The polygon prism region representation to parse.
+     * @param negates Whether or not the resulting region should be negating.
+     * @return The polygon prism region represented by the given representation.
+     * @throws IOException If the line is not parsable as a polygon prism region.
+     */
+    private static Zone.ZoneRegionPolygon readPolygonFromLine(String line, boolean negates) throws IOException
+    {
+        String[] yRangeSplit = line.split(" Y ", 2);
+        String[] vertexStrings = yRangeSplit[0].trim().split(";");
+        int[] xs = new int[vertexStrings.length];
+        int[] zs = new int[vertexStrings.length];
+        int fromY = Integer.MIN_VALUE, toY = Integer.MAX_VALUE;
+
+        try
+        {
+            for(int i = 0; i < vertexStrings.length; i++)
+            {
+                String[] vertexSplit = vertexStrings[i].trim().split(", ");
+
+                if(vertexSplit.length != 2)
+                    throw new IOException("Polygon vertex isn't formatted as x, z");
+
+                xs[i] = Integer.parseInt(vertexSplit[0]);
+                zs[i] = Integer.parseInt(vertexSplit[1]);
+            }
+
+            if(yRangeSplit.length == 2)
+            {
+                String[] ySplit = yRangeSplit[1].split("->", 2);
+
+                if(ySplit.length != 2)
+                    throw new IOException("Polygon height range isn't formatted as Y y -> y");
+
+                fromY = Integer.parseInt(ySplit[0].trim());
+                toY   = Integer.parseInt(ySplit[1].trim());
+            }
+        }
+        catch(NumberFormatException e)
+        { throw new IOException("Coördinate not parsable as number.", e); }
+
+        try
+        { return new Zone.ZoneRegionPolygon(xs, zs, fromY, toY, negates); }
+        catch(IllegalArgumentException e)
+        { throw new IOException("Polygon isn't a valid simple polygon: " + e.getMessage(), e); }
+    }
+
+    /**
+     * Creates a spherical region from a string representation of one, as specified by
+     * {@link #zoneRegionToString(Zone.ZoneRegion)}, with the leading "SPHERE" (and "NOT", if present) removed.
+     * @param line The spherical region representation to parse.
+     * @param negates Whether or not the resulting region should be negating.
+     * @return The spherical region represented by the given representation.
+     * @throws IOException If the line is not parsable as a spherical region.
+     */
+    private static Zone.ZoneRegionSphere readSphereFromLine(String line, boolean negates) throws IOException
+    {
+        String[] radiusSplit = line.split(" RADIUS ", 2);
+
+        if(radiusSplit.length != 2)
+            throw new IOException("Sphere isn't formatted as SPHERE x, y, z RADIUS radius");
+
+        String[] centreSplit = radiusSplit[0].trim().split(", ");
+
+        if(centreSplit.length != 3)
+            throw new IOException("Sphere isn't formatted as SPHERE x, y, z RADIUS radius");
+
+        try
+        {
+            return new Zone.ZoneRegionSphere(Integer.parseInt(centreSplit[0]),
+                                             Integer.parseInt(centreSplit[1]),
+                                             Integer.parseInt(centreSplit[2]),
+                                             Integer.parseInt(radiusSplit[1].trim()),
+                                             negates);
+        }
+        catch(NumberFormatException e)
+        { throw new IOException("Coördinate or radius not parsable as number.", e); }
+        catch(IllegalArgumentException e)
+        { throw new IOException(e.getMessage(), e); }
+    }
+
+    /**
+     * Creates a cylindrical region from a string representation of one, as specified by
+     * {@link #zoneRegionToString(Zone.ZoneRegion)}, with the leading "CYLINDER" (and "NOT", if present) removed.
+     * @param line The cylindrical region representation to parse.
+     * @param negates Whether or not the resulting region should be negating.
+     * @return The cylindrical region represented by the given representation.
+     * @throws IOException If the line is not parsable as a cylindrical region.
+     */
+    private static Zone.ZoneRegionCylinder readCylinderFromLine(String line, boolean negates) throws IOException
+    {
+        String[] yRangeSplit = line.split(" Y ", 2);
+        String[] radiusSplit = yRangeSplit[0].split(" RADIUS ", 2);
+
+        if(radiusSplit.length != 2)
+            throw new IOException("Cylinder isn't formatted as CYLINDER x, z RADIUS radius");
+
+        String[] centreSplit = radiusSplit[0].trim().split(", ");
+
+        if(centreSplit.length != 2)
+            throw new IOException("Cylinder isn't formatted as CYLINDER x, z RADIUS radius");
+
+        try
+        {
+            int fromY = Integer.MIN_VALUE, toY = Integer.MAX_VALUE;
+
+            if(yRangeSplit.length == 2)
+            {
+                String[] ySplit = yRangeSplit[1].split("->", 2);
+
+                if(ySplit.length != 2)
+                    throw new IOException("Cylinder height range isn't formatted as Y y -> y");
+
+                fromY = Integer.parseInt(ySplit[0].trim());
+                toY   = Integer.parseInt(ySplit[1].trim());
+            }
+
+            return new Zone.ZoneRegionCylinder(Integer.parseInt(centreSplit[0]),
+                                               Integer.parseInt(centreSplit[1]),
+                                               Integer.parseInt(radiusSplit[1].trim()),
+                                               fromY,
+                                               toY,
+                                               negates);
+        }
+        catch(NumberFormatException e)
+        { throw new IOException("Coördinate or radius not parsable as number.", e); }
+        catch(IllegalArgumentException e)
+        { throw new IOException(e.getMessage(), e); }
+    }
+
+    /**
+     * Creates a voxel column region from a string representation of one, as specified by
+     * {@link #voxelColumnsToString(Zone.ZoneRegionVoxelColumns)}, with the leading "VOXELCOLUMNS" (and "NOT", if
+     * present) removed.
+     * @param line The voxel column region representation to parse.
+     * @param negates Whether or not the resulting region should be negating.
+     * @return The voxel column region represented by the given representation.
+     * @throws IOException If the line is not parsable as a voxel column region.
+     */
+    private static Zone.ZoneRegionVoxelColumns readVoxelColumnsFromLine(String line, boolean negates)
+            throws IOException
+    {
+        byte[] bytes;
+
+        try
+        { bytes = Base64.getDecoder().decode(line.trim()); }
+        catch(IllegalArgumentException e)
+        { throw new IOException("Voxel column data isn't valid base 64.", e); }
+
+        try(DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes))))
+        {
+            int columnCount = in.readInt();
+
+            if(columnCount <= 0)
+                throw new IOException("Voxel column data has no columns.");
+
+            long[] columnKeys = new long[columnCount];
+            int[] runOffsets = new int[columnCount + 1];
+            int[] runs = new int[16];
+            int runsLength = 0;
+
+            for(int i = 0; i < columnCount; i++)
+            {
+                columnKeys[i] = Zone.ZoneRegionVoxelColumns.getColumnKey(in.readInt(), in.readInt());
+                runOffsets[i] = runsLength;
+                int runCount = in.readInt();
+
+                if(i > 0 && columnKeys[i] <= columnKeys[i - 1])
+                    throw new IOException("Voxel columns aren't in order.");
+
+                if(runCount <= 0)
+                    throw new IOException("Voxel column has no runs.");
+
+                for(int j = 0; j < runCount; j++)
+                {
+                    int from = in.readInt(), to = in.readInt();
+
+                    if(to < from || (j > 0 && (long)runs[runsLength - 1] + 1 >= from))
+                        throw new IOException("Voxel column runs aren't in order or overlap.");
+
+                    if(runsLength + 2 > runs.length)
+                        runs = Arrays.copyOf(runs, runs.length * 2);
+
+                    runs[runsLength++] = from;
+                    runs[runsLength++] = to;
+                }
+            }
+
+            runOffsets[columnCount] = runsLength;
+            return new Zone.ZoneRegionVoxelColumns(columnKeys, runOffsets, Arrays.copyOf(runs, runsLength), negates);
+        }
+        catch(EOFException e)
+        { throw new IOException("Voxel column data ends early.", e); }
+    }
+
+    /**
+     * Creates an octree region from a string representation of one, as specified by
+     * {@link #octreeToString(Zone.ZoneRegionOctree)}, with the leading "OCTREE" (and "NOT", if present) removed.
+     * @param line The octree region representation to parse.
+     * @param negates Whether or not the resulting region should be negating.
+     * @return The octree region represented by the given representation.
+     * @throws IOException If the line is not parsable as an octree region.
+     */
+    private static Zone.ZoneRegionOctree readOctreeFromLine(String line, boolean negates) throws IOException
+    {
+        byte[] bytes;
+
+        try
+        { bytes = Base64.getDecoder().decode(line.trim()); }
+        catch(IllegalArgumentException e)
+        { throw new IOException("Octree data isn't valid base 64.", e); }
+
+        try(DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes))))
+        {
+            int level = in.readUnsignedByte();
+            long originX = in.readInt() & 0xFFFFFFFFL;
+            long originY = in.readInt() & 0xFFFFFFFFL;
+            long originZ = in.readInt() & 0xFFFFFFFFL;
+
+            if(level > Zone.ZoneRegionOctree.maxLevel)
+                throw new IOException("Octree is deeper than " + Zone.ZoneRegionOctree.maxLevel + " levels.");
+
+            long widthMask = (1L << level) - 1;
+
+            if((originX & widthMask) != 0 || (originY & widthMask) != 0 || (originZ & widthMask) != 0)
+                throw new IOException("Octree's origin isn't aligned to its width.");
+
+            ByteArrayOutputStream nodeBytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+
+            for(int read = in.read(buffer); read != -1; read = in.read(buffer))
+                nodeBytes.write(buffer, 0, read);
+
+            byte[] nodes = nodeBytes.toByteArray();
+            int[] index = { 0 };
+            Zone.ZoneRegionOctree.Node root = readOctreeNodes(nodes, index, level);
+
+            if(root == Zone.ZoneRegionOctree.Node.EMPTY)
+                throw new IOException("Octree contains no blocks.");
+
+            return new Zone.ZoneRegionOctree(root, level, originX, originY, originZ, negates);
+        }
+        catch(EOFException e)
+        { throw new IOException("Octree data ends early.", e); }
+    }
+
+    /**
+     * Reads the nodes of an octree from an array, as written by
+     * {@link #writeOctreeNodes(Zone.ZoneRegionOctree.Node, byte[], int)}. Nodes are merged where possible.
+     * @param nodes The array to read from.
+     * @param index A single-element array holding the index of the next node to be read, in nodes rather than bytes.
+     *              This is advanced past the nodes read.
+     * @param level The level of the node being read.
+     * @return The node read.
+     * @throws IOException If the array ends before the octree does, or contains an invalid node.
+     */
+    private static Zone.ZoneRegionOctree.Node readOctreeNodes(byte[] nodes, int[] index, int level)
+            throws IOException
+    {
+        if(index[0] / 4 >= nodes.length)
+            throw new IOException("Octree data ends early.");
+
+        int code = (nodes[index[0] / 4] >> (6 - (index[0] % 4) * 2)) & 3;
+        index[0]++;
+
+        switch(code)
+        {
+            case 0: return Zone.ZoneRegionOctree.Node.EMPTY;
+            case 1: return Zone.ZoneRegionOctree.Node.FULL;
+            case 2:
+            {
+                if(level == 0)
+                    throw new IOException("Octree divides a single block.");
+
+                Zone.ZoneRegionOctree.Node[] children = new Zone.ZoneRegionOctree.Node[8];
+
+                for(int i = 0; i < 8; i++)
+                    children[i] = readOctreeNodes(nodes, index, level - 1);
+
+                return Zone.ZoneRegionOctree.Node.of(children);
+            }
+            default: throw new IOException("Octree data contains an invalid node.");
+        }
+    }
     //endregion
 }
@@ -0,0 +1,479 @@
+package scot.massie.mc.ninti.core.zones;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An immutable view of the zones in a {@link ZoneRegistry} as they were at a point in time, as taken by
+ * {@link ZoneRegistry#snapshot()}.</p>
+ *
+ * <p>A view isn't affected by later changes to the registry it was taken from, and may be queried from any thread
+ * without locking, including while the registry is being changed. Zones returned by a view are copies, as with the
+ * registry itself.</p>
+ */
+public final class ZoneView
+{
+    /**
+     * Creates a new view of the given registry's zones. The registry given must not be changed or given chunks after
+     * this, and must already have its index built, so that queries only ever read from it.
+     * @param registry The registry to answer queries from.
+     */
+    ZoneView(ZoneRegistry registry)
+    { this.registry = registry; }
+
+    /**
+     * The copy of the registry's zones this view answers queries from. This is never changed.
+     */
+    private final ZoneRegistry registry;
+
+    /**
+     * Gets the zone by the given name.
+     * @param zoneName The name of the zone to get.
+     * @return The zone by the given name, or null if there is no zone by the given name.
+     */
+    public Zone get(String zoneName)
+    { return registry.get(zoneName); }
+
+    /**
+     * Gets all zones in the view.
+     * @return A list of the zones in the view, ordered by name.
+     */
+    public List<Zone> getZones()
+    { return registry.getZones(); }
+
+    /**
+     * Gets all zones in the view with the given tag.
+     * @see Zone#getTags()
+     * @param tag The tag to get the zones with.
+     * @return A list of the zones in the view with the given tag, ordered by name.
+     */
+    public List<Zone> getZonesWithTag(String tag)
+    { return registry.getZonesWithTag(tag); }
+
+    /**
+     * Gets whether any zones in the view have entity caps.
+     * @see Zone#getEntityCaps()
+     * @return True if any zones in the view cap the number of entities of any type. Otherwise, false.
+     */
+    public boolean hasEntityCaps()
+    { return registry.hasEntityCaps(); }
+
+    /**
+     * Gets the entity caps for the given entity type of all zones in the view covering the point represented by
+     * the given coördinates and world ID.
+     * @see Zone#getEntityCaps()
+     * @param worldId The ID of the world the point is in.
+     * @param x The X coördinate of the point.
+     * @param y The Y coördinate of the point.
+     * @param z The Z coördinate of the point.
+     * @param entityTypeId The ID of the entity type to get the caps of.
+     * @return A map of the maximum number of entities of the given type, by the names of the zones covering the given
+     *         position that cap entities of the given type. This is empty where no zones covering the given position
+     *         cap entities of the given type.
+     */
+    public Map<String, Integer> getEntityCapsAt(String worldId, int x, int y, int z, String entityTypeId)
+    { return registry.getEntityCapsAt(worldId, x, y, z, entityTypeId); }
+
+    /**
+     * <p>Gets whether any zones with the given tag may cover any part of the given area, at any height, going by the
+     * overall bounds of the zones.</p>
+     *
+     * <p>Where this returns false, no zones with the tag cover any point in the area. Where this returns true, zones
+     * with the tag may or may not cover points in the area.</p>
+     * @param worldId The ID of the world the area is in.
+     * @param fromX The lowest X coördinate in the area.
+     * @param fromZ The lowest Z coördinate in the area.
+     * @param toX The highest X coördinate in the area.
+     * @param toZ The highest Z coördinate in the area.
+     * @param tag The tag zones must have.
+     * @return False if no zones with the given tag cover any point in the area. Otherwise, true.
+     */
+    public boolean mayHaveZonesWithTagIn(String worldId, int fromX, int fromZ, int toX, int toZ, String tag)
+    { return registry.mayHaveZonesWithTagIn(worldId, fromX, fromZ, toX, toZ, tag); }
+
+    /**
+     * Works out a summary of which zones in the view cover the given chunk.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     * @return A summary of the zones covering the given chunk.
+     */
+    public ZoneRegistry.ChunkZones getChunkZones(String worldId, int chunkX, int chunkZ)
+    { return registry.getChunkZones(worldId, chunkX, chunkZ); }
+
+    /**
+     * Gets all zones in the view covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int z)
+    { return registry.getZonesAt(worldId, x, z); }
+
+    /**
+     * Gets all zones in the view covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int y, int z)
+    { return registry.getZonesAt(worldId, x, y, z); }
+
+    /**
+     * Gets all zones in the view covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double z)
+    { return registry.getZonesAt(worldId, x, z); }
+
+    /**
+     * Gets all zones in the view covering the point represented by the given coördinates and world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A collection of all zones that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double y, double z)
+    { return registry.getZonesAt(worldId, x, y, z); }
+
+    /**
+     * Gets a list of all zones in the view.
+     * @return A list of the names of all zones in the view, in alphabetical order.
+     */
+    public List<String> getZoneNames()
+    { return registry.getZoneNames(); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int z)
+    { return registry.getZoneNamesAt(worldId, x, z); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int y, int z)
+    { return registry.getZoneNamesAt(worldId, x, y, z); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double z)
+    { return registry.getZoneNamesAt(worldId, x, z); }
+
+    /**
+     * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
+     * order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return A list of the names of all zones that cover the given position, in alphabetical order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double y, double z)
+    { return registry.getZoneNamesAt(worldId, x, y, z); }
+
+    /**
+     * Gets all zones in the view with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int z, String tag)
+    { return registry.getZonesAt(worldId, x, z, tag); }
+
+    /**
+     * Gets all zones in the view with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, int x, int y, int z, String tag)
+    { return registry.getZonesAt(worldId, x, y, z, tag); }
+
+    /**
+     * Gets all zones in the view with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double z, String tag)
+    { return registry.getZonesAt(worldId, x, z, tag); }
+
+    /**
+     * Gets all zones in the view with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public Collection<Zone> getZonesAt(String worldId, double x, double y, double z, String tag)
+    { return registry.getZonesAt(worldId, x, y, z, tag); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int z, String tag)
+    { return registry.getZoneNamesAt(worldId, x, z, tag); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, int x, int y, int z, String tag)
+    { return registry.getZoneNamesAt(worldId, x, y, z, tag); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double z, String tag)
+    { return registry.getZoneNamesAt(worldId, x, z, tag); }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public List<String> getZoneNamesAt(String worldId, double x, double y, double z, String tag)
+    { return registry.getZoneNamesAt(worldId, x, y, z, tag); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, int x, int z)
+    { return registry.getDeepestZoneAt(worldId, x, z); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, int x, int y, int z)
+    { return registry.getDeepestZoneAt(worldId, x, y, z); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, double x, double z)
+    { return registry.getDeepestZoneAt(worldId, x, z); }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getDeepestZoneAt(String worldId, double x, double y, double z)
+    { return registry.getDeepestZoneAt(worldId, x, y, z); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, int x, int z)
+    { return registry.getEffectiveZoneAt(worldId, x, z); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, int x, int y, int z)
+    { return registry.getEffectiveZoneAt(worldId, x, y, z); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, double x, double z)
+    { return registry.getEffectiveZoneAt(worldId, x, z); }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, double x, double y, double z)
+    { return registry.getEffectiveZoneAt(worldId, x, y, z); }
+
+    /**
+     * Gets the highest priority zone with the given tag covering the point represented by the given coördinates and
+     * world ID. Where multiple zones with the tag of the same priority cover the point, the first alphabetically is
+     * returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag the zone must have.
+     * @return The highest priority zone with the given tag covering the given position, or null if no zones with the
+     *         tag cover it.
+     */
+    public Zone getEffectiveZoneAt(String worldId, int x, int y, int z, String tag)
+    { return registry.getEffectiveZoneAt(worldId, x, y, z, tag); }
+
+    /**
+     * <p>Gets the points at which a straight line segment enters and leaves zones.</p>
+     *
+     * <p>Zones containing the start of the segment are entered at its start, and zones containing the end of the
+     * segment are not left. Crossings at the same point are ordered with zones being left before zones being entered
+     * (except at the start of the segment, where zones it only touches there are left after all zones are entered),
+     * then by the zones' names. A zone within another zone is only entered where the zones it's within are as well.</p>
+     *
+     * <p>Only zones whose bounds the segment passes through are checked, and only for the blocks the segment passes
+     * through within those bounds.</p>
+     * @param worldId The ID of the world the segment is in.
+     * @param fromX The X coördinate of the start of the segment.
+     * @param fromY The Y coördinate of the start of the segment.
+     * @param fromZ The Z coördinate of the start of the segment.
+     * @param toX The X coördinate of the end of the segment.
+     * @param toY The Y coördinate of the end of the segment.
+     * @param toZ The Z coördinate of the end of the segment.
+     * @return A list of the points at which the segment enters or leaves zones, in order from the start of the segment
+     *         to the end.
+     */
+    public List<ZoneRegistry.ZoneCrossing> getZonesAlongSegment(String worldId,
+                                                                double fromX, double fromY, double fromZ,
+                                                                double toX, double toY, double toZ)
+    { return registry.getZonesAlongSegment(worldId, fromX, fromY, fromZ, toX, toY, toZ); }
+
+    /**
+     * <p>Gets the zone nearest to the point represented by the given coördinates and world ID.</p>
+     *
+     * <p>The distance to a zone is 0 where it contains the point, and otherwise the distance to the nearest edge of
+     * the bounds of any of its non-negating regions. This is exact for zones made up of cuboids and rectangles, and
+     * never greater than the true distance for other zones. Where a zone is within other zones, the distance to it is
+     * the greatest of the distances to it and each of the zones it's within.</p>
+     *
+     * <p>Zones are checked in order of the distance to their overall bounds, and the search stops as soon as no
+     * unchecked zone can be nearer than the nearest zone found.</p>
+     * @param worldId The ID of the world to get the nearest zone in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The zone nearest to the given point, the first alphabetically where multiple are equally near, or null
+     *         if there are no zones in the given world.
+     */
+    public Zone getNearestZone(String worldId, double x, double y, double z)
+    { return registry.getNearestZone(worldId, x, y, z); }
+
+    /**
+     * Gets all zones within a given distance of the point represented by the given coördinates and world ID. Distances
+     * to zones are as described in {@link #getNearestZone(String, double, double, double)}.
+     * @param worldId The ID of the world to get zones in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param radius The greatest distance from the point a zone may be to be included.
+     * @return A list of all zones within the given distance of the given point, ordered from nearest to furthest, then
+     *         by name.
+     * @throws IllegalArgumentException If the given radius is negative.
+     */
+    public List<Zone> getZonesWithin(String worldId, double x, double y, double z, double radius)
+    { return registry.getZonesWithin(worldId, x, y, z, radius); }
+}
@@ -1,12 +1,21 @@
 package scot.massie.mc.ninti.core.zones;
 
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.player.PlayerEntity;
+import scot.massie.lib.events.Event;
+import scot.massie.lib.events.EventListener;
+import scot.massie.lib.utils.tuples.Pair;
 import scot.massie.mc.ninti.core.NintiCore;
 import scot.massie.mc.ninti.core.utilclasses.EntityLocation;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Static registry for registering areas of the server's worlds to be identifiable by name. Provides a static interface
@@ -17,8 +26,55 @@ public final class Zones
     private Zones()
     {}
 
-    private static final Path ZoneRegistryFile = NintiCore.DATA_FOLDER.resolve("zones.txt");
-    private static final ZoneRegistry reg = new ZoneRegistry(ZoneRegistryFile);
+    private static final Path ZoneRegistryFolder = NintiCore.DATA_FOLDER.resolve("zones");
+    private static final Path LegacyZoneRegistryFile = NintiCore.DATA_FOLDER.resolve("zones.txt");
+    private static final ZoneRegistry reg
+            = new ZoneRegistry(ZoneRegistryFolder, ZoneRegistry.SHARD_BY_WORLD, LegacyZoneRegistryFile);
+    private static final ZoneOccupancy occupancy = new ZoneOccupancy(reg);
+    private static final Path MetricsFolder = NintiCore.DATA_FOLDER.resolve("zonemetrics");
+    private static final Path ArchiveFolder = NintiCore.DATA_FOLDER.resolve("zonearchive");
+    private static final boolean isArchivingOnSave = Boolean.getBoolean(NintiCore.PROPERTY_ARCHIVE_ZONES_ON_SAVE);
+    private static final int maxArchiveCount
+            = Math.max(1, Integer.getInteger(NintiCore.PROPERTY_ZONE_ARCHIVE_COUNT, 10));
+    private static final ZoneArchive archive = new ZoneArchive(ArchiveFolder, maxArchiveCount);
+
+    /*
+     * Queries are recorded as: metrics.record(name, calledAt, metrics.now(), query). Arguments are evaluated from left
+     * to right, so the time the lock was acquired at is read before the query itself is run.
+     */
+    private static final ZoneMetrics metrics
+            = new ZoneMetrics(Boolean.getBoolean(NintiCore.PROPERTY_RECORD_ZONE_METRICS));
+
+    /**
+     * Whether any zones have entity caps, or null if zones have changed since this was last worked out. This is kept
+     * so that it can be checked for every living entity every tick without locking the registry.
+     */
+    private static volatile Boolean hasEntityCaps = null;
+
+    static
+    {
+        reg.setMetrics(metrics);
+        reg.zoneChanged.register(args -> hasEntityCaps = null);
+    }
+
+    /**
+     * Fired when a zone is added to, removed from, or modified in the registry, including by loading the zones file.
+     * Listeners are called while the registry is locked.
+     * @see ZoneRegistry#zoneChanged
+     */
+    public static final Event<ZoneRegistry.ZoneChangedEventArgs> zoneChanged = reg.zoneChanged;
+
+    /**
+     * Gets an immutable view of the registered zones as they are now. The view may be queried from any thread without
+     * contending with the server thread for the registry, and isn't affected by later changes to zones.
+     * @see ZoneRegistry#snapshot()
+     * @return A view of the currently registered zones.
+     */
+    public static ZoneView snapshot()
+    {
+        long calledAt = metrics.now();
+        synchronized(reg) { return metrics.record("snapshot", calledAt, metrics.now(), reg.snapshot()); }
+    }
 
     /**
      * Registers a new zone. If the zone shares a name with a zone already present, overwrites that zone.
@@ -36,7 +92,8 @@ public final class Zones
     { synchronized(reg) { return reg.deregister(zoneName); } }
 
     /**
-     * Renames a zone. If another zone exists with the given name, overwrites that.
+     * Renames a zone. If another zone exists with the given name, overwrites that. Zones within the renamed zone are
+     * updated to be within it under its new name.
      * @param zoneName The name of the zone to rename.
      * @param newZoneName The name to rename the zone to.
      * @return The zone renamed.
@@ -44,6 +101,74 @@ public final class Zones
     public static Zone rename(String zoneName, String newZoneName)
     { synchronized(reg) { return reg.rename(zoneName, newZoneName); } }
 
+    /**
+     * Sets the zone the zone by the given name is within, if a zone by the given name exists in the registry.
+     * @see Zone#getParentName()
+     * @param zoneName The name of the zone to set the parent of.
+     * @param parentZoneName The name of the zone it should be within, or null if it shouldn't be within another zone.
+     * @return The zone the parent was set of, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If there's no zone by the given parent zone name, the parent zone is in a
+     *                                  different world, or the parent zone is the zone itself or within it.
+     */
+    public static Zone setParent(String zoneName, String parentZoneName)
+    { synchronized(reg) { return reg.setParent(zoneName, parentZoneName); } }
+
+    /**
+     * Sets the priority of the zone by the given name, if a zone by the given name exists in the registry.
+     * @see Zone#getPriority()
+     * @param zoneName The name of the zone to set the priority of.
+     * @param priority The new priority of the zone.
+     * @return The zone the priority was set of, or null if there was no zone by the given name.
+     */
+    public static Zone setPriority(String zoneName, int priority)
+    { synchronized(reg) { return reg.setPriority(zoneName, priority); } }
+
+    /**
+     * Gives a tag to the zone by the given name, if a zone by the given name exists in the registry.
+     * @see Zone#getTags()
+     * @param zoneName The name of the zone to tag.
+     * @param tag The tag to give the zone.
+     * @return The zone tagged, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the given tag is empty or contains whitespace.
+     */
+    public static Zone addTag(String zoneName, String tag)
+    { synchronized(reg) { return reg.addTag(zoneName, tag); } }
+
+    /**
+     * Removes a tag from the zone by the given name, if a zone by the given name exists in the registry.
+     * @see Zone#getTags()
+     * @param zoneName The name of the zone to untag.
+     * @param tag The tag to remove from the zone.
+     * @return The zone untagged, or null if there was no zone by the given name.
+     */
+    public static Zone removeTag(String zoneName, String tag)
+    { synchronized(reg) { return reg.removeTag(zoneName, tag); } }
+
+    /**
+     * Sets the maximum number of entities of the given type that may be spawned into the zone by the given name, if a
+     * zone by the given name exists in the registry.
+     * @see Zone#getEntityCaps()
+     * @param zoneName The name of the zone to cap entities in.
+     * @param entityTypeId The ID of the entity type to cap. (e.g. "minecraft:cow")
+     * @param cap The maximum number of entities of the given type.
+     * @return The zone the entity cap was set of, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the given entity type ID is empty or contains whitespace or "=", or if the
+     *                                  given cap is negative.
+     */
+    public static Zone setEntityCap(String zoneName, String entityTypeId, int cap)
+    { synchronized(reg) { return reg.setEntityCap(zoneName, entityTypeId, cap); } }
+
+    /**
+     * Removes the cap on the number of entities of the given type that may be spawned into the zone by the given name,
+     * if a zone by the given name exists in the registry.
+     * @see Zone#getEntityCaps()
+     * @param zoneName The name of the zone to uncap entities in.
+     * @param entityTypeId The ID of the entity type to uncap.
+     * @return The zone the entity cap was removed from, or null if there was no zone by the given name.
+     */
+    public static Zone removeEntityCap(String zoneName, String entityTypeId)
+    { synchronized(reg) { return reg.removeEntityCap(zoneName, entityTypeId); } }
+
     /**
      * Adds the zone region to the zone by the given name, if a zone by the given name exists in the registry.
      * @param zoneName The name of the zone to add the zone region to.
@@ -53,20 +178,152 @@ public final class Zones
     public static Zone addToZoneIfThere(String zoneName, Zone.ZoneRegion region)
     { synchronized(reg) { return reg.addToZoneIfThere(zoneName, region); } }
 
+    /**
+     * Replaces the regions of the zone by the given name with a single voxel column region covering the same blocks,
+     * if a zone by the given name exists in the registry.
+     * @see Zone.ZoneRegionVoxelColumns#ofRegions(List)
+     * @param zoneName The name of the zone to compact.
+     * @return The zone compacted, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the zone's regions can't be converted into a voxel column region.
+     */
+    public static Zone compactToVoxelColumns(String zoneName)
+    { synchronized(reg) { return reg.compactToVoxelColumns(zoneName); } }
+
+    /**
+     * Adds all of the blocks in a cuboid to the octree region of the zone by the given name, if a zone by the given
+     * name exists in the registry. The zone's octree region is the last non-negating octree region in it. If it has
+     * none, a new octree region containing the cuboid is added to the top of the zone.
+     * @param zoneName The name of the zone to fill the cuboid in.
+     * @param fromX One of the edges on the X coördinate.
+     * @param fromY One of the edges on the Y coördinate.
+     * @param fromZ One of the edges on the Z coördinate.
+     * @param toX The opposite edge on the X coördinate.
+     * @param toY The opposite edge on the Y coördinate.
+     * @param toZ The opposite edge on the Z coördinate.
+     * @return The zone filled in, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the cuboid is too large or too finely divided to apply to an octree. See
+     *                                  {@link Zone.ZoneRegionOctree#maxNodesDividedPerEdit}.
+     */
+    public static Zone fillInOctree(String zoneName, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+    { synchronized(reg) { return reg.fillInOctree(zoneName, fromX, fromY, fromZ, toX, toY, toZ); } }
+
+    /**
+     * Removes all of the blocks in a cuboid from the octree region of the zone by the given name, if a zone by the
+     * given name exists in the registry. The zone's octree region is the last non-negating octree region in it. If it
+     * has none, the zone is left unchanged. If no blocks are left in the octree region, it's removed from the zone.
+     * @param zoneName The name of the zone to carve the cuboid out of.
+     * @param fromX One of the edges on the X coördinate.
+     * @param fromY One of the edges on the Y coördinate.
+     * @param fromZ One of the edges on the Z coördinate.
+     * @param toX The opposite edge on the X coördinate.
+     * @param toY The opposite edge on the Y coördinate.
+     * @param toZ The opposite edge on the Z coördinate.
+     * @return The zone carved from, or null if there was no zone by the given name.
+     * @throws IllegalArgumentException If the cuboid is too large or too finely divided to apply to an octree. See
+     *                                  {@link Zone.ZoneRegionOctree#maxNodesDividedPerEdit}.
+     */
+    public static Zone carveFromOctree(String zoneName, int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+    { synchronized(reg) { return reg.carveFromOctree(zoneName, fromX, fromY, fromZ, toX, toY, toZ); } }
+
     /**
      * Gets the zone by the given name.
      * @param zoneName The name of the zone to get.
      * @return The zone by the given name, or null if there is no zone by the given name.
      */
     public static Zone getZone(String zoneName)
-    { synchronized(reg) { return reg.get(zoneName); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg) { return metrics.record("getZone", calledAt, metrics.now(), reg.get(zoneName)); }
+    }
 
     /**
      * Gets all zones in the registry.
      * @return A list of the zones in the registry, ordered by name.
      */
     public static List<Zone> getZones()
-    { synchronized(reg) { return reg.getZones(); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg) { return metrics.record("getZones", calledAt, metrics.now(), reg.getZones()); }
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag.
+     * @see Zone#getTags()
+     * @param tag The tag to get the zones with.
+     * @return A list of the zones in the registry with the given tag, ordered by name.
+     */
+    public static List<Zone> getZonesWithTag(String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesWithTag", calledAt, metrics.now(), reg.getZonesWithTag(tag)); }
+    }
+
+    /**
+     * <p>Gets whether any zones with the given tag may cover any part of the given area, at any height, going by the
+     * overall bounds of the zones.</p>
+     *
+     * <p>Where this returns false, no zones with the tag cover any point in the area. Where this returns true, zones
+     * with the tag may or may not cover points in the area.</p>
+     * @param worldId The ID of the world the area is in.
+     * @param fromX The lowest X coördinate in the area.
+     * @param fromZ The lowest Z coördinate in the area.
+     * @param toX The highest X coördinate in the area.
+     * @param toZ The highest Z coördinate in the area.
+     * @param tag The tag zones must have.
+     * @return False if no zones with the given tag cover any point in the area. Otherwise, true.
+     */
+    public static boolean mayHaveZonesWithTagIn(String worldId, int fromX, int fromZ, int toX, int toZ, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("mayHaveZonesWithTagIn", calledAt, metrics.now(),
+                                  reg.mayHaveZonesWithTagIn(worldId, fromX, fromZ, toX, toZ, tag));
+        }
+    }
+
+    /**
+     * Gets a summary of which zones cover the given chunk. Where the chunk has been marked as loaded with
+     * {@link #chunkLoaded(String, int, int)}, this is looked up rather than worked out again.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     * @return A summary of the zones covering the given chunk.
+     */
+    public static ZoneRegistry.ChunkZones getChunkZones(String worldId, int chunkX, int chunkZ)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getChunkZones", calledAt, metrics.now(), reg.getChunkZones(worldId, chunkX, chunkZ)); }
+    }
+
+    /**
+     * Marks a chunk as loaded, so that a summary of which zones cover it is kept until it's unloaded. While a chunk is
+     * loaded, queries of the zones at blocks within it only check the zones that may cover the chunk, and don't check
+     * any zones at all if no zones cover it.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     */
+    public static void chunkLoaded(String worldId, int chunkX, int chunkZ)
+    { synchronized(reg) { reg.chunkLoaded(worldId, chunkX, chunkZ); } }
+
+    /**
+     * Marks a chunk as no longer loaded, discarding the summary of which zones cover it.
+     * @param worldId The ID of the world the chunk is in.
+     * @param chunkX The X coördinate of the chunk, in chunks.
+     * @param chunkZ The Z coördinate of the chunk, in chunks.
+     */
+    public static void chunkUnloaded(String worldId, int chunkX, int chunkZ)
+    { synchronized(reg) { reg.chunkUnloaded(worldId, chunkX, chunkZ); } }
+
+    /**
+     * Marks all chunks in the given world as no longer loaded.
+     * @param worldId The ID of the world.
+     */
+    public static void worldUnloaded(String worldId)
+    { synchronized(reg) { reg.worldUnloaded(worldId); } }
 
     /**
      * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
@@ -76,7 +333,11 @@ public final class Zones
      * @return A collection of all zones that cover the given position.
      */
     public static Collection<Zone> getZonesAt(String worldId, int x, int z)
-    { synchronized(reg) { return reg.getZonesAt(worldId, x, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, z)); }
+    }
 
     /**
      * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
@@ -87,7 +348,11 @@ public final class Zones
      * @return A collection of all zones that cover the given position.
      */
     public static Collection<Zone> getZonesAt(String worldId, int x, int y, int z)
-    { synchronized(reg) { return reg.getZonesAt(worldId, x, y, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, y, z)); }
+    }
 
     /**
      * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
@@ -97,7 +362,11 @@ public final class Zones
      * @return A collection of all zones that cover the given position.
      */
     public static Collection<Zone> getZonesAt(String worldId, double x, double z)
-    { synchronized(reg) { return reg.getZonesAt(worldId, x, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, z)); }
+    }
 
     /**
      * Gets all zones in the registry covering the point represented by the given coördinates and world ID.
@@ -108,7 +377,11 @@ public final class Zones
      * @return A collection of all zones that cover the given position.
      */
     public static Collection<Zone> getZonesAt(String worldId, double x, double y, double z)
-    { synchronized(reg) { return reg.getZonesAt(worldId, x, y, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, y, z)); }
+    }
 
     /**
      * Gets all zones in the registry covering the given location object.
@@ -116,7 +389,11 @@ public final class Zones
      * @return A collection of all zones that cover the given position.
      */
     public static Collection<Zone> getZonesAt(EntityLocation location)
-    { synchronized(reg) { return reg.getZonesAt(location); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), ZoneEntities.getZonesAt(reg, location)); }
+    }
 
     /**
      * Gets all zones the given entity is in.
@@ -124,14 +401,24 @@ public final class Zones
      * @return A collection of all zones that the given entity is in.
      */
     public static Collection<Zone> getZonesEntityIsIn(Entity entity)
-    { synchronized(reg) { return reg.getZonesEntityIsIn(entity); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZonesEntityIsIn", calledAt, metrics.now(),
+                                  ZoneEntities.getZonesEntityIsIn(reg, entity));
+        }
+    }
 
     /**
      * Gets a list of all zones in the registry.
      * @return A list of the names of all zones in the registry, in alphabetical order.
      */
     public static List<String> getZoneNames()
-    { synchronized(reg) { return reg.getZoneNames(); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg) { return metrics.record("getZoneNames", calledAt, metrics.now(), reg.getZoneNames()); }
+    }
 
     /**
      * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
@@ -142,7 +429,11 @@ public final class Zones
      * @return A list of the names of all zones that cover the given position, in alphabetical order.
      */
     public static List<String> getZoneNamesAt(String worldId, int x, int z)
-    { synchronized(reg) { return reg.getZoneNamesAt(worldId, x, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, z)); }
+    }
 
     /**
      * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
@@ -154,7 +445,33 @@ public final class Zones
      * @return A list of the names of all zones that cover the given position, in alphabetical order.
      */
     public static List<String> getZoneNamesAt(String worldId, int x, int y, int z)
-    { synchronized(reg) { return reg.getZoneNamesAt(worldId, x, y, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, y, z)); }
+    }
+
+    /**
+     * Gets the names of those of the given zones covering the point represented by the given coördinates and world ID,
+     * in alphabetical order. Only the given zones are checked, so where few zones are given, this is quicker than
+     * getting the names of all zones at the point.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param zoneNames The names of the zones to check. Names of zones that don't exist are ignored.
+     * @return A list of the names of the given zones that cover the given position, in alphabetical order.
+     */
+    public static List<String> getZoneNamesAtAmong(String worldId, int x, int y, int z, Set<String> zoneNames)
+    {
+        long calledAt = metrics.now();
+
+        synchronized(reg)
+        {
+            return metrics.record("getZoneNamesAtAmong", calledAt, metrics.now(),
+                                  reg.getZoneNamesAtAmong(worldId, x, y, z, zoneNames));
+        }
+    }
 
     /**
      * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
@@ -165,7 +482,11 @@ public final class Zones
      * @return A list of the names of all zones that cover the given position, in alphabetical order.
      */
     public static List<String> getZoneNamesAt(String worldId, double x, double z)
-    { synchronized(reg) { return reg.getZoneNamesAt(worldId, x, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, z)); }
+    }
 
     /**
      * Gets the names of all zones covering the point represented by the given coördinates and world ID, in alphabetical
@@ -177,7 +498,11 @@ public final class Zones
      * @return A list of the names of all zones that cover the given position, in alphabetical order.
      */
     public static List<String> getZoneNamesAt(String worldId, double x, double y, double z)
-    { synchronized(reg) { return reg.getZoneNamesAt(worldId, x, y, z); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, y, z)); }
+    }
 
     /**
      * Gets the names of all zones covering the given location object.
@@ -185,7 +510,14 @@ public final class Zones
      * @return A list of the names of all zones that cover the given position, in alphabetical order.
      */
     public static List<String> getZoneNamesAt(EntityLocation location)
-    { synchronized(reg) { return reg.getZoneNamesAt(location); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZoneNamesAt", calledAt, metrics.now(),
+                                  ZoneEntities.getZoneNamesAt(reg, location));
+        }
+    }
 
     /**
      * Gets the names of all zones the given entity is in.
@@ -193,17 +525,939 @@ public final class Zones
      * @return A list of the zones currently containing the given entity's location, in alphabetical order.
      */
     public static List<String> getZoneNamesEntityIsIn(Entity entity)
-    { synchronized(reg) { return reg.getZoneNamesEntityIsIn(entity); } }
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZoneNamesEntityIsIn", calledAt, metrics.now(),
+                                  ZoneEntities.getZoneNamesEntityIsIn(reg, entity));
+        }
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(String worldId, int x, int z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, z, tag)); }
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(String worldId, int x, int y, int z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, y, z, tag)); }
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(String worldId, double x, double z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, z, tag)); }
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the point represented by the given coördinates and
+     * world ID.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(String worldId, double x, double y, double z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), reg.getZonesAt(worldId, x, y, z, tag)); }
+    }
+
+    /**
+     * Gets all zones in the registry with the given tag covering the given location object.
+     * @param location The location to get the zones covering.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that cover the given position.
+     */
+    public static Collection<Zone> getZonesAt(EntityLocation location, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZonesAt", calledAt, metrics.now(), ZoneEntities.getZonesAt(reg, location, tag)); }
+    }
+
+    /**
+     * Gets all zones with the given tag that the given entity is in.
+     * @param entity The entity to get the current zones of.
+     * @param tag The tag zones must have to be included.
+     * @return A collection of all zones with the given tag that the given entity is in.
+     */
+    public static Collection<Zone> getZonesEntityIsIn(Entity entity, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZonesEntityIsIn", calledAt, metrics.now(),
+                                  ZoneEntities.getZonesEntityIsIn(reg, entity, tag));
+        }
+    }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public static List<String> getZoneNamesAt(String worldId, int x, int z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, z, tag)); }
+    }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public static List<String> getZoneNamesAt(String worldId, int x, int y, int z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, y, z, tag)); }
+    }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public static List<String> getZoneNamesAt(String worldId, double x, double z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, z, tag)); }
+    }
+
+    /**
+     * Gets the names of all zones with the given tag covering the point represented by the given coördinates and
+     * world ID, in alphabetical order.
+     * @param worldId The ID of the world to get zones of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public static List<String> getZoneNamesAt(String worldId, double x, double y, double z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getZoneNamesAt", calledAt, metrics.now(), reg.getZoneNamesAt(worldId, x, y, z, tag)); }
+    }
+
+    /**
+     * Gets the names of all zones with the given tag covering the given location object.
+     * @param location The location to get the names of zones at.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the names of all zones with the given tag that cover the given position, in alphabetical
+     *         order.
+     */
+    public static List<String> getZoneNamesAt(EntityLocation location, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZoneNamesAt", calledAt, metrics.now(),
+                                  ZoneEntities.getZoneNamesAt(reg, location, tag));
+        }
+    }
+
+    /**
+     * Gets the names of all zones with the given tag that the given entity is in.
+     * @param entity The entity to get the names of zones it's currently in.
+     * @param tag The tag zones must have to be included.
+     * @return A list of the zones with the given tag currently containing the given entity's location, in
+     *         alphabetical order.
+     */
+    public static List<String> getZoneNamesEntityIsIn(Entity entity, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZoneNamesEntityIsIn", calledAt, metrics.now(),
+                                  ZoneEntities.getZoneNamesEntityIsIn(reg, entity, tag));
+        }
+    }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getDeepestZoneAt(String worldId, int x, int z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getDeepestZoneAt", calledAt, metrics.now(), reg.getDeepestZoneAt(worldId, x, z)); }
+    }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getDeepestZoneAt(String worldId, int x, int y, int z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getDeepestZoneAt", calledAt, metrics.now(), reg.getDeepestZoneAt(worldId, x, y, z)); }
+    }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getDeepestZoneAt(String worldId, double x, double z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getDeepestZoneAt", calledAt, metrics.now(), reg.getDeepestZoneAt(worldId, x, z)); }
+    }
+
+    /**
+     * Gets the most deeply nested zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones at the same depth cover the point, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The most deeply nested zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getDeepestZoneAt(String worldId, double x, double y, double z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getDeepestZoneAt", calledAt, metrics.now(), reg.getDeepestZoneAt(worldId, x, y, z)); }
+    }
 
     /**
-     * Saves the contents of the zones registry.
+     * Gets the most deeply nested zone covering the given location object. Where multiple zones at the same depth
+     * cover the location, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param location The location to get the zone at.
+     * @return The most deeply nested zone covering the given location, or null if no zones cover it.
+     */
+    public static Zone getDeepestZoneAt(EntityLocation location)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getDeepestZoneAt", calledAt, metrics.now(),
+                                  ZoneEntities.getDeepestZoneAt(reg, location));
+        }
+    }
+
+    /**
+     * Gets the most deeply nested zone the given entity is in. Where multiple zones at the same depth contain the
+     * entity, the first alphabetically is returned.
+     * @see Zone#getParentName()
+     * @param entity The entity to get the zone of.
+     * @return The most deeply nested zone containing the given entity's location, or null if it's not in any zones.
+     */
+    public static Zone getDeepestZoneEntityIsIn(Entity entity)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getDeepestZoneEntityIsIn", calledAt, metrics.now(),
+                                  ZoneEntities.getDeepestZoneEntityIsIn(reg, entity));
+        }
+    }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getEffectiveZoneAt(String worldId, int x, int z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getEffectiveZoneAt", calledAt, metrics.now(), reg.getEffectiveZoneAt(worldId, x, z)); }
+    }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getEffectiveZoneAt(String worldId, int x, int y, int z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEffectiveZoneAt", calledAt, metrics.now(),
+                                  reg.getEffectiveZoneAt(worldId, x, y, z));
+        }
+    }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getEffectiveZoneAt(String worldId, double x, double z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getEffectiveZoneAt", calledAt, metrics.now(), reg.getEffectiveZoneAt(worldId, x, z)); }
+    }
+
+    /**
+     * Gets the highest priority zone covering the point represented by the given coördinates and world ID. Where
+     * multiple zones of the same priority cover the point, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The highest priority zone covering the given position, or null if no zones cover it.
+     */
+    public static Zone getEffectiveZoneAt(String worldId, double x, double y, double z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEffectiveZoneAt", calledAt, metrics.now(),
+                                  reg.getEffectiveZoneAt(worldId, x, y, z));
+        }
+    }
+
+    /**
+     * Gets the highest priority zone covering the given location object. Where multiple zones of the same priority
+     * cover the location, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param location The location to get the zone at.
+     * @return The highest priority zone covering the given location, or null if no zones cover it.
+     */
+    public static Zone getEffectiveZoneAt(EntityLocation location)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEffectiveZoneAt", calledAt, metrics.now(),
+                                  ZoneEntities.getEffectiveZoneAt(reg, location));
+        }
+    }
+
+    /**
+     * Gets the highest priority zone the given entity is in. Where multiple zones of the same priority contain the
+     * entity, the first alphabetically is returned.
+     * @see Zone#getPriority()
+     * @param entity The entity to get the zone of.
+     * @return The highest priority zone containing the given entity's location, or null if it's not in any zones.
+     */
+    public static Zone getEffectiveZoneEntityIsIn(Entity entity)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEffectiveZoneEntityIsIn", calledAt, metrics.now(),
+                                  ZoneEntities.getEffectiveZoneEntityIsIn(reg, entity));
+        }
+    }
+
+    /**
+     * Gets the highest priority zone with the given tag covering the point represented by the given coördinates and
+     * world ID. Where multiple zones with the tag of the same priority cover the point, the first alphabetically is
+     * returned.
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag the zone must have.
+     * @return The highest priority zone with the given tag covering the given position, or null if no zones with the
+     *         tag cover it.
+     */
+    public static Zone getEffectiveZoneAt(String worldId, int x, int y, int z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEffectiveZoneAt", calledAt, metrics.now(),
+                                  reg.getEffectiveZoneAt(worldId, x, y, z, tag));
+        }
+    }
+
+    /**
+     * <p>Gets the name of the highest priority zone with the given tag covering the point represented by the given
+     * coördinates and world ID. Where multiple zones with the tag of the same priority cover the point, the first
+     * alphabetically is given.</p>
+     *
+     * <p>This doesn't copy the zone. Where the point's chunk is loaded, only the zones with the tag that may cover the
+     * chunk are checked.</p>
+     * @see Zone#getPriority()
+     * @param worldId The ID of the world to get the zone of.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param tag The tag the zone must have.
+     * @return The name of the highest priority zone with the given tag covering the given position, or null if no
+     *         zones with the tag cover it.
+     */
+    public static String getEffectiveZoneNameAt(String worldId, int x, int y, int z, String tag)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEffectiveZoneNameAt", calledAt, metrics.now(),
+                                  reg.getEffectiveZoneNameAt(worldId, x, y, z, tag));
+        }
+    }
+
+    /**
+     * <p>Gets the points at which a straight line segment enters and leaves zones.</p>
+     *
+     * <p>Zones containing the start of the segment are entered at its start, and zones containing the end of the
+     * segment are not left. Crossings at the same point are ordered with zones being left before zones being entered
+     * (except at the start of the segment, where zones it only touches there are left after all zones are entered),
+     * then by the zones' names. A zone within another zone is only entered where the zones it's within are as well.</p>
+     *
+     * <p>Only zones whose bounds the segment passes through are checked, and only for the blocks the segment passes
+     * through within those bounds.</p>
+     * @param worldId The ID of the world the segment is in.
+     * @param fromX The X coördinate of the start of the segment.
+     * @param fromY The Y coördinate of the start of the segment.
+     * @param fromZ The Z coördinate of the start of the segment.
+     * @param toX The X coördinate of the end of the segment.
+     * @param toY The Y coördinate of the end of the segment.
+     * @param toZ The Z coördinate of the end of the segment.
+     * @return A list of the points at which the segment enters or leaves zones, in order from the start of the segment
+     *         to the end.
+     */
+    public static List<ZoneRegistry.ZoneCrossing> getZonesAlongSegment(String worldId,
+                                                                     double fromX, double fromY, double fromZ,
+                                                                     double toX, double toY, double toZ)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZonesAlongSegment", calledAt, metrics.now(),
+                                  reg.getZonesAlongSegment(worldId, fromX, fromY, fromZ, toX, toY, toZ));
+        }
+    }
+
+    /**
+     * Gets the points at which a straight line segment between two locations enters and leaves zones.
+     * @see #getZonesAlongSegment(String, double, double, double, double, double, double)
+     * @param from The start of the segment.
+     * @param to The end of the segment.
+     * @return A list of the points at which the segment enters or leaves zones, in order from the start of the segment
+     *         to the end.
+     * @throws IllegalArgumentException If the given locations are in different worlds.
+     */
+    public static List<ZoneRegistry.ZoneCrossing> getZonesAlongSegment(EntityLocation from, EntityLocation to)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZonesAlongSegment", calledAt, metrics.now(),
+                                  ZoneEntities.getZonesAlongSegment(reg, from, to));
+        }
+    }
+
+    /**
+     * <p>Gets the zone nearest to the point represented by the given coördinates and world ID.</p>
+     *
+     * <p>The distance to a zone is 0 where it contains the point, and otherwise the distance to the nearest edge of
+     * the bounds of any of its non-negating regions. This is exact for zones made up of cuboids and rectangles, and
+     * never greater than the true distance for other zones. Where a zone is within other zones, the distance to it is
+     * the greatest of the distances to it and each of the zones it's within.</p>
+     *
+     * <p>Zones are checked in order of the distance to their overall bounds, and the search stops as soon as no
+     * unchecked zone can be nearer than the nearest zone found.</p>
+     * @param worldId The ID of the world to get the nearest zone in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @return The zone nearest to the given point, the first alphabetically where multiple are equally near, or null
+     *         if there are no zones in the given world.
+     */
+    public static Zone getNearestZone(String worldId, double x, double y, double z)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getNearestZone", calledAt, metrics.now(), reg.getNearestZone(worldId, x, y, z)); }
+    }
+
+    /**
+     * Gets the zone nearest to the given location object.
+     * @see #getNearestZone(String, double, double, double)
+     * @param location The location to get the nearest zone to.
+     * @return The zone nearest to the given location, the first alphabetically where multiple are equally near, or
+     *         null if there are no zones in the location's world.
+     */
+    public static Zone getNearestZone(EntityLocation location)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getNearestZone", calledAt, metrics.now(),
+                                  ZoneEntities.getNearestZone(reg, location));
+        }
+    }
+
+    /**
+     * Gets all zones within a given distance of the point represented by the given coördinates and world ID. Distances
+     * to zones are as described in {@link #getNearestZone(String, double, double, double)}.
+     * @param worldId The ID of the world to get zones in.
+     * @param x The X coördinate.
+     * @param y The Y coördinate.
+     * @param z The Z coördinate.
+     * @param radius The greatest distance from the point a zone may be to be included.
+     * @return A list of all zones within the given distance of the given point, ordered from nearest to furthest, then
+     *         by name.
+     * @throws IllegalArgumentException If the given radius is negative.
+     */
+    public static List<Zone> getZonesWithin(String worldId, double x, double y, double z, double radius)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZonesWithin", calledAt, metrics.now(),
+                                  reg.getZonesWithin(worldId, x, y, z, radius));
+        }
+    }
+
+    /**
+     * Gets all zones within a given distance of the given location object.
+     * @see #getZonesWithin(String, double, double, double, double)
+     * @param location The location to get the zones near.
+     * @param radius The greatest distance from the location a zone may be to be included.
+     * @return A list of all zones within the given distance of the given location, ordered from nearest to furthest,
+     *         then by name.
+     * @throws IllegalArgumentException If the given radius is negative.
+     */
+    public static List<Zone> getZonesWithin(EntityLocation location, double radius)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getZonesWithin", calledAt, metrics.now(),
+                                  ZoneEntities.getZonesWithin(reg, location, radius));
+        }
+    }
+
+    /**
+     * Gets the number of players in the zone by the given name. This is kept up to date as players move, change
+     * worlds, and log in and out, so doesn't require checking each player against the zone.
+     * @param zoneName The name of the zone to get the number of players in.
+     * @return The number of players in the zone by the given name, or 0 if there's no zone by that name.
+     */
+    public static int getPlayerCount(String zoneName)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getPlayerCount", calledAt, metrics.now(), occupancy.getPlayerCount(zoneName)); }
+    }
+
+    /**
+     * Gets the players in the zone by the given name. This is kept up to date as players move, change worlds, and log
+     * in and out, so doesn't require checking each player against the zone.
+     * @param zoneName The name of the zone to get the players in.
+     * @return A list of the players in the zone by the given name, in no particular order. If there's no zone by that
+     *         name, returns an empty list.
+     */
+    public static List<PlayerEntity> getPlayersIn(String zoneName)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getPlayersIn", calledAt, metrics.now(), occupancy.getPlayersIn(zoneName)); }
+    }
+
+    /**
+     * <p>Gets the number of entities of the given type in the zone by the given name. This is kept up to date as
+     * entities move, spawn, despawn, and change worlds, so doesn't require checking each entity against the zone.</p>
+     *
+     * <p>Players are always counted. Other living entities are only counted where the
+     * {@link NintiCore#PROPERTY_TRACK_ENTITY_OCCUPANCY} system property is set to "true" or any zones have entity caps
+     * - otherwise, this returns 0 for any type other than {@link EntityType#PLAYER}.</p>
+     * @param zoneName The name of the zone to get the number of entities in.
+     * @param entityType The type of entity to count.
+     * @return The number of entities of the given type in the zone by the given name, or 0 if there's no zone by that
+     *         name.
+     */
+    public static int getEntityCount(String zoneName, EntityType<?> entityType)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("getEntityCount", calledAt, metrics.now(),
+                                  occupancy.getEntityCount(zoneName, entityType));
+        }
+    }
+
+    /**
+     * Gets whether any zones have entity caps. This only locks the zones registry where zones have changed since it was
+     * last called.
+     * @see Zone#getEntityCaps()
+     * @return True if any zone caps the number of entities of any type. Otherwise, false.
+     */
+    public static boolean hasEntityCaps()
+    {
+        long calledAt = metrics.now();
+        Boolean result = hasEntityCaps;
+
+        if(result != null)
+            return metrics.record("hasEntityCaps", calledAt, calledAt, result);
+
+        synchronized(reg)
+        {
+            result = metrics.record("hasEntityCaps", calledAt, metrics.now(), reg.hasEntityCaps());
+            hasEntityCaps = result;
+            return result;
+        }
+    }
+
+    /**
+     * Gets whether any zone covering the given block caps entities of the given type and is already at its cap. This
+     * uses the counts kept by {@link #getEntityCount(String, EntityType)}, so doesn't require counting the entities in
+     * the zones.
+     * @see Zone#getEntityCaps()
+     * @param worldId The ID of the world the block is in.
+     * @param x The X coördinate of the block.
+     * @param y The Y coördinate of the block.
+     * @param z The Z coördinate of the block.
+     * @param entityType The type of entity.
+     * @return True if spawning another entity of the given type at the given block would put a zone over its cap.
+     *         Otherwise, false.
+     */
+    public static boolean isAtEntityCap(String worldId, int x, int y, int z, EntityType<?> entityType)
+    {
+        if(!hasEntityCaps())
+            return false;
+
+        long calledAt = metrics.now();
+        synchronized(reg)
+        {
+            return metrics.record("isAtEntityCap", calledAt, metrics.now(),
+                                  occupancy.isAtEntityCap(worldId, x, y, z, entityType));
+        }
+    }
+
+    /**
+     * Gets a record of the number of players in the zone by the given name, minute by minute, over the last
+     * {@link ZoneOccupancy#historyLengthInMinutes} minutes. Minutes before the zone was created or before the server
+     * started aren't included.
+     * @param zoneName The name of the zone to get the occupancy history of.
+     * @return The occupancy history of the zone by the given name, or null if there's no zone by that name.
+     */
+    public static ZoneOccupancy.History getOccupancyHistory(String zoneName)
+    {
+        long calledAt = metrics.now();
+        synchronized(reg)
+        { return metrics.record("getOccupancyHistory", calledAt, metrics.now(), occupancy.getHistory(zoneName)); }
+    }
+
+    /**
+     * Updates the zones the given entity is counted as being in, if it's moved to a different block or world since it
+     * was last updated. NintiCore calls this itself as entities move and join worlds, but plugins that move entities
+     * may call this to have the counts reflect the move immediately.
+     * @param entity The entity to update the zones of.
+     */
+    public static void updateOccupancy(Entity entity)
+    {
+        Pair<List<String>, List<String>> zoneNamesBeforeAndAfter;
+        long calledAt = metrics.now();
+
+        synchronized(reg)
+        {
+            zoneNamesBeforeAndAfter
+                    = metrics.record("updateOccupancy", calledAt, metrics.now(), occupancy.update(entity));
+        }
+
+        if(zoneNamesBeforeAndAfter == null || !(entity instanceof PlayerEntity))
+            return;
+
+        ZoneEventDispatcher.playerMoved((PlayerEntity)entity,
+                                        zoneNamesBeforeAndAfter.getFirst(),
+                                        zoneNamesBeforeAndAfter.getSecond());
+    }
+
+    /**
+     * Stops counting the given entity as being in any zones. NintiCore calls this itself as entities leave worlds.
+     * @param entity The entity to stop counting.
+     */
+    public static void removeFromOccupancy(Entity entity)
+    { synchronized(reg) { occupancy.remove(entity); } }
+
+    /**
+     * Stops counting any entities other than players as being in any zones. NintiCore calls this itself when entities
+     * other than players stop needing to be counted, as they're no longer kept up to date after that.
+     */
+    public static void removeNonPlayersFromOccupancy()
+    { synchronized(reg) { occupancy.removeNonPlayers(); } }
+
+    /**
+     * Stops counting any entities as being in any zones. NintiCore calls this itself when the server stops.
+     */
+    public static void clearOccupancy()
+    { synchronized(reg) { occupancy.clear(); } }
+
+    /**
+     * Registers a listener to be called when a block is broken within the zone by the given name. Where the block is
+     * in multiple zones, listeners registered for each of them are called. The listener is called after the block
+     * break has been checked against the zones and isn't called where the block break has already been cancelled,
+     * including by zone protection. Cancelling the event args cancels the block break.
+     * @param zoneName The name of the zone. This needn't be the name of a zone that currently exists.
+     * @param listener The listener to register.
+     */
+    public static void onBlockBreakIn(String zoneName, EventListener<ZoneEventDispatcher.BlockEventArgs> listener)
+    { ZoneEventDispatcher.addBlockBreakListener(zoneName, listener); }
+
+    /**
+     * Deregisters a listener registered with {@link #onBlockBreakIn(String, EventListener)}.
+     * @param zoneName The name of the zone the listener was registered for.
+     * @param listener The listener to deregister.
+     */
+    public static void removeOnBlockBreakIn(String zoneName,
+                                            EventListener<ZoneEventDispatcher.BlockEventArgs> listener)
+    { ZoneEventDispatcher.removeBlockBreakListener(zoneName, listener); }
+
+    /**
+     * Registers a listener to be called when a block is placed within the zone by the given name. Where the block is
+     * in multiple zones, listeners registered for each of them are called. The listener isn't called where the block
+     * placement has already been cancelled, including by zone protection. Cancelling the event args cancels the block
+     * placement.
+     * @param zoneName The name of the zone. This needn't be the name of a zone that currently exists.
+     * @param listener The listener to register.
+     */
+    public static void onBlockPlaceIn(String zoneName, EventListener<ZoneEventDispatcher.BlockEventArgs> listener)
+    { ZoneEventDispatcher.addBlockPlaceListener(zoneName, listener); }
+
+    /**
+     * Deregisters a listener registered with {@link #onBlockPlaceIn(String, EventListener)}.
+     * @param zoneName The name of the zone the listener was registered for.
+     * @param listener The listener to deregister.
+     */
+    public static void removeOnBlockPlaceIn(String zoneName,
+                                            EventListener<ZoneEventDispatcher.BlockEventArgs> listener)
+    { ZoneEventDispatcher.removeBlockPlaceListener(zoneName, listener); }
+
+    /**
+     * Registers a listener to be called when a player moves to a different block within the zone by the given name,
+     * including by entering the zone. Where the player is in multiple zones, listeners registered for each of them are
+     * called. Players are checked once per tick, so a player moving multiple blocks in a tick is only reported once.
+     * @param zoneName The name of the zone. This needn't be the name of a zone that currently exists.
+     * @param listener The listener to register.
+     */
+    public static void onPlayerMoveIn(String zoneName,
+                                      EventListener<ZoneEventDispatcher.PlayerMoveEventArgs> listener)
+    { ZoneEventDispatcher.addPlayerMoveListener(zoneName, listener); }
+
+    /**
+     * Deregisters a listener registered with {@link #onPlayerMoveIn(String, EventListener)}.
+     * @param zoneName The name of the zone the listener was registered for.
+     * @param listener The listener to deregister.
+     */
+    public static void removeOnPlayerMoveIn(String zoneName,
+                                            EventListener<ZoneEventDispatcher.PlayerMoveEventArgs> listener)
+    { ZoneEventDispatcher.removePlayerMoveListener(zoneName, listener); }
+
+    /**
+     * Gets the metrics recorded of zone queries. Nothing is recorded unless the
+     * {@link NintiCore#PROPERTY_RECORD_ZONE_METRICS} system property is set to "true".
+     * @return The zone query metrics.
+     */
+    public static ZoneMetrics getMetrics()
+    { return metrics; }
+
+    /**
+     * Writes the metrics recorded of zone queries so far to a new file in the zone metrics folder, named by the current
+     * time.
+     * @see ZoneMetrics#dump(Path)
+     * @return The path of the file written to.
+     * @throws IOException If an IO exception is thrown in writing to the file.
+     */
+    public static Path dumpMetrics() throws IOException
+    {
+        String timestamp = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss").format(LocalDateTime.now());
+        Path file = MetricsFolder.resolve("metrics-" + timestamp + ".txt");
+        metrics.dump(file);
+        return file;
+    }
+
+    /**
+     * Saves the contents of the zones registry. Where the {@link NintiCore#PROPERTY_ARCHIVE_ZONES_ON_SAVE} system
+     * property is set to "true" and saving writes any changes, the saved zones are also archived, as by
+     * {@link #archive()}.
      */
     public static void save()
-    { synchronized(reg) { reg.save(); } }
+    {
+        synchronized(reg)
+        {
+            boolean hadUnsavedChanges = reg.hasUnsavedChanges();
+            reg.save();
+
+            if(hadUnsavedChanges && isArchivingOnSave)
+                archive.archive(reg.getZones());
+        }
+    }
+
+    /**
+     * Writes a compressed copy of the zones currently in the zones registry to the zone archive folder. The archive is
+     * written on a background thread.
+     * @see ZoneArchive#archive(List)
+     * @return The name of the archive, by which it may be restored once written.
+     */
+    public static String archive()
+    {
+        List<Zone> zonesToArchive;
+        synchronized(reg) { zonesToArchive = reg.getZones(); }
+        return archive.archive(zonesToArchive);
+    }
+
+    /**
+     * Gets the names of the archives of the zones registry in the zone archive folder.
+     * @return A list of the names of the zone archives, from newest to oldest.
+     * @throws IOException If an IO exception is thrown in listing the zone archive folder.
+     */
+    public static List<String> getArchiveNames() throws IOException
+    { return archive.getArchiveNames(); }
+
+    /**
+     * Replaces the contents of the zones registry with the zones in the zone archive by the given name. The archive is
+     * read without locking the zones registry. The zones restored aren't saved until the zones registry is next saved.
+     * @see ZoneRegistry#restore(List)
+     * @param archiveName The name of the archive to restore.
+     * @throws IllegalArgumentException If the given name isn't the name of a zone archive.
+     * @throws IOException If there's no archive by the given name, or an IO exception is thrown in reading it, or if
+     *                     the archive is not parsable as zones.
+     */
+    public static void restoreArchive(String archiveName) throws IOException
+    {
+        List<Zone> zonesRead = archive.read(archiveName);
+        synchronized(reg) { reg.restore(zonesRead); }
+    }
 
     /**
      * Loads the contents of the zones registry from the zones file.
      */
     public static void load()
     { synchronized(reg) { reg.load(); } }
+
+    /**
+     * Loads the given zones, as read by {@link #readFiles()}, into the zones registry.
+     * @param contents The contents of the zones files.
+     * @see ZoneRegistry#load(ZoneRegistry.FileContents)
+     */
+    public static void load(ZoneRegistry.FileContents contents)
+    { synchronized(reg) { reg.load(contents); } }
+
+    /**
+     * Reloads the zones of the zones files that have changed since the zones registry last saved to or loaded from
+     * them, from the given contents of the zones files, as read by {@link #readFiles()}. Files changed again since
+     * being read, and files containing zones changed in-game that haven't been saved yet, aren't reloaded.
+     * @param contents The contents of the zones files.
+     * @see ZoneRegistry#reloadChangedFiles(ZoneRegistry.FileContents)
+     */
+    public static void reloadChangedFiles(ZoneRegistry.FileContents contents)
+    { synchronized(reg) { reg.reloadChangedFiles(contents); } }
+
+    /**
+     * Reads the zones in the zones files without modifying the zones registry or locking it.
+     * @return The contents of the zones files, or null if there are no zones files to read.
+     * @see ZoneRegistry#readFiles()
+     */
+    public static ZoneRegistry.FileContents readFiles()
+    { return reg.readFiles(); }
+
+    /**
+     * Gets whether or not the zones files have been modified by something other than the zones registry since the
+     * registry last saved to or loaded from them.
+     * @return True if the zones files have been modified externally. Otherwise, false.
+     */
+    public static boolean filesHaveChangedExternally()
+    { return reg.filesHaveChangedExternally(); }
+
+    /**
+     * Gets the path of the folder the zones files are saved in. Each world's zones are saved in a separate file in
+     * this folder.
+     * @return The path of the folder the zones registry is saved to and loaded from.
+     */
+    public static Path getFolderPath()
+    { return ZoneRegistryFolder; }
 }
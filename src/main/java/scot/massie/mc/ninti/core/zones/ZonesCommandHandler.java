@@ -10,8 +10,11 @@ import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import net.minecraft.command.CommandSource;
+import net.minecraft.command.arguments.EntitySummonArgument;
+import net.minecraft.command.arguments.SuggestionProviders;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.StringTextComponent;
@@ -20,10 +23,17 @@ import net.minecraft.util.text.event.ClickEvent;
 import net.minecraft.world.server.ServerWorld;
 import scot.massie.mc.ninti.core.NintiCore;
 import scot.massie.mc.ninti.core.Permissions;
+import scot.massie.mc.ninti.core.utilclasses.EntityLocation;
 
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
 import java.util.function.Supplier;
 
 import static net.minecraft.command.Commands.*;
@@ -37,12 +47,21 @@ public final class ZonesCommandHandler
 
     zones save
     zones load
+    zones archive
+    zones archives
+    zones restore [archive name]
     zones list
     zones list here
+    zones list near [radius]
+    zones list tagged [tag]
     zones list in [world id] at [x] [z]
     zones list in [world id] at [x] [y] [z]
     zones list at [x] [z]
     zones list at [x] [y] [z]
+    zones stats [zone name]
+    zones metrics
+    zones metrics reset
+    zones metrics dump
     zones create [zone name] [world id]
     zones createfromchunk [zone name]
     zones createfromchunk [zone name] [world id] [atX] [atZ]
@@ -50,10 +69,36 @@ public final class ZonesCommandHandler
     zones addto [zone name] chunk [atX] [atZ]
     zones addto [zone name] [fromX] [fromZ] [toX] [toZ]
     zones addto [zone name] [fromX] [fromY] [fromZ] [toX] [toY] [toZ]
+    zones addto [zone name] polygon [x] [z] [x] [z] [x] [z] ...
+    zones addto [zone name] polygonprism [fromY] [toY] [x] [z] [x] [z] [x] [z] ...
+    zones addto [zone name] sphere [centreX] [centreY] [centreZ] [radius]
+    zones addto [zone name] cylinder [centreX] [centreZ] [radius]
+    zones addto [zone name] cylinder [centreX] [centreZ] [radius] [fromY] [toY]
     zones removefrom [zone name] chunk
     zones removefrom [zone name] chunk [atX] [atZ]
     zones removefrom [zone name] [fromX] [fromZ] [toX] [toZ]
     zones removefrom [zone name] [fromX] [fromY] [fromZ] [toX] [toY] [toZ]
+    zones removefrom [zone name] polygon [x] [z] [x] [z] [x] [z] ...
+    zones removefrom [zone name] polygonprism [fromY] [toY] [x] [z] [x] [z] [x] [z] ...
+    zones removefrom [zone name] sphere [centreX] [centreY] [centreZ] [radius]
+    zones removefrom [zone name] cylinder [centreX] [centreZ] [radius]
+    zones removefrom [zone name] cylinder [centreX] [centreZ] [radius] [fromY] [toY]
+    zones compact [zone name]
+    zones fill [zone name] [fromX] [fromY] [fromZ] [toX] [toY] [toZ]
+    zones carve [zone name] [fromX] [fromY] [fromZ] [toX] [toY] [toZ]
+    zones combine [zone name] union [other zone name]
+    zones combine [zone name] union [other zone name] [new zone name]
+    zones combine [zone name] intersect [other zone name]
+    zones combine [zone name] intersect [other zone name] [new zone name]
+    zones combine [zone name] subtract [other zone name]
+    zones combine [zone name] subtract [other zone name] [new zone name]
+    zones setparent [zone name] [parent zone name]
+    zones removeparent [zone name]
+    zones setpriority [zone name] [priority]
+    zones addtag [zone name] [tag]
+    zones removetag [zone name] [tag]
+    zones setcap [zone name] [entity type] [cap]
+    zones removecap [zone name] [entity type]
     zones rename [old zone name] [new zone name]
     zones delete [zone name]
     zones help
@@ -64,6 +109,8 @@ public final class ZonesCommandHandler
     {}
 
     private static final int cacheTimeoutInSeconds = 15;
+    private static final int statsMinutesShown = 10;
+    private static final int metricsQueriesShown = 10;
     private static final String noSuggestionsSuggestion = "(No suggestions)";
 
     private static final Supplier<List<String>> cachedZoneNames
@@ -106,6 +153,20 @@ public final class ZonesCommandHandler
         return builder.buildFuture();
     };
 
+    private static final SuggestionProvider<CommandSource> archiveNameSuggestionProvider
+            = (context, builder) ->
+    {
+        try
+        {
+            for(String archiveName : Zones.getArchiveNames())
+                builder.suggest(archiveName);
+        }
+        catch(IOException e)
+        { builder.suggest(noSuggestionsSuggestion); }
+
+        return builder.buildFuture();
+    };
+
     private static LiteralArgumentBuilder<CommandSource> getAtXYZSubcommand
     (
             Command<CommandSource> doWithXZ,
@@ -126,7 +187,12 @@ public final class ZonesCommandHandler
             Command<CommandSource> doToArea2d,
             Command<CommandSource> doToArea3d,
             Command<CommandSource> doToDerivedChunk,
-            Command<CommandSource> doToSpecifiedChunk
+            Command<CommandSource> doToSpecifiedChunk,
+            Command<CommandSource> doToPolygon,
+            Command<CommandSource> doToPolygonPrism,
+            Command<CommandSource> doToSphere,
+            Command<CommandSource> doToCylinder,
+            Command<CommandSource> doToCylinderWithYRange
     )
     {
         return
@@ -137,6 +203,28 @@ public final class ZonesCommandHandler
                                 .then(argument("at Z", IntegerArgumentType.integer())
                                         .executes(doToSpecifiedChunk)))
                         .executes(doToDerivedChunk))
+                .then(literal("polygon")
+                        .then(argument("vertices", StringArgumentType.greedyString())
+                                .executes(doToPolygon)))
+                .then(literal("polygonprism")
+                        .then(argument("from Y", IntegerArgumentType.integer())
+                                .then(argument("to Y", IntegerArgumentType.integer())
+                                        .then(argument("vertices", StringArgumentType.greedyString())
+                                                .executes(doToPolygonPrism)))))
+                .then(literal("sphere")
+                        .then(argument("centre X", IntegerArgumentType.integer())
+                                .then(argument("centre Y", IntegerArgumentType.integer())
+                                        .then(argument("centre Z", IntegerArgumentType.integer())
+                                                .then(argument("radius", IntegerArgumentType.integer(0))
+                                                        .executes(doToSphere))))))
+                .then(literal("cylinder")
+                        .then(argument("centre X", IntegerArgumentType.integer())
+                                .then(argument("centre Z", IntegerArgumentType.integer())
+                                        .then(argument("radius", IntegerArgumentType.integer(0))
+                                                .then(argument("from Y", IntegerArgumentType.integer())
+                                                        .then(argument("to Y", IntegerArgumentType.integer())
+                                                                .executes(doToCylinderWithYRange)))
+                                                .executes(doToCylinder)))))
                 .then(argument("coörd arg 1", IntegerArgumentType.integer())
                         .then(argument("coörd arg 2", IntegerArgumentType.integer())
                                 .then(argument("coörd arg 3", IntegerArgumentType.integer())
@@ -147,6 +235,37 @@ public final class ZonesCommandHandler
                                                 .executes(doToArea2d)))));
     }
 
+    private static RequiredArgumentBuilder<CommandSource, String> getCuboidSubcommand(Command<CommandSource> doToCuboid)
+    {
+        return
+        argument("zone name", StringArgumentType.word())
+                .suggests(existingZoneNameSuggestionProvider)
+                .then(argument("coörd arg 1", IntegerArgumentType.integer())
+                        .then(argument("coörd arg 2", IntegerArgumentType.integer())
+                                .then(argument("coörd arg 3", IntegerArgumentType.integer())
+                                        .then(argument("coörd arg 4", IntegerArgumentType.integer())
+                                                .then(argument("coörd arg 5", IntegerArgumentType.integer())
+                                                        .then(argument("coörd arg 6", IntegerArgumentType.integer())
+                                                                .executes(doToCuboid)))))));
+    }
+
+    private static LiteralArgumentBuilder<CommandSource> getCombineSubcommand
+    (
+            String operationName,
+            Command<CommandSource> doInPlace,
+            Command<CommandSource> doIntoNewZone
+    )
+    {
+        return
+        literal(operationName)
+                .then(argument("other zone name", StringArgumentType.word())
+                        .suggests(existingZoneNameSuggestionProvider)
+                        .then(argument("new zone name", StringArgumentType.word())
+                                .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_CREATE))
+                                .executes(doIntoNewZone))
+                        .executes(doInPlace));
+    }
+
     private static boolean hasPerm(CommandSource src, String... perm)
     { return Permissions.commandSourceHasPermission(src, perm); }
 
@@ -162,10 +281,27 @@ public final class ZonesCommandHandler
                     .then(literal("load")
                             .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_FILEHANDLING_LOAD))
                             .executes(ZonesCommandHandler::cmdLoad))
+                    .then(literal("archive")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_FILEHANDLING_SAVE))
+                            .executes(ZonesCommandHandler::cmdArchive))
+                    .then(literal("archives")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_FILEHANDLING_LOAD))
+                            .executes(ZonesCommandHandler::cmdArchives))
+                    .then(literal("restore")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_FILEHANDLING_LOAD))
+                            .then(argument("archive name", StringArgumentType.word())
+                                    .suggests(archiveNameSuggestionProvider)
+                                    .executes(ZonesCommandHandler::cmdRestore)))
                     .then(literal("list")
                             .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_READ))
                             .then(literal("here")
                                     .executes(ZonesCommandHandler::cmdList_here))
+                            .then(literal("near")
+                                    .then(argument("radius", IntegerArgumentType.integer(0))
+                                            .executes(ZonesCommandHandler::cmdList_near)))
+                            .then(literal("tagged")
+                                    .then(argument("tag", StringArgumentType.word())
+                                            .executes(ZonesCommandHandler::cmdList_tagged)))
                             .then(literal("in")
                                     .then(argument("world id", StringArgumentType.word())
                                             .suggests(worldIdSuggestionProvider)
@@ -174,6 +310,18 @@ public final class ZonesCommandHandler
                             .then(getAtXYZSubcommand(ZonesCommandHandler::cmdList_inDerivedWorld_xz,
                                                      ZonesCommandHandler::cmdList_inDerivedWorld_xyz))
                             .executes(ZonesCommandHandler::cmdList))
+                    .then(literal("stats")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_READ))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .executes(ZonesCommandHandler::cmdStats)))
+                    .then(literal("metrics")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_METRICS))
+                            .then(literal("reset")
+                                    .executes(ZonesCommandHandler::cmdMetricsReset))
+                            .then(literal("dump")
+                                    .executes(ZonesCommandHandler::cmdMetricsDump))
+                            .executes(ZonesCommandHandler::cmdMetrics))
                     .then(literal("create")
                             .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_CREATE))
                             .then(argument("zone name", StringArgumentType.word())
@@ -197,14 +345,102 @@ public final class ZonesCommandHandler
                                     ZonesCommandHandler::cmdAddTo_area_2d,
                                     ZonesCommandHandler::cmdAddTo_area_3d,
                                     ZonesCommandHandler::cmdAddTo_chunk_derived,
-                                    ZonesCommandHandler::cmdAddTo_chunk_specified)))
+                                    ZonesCommandHandler::cmdAddTo_chunk_specified,
+                                    ZonesCommandHandler::cmdAddTo_polygon,
+                                    ZonesCommandHandler::cmdAddTo_polygonPrism,
+                                    ZonesCommandHandler::cmdAddTo_sphere,
+                                    ZonesCommandHandler::cmdAddTo_cylinder,
+                                    ZonesCommandHandler::cmdAddTo_cylinderWithYRange)))
                     .then(literal("removefrom")
                             .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
                             .then(getMutateZoneSubcommand(
                                     ZonesCommandHandler::cmdRemoveFrom_area_2d,
                                     ZonesCommandHandler::cmdRemoveFrom_area_3d,
                                     ZonesCommandHandler::cmdRemoveFrom_chunk_derived,
-                                    ZonesCommandHandler::cmdRemoveFrom_chunk_specified)))
+                                    ZonesCommandHandler::cmdRemoveFrom_chunk_specified,
+                                    ZonesCommandHandler::cmdRemoveFrom_polygon,
+                                    ZonesCommandHandler::cmdRemoveFrom_polygonPrism,
+                                    ZonesCommandHandler::cmdRemoveFrom_sphere,
+                                    ZonesCommandHandler::cmdRemoveFrom_cylinder,
+                                    ZonesCommandHandler::cmdRemoveFrom_cylinderWithYRange)))
+                    .then(literal("compact")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .executes(ZonesCommandHandler::cmdCompact)))
+                    .then(literal("fill")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO))
+                            .then(getCuboidSubcommand(ZonesCommandHandler::cmdFill)))
+                    .then(literal("carve")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(getCuboidSubcommand(ZonesCommandHandler::cmdCarve)))
+                    .then(literal("combine")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(getCombineSubcommand("union",
+                                                               ZonesCommandHandler::cmdCombine_union_inPlace,
+                                                               ZonesCommandHandler::cmdCombine_union_intoNew))
+                                    .then(getCombineSubcommand("intersect",
+                                                               ZonesCommandHandler::cmdCombine_intersect_inPlace,
+                                                               ZonesCommandHandler::cmdCombine_intersect_intoNew))
+                                    .then(getCombineSubcommand("subtract",
+                                                               ZonesCommandHandler::cmdCombine_subtract_inPlace,
+                                                               ZonesCommandHandler::cmdCombine_subtract_intoNew))))
+                    .then(literal("setparent")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(argument("parent zone name", StringArgumentType.word())
+                                            .suggests(existingZoneNameSuggestionProvider)
+                                            .executes(ZonesCommandHandler::cmdSetParent))))
+                    .then(literal("removeparent")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .executes(ZonesCommandHandler::cmdRemoveParent)))
+                    .then(literal("setpriority")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(argument("priority", IntegerArgumentType.integer())
+                                            .executes(ZonesCommandHandler::cmdSetPriority))))
+                    .then(literal("addtag")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(argument("tag", StringArgumentType.word())
+                                            .executes(ZonesCommandHandler::cmdAddTag))))
+                    .then(literal("removetag")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(argument("tag", StringArgumentType.word())
+                                            .executes(ZonesCommandHandler::cmdRemoveTag))))
+                    .then(literal("setcap")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(argument("entity type", EntitySummonArgument.entitySummon())
+                                            .suggests(SuggestionProviders.SUMMONABLE_ENTITIES)
+                                            .then(argument("cap", IntegerArgumentType.integer(0))
+                                                    .executes(ZonesCommandHandler::cmdSetCap)))))
+                    .then(literal("removecap")
+                            .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_MODIFY_ADDTO,
+                                                          NintiCore.PERMISSION_ZONES_WRITE_MODIFY_REMOVEFROM))
+                            .then(argument("zone name", StringArgumentType.word())
+                                    .suggests(existingZoneNameSuggestionProvider)
+                                    .then(argument("entity type", EntitySummonArgument.entitySummon())
+                                            .suggests(SuggestionProviders.SUMMONABLE_ENTITIES)
+                                            .executes(ZonesCommandHandler::cmdRemoveCap))))
                     .then(literal("rename")
                             .requires(src -> hasPerm(src, NintiCore.PERMISSION_ZONES_WRITE_RENAME))
                             .then(argument("zone name", StringArgumentType.word())
@@ -232,6 +468,48 @@ public final class ZonesCommandHandler
         return 1;
     }
 
+    private static int cmdArchive(CommandContext<CommandSource> cmdContext)
+    {
+        sendMessage(cmdContext, "Archiving zones as " + Zones.archive());
+        return 1;
+    }
+
+    private static int cmdArchives(CommandContext<CommandSource> cmdContext)
+    {
+        List<String> archiveNames;
+
+        try
+        { archiveNames = Zones.getArchiveNames(); }
+        catch(IOException e)
+        {
+            sendMessage(cmdContext, "Could not list zone archives: " + e.getMessage());
+            return 1;
+        }
+
+        sendMessage(cmdContext, "Zone archives: ");
+
+        for(String archiveName : archiveNames)
+            sendMessage(cmdContext, " - " + archiveName);
+
+        return 1;
+    }
+
+    private static int cmdRestore(CommandContext<CommandSource> cmdContext)
+    {
+        String archiveName = StringArgumentType.getString(cmdContext, "archive name");
+
+        try
+        { Zones.restoreArchive(archiveName); }
+        catch(IllegalArgumentException | IOException e)
+        {
+            sendMessage(cmdContext, "Could not restore zones: " + e.getMessage());
+            return 1;
+        }
+
+        sendMessage(cmdContext, "Restored zones from " + archiveName);
+        return 1;
+    }
+
     private static int cmdList(CommandContext<CommandSource> cmdContext)
     {
         sendMessage(cmdContext, "Zones: ");
@@ -260,6 +538,36 @@ public final class ZonesCommandHandler
         return 1;
     }
 
+    private static int cmdList_near(CommandContext<CommandSource> cmdContext)
+    {
+        Entity sourceEntity = cmdContext.getSource().getEntity();
+
+        if(sourceEntity == null)
+        {
+            sendMessage(cmdContext, "Near where?");
+            return 1;
+        }
+
+        int radius = IntegerArgumentType.getInteger(cmdContext, "radius");
+        sendMessage(cmdContext, "Zones within " + radius + " blocks of your location: ");
+
+        for(Zone zone : Zones.getZonesWithin(new EntityLocation(sourceEntity), radius))
+            sendMessage(cmdContext, " - " + zone.getName());
+
+        return 1;
+    }
+
+    private static int cmdList_tagged(CommandContext<CommandSource> cmdContext)
+    {
+        String tag = StringArgumentType.getString(cmdContext, "tag");
+        sendMessage(cmdContext, "Zones tagged " + tag + ": ");
+
+        for(Zone zone : Zones.getZonesWithTag(tag))
+            sendMessage(cmdContext, " - " + zone.getName());
+
+        return 1;
+    }
+
     private static int cmdList_inDerivedWorld_xz(CommandContext<CommandSource> cmdContext)
     {
         Entity sourceEntity = cmdContext.getSource().getEntity();
@@ -322,6 +630,93 @@ public final class ZonesCommandHandler
         return 1;
     }
 
+    private static int cmdStats(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        ZoneOccupancy.History history = Zones.getOccupancyHistory(zoneName);
+
+        if(history == null)
+        {
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+            return 1;
+        }
+
+        sendMessage(cmdContext, "Occupancy of " + zoneName
+                                + " over the last " + history.getMinuteCount() + " minutes: ");
+        sendMessage(cmdContext, " - Players now: " + history.getCurrentPlayers());
+        sendMessage(cmdContext, " - Peak players: " + history.getPeakPlayers());
+        sendMessage(cmdContext, " - Average players: " + String.format("%.2f", history.getAveragePlayers()));
+
+        if(history.getMinuteCount() == 0)
+            return 1;
+
+        sendMessage(cmdContext, " - Peak players and player-seconds by minute: ");
+        DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm").withZone(ZoneId.systemDefault());
+
+        for(int i = Math.max(0, history.getMinuteCount() - statsMinutesShown); i < history.getMinuteCount(); i++)
+        {
+            sendMessage(cmdContext, "    " + timeFormat.format(Instant.ofEpochMilli(history.getMinuteStartTime(i)))
+                                    + " - " + history.getPeakPlayers(i)
+                                    + ", " + Math.round(history.getPlayerSeconds(i)));
+        }
+
+        return 1;
+    }
+
+    private static int cmdMetrics(CommandContext<CommandSource> cmdContext)
+    {
+        ZoneMetrics metrics = Zones.getMetrics();
+
+        if(!metrics.isEnabled())
+        {
+            sendMessage(cmdContext, "Zone metrics aren't being recorded. Start the server with -D"
+                                    + NintiCore.PROPERTY_RECORD_ZONE_METRICS + "=true to record them.");
+            return 1;
+        }
+
+        List<ZoneMetrics.QueryMetrics> queries = metrics.getQueryMetrics();
+        queries.sort(Comparator.comparingLong(ZoneMetrics.QueryMetrics::getTotalNanos).reversed());
+        sendMessage(cmdContext, "Zone queries taking the most time (calls, total ms, mean/p99/max µs, "
+                                + "max lock wait µs, mean results): ");
+
+        for(ZoneMetrics.QueryMetrics query : queries.subList(0, Math.min(metricsQueriesShown, queries.size())))
+        {
+            long calls = query.getCallCount();
+
+            if(calls == 0)
+                continue;
+
+            long meanResults = Math.round((double)query.getTotalResultCount() / calls);
+            long p99Nanos = query.getLatencyHistogram().getPercentileUpperBound(99);
+            sendMessage(cmdContext, " - " + query.getName() + ": " + calls
+                                    + ", " + query.getTotalNanos() / 1_000_000
+                                    + ", " + query.getTotalNanos() / calls / 1000
+                                    + "/" + (p99Nanos == Long.MAX_VALUE ? ">max" : p99Nanos / 1000)
+                                    + "/" + query.getMaxNanos() / 1000
+                                    + ", " + query.getMaxLockWaitNanos() / 1000
+                                    + ", " + meanResults);
+        }
+
+        return 1;
+    }
+
+    private static int cmdMetricsReset(CommandContext<CommandSource> cmdContext)
+    {
+        Zones.getMetrics().reset();
+        sendMessage(cmdContext, "Zone metrics reset.");
+        return 1;
+    }
+
+    private static int cmdMetricsDump(CommandContext<CommandSource> cmdContext)
+    {
+        try
+        { sendMessage(cmdContext, "Zone metrics written to " + Zones.dumpMetrics()); }
+        catch(IOException e)
+        { sendMessage(cmdContext, "Could not write zone metrics: " + e.getMessage()); }
+
+        return 1;
+    }
+
     private static int cmdCreate_derivedWorld(CommandContext<CommandSource> cmdContext)
     {
         String zoneName = StringArgumentType.getString(cmdContext, "zone name");
@@ -357,7 +752,7 @@ public final class ZonesCommandHandler
 
         String worldId = getWorldId(sourceEntity.getEntityWorld());
         Zone zone = new Zone(zoneName, worldId);
-        zone.addRegion(Zone.ZoneRegionRectangle.ofEntitysChunk(sourceEntity));
+        zone.addRegion(ZoneEntities.getChunkRegion(sourceEntity));
         Zones.register(zone);
         return 1;
     }
@@ -434,7 +829,7 @@ public final class ZonesCommandHandler
             return 1;
         }
 
-        if(Zones.addToZoneIfThere(zoneName, Zone.ZoneRegionRectangle.ofEntitysChunk(sourceEntity)) == null)
+        if(Zones.addToZoneIfThere(zoneName, ZoneEntities.getChunkRegion(sourceEntity)) == null)
             sendMessage(cmdContext, "No zone found by the name " + zoneName);
 
         return 1;
@@ -452,6 +847,21 @@ public final class ZonesCommandHandler
         return 1;
     }
 
+    private static int cmdAddTo_polygon(CommandContext<CommandSource> cmdContext)
+    { return addPolygonToZone(cmdContext, false, false); }
+
+    private static int cmdAddTo_polygonPrism(CommandContext<CommandSource> cmdContext)
+    { return addPolygonToZone(cmdContext, true, false); }
+
+    private static int cmdAddTo_sphere(CommandContext<CommandSource> cmdContext)
+    { return addSphereToZone(cmdContext, false); }
+
+    private static int cmdAddTo_cylinder(CommandContext<CommandSource> cmdContext)
+    { return addCylinderToZone(cmdContext, false, false); }
+
+    private static int cmdAddTo_cylinderWithYRange(CommandContext<CommandSource> cmdContext)
+    { return addCylinderToZone(cmdContext, true, false); }
+
     private static int cmdRemoveFrom_area_2d(CommandContext<CommandSource> cmdContext)
     {
         String zoneName = StringArgumentType.getString(cmdContext, "zone name");
@@ -512,7 +922,7 @@ public final class ZonesCommandHandler
             return 1;
         }
 
-        if(Zones.addToZoneIfThere(zoneName, Zone.ZoneRegionRectangle.ofEntitysChunk(sourceEntity).negating()) == null)
+        if(Zones.addToZoneIfThere(zoneName, ZoneEntities.getChunkRegion(sourceEntity).negating()) == null)
             sendMessage(cmdContext, "No zone found by the name " + zoneName);
 
         return 1;
@@ -530,6 +940,338 @@ public final class ZonesCommandHandler
         return 1;
     }
 
+    private static int cmdRemoveFrom_polygon(CommandContext<CommandSource> cmdContext)
+    { return addPolygonToZone(cmdContext, false, true); }
+
+    private static int cmdRemoveFrom_polygonPrism(CommandContext<CommandSource> cmdContext)
+    { return addPolygonToZone(cmdContext, true, true); }
+
+    private static int cmdRemoveFrom_sphere(CommandContext<CommandSource> cmdContext)
+    { return addSphereToZone(cmdContext, true); }
+
+    private static int cmdRemoveFrom_cylinder(CommandContext<CommandSource> cmdContext)
+    { return addCylinderToZone(cmdContext, false, true); }
+
+    private static int cmdRemoveFrom_cylinderWithYRange(CommandContext<CommandSource> cmdContext)
+    { return addCylinderToZone(cmdContext, true, true); }
+
+    private static int addPolygonToZone(CommandContext<CommandSource> cmdContext, boolean hasYRange, boolean negates)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String[] coörds = StringArgumentType.getString(cmdContext, "vertices").trim().split("[\\s,]+");
+
+        if(coörds.length % 2 != 0)
+        {
+            sendMessage(cmdContext, "Vertices must be given as pairs of X and Z coördinates.");
+            return 1;
+        }
+
+        int[] xs = new int[coörds.length / 2];
+        int[] zs = new int[coörds.length / 2];
+
+        try
+        {
+            for(int i = 0; i < xs.length; i++)
+            {
+                xs[i] = Integer.parseInt(coörds[i * 2]);
+                zs[i] = Integer.parseInt(coörds[i * 2 + 1]);
+            }
+        }
+        catch(NumberFormatException e)
+        {
+            sendMessage(cmdContext, "Coördinates must be whole numbers.");
+            return 1;
+        }
+
+        Zone.ZoneRegionPolygon region;
+
+        try
+        {
+            region = hasYRange ? new Zone.ZoneRegionPolygon(xs, zs,
+                                                            IntegerArgumentType.getInteger(cmdContext, "from Y"),
+                                                            IntegerArgumentType.getInteger(cmdContext, "to Y"),
+                                                            negates)
+                               : new Zone.ZoneRegionPolygon(xs, zs, negates);
+        }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, e.getMessage());
+            return 1;
+        }
+
+        if(Zones.addToZoneIfThere(zoneName, region) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int addSphereToZone(CommandContext<CommandSource> cmdContext, boolean negates)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        int centreX = IntegerArgumentType.getInteger(cmdContext, "centre X");
+        int centreY = IntegerArgumentType.getInteger(cmdContext, "centre Y");
+        int centreZ = IntegerArgumentType.getInteger(cmdContext, "centre Z");
+        int radius = IntegerArgumentType.getInteger(cmdContext, "radius");
+        Zone.ZoneRegionSphere region;
+
+        try
+        { region = new Zone.ZoneRegionSphere(centreX, centreY, centreZ, radius, negates); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, e.getMessage());
+            return 1;
+        }
+
+        if(Zones.addToZoneIfThere(zoneName, region) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int addCylinderToZone(CommandContext<CommandSource> cmdContext, boolean hasYRange, boolean negates)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        int centreX = IntegerArgumentType.getInteger(cmdContext, "centre X");
+        int centreZ = IntegerArgumentType.getInteger(cmdContext, "centre Z");
+        int radius = IntegerArgumentType.getInteger(cmdContext, "radius");
+        Zone.ZoneRegionCylinder region;
+
+        try
+        {
+            region = hasYRange ? new Zone.ZoneRegionCylinder(centreX, centreZ, radius,
+                                                             IntegerArgumentType.getInteger(cmdContext, "from Y"),
+                                                             IntegerArgumentType.getInteger(cmdContext, "to Y"),
+                                                             negates)
+                               : new Zone.ZoneRegionCylinder(centreX, centreZ, radius, negates);
+        }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, e.getMessage());
+            return 1;
+        }
+
+        if(Zones.addToZoneIfThere(zoneName, region) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdCompact(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        Zone compactedZone;
+
+        try
+        { compactedZone = Zones.compactToVoxelColumns(zoneName); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, "Could not compact " + zoneName + ": " + e.getMessage());
+            return 1;
+        }
+
+        if(compactedZone == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdFill(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        int fromX = IntegerArgumentType.getInteger(cmdContext, "coörd arg 1");
+        int fromY = IntegerArgumentType.getInteger(cmdContext, "coörd arg 2");
+        int fromZ = IntegerArgumentType.getInteger(cmdContext, "coörd arg 3");
+        int toX = IntegerArgumentType.getInteger(cmdContext, "coörd arg 4");
+        int toY = IntegerArgumentType.getInteger(cmdContext, "coörd arg 5");
+        int toZ = IntegerArgumentType.getInteger(cmdContext, "coörd arg 6");
+
+        Zone result;
+
+        try
+        { result = Zones.fillInOctree(zoneName, fromX, fromY, fromZ, toX, toY, toZ); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, "Could not fill " + zoneName + ": " + e.getMessage());
+            return 1;
+        }
+
+        if(result == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdCarve(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        int fromX = IntegerArgumentType.getInteger(cmdContext, "coörd arg 1");
+        int fromY = IntegerArgumentType.getInteger(cmdContext, "coörd arg 2");
+        int fromZ = IntegerArgumentType.getInteger(cmdContext, "coörd arg 3");
+        int toX = IntegerArgumentType.getInteger(cmdContext, "coörd arg 4");
+        int toY = IntegerArgumentType.getInteger(cmdContext, "coörd arg 5");
+        int toZ = IntegerArgumentType.getInteger(cmdContext, "coörd arg 6");
+
+        Zone result;
+
+        try
+        { result = Zones.carveFromOctree(zoneName, fromX, fromY, fromZ, toX, toY, toZ); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, "Could not carve " + zoneName + ": " + e.getMessage());
+            return 1;
+        }
+
+        if(result == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdCombine_union_inPlace(CommandContext<CommandSource> cmdContext)
+    { return combineZones(cmdContext, Zone::union, false); }
+
+    private static int cmdCombine_union_intoNew(CommandContext<CommandSource> cmdContext)
+    { return combineZones(cmdContext, Zone::union, true); }
+
+    private static int cmdCombine_intersect_inPlace(CommandContext<CommandSource> cmdContext)
+    { return combineZones(cmdContext, Zone::intersect, false); }
+
+    private static int cmdCombine_intersect_intoNew(CommandContext<CommandSource> cmdContext)
+    { return combineZones(cmdContext, Zone::intersect, true); }
+
+    private static int cmdCombine_subtract_inPlace(CommandContext<CommandSource> cmdContext)
+    { return combineZones(cmdContext, Zone::subtract, false); }
+
+    private static int cmdCombine_subtract_intoNew(CommandContext<CommandSource> cmdContext)
+    { return combineZones(cmdContext, Zone::subtract, true); }
+
+    private static int combineZones(CommandContext<CommandSource> cmdContext,
+                                    BinaryOperator<Zone> operation,
+                                    boolean intoNewZone)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String otherZoneName = StringArgumentType.getString(cmdContext, "other zone name");
+        Zone zone = Zones.getZone(zoneName);
+        Zone otherZone = Zones.getZone(otherZoneName);
+
+        if(zone == null || otherZone == null)
+        {
+            sendMessage(cmdContext, "No zone found by the name " + (zone == null ? zoneName : otherZoneName));
+            return 1;
+        }
+
+        Zone result;
+
+        try
+        { result = operation.apply(zone, otherZone); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, "Could not combine " + zoneName + " and " + otherZoneName + ": " + e.getMessage());
+            return 1;
+        }
+
+        if(intoNewZone)
+            result = result.copyWithNewName(StringArgumentType.getString(cmdContext, "new zone name"));
+
+        Zones.register(result);
+        return 1;
+    }
+
+    private static int cmdSetParent(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String parentZoneName = StringArgumentType.getString(cmdContext, "parent zone name");
+        Zone result;
+
+        try
+        { result = Zones.setParent(zoneName, parentZoneName); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, "Could not set the parent of " + zoneName + ": " + e.getMessage());
+            return 1;
+        }
+
+        if(result == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdRemoveParent(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+
+        if(Zones.setParent(zoneName, null) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdSetPriority(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        int priority = IntegerArgumentType.getInteger(cmdContext, "priority");
+
+        if(Zones.setPriority(zoneName, priority) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdAddTag(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String tag = StringArgumentType.getString(cmdContext, "tag");
+        Zone result;
+
+        try
+        { result = Zones.addTag(zoneName, tag); }
+        catch(IllegalArgumentException e)
+        {
+            sendMessage(cmdContext, "Could not tag " + zoneName + ": " + e.getMessage());
+            return 1;
+        }
+
+        if(result == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdRemoveTag(CommandContext<CommandSource> cmdContext)
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String tag = StringArgumentType.getString(cmdContext, "tag");
+
+        if(Zones.removeTag(zoneName, tag) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdSetCap(CommandContext<CommandSource> cmdContext) throws CommandSyntaxException
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String entityTypeId = EntitySummonArgument.getEntityId(cmdContext, "entity type").toString();
+        int cap = IntegerArgumentType.getInteger(cmdContext, "cap");
+
+        if(Zones.setEntityCap(zoneName, entityTypeId, cap) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
+    private static int cmdRemoveCap(CommandContext<CommandSource> cmdContext) throws CommandSyntaxException
+    {
+        String zoneName = StringArgumentType.getString(cmdContext, "zone name");
+        String entityTypeId = EntitySummonArgument.getEntityId(cmdContext, "entity type").toString();
+
+        if(Zones.removeEntityCap(zoneName, entityTypeId) == null)
+            sendMessage(cmdContext, "No zone found by the name " + zoneName);
+
+        return 1;
+    }
+
     private static int cmdRename(CommandContext<CommandSource> cmdContext)
     {
         String oldZoneName = StringArgumentType.getString(cmdContext, "zone name");